@@ -0,0 +1,174 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_javac;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.xml.parsers.ParserConfigurationException;
+
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.Plugin;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.Trees;
+
+import org.gaul.modernizer_maven_plugin.Modernizer;
+import org.gaul.modernizer_maven_plugin.Violation;
+import org.xml.sax.SAXException;
+
+/**
+ * Reports legacy API use while javac compiles, instead of re-reading the
+ * class files afterwards.  Rules come from the same violation files and use
+ * the same target version semantics as the Maven goal, and violations point
+ * at the exact source position of the offending expression.
+ *
+ * <p>Enable with {@code -Xplugin:"Modernizer javaVersion=8"} and this
+ * artifact on the processor path.  Options, separated by spaces:
+ *
+ * <ul>
+ * <li>{@code javaVersion=N}, required: target Java version</li>
+ * <li>{@code violationsFile=path}, repeatable: additional rules layered on
+ *     top of the default rules</li>
+ * <li>{@code ignorePackages=a.b,c.d}: packages and their subpackages to
+ *     skip</li>
+ * <li>{@code ignoreGeneratedClasses=true}: honor {@code @Generated}</li>
+ * <li>{@code failOnViolations=true}: report errors instead of warnings</li>
+ * </ul>
+ */
+public final class ModernizerPlugin implements Plugin {
+    static final String NAME = "Modernizer";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void init(JavacTask task, String... args) {
+        String javaVersion = null;
+        List<String> violationsFiles = new ArrayList<>();
+        Set<String> ignorePackages = new HashSet<>();
+        boolean ignoreGeneratedClasses = false;
+        boolean failOnViolations = false;
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals == -1) {
+                throw new IllegalArgumentException(
+                        "Expected key=value, got: " + arg);
+            }
+            String key = arg.substring(0, equals);
+            String value = arg.substring(equals + 1);
+            switch (key) {
+            case "javaVersion":
+                javaVersion = value;
+                break;
+            case "violationsFile":
+                violationsFiles.add(value);
+                break;
+            case "ignorePackages":
+                ignorePackages.addAll(Arrays.asList(value.split(",")));
+                break;
+            case "ignoreGeneratedClasses":
+                ignoreGeneratedClasses = Boolean.parseBoolean(value);
+                break;
+            case "failOnViolations":
+                failOnViolations = Boolean.parseBoolean(value);
+                break;
+            default:
+                throw new IllegalArgumentException(
+                        "Unknown option: " + key);
+            }
+        }
+        if (javaVersion == null) {
+            throw new IllegalArgumentException(
+                    "javaVersion is not set but is required");
+        }
+
+        Modernizer modernizer = new Modernizer(javaVersion,
+                loadViolations(violationsFiles),
+                Set.<String>of(),
+                Set.<Pattern>of(),
+                ignorePackages,
+                Set.<String>of(),
+                Set.<Pattern>of(),
+                ignoreGeneratedClasses);
+        Diagnostic.Kind kind = failOnViolations ?
+                Diagnostic.Kind.ERROR : Diagnostic.Kind.WARNING;
+        Trees trees = Trees.instance(task);
+        task.addTaskListener(new TaskListener() {
+            @Override
+            public void finished(TaskEvent event) {
+                if (event.getKind() != TaskEvent.Kind.ANALYZE) {
+                    return;
+                }
+                // ANALYZE fires once per top-level class, so scan only the
+                // class rather than the whole compilation unit.
+                TypeElement typeElement = event.getTypeElement();
+                TreePath path = typeElement == null ? null :
+                        trees.getPath(typeElement);
+                if (path == null) {
+                    return;
+                }
+                new ViolationScanner(modernizer, trees, task.getElements(),
+                        task.getTypes(), (tree, violation) ->
+                                trees.printMessage(kind,
+                                        violation.getComment(), tree,
+                                        event.getCompilationUnit()))
+                        .scan(path, null);
+            }
+        });
+    }
+
+    private static Map<String, Collection<Violation>> loadViolations(
+            List<String> violationsFiles) {
+        try {
+            Map<String, Collection<Violation>> violations;
+            try (InputStream is = Modernizer.class.getResourceAsStream(
+                    "/modernizer.xml")) {
+                violations = Modernizer.parseFromXml(is);
+            }
+            for (String violationsFile : violationsFiles) {
+                try (InputStream is = Files.newInputStream(
+                        Path.of(violationsFile))) {
+                    violations.putAll(Modernizer.parseFromXml(is));
+                }
+            }
+            return violations;
+        } catch (IOException ioe) {
+            throw new UncheckedIOException("Error reading violation data",
+                    ioe);
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IllegalArgumentException(
+                    "Error parsing violation data", e);
+        }
+    }
+}
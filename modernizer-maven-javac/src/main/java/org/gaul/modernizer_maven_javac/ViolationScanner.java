@@ -0,0 +1,339 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_javac;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.BiConsumer;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+import com.sun.source.tree.AnnotationTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.ModifiersTree;
+import com.sun.source.tree.NewClassTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreePathScanner;
+import com.sun.source.util.Trees;
+
+import org.gaul.modernizer_maven_plugin.Modernizer;
+import org.gaul.modernizer_maven_plugin.Violation;
+
+/**
+ * Walks an attributed class and reports references which violate a rule.
+ * References are translated to the javap-format tokens the bytecode scan
+ * sees: the qualifying type of the reference as owner and the erased
+ * descriptor.  Compile-time constants are skipped since javac inlines them
+ * and the bytecode scan never sees them.
+ */
+final class ViolationScanner extends TreePathScanner<Void, Void> {
+    private final Modernizer modernizer;
+    private final Trees trees;
+    private final Elements elements;
+    private final Types types;
+    private final BiConsumer<Tree, Violation> reporter;
+    /** Internal names of the classes enclosing the current tree. */
+    private final Deque<String> classNames = new ArrayDeque<>();
+
+    ViolationScanner(Modernizer modernizer, Trees trees, Elements elements,
+            Types types, BiConsumer<Tree, Violation> reporter) {
+        this.modernizer = modernizer;
+        this.trees = trees;
+        this.elements = elements;
+        this.types = types;
+        this.reporter = reporter;
+    }
+
+    @Override
+    public Void visitClass(ClassTree tree, Void unused) {
+        Element element = trees.getElement(getCurrentPath());
+        if (!(element instanceof TypeElement) || isSuppressed(element)) {
+            return null;
+        }
+        TypeElement typeElement = (TypeElement) element;
+        classNames.push(internalName(typeElement));
+        try {
+            // Anonymous classes have no implements clause in the tree, so
+            // check the attributed interfaces and report each at its clause
+            // when there is one.
+            for (TypeMirror implemented : typeElement.getInterfaces()) {
+                Element type = types.asElement(implemented);
+                if (!(type instanceof TypeElement)) {
+                    continue;
+                }
+                Tree position = tree;
+                for (Tree clause : tree.getImplementsClause()) {
+                    if (type.equals(trees.getElement(
+                            new TreePath(getCurrentPath(), clause)))) {
+                        position = clause;
+                    }
+                }
+                check(position, internalName((TypeElement) type));
+            }
+            return super.visitClass(tree, null);
+        } finally {
+            classNames.pop();
+        }
+    }
+
+    @Override
+    public Void visitMethod(MethodTree tree, Void unused) {
+        Element element = trees.getElement(getCurrentPath());
+        if (element != null && isSuppressed(element)) {
+            return null;
+        }
+        return super.visitMethod(tree, null);
+    }
+
+    /**
+     * Checks the annotations which the bytecode scan sees: those on classes
+     * and methods, unless javac discards them.  Annotations on fields,
+     * parameters, local variables and type uses, and the arguments of any
+     * annotation, are not checked there either.
+     */
+    @Override
+    public Void visitAnnotation(AnnotationTree tree, Void unused) {
+        TreePath modifiers = getCurrentPath().getParentPath();
+        if (!(modifiers.getLeaf() instanceof ModifiersTree)) {
+            return null;
+        }
+        Tree declaration = modifiers.getParentPath().getLeaf();
+        if (!(declaration instanceof ClassTree) &&
+                !(declaration instanceof MethodTree)) {
+            return null;
+        }
+        Element type = trees.getElement(
+                new TreePath(getCurrentPath(), tree.getAnnotationType()));
+        if (type instanceof TypeElement && !isSourceRetention(type)) {
+            check(tree, internalName((TypeElement) type));
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitMemberSelect(MemberSelectTree tree, Void unused) {
+        Element element = trees.getElement(getCurrentPath());
+        TypeElement owner = null;
+        if (element != null && isMember(element)) {
+            TreePath receiver = new TreePath(getCurrentPath(),
+                    tree.getExpression());
+            Element receiverElement = trees.getElement(receiver);
+            if (receiverElement instanceof TypeElement) {
+                owner = (TypeElement) receiverElement;
+            } else {
+                owner = qualifyingType(element, trees.getTypeMirror(receiver));
+            }
+        }
+        if (owner != null) {
+            checkMember(tree, owner, element);
+        }
+        return super.visitMemberSelect(tree, null);
+    }
+
+    @Override
+    public Void visitIdentifier(IdentifierTree tree, Void unused) {
+        Element element = trees.getElement(getCurrentPath());
+        if (element != null && isMember(element)) {
+            // Unqualified references, including super(...) and this(...),
+            // are attributed to the declaring class.
+            checkMember(tree, (TypeElement) element.getEnclosingElement(),
+                    element);
+        }
+        return super.visitIdentifier(tree, null);
+    }
+
+    @Override
+    public Void visitNewClass(NewClassTree tree, Void unused) {
+        Element element = trees.getElement(getCurrentPath());
+        if (element instanceof ExecutableElement) {
+            TypeElement owner = (TypeElement) element.getEnclosingElement();
+            if (owner.getNestingKind() == NestingKind.ANONYMOUS) {
+                // The anonymous class constructor delegates to its
+                // superclass constructor with the same arguments.
+                Element superclass = types.asElement(owner.getSuperclass());
+                if (superclass instanceof TypeElement &&
+                        owner.getInterfaces().isEmpty()) {
+                    owner = (TypeElement) superclass;
+                } else {
+                    owner = null;
+                }
+            }
+            if (owner != null) {
+                checkMember(tree, owner, element);
+            }
+        }
+        return super.visitNewClass(tree, null);
+    }
+
+    private static boolean isMember(Element element) {
+        switch (element.getKind()) {
+        case METHOD:
+        case CONSTRUCTOR:
+        case FIELD:
+        case ENUM_CONSTANT:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Returns the type javac records as the owner of a member reference
+     * through a receiver of the given type, or null if there is no rule
+     * which could match, e.g., for array members.
+     */
+    private TypeElement qualifyingType(Element member, TypeMirror receiver) {
+        if (receiver == null) {
+            return null;
+        }
+        TypeMirror erased = types.erasure(receiver);
+        if (erased.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement receiverType =
+                (TypeElement) ((DeclaredType) erased).asElement();
+        TypeElement declaring = (TypeElement) member.getEnclosingElement();
+        // Object methods invoked through an interface are owned by Object.
+        if (receiverType.getKind() == ElementKind.INTERFACE &&
+                declaring.getQualifiedName().contentEquals(
+                        "java.lang.Object")) {
+            return declaring;
+        }
+        return receiverType;
+    }
+
+    private void checkMember(Tree tree, TypeElement owner, Element member) {
+        String token;
+        if (member instanceof VariableElement) {
+            if (((VariableElement) member).getConstantValue() != null) {
+                return;
+            }
+            token = internalName(owner) + "." + member.getSimpleName() +
+                    ":" + descriptor(member.asType());
+        } else {
+            ExecutableElement method = (ExecutableElement) member;
+            StringBuilder sb = new StringBuilder();
+            sb.append(internalName(owner)).append('.');
+            if (method.getKind() == ElementKind.CONSTRUCTOR) {
+                sb.append("\"<init>\"");
+            } else {
+                sb.append(method.getSimpleName());
+            }
+            sb.append(":(");
+            TypeElement declaring =
+                    (TypeElement) method.getEnclosingElement();
+            if (method.getKind() == ElementKind.CONSTRUCTOR &&
+                    declaring.getNestingKind() == NestingKind.MEMBER &&
+                    !declaring.getModifiers().contains(Modifier.STATIC)) {
+                // inner class constructors take the enclosing instance
+                sb.append(descriptor(
+                        declaring.getEnclosingElement().asType()));
+            }
+            for (VariableElement parameter : method.getParameters()) {
+                sb.append(descriptor(parameter.asType()));
+            }
+            sb.append(')').append(descriptor(method.getReturnType()));
+            token = sb.toString();
+        }
+        check(tree, token);
+    }
+
+    private void check(Tree tree, String token) {
+        String className = classNames.peek();
+        if (className == null) {
+            return;
+        }
+        for (Violation violation : modernizer.check(className, token)) {
+            reporter.accept(tree, violation);
+        }
+    }
+
+    private static boolean isSourceRetention(Element annotationType) {
+        Retention retention = annotationType.getAnnotation(Retention.class);
+        return retention != null &&
+                retention.value() == RetentionPolicy.SOURCE;
+    }
+
+    /**
+     * Returns whether a class or method is suppressed.  As in the bytecode
+     * scan, annotations on fields and variables do not suppress anything.
+     */
+    private boolean isSuppressed(Element element) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            TypeElement type = (TypeElement)
+                    annotation.getAnnotationType().asElement();
+            if (modernizer.isSuppressionAnnotation(internalName(type))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String internalName(TypeElement type) {
+        return elements.getBinaryName(type).toString().replace('.', '/');
+    }
+
+    private String descriptor(TypeMirror type) {
+        TypeMirror erased = types.erasure(type);
+        switch (erased.getKind()) {
+        case BOOLEAN:
+            return "Z";
+        case BYTE:
+            return "B";
+        case CHAR:
+            return "C";
+        case SHORT:
+            return "S";
+        case INT:
+            return "I";
+        case LONG:
+            return "J";
+        case FLOAT:
+            return "F";
+        case DOUBLE:
+            return "D";
+        case VOID:
+            return "V";
+        case ARRAY:
+            return "[" + descriptor(((ArrayType) erased).getComponentType());
+        case DECLARED:
+            return "L" + internalName((TypeElement)
+                    ((DeclaredType) erased).asElement()) + ";";
+        default:
+            return "Ljava/lang/Object;";
+        }
+    }
+}
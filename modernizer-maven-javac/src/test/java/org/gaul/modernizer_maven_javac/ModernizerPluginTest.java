@@ -0,0 +1,176 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_javac;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import com.sun.source.util.JavacTask;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public final class ModernizerPluginTest {
+    @TempDir
+    Path output;
+
+    private List<String> compile(String source, String... args) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics =
+                new DiagnosticCollector<>();
+        JavaFileObject file = new SimpleJavaFileObject(
+                URI.create("string:///Test.java"),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        JavacTask task = (JavacTask) compiler.getTask(null, null, diagnostics,
+                List.of("-d", output.toString(), "-Xlint:-options"),
+                null, List.of(file));
+        new ModernizerPlugin().init(task, args);
+        task.call();
+        List<String> messages = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic :
+                diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() != Diagnostic.Kind.NOTE) {
+                messages.add(diagnostic.getKind() + ":" +
+                        diagnostic.getLineNumber() + ": " +
+                        diagnostic.getMessage(Locale.ROOT));
+            }
+        }
+        return messages;
+    }
+
+    @Test
+    public void reportsConstructorsMethodsAndFields() {
+        List<String> messages = compile(String.join("\n",
+                "import java.util.Vector;",
+                "public class Test {",
+                "    Object vector = new Vector<String>();",
+                "    byte[] bytes(String s) throws Exception {",
+                "        return s.getBytes(\"UTF-8\");",
+                "    }",
+                "}"), "javaVersion=8");
+        assertThat(messages).hasSize(2);
+        assertThat(messages.get(0)).startsWith("WARNING:3: ")
+                .contains("ArrayList");
+        assertThat(messages.get(1)).startsWith("WARNING:5: ");
+    }
+
+    @Test
+    public void honorsTargetVersion() {
+        assertThat(compile(String.join("\n",
+                "public class Test {",
+                "    Object vector = new java.util.Vector<String>();",
+                "}"), "javaVersion=1")).isEmpty();
+    }
+
+    @Test
+    public void reportsImplementedInterfaces() {
+        List<String> messages = compile(String.join("\n",
+                "import java.util.Enumeration;",
+                "public class Test implements Enumeration<String> {",
+                "    public boolean hasMoreElements() { return false; }",
+                "    public String nextElement() { return null; }",
+                "    Object anonymous = new Enumeration<String>() {",
+                "        public boolean hasMoreElements() { return false; }",
+                "        public String nextElement() { return null; }",
+                "    };",
+                "}"), "javaVersion=8", "failOnViolations=true");
+        assertThat(messages).hasSize(2).allMatch(m -> m.startsWith("ERROR:"));
+    }
+
+    @Test
+    public void honorsSuppressModernizer() {
+        assertThat(compile(String.join("\n",
+                "import org.gaul.modernizer_maven_annotations" +
+                        ".SuppressModernizer;",
+                "public class Test {",
+                "    @SuppressModernizer",
+                "    Object method() {",
+                "        return new java.util.Vector<String>();",
+                "    }",
+                "    @SuppressModernizer",
+                "    static class Nested {",
+                "        Object vector = new java.util.Vector<String>();",
+                "    }",
+                "}"), "javaVersion=8")).isEmpty();
+    }
+
+    @Test
+    public void checksRetainedClassAndMethodAnnotationsOnly()
+            throws Exception {
+        Path rules = output.resolve("rules.xml");
+        Files.write(rules, String.join("\n",
+                "<modernizer>",
+                "  <violation>",
+                "    <name>java/lang/Deprecated</name>",
+                "    <version>1</version>",
+                "    <comment>deprecated</comment>",
+                "  </violation>",
+                "  <violation>",
+                "    <name>java/lang/Override</name>",
+                "    <version>1</version>",
+                "    <comment>override</comment>",
+                "  </violation>",
+                "</modernizer>").getBytes(StandardCharsets.UTF_8));
+        List<String> messages = compile(String.join("\n",
+                "@Deprecated",
+                "public class Test {",
+                "    @Deprecated Object field;",
+                "    @Deprecated void method(@Deprecated int parameter) {",
+                "        @Deprecated int local = parameter;",
+                "    }",
+                "    @Override public String toString() { return \"\"; }",
+                "}"), "javaVersion=8", "violationsFile=" + rules);
+        // As in the bytecode scan: not fields, parameters, locals or
+        // annotations which javac discards, e.g., @Override.
+        assertThat(messages).hasSize(2);
+        assertThat(messages.get(0)).startsWith("WARNING:1: ");
+        assertThat(messages.get(1)).startsWith("WARNING:4: ");
+    }
+
+    @Test
+    public void fieldAnnotationsDoNotSuppress() {
+        // Field initializers compile into constructors, which the bytecode
+        // scan checks regardless of annotations on the field.
+        List<String> messages = compile(String.join("\n",
+                "import javax.annotation.processing.Generated;",
+                "public class Test {",
+                "    @Generated(\"tool\")",
+                "    Object vector = new java.util.Vector<String>();",
+                "}"), "javaVersion=8", "ignoreGeneratedClasses=true");
+        assertThat(messages).hasSize(1);
+        assertThat(messages.get(0)).startsWith("WARNING:4: ");
+    }
+}
@@ -0,0 +1,812 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import static java.lang.String.format;
+import static java.util.Collections.emptyList;
+import static org.gaul.modernizer_maven_plugin.Utils.checkArgument;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import javax.inject.Inject;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.DefaultDependencyResolutionRequest;
+import org.apache.maven.project.DependencyResolutionException;
+import org.apache.maven.project.DependencyResolutionResult;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectDependenciesResolver;
+import org.eclipse.aether.graph.Dependency;
+import org.gaul.modernizer_maven_plugin.output.CodeClimateOutputer;
+import org.gaul.modernizer_maven_plugin.output.LogLevel;
+import org.gaul.modernizer_maven_plugin.output.LoggerOutputer;
+import org.gaul.modernizer_maven_plugin.output.OutputFormat;
+import org.gaul.modernizer_maven_plugin.output.Outputer;
+import org.objectweb.asm.ClassReader;
+import org.xml.sax.SAXException;
+
+/**
+ * Configuration and rule loading shared by the goals which scan classes.
+ */
+abstract class AbstractModernizerMojo extends AbstractMojo {
+
+    private static final String CLASSPATH_PREFIX = "classpath:";
+
+    /** The maven project (effective pom). */
+    @Parameter(defaultValue = "${project}", readonly = true)
+    private MavenProject project;
+
+    /** The build session, whose repositories resolve the classpath. */
+    @Parameter(defaultValue = "${session}", readonly = true)
+    private MavenSession session;
+
+    /** Resolves the classpath if resolveInheritance or pruneRules is set. */
+    @Inject
+    private ProjectDependenciesResolver dependenciesResolver;
+
+    /**
+     * Enables violations based on target Java version, e.g., 1.8. For example,
+     * Modernizer will detect uses of Vector as violations when targeting Java
+     * 1.2 but not when targeting Java 1.1.
+     */
+    @Parameter(property = "modernizer.javaVersion")
+    private String javaVersion;
+
+    /** Fail phase if Modernizer detects any violations. */
+    @Parameter(defaultValue = "true", property = "modernizer.failOnViolations")
+    private boolean failOnViolations = true;
+
+    /** Run Modernizer on test classes. */
+    @Parameter(defaultValue = "true",
+               property = "modernizer.includeTestClasses")
+    private boolean includeTestClasses = true;
+
+    /**
+     * User-specified violation file. Also disables standard violation checks.
+     * Can point to files from classpath using an absolute path, e.g.:
+     *
+     * classpath:/modernizer.xml
+     *
+     * for the default violations file.
+     */
+    @Parameter(property = "modernizer.violationsFile")
+    private String violationsFile = "classpath:/modernizer.xml";
+
+    /**
+     * User-specified violation files. The violations loaded from
+     * violationsFiles override the ones specified in violationsFile (or the
+     * default violations file if no violationsFile is given). Violations from
+     * the latter files override violations from the former files.
+     *
+     * Can point to files from classpath using an absolute path, e.g.:
+     *
+     * classpath:/modernizer.xml
+     *
+     * for the default violations file.
+     */
+    @Parameter(property = "modernizer.violationsFiles")
+    private List<String> violationsFiles = emptyList();
+
+    /**
+     * Disables user-specified violations. This is a text file with one
+     * exclusion per line in the javap format:
+     *
+     * java/lang/String.getBytes:(Ljava/lang/String;)[B.
+     */
+    @Parameter(property = "modernizer.exclusionsFile")
+    private String exclusionsFile;
+
+    /**
+     * Format to output violations in.
+     */
+    @Parameter(defaultValue = "CONSOLE", property = "modernizer.outputFormat")
+    private OutputFormat outputFormat;
+
+    /**
+     * Path to the file to output violations to.
+     * Ignored if {@code modernizer.outputFormat} is {@code CONSOLE}.
+     */
+    @Parameter(property = "modernizer.outputFile")
+    private File outputFile;
+
+    /**
+     * Severity of modernizer violations for CodeClimate.
+     * Ignored if {@code modernizer.outputFormat} is not {@code CODECLIMATE}.
+     */
+    @Parameter(defaultValue = "MINOR",
+            property = "modernizer.codeclimateSeverity")
+    private CodeClimateOutputer.Severity codeClimateSeverity;
+
+    /**
+     * Log level to emit violations at, e.g., error, warn, info, debug.
+     * Ignored if {@code modernizer.outputFormat} is not {@code CONSOLE}.
+     */
+    @Parameter(defaultValue = "error",
+               property = "modernizer.violationLogLevel")
+    private String violationLogLevel;
+
+    /**
+     * Classes annotated with {@code @Generated} will be excluded from
+     * scanning, as will individual methods and constructors annotated with
+     * {@code @Generated}, e.g., members generated by Lombok.
+     * */
+    @Parameter(defaultValue = "true",
+               property = "modernizer.ignoreGeneratedClasses")
+    private boolean ignoreGeneratedClasses;
+
+    /**
+     * Violations to disable. Each exclusion should be in the javap format:
+     *
+     * java/lang/String.getBytes:(Ljava/lang/String;)[B.
+     */
+    @Parameter
+    private Set<String> exclusions = new HashSet<>();
+
+    /**
+     * Violation patterns to disable. Each exclusion should be a
+     * regular expression that matches the javap format:
+     *
+     * java/lang/.*
+     */
+    @Parameter
+    private Set<String> exclusionPatterns = new HashSet<>();
+
+    /**
+     * Package prefixes to ignore, specified using &lt;ignorePackage&gt; child
+     * elements. Specifying foo.bar subsequently ignores foo.bar.*,
+     * foo.bar.baz.* and so on.
+     */
+    @Parameter
+    private Set<String> ignorePackages = new HashSet<>();
+
+    /**
+     * Fully qualified class names (incl. package) to ignore by regular
+     * expression, specified using &lt;ignoreClassNamePattern&gt; child
+     * elements.  Specifying .*.bar.* ignores foo.bar.*, foo.bar.baz.* but
+     * also bar.* and so on; or .*Immutable ignores all class with names
+     * ending in Immutable in all packages.
+     */
+    @Parameter
+    private Set<String> ignoreClassNamePatterns = new HashSet<>();
+
+    /**
+     * Maximum number of threads scanning classes, shared by every execution
+     * in this JVM, e.g., the modules of a parallel build.  Zero uses one
+     * thread per processor.  The first execution determines the limit.
+     */
+    @Parameter(defaultValue = "0", property = "modernizer.threads")
+    private int threads = 0;
+
+    /**
+     * Logs the given number of slowest classes and the scan time, size and
+     * violation density of each package after scanning, e.g., to find
+     * generated code worth ignoring.  Zero disables the report.
+     */
+    @Parameter(defaultValue = "0", property = "modernizer.costReport")
+    private int costReport = 0;
+
+    /**
+     * Reads class files with a scanner which only decodes the constants,
+     * annotations, field and method instructions and line numbers which
+     * Modernizer checks, instead of with ASM.  Class files newer than the
+     * scanner understands are still read with ASM.
+     */
+    @Parameter(defaultValue = "false",
+            property = "modernizer.lightweightScanner")
+    private boolean lightweightScanner = false;
+
+    /**
+     * Also reports references to legacy fields and methods through a
+     * subclass or subinterface, e.g., {@code Stack.addElement} for a rule
+     * on {@code Vector.addElement}.  Resolving supertypes reads the
+     * classpath and the JDK; the supertypes of jars and the JDK are cached
+     * in cacheDirectory and reused while they are unchanged.
+     */
+    @Parameter(defaultValue = "false",
+            property = "modernizer.resolveInheritance")
+    private boolean resolveInheritance = false;
+
+    /**
+     * Drops the rules for types which are neither on the classpath nor in
+     * the JDK before scanning, e.g., Guava rules in modules which do not
+     * depend on Guava.  Classes cannot reference such types, so this only
+     * shrinks the rules each class is checked against.  Shares the index
+     * of resolveInheritance.
+     */
+    @Parameter(defaultValue = "false", property = "modernizer.pruneRules")
+    private boolean pruneRules = false;
+
+    /**
+     * Maps the rules from a table in cacheDirectory, written by the first
+     * build with the same violation files, instead of parsing them.  Builds
+     * and forked workers on one machine share the table in the page cache.
+     */
+    @Parameter(defaultValue = "false", property = "modernizer.mapRules")
+    private boolean mapRules = false;
+
+    /** Directory for indexes which are reused across builds. */
+    @Parameter(defaultValue = "${user.home}/.m2/modernizer",
+            property = "modernizer.cacheDirectory")
+    private File cacheDirectory;
+
+    /**
+     * Stores the violations of each scanned class in the scans subdirectory
+     * of cacheDirectory, keyed by a hash of the class file and the rules,
+     * exclusions and ignored packages which apply, so that builds of other
+     * checkouts or branches on the machine reuse them for identical class
+     * files.  Ignored when resolveInheritance is set.
+     */
+    @Parameter(defaultValue = "false", property = "modernizer.scanCache")
+    private boolean scanCache = false;
+
+    /**
+     * Size in megabytes above which the least recently used entries of the
+     * scan cache are evicted after each scan.
+     */
+    @Parameter(defaultValue = "256",
+            property = "modernizer.scanCacheMaxMegabytes")
+    private long scanCacheMaxMegabytes = 256;
+
+    /**
+     * Also records the references which each scanned class makes, whatever
+     * the rules, in referenceIndex, for the query goal to evaluate other
+     * rules, exclusions or target versions without rescanning.
+     */
+    @Parameter(defaultValue = "false",
+            property = "modernizer.recordReferences")
+    private boolean recordReferences = false;
+
+    /** Reference index which recordReferences writes and query reads. */
+    @Parameter(
+            defaultValue = "${project.build.directory}/modernizer-references.bin",
+            property = "modernizer.referenceIndex")
+    private File referenceIndex;
+
+    /**
+     * Skips the plugin execution.
+     *
+     * @since 1.4.0
+     */
+    @Parameter(defaultValue = "false", property = "modernizer.skip")
+    private boolean skip = false;
+
+    @Override
+    public final void execute() throws MojoExecutionException {
+        if (skip) {
+            getLog().info("Skipping modernizer execution!");
+            return;
+        }
+
+        if (javaVersion == null || javaVersion.isEmpty()) {
+            throw new MojoExecutionException(
+                    "javaVersion is not set but is required for execution.");
+        }
+
+        executeScan();
+    }
+
+    /** Runs the goal after the common configuration has been validated. */
+    protected abstract void executeScan() throws MojoExecutionException;
+
+    protected final MavenProject getProject() {
+        return project;
+    }
+
+    /**
+     * Returns the projects whose classpaths supply supertypes when
+     * resolveInheritance is set.
+     */
+    protected List<MavenProject> getClasspathProjects() {
+        return Collections.singletonList(project);
+    }
+
+    protected final boolean isIncludeTestClasses() {
+        return includeTestClasses;
+    }
+
+    protected final boolean isIgnoreGeneratedClasses() {
+        return ignoreGeneratedClasses;
+    }
+
+    protected final Path getReferenceIndex() {
+        return referenceIndex.toPath();
+    }
+
+    protected final LogLevel getLogLevel() throws MojoExecutionException {
+        return parseLogLevel(violationLogLevel);
+    }
+
+    /**
+     * Parses the configured violations and exclusions and returns a
+     * Modernizer which additionally ignores the given class names.
+     */
+    protected final Modernizer createModernizer(
+            ClassNameTrie ignoreClassNames) throws MojoExecutionException {
+        Set<String> allExclusions = new HashSet<>();
+        allExclusions.addAll(exclusions);
+        if (exclusionsFile != null) {
+            allExclusions.addAll(readExclusionsFile(exclusionsFile));
+        }
+
+        Set<Pattern> allExclusionPatterns =
+                compilePatterns(exclusionPatterns, "exclusion pattern");
+        Set<Pattern> allIgnoreFullClassNamePatterns =
+                compilePatterns(ignoreClassNamePatterns,
+                        "ignoreClassNamePattern");
+
+        Modernizer modernizer;
+        if (mapRules) {
+            modernizer = new Modernizer(javaVersion, loadRuleTable(),
+                    allExclusions, allExclusionPatterns, ignorePackages,
+                    Collections.<String>emptySet(),
+                    allIgnoreFullClassNamePatterns, ignoreGeneratedClasses);
+        } else {
+            Map<String, Collection<Violation>> allViolations =
+                    parseViolations(violationsFile);
+            for (String violationsFilePath : violationsFiles) {
+                allViolations.putAll(parseViolations(violationsFilePath));
+            }
+            modernizer = new Modernizer(javaVersion, allViolations,
+                    allExclusions, allExclusionPatterns, ignorePackages,
+                    Collections.<String>emptySet(),
+                    allIgnoreFullClassNamePatterns, ignoreGeneratedClasses);
+        }
+        modernizer = modernizer.withIgnoreClassNames(ignoreClassNames)
+                .withLightweightScanner(lightweightScanner);
+        if (!pruneRules && !resolveInheritance) {
+            return modernizer;
+        }
+        SupertypeIndex classpath = loadSupertypes();
+        if (pruneRules) {
+            int ruleCount = modernizer.getRuleCount();
+            modernizer = modernizer.withReachableRules(classpath);
+            getLog().debug("Checking " + modernizer.getRuleCount() + " of " +
+                    ruleCount + " rules whose types are on the classpath");
+        }
+        return modernizer.withSupertypes(resolveInheritance ? classpath :
+                null);
+    }
+
+    private SupertypeIndex loadSupertypes() throws MojoExecutionException {
+        Set<Path> classpath = new LinkedHashSet<>();
+        for (MavenProject classpathProject : getClasspathProjects()) {
+            classpath.addAll(resolveClasspath(classpathProject));
+        }
+        long start = System.nanoTime();
+        try {
+            SupertypeIndex supertypes = SupertypeIndex.load(
+                    cacheDirectory.toPath(), classpath);
+            getLog().debug("Indexed supertypes of " + classpath.size() +
+                    " classpath entries in " +
+                    (System.nanoTime() - start) / 1_000_000 + " ms");
+            return supertypes;
+        } catch (IOException ioe) {
+            throw new MojoExecutionException("Error indexing supertypes",
+                    ioe);
+        }
+    }
+
+    /**
+     * Resolves the compile or, with includeTestClasses, test classpath of a
+     * project.  The goals do not require dependency resolution, so that
+     * builds without resolveInheritance or pruneRules, which alone read
+     * the classpath, do not pay for it.
+     */
+    private List<Path> resolveClasspath(MavenProject classpathProject)
+            throws MojoExecutionException {
+        Set<String> scopes = new HashSet<>(Arrays.asList("compile",
+                "provided", "system"));
+        List<Path> classpath = new ArrayList<>();
+        if (includeTestClasses) {
+            scopes.addAll(Arrays.asList("runtime", "test"));
+            classpath.add(Paths.get(
+                    classpathProject.getBuild().getTestOutputDirectory()));
+        }
+        classpath.add(Paths.get(
+                classpathProject.getBuild().getOutputDirectory()));
+        DefaultDependencyResolutionRequest request =
+                new DefaultDependencyResolutionRequest(classpathProject,
+                        session.getRepositorySession());
+        request.setResolutionFilter((node, parents) ->
+                node.getDependency() == null ||
+                scopes.contains(node.getDependency().getScope()));
+        DependencyResolutionResult result;
+        try {
+            result = dependenciesResolver.resolve(request);
+        } catch (DependencyResolutionException dre) {
+            throw new MojoExecutionException("Error resolving classpath of " +
+                    classpathProject.getId(), dre);
+        }
+        for (Dependency dependency : result.getDependencies()) {
+            File file = dependency.getArtifact().getFile();
+            if (file != null && scopes.contains(dependency.getScope())) {
+                classpath.add(file.toPath());
+            }
+        }
+        return classpath;
+    }
+
+    /**
+     * Returns the classes among classFiles which are suppressed by
+     * {@code @SuppressModernizer} or, if enabled, {@code @Generated}.
+     */
+    protected final ClassNameTrie detectIgnoredClassNames(
+            Collection<Path> classFiles) throws MojoExecutionException {
+        ClassNameTrie ignoreClassNames = new ClassNameTrie();
+        try {
+            collectIgnoredClassNames(classFiles, ignoreClassNames);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error reading suppressions", e);
+        }
+        return ignoreClassNames;
+    }
+
+    /**
+     * Checks every class file on the scheduler shared by all executions and
+     * returns the violations in the order of classFiles.  Each class's
+     * violations are added as soon as those before it are, rather than
+     * after the whole scan.  If recordReferences is set, the references of
+     * each class are recorded from the same read and written to
+     * referenceIndex.
+     */
+    protected final OccurrenceStore scan(Modernizer modernizer,
+            List<Path> classFiles, Function<Path, String> sourceName)
+            throws MojoExecutionException {
+        CostReport costs = costReport > 0 ? new CostReport() : null;
+        Modernizer observed = costs == null ? modernizer :
+                modernizer.withListener(costs);
+        ScanCache cache = createScanCache(modernizer);
+        ReferenceIndex.Builder references = recordReferences ?
+                new ReferenceIndex.Builder() : null;
+        Function<Path, Collection<ViolationOccurrence>> check = path -> {
+            byte[] classFile;
+            try {
+                classFile = Files.readAllBytes(path);
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+            ClassReader classReader = null;
+            Collection<ViolationOccurrence> occurrences;
+            if (cache != null) {
+                occurrences = cache.check(observed, classFile);
+            } else {
+                classReader = new ClassReader(classFile);
+                occurrences = observed.check(classReader);
+            }
+            if (references != null) {
+                references.record(classReader != null ? classReader :
+                        new ClassReader(classFile), sourceName.apply(path));
+            }
+            return occurrences;
+        };
+        int parallelism = threads > 0 ? threads :
+                Runtime.getRuntime().availableProcessors();
+        try {
+            OccurrenceStore occurrences = new OccurrenceStore();
+            ScanScheduler.shared(parallelism).forEachOrdered(classFiles,
+                    check, (path, result) -> {
+                        if (!result.isEmpty()) {
+                            occurrences.addAll(sourceName.apply(path),
+                                    result);
+                        }
+                    });
+            if (costs != null) {
+                for (String line : costs.format(costReport)) {
+                    getLog().info(line);
+                }
+            }
+            if (cache != null) {
+                reportScanCache(cache);
+            }
+            if (references != null) {
+                writeReferences(references.build());
+            }
+            return occurrences;
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof UncheckedIOException) {
+                cause = cause.getCause();
+            }
+            throw new MojoExecutionException("Error reading Java classes",
+                    cause);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted reading Java classes",
+                    ie);
+        }
+    }
+
+    /**
+     * Returns the scan cache for the modernizer, or null if scanCache is not
+     * set or violations depend on other classes.
+     */
+    private ScanCache createScanCache(Modernizer modernizer) {
+        if (!scanCache) {
+            return null;
+        }
+        byte[] fingerprint = modernizer.fingerprint();
+        if (fingerprint == null) {
+            getLog().debug("Not caching scans which resolve inheritance");
+            return null;
+        }
+        return new ScanCache(cacheDirectory.toPath().resolve("scans"),
+                fingerprint, scanCacheMaxMegabytes * 1024 * 1024);
+    }
+
+    /**
+     * Logs the hits and misses of the scan cache and evicts its least
+     * recently used entries.  Failures to write or evict entries only cost
+     * later builds a scan, so they are logged as warnings.
+     */
+    private void reportScanCache(ScanCache cache) {
+        if (cache.getWriteFailure() != null) {
+            getLog().warn("Could not write " + cache.getWriteFailures() +
+                    " scan cache entries: " + cache.getWriteFailure());
+        }
+        int evicted;
+        try {
+            evicted = cache.evict();
+        } catch (IOException ioe) {
+            getLog().warn("Could not evict scan cache entries: " + ioe);
+            evicted = 0;
+        }
+        getLog().info("Scan cache: " + cache.getHits() + " hits, " +
+                cache.getMisses() + " misses, evicted " + evicted +
+                " entries");
+    }
+
+    /** Writes the references recorded during a scan to referenceIndex. */
+    private void writeReferences(ReferenceIndex index)
+            throws MojoExecutionException {
+        try {
+            index.write(referenceIndex.toPath());
+        } catch (IOException ioe) {
+            throw new MojoExecutionException(
+                    "Error recording references", ioe);
+        }
+        getLog().info("Recorded references of " + index.size() +
+                " classes in " + referenceIndex);
+    }
+
+    /**
+     * Outputs violations in the configured format and fails if there are
+     * any and failOnViolations is set.
+     */
+    protected final void report(OccurrenceStore occurrences)
+            throws MojoExecutionException {
+        try {
+            buildOutputer(getLog(), outputFormat, getLogLevel(),
+                    Paths.get(project.getBuild().getDirectory()), outputFile,
+                    codeClimateSeverity).output(occurrences);
+        } catch (IOException ioe) {
+            throw new MojoExecutionException(
+                    "Error outputting violations", ioe);
+        }
+
+        if (failOnViolations && !occurrences.isEmpty()) {
+            throw new MojoExecutionException("Found " + occurrences.size() +
+                    " violations");
+        }
+    }
+
+    private MappedRuleTable loadRuleTable() throws MojoExecutionException {
+        List<byte[]> sources = new ArrayList<>();
+        try {
+            try (InputStream is = openViolations(violationsFile)) {
+                sources.add(Utils.readAllBytes(is));
+            }
+            for (String violationsFilePath : violationsFiles) {
+                try (InputStream is = openViolations(violationsFilePath)) {
+                    sources.add(Utils.readAllBytes(is));
+                }
+            }
+            return MappedRuleTable.load(cacheDirectory.toPath(), sources);
+        } catch (IOException ioe) {
+            throw new MojoExecutionException(
+                    "Error reading violation data", ioe);
+        } catch (ParserConfigurationException pce) {
+            throw new MojoExecutionException(
+                    "Error parsing violation data", pce);
+        } catch (SAXException saxe) {
+            throw new MojoExecutionException(
+                    "Error parsing violation data", saxe);
+        }
+    }
+
+    private static Map<String, Collection<Violation>> parseViolations(
+            String violationsFilePath) throws MojoExecutionException {
+        try (InputStream is = openViolations(violationsFilePath)) {
+            return Modernizer.parseFromXml(is);
+        } catch (IOException ioe) {
+            throw new MojoExecutionException(
+                    "Error reading violation data", ioe);
+        } catch (ParserConfigurationException pce) {
+            throw new MojoExecutionException(
+                    "Error parsing violation data", pce);
+        } catch (SAXException saxe) {
+            throw new MojoExecutionException(
+                    "Error parsing violation data", saxe);
+        }
+    }
+
+    private static InputStream openViolations(String violationsFilePath)
+            throws MojoExecutionException {
+        if (violationsFilePath.startsWith(CLASSPATH_PREFIX)) {
+            String classpath =
+                    violationsFilePath.substring(CLASSPATH_PREFIX.length());
+            checkArgument(classpath.startsWith("/"), format(
+                    "Only absolute classpath references are allowed, got [%s]",
+                    classpath));
+            InputStream is = Modernizer.class.getResourceAsStream(classpath);
+            if (is == null) {
+                throw new MojoExecutionException(
+                        "Error opening violation file: " + classpath);
+            }
+            return is;
+        }
+        Path path = FileSystems.getDefault().getPath(violationsFilePath);
+        try {
+            return Files.newInputStream(path);
+        } catch (IOException fnfe) {
+            throw new MojoExecutionException(
+                    "Error opening violation file: " + path, fnfe);
+        }
+    }
+
+    private Collection<String> readExclusionsFile(String exclusionsFilePath)
+            throws MojoExecutionException {
+        InputStream is;
+        Path path = FileSystems.getDefault().getPath(exclusionsFilePath);
+        try {
+            if (Files.exists(path)) {
+                is = Files.newInputStream(path);
+            } else {
+                is = this.getClass().getClassLoader().getResourceAsStream(
+                        exclusionsFilePath);
+                if (is == null) {
+                    throw new MojoExecutionException(
+                            "Could not find exclusion file: " +
+                            exclusionsFilePath);
+                }
+            }
+        } catch (IOException ioe) {
+            throw new MojoExecutionException(
+                    "Error opening exclusion file: " +
+                    exclusionsFilePath, ioe);
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(is, StandardCharsets.UTF_8))) {
+            Collection<String> lines = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                lines.add(line);
+            }
+            return lines;
+        } catch (IOException ioe) {
+            throw new MojoExecutionException(
+                    "Error reading exclusion file: " +
+                    exclusionsFilePath, ioe);
+        }
+    }
+
+    private static Set<Pattern> compilePatterns(Collection<String> patterns,
+            String label) throws MojoExecutionException {
+        Set<Pattern> compiled = new HashSet<>();
+        for (String pattern : patterns) {
+            try {
+                compiled.add(Pattern.compile(pattern));
+            } catch (PatternSyntaxException pse) {
+                throw new MojoExecutionException(
+                        "Invalid " + label + ": " + pattern, pse);
+            }
+        }
+        return compiled;
+    }
+
+    private void collectIgnoredClassNames(Collection<Path> classFiles,
+            ClassNameTrie sink) throws IOException {
+        AnnotationDetector suppressModernizer =
+                SuppressModernizerAnnotationDetector.newDetector();
+        suppressModernizer.scan(classFiles);
+        suppressModernizer.addSuppressedClassNames(sink);
+        if (ignoreGeneratedClasses) {
+            AnnotationDetector generated =
+                    SuppressGeneratedAnnotationDetector.newDetector();
+            generated.scan(classFiles);
+            if (getLog().isDebugEnabled()) {
+                getLog().debug("The following generated classes" +
+                        " will be ignored");
+                for (String s : generated.computeSuppressedClassNames()) {
+                    getLog().debug(s);
+                }
+            }
+            generated.addSuppressedClassNames(sink);
+        }
+    }
+
+    static LogLevel parseLogLevel(String value)
+            throws MojoExecutionException {
+        for (LogLevel l : LogLevel.values()) {
+            if (l.name().equalsIgnoreCase(value)) {
+                return l;
+            }
+        }
+        throw new MojoExecutionException("Unknown violationLogLevel: '" +
+                value + "', must be one of " +
+                Arrays.asList(LogLevel.values()));
+    }
+
+    static Outputer buildOutputer(Log log, OutputFormat outputFormat,
+            LogLevel logLevel, Path baseDir, File outputFile,
+            CodeClimateOutputer.Severity codeClimateSeverity)
+            throws MojoExecutionException {
+        if (Objects.requireNonNull(outputFormat) == OutputFormat.CONSOLE) {
+            return new LoggerOutputer(log, logLevel);
+        } else if (outputFormat == OutputFormat.CODE_CLIMATE) {
+            // make sure the output directory exists
+            if (!Files.exists(baseDir)) {
+                log.debug("Create the missing target directory: " + baseDir);
+                try {
+                    Files.createDirectories(baseDir);
+                } catch (IOException ioe) {
+                    throw new MojoExecutionException(
+                            "Create missing output directory failed: " + ioe.getMessage());
+                }
+            }
+
+            Path destination = outputFile != null ?
+                    outputFile.toPath() :
+                    baseDir.resolve(CodeClimateOutputer.DEFAULT_FILENAME);
+            return new CodeClimateOutputer(destination, codeClimateSeverity);
+        }
+        throw new MojoExecutionException(
+                "Invalid output format: " + outputFormat);
+    }
+}
@@ -20,14 +20,15 @@ import static org.gaul.modernizer_maven_plugin.Utils.ASM_API;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.function.Predicate;
 
 import org.objectweb.asm.AnnotationVisitor;
 import org.objectweb.asm.ClassReader;
@@ -37,25 +38,51 @@ import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.TypePath;
 
 /**
- * Walks .class files looking for classes annotated with a marker annotation.
- * Inner classes whose enclosing class is annotated are also reported.
+ * Walks .class files looking for classes annotated with a marker annotation,
+ * matched by simple name.  Inner classes whose enclosing class is annotated
+ * are also reported.
  */
 final class AnnotationDetector {
-    private final Predicate<String> isMarker;
-    private final boolean scanMethodBodies;
-    private final Set<String> annotatedClassNames = new HashSet<>();
-    private final Set<String> allClassNames = new HashSet<>();
+    private static final int CONSTANT_UTF8 = 1;
 
-    AnnotationDetector(Predicate<String> isMarker, boolean scanMethodBodies) {
-        this.isMarker = isMarker;
+    private final String simpleName;
+    /** Modified UTF-8 of the descriptor suffix, e.g., "Generated;". */
+    private final byte[] descriptorSuffix;
+    private final boolean scanMethodBodies;
+    // Thread-safe so that batch scans can feed one detector from many
+    // threads.
+    private final ClassNameTrie annotatedClassNames = new ClassNameTrie();
+    private final ClassNameTrie allClassNames = new ClassNameTrie();
+
+    AnnotationDetector(String simpleName, boolean scanMethodBodies) {
+        this.simpleName = simpleName;
+        // Simple names of marker annotations are ASCII.
+        this.descriptorSuffix = (simpleName + ";").getBytes(
+                StandardCharsets.US_ASCII);
         this.scanMethodBodies = scanMethodBodies;
     }
 
+    /**
+     * Returns whether a type descriptor, e.g., "Lcom/example/Outer$Name;",
+     * names a type with the given simple name.
+     */
+    static boolean hasSimpleName(String desc, String simpleName) {
+        int start = Math.max(desc.lastIndexOf('/'), desc.lastIndexOf('$')) + 1;
+        return desc.length() - start == simpleName.length() + 1 &&
+                desc.startsWith(simpleName, start) &&
+                desc.charAt(desc.length() - 1) == ';';
+    }
+
     Set<String> detect(Path path) throws IOException {
         scan(path);
         return computeSuppressedClassNames();
     }
 
+    Set<String> detect(Collection<Path> classFiles) throws IOException {
+        scan(classFiles);
+        return computeSuppressedClassNames();
+    }
+
     Set<String> detect(Class<?>... classes) throws IOException {
         for (Class<?> clazz : classes) {
             scan(new ClassReader(clazz.getName()));
@@ -63,6 +90,14 @@ final class AnnotationDetector {
         return computeSuppressedClassNames();
     }
 
+    void scan(Collection<Path> classFiles) throws IOException {
+        for (Path classFile : classFiles) {
+            try (InputStream is = Files.newInputStream(classFile)) {
+                scan(new ClassReader(is));
+            }
+        }
+    }
+
     private void scan(Path path) throws IOException {
         if (!Files.exists(path)) {
             return;
@@ -81,33 +116,76 @@ final class AnnotationDetector {
         });
     }
 
-    private void scan(ClassReader classReader) {
-        classReader.accept(new Visitor(), 0);
+    void scan(ClassReader classReader) {
+        // Every annotation descriptor is a UTF8 constant, so a class without
+        // one ending in the marker's simple name needs no visit.
+        if (!mayReferenceMarker(classReader)) {
+            allClassNames.add(classReader.getClassName());
+            return;
+        }
+        // Only local variable annotations need the method bodies.
+        classReader.accept(new Visitor(), scanMethodBodies ?
+                ClassReader.SKIP_FRAMES :
+                ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG |
+                        ClassReader.SKIP_FRAMES);
     }
 
-    private Set<String> computeSuppressedClassNames() {
-        Set<String> suppressedClassNames = new HashSet<>(annotatedClassNames);
-        for (String className : allClassNames) {
-            if (suppressedClassNames.contains(className)) {
+    /** Searches the constant pool without decoding any strings. */
+    private boolean mayReferenceMarker(ClassReader classReader) {
+        int suffixLength = descriptorSuffix.length;
+        for (int i = 1; i < classReader.getItemCount(); ++i) {
+            int item = classReader.getItem(i);
+            // The second slots of long and double constants have no offset.
+            if (item == 0 || classReader.readByte(item - 1) != CONSTANT_UTF8) {
                 continue;
             }
-            int fromIndex = 0;
-            while (true) {
-                int index = className.indexOf('$', fromIndex);
-                if (index == -1) {
-                    break;
-                }
-                if (annotatedClassNames.contains(
-                        className.substring(0, index))) {
-                    suppressedClassNames.add(className);
-                    break;
-                }
-                fromIndex = index + 1;
+            int length = classReader.readUnsignedShort(item);
+            if (length <= suffixLength) {
+                continue;
+            }
+            int suffix = item + 2 + length - suffixLength;
+            int j = 0;
+            while (j < suffixLength && classReader.readByte(suffix + j) ==
+                    descriptorSuffix[j]) {
+                ++j;
+            }
+            if (j == suffixLength) {
+                return true;
             }
         }
+        return false;
+    }
+
+    Set<String> computeSuppressedClassNames() {
+        Set<String> suppressedClassNames = new HashSet<>();
+        allClassNames.forEach(className -> {
+            if (isSuppressed(className)) {
+                suppressedClassNames.add(className.toString());
+            }
+        });
         return suppressedClassNames;
     }
 
+    /**
+     * Adds the classes scanned so far which are suppressed to the sink,
+     * without materializing their names as strings.
+     */
+    void addSuppressedClassNames(ClassNameTrie sink) {
+        allClassNames.forEach(className -> {
+            if (isSuppressed(className)) {
+                sink.add(className);
+            }
+        });
+    }
+
+    /**
+     * Returns whether a class or one of its enclosing classes scanned so far
+     * carries the marker annotation.
+     */
+    boolean isSuppressed(CharSequence className) {
+        return annotatedClassNames.containsSelfOrEnclosing(className);
+    }
+
     private final class Visitor extends ClassVisitor {
         private String className;
 
@@ -126,7 +204,7 @@ final class AnnotationDetector {
 
         @Override
         public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
-            if (isMarker.test(desc)) {
+            if (hasSimpleName(desc, simpleName)) {
                 annotatedClassNames.add(className);
             }
             return super.visitAnnotation(desc, visible);
@@ -146,7 +224,7 @@ final class AnnotationDetector {
                         int typeRef, TypePath typePath, Label[] start,
                         Label[] end, int[] index, String desc,
                         boolean visible) {
-                    if (isMarker.test(desc)) {
+                    if (hasSimpleName(desc, simpleName)) {
                         annotatedClassNames.add(className);
                     }
                     return super.visitLocalVariableAnnotation(typeRef,
@@ -0,0 +1,366 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import java.util.Arrays;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Feeds a {@link ModernizerClassVisitor} the same events as
+ * {@link ClassReader#accept}, but only those it handles: the class header
+ * and interfaces, class and method annotations, field and method
+ * instructions and line numbers.  It walks the class file itself, stepping
+ * over other instructions by their length, instead of decoding every
+ * instruction, label, frame and attribute, and reuses ClassReader's
+ * constant pool index and string cache.  Arguments which Modernizer
+ * ignores, e.g., signatures, are passed as null.
+ *
+ * <p>Class files newer than {@link #MAX_MAJOR_VERSION} are declined, and
+ * anything this scanner does not recognize, e.g., an unknown opcode, throws
+ * {@link UnsupportedClassFileException}; callers should then visit the class
+ * with ASM, which resets the visitor in visit().
+ */
+final class ClassFileScanner {
+    /** Newest class file version whose instruction set is known. */
+    static final int MAX_MAJOR_VERSION = Opcodes.V25;
+
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final String[] NO_INTERFACES = new String[0];
+
+    /**
+     * Length of each opcode, or 0 for the variable-length switches and
+     * wide, and -1 for opcodes which are not defined.
+     */
+    private static final byte[] OPCODE_LENGTHS = new byte[256];
+
+    static {
+        Arrays.fill(OPCODE_LENGTHS, (byte) -1);
+        // nop to dconst_1, then loads, stores, stack, arithmetic and
+        // conversions
+        Arrays.fill(OPCODE_LENGTHS, Opcodes.NOP, Opcodes.IRETURN, (byte) 1);
+        OPCODE_LENGTHS[Opcodes.BIPUSH] = 2;
+        OPCODE_LENGTHS[Opcodes.SIPUSH] = 3;
+        OPCODE_LENGTHS[Opcodes.LDC] = 2;
+        OPCODE_LENGTHS[0x13] = 3;  // ldc_w
+        OPCODE_LENGTHS[0x14] = 3;  // ldc2_w
+        Arrays.fill(OPCODE_LENGTHS, Opcodes.ILOAD, Opcodes.ALOAD + 1,
+                (byte) 2);
+        Arrays.fill(OPCODE_LENGTHS, Opcodes.ISTORE, Opcodes.ASTORE + 1,
+                (byte) 2);
+        OPCODE_LENGTHS[Opcodes.IINC] = 3;
+        Arrays.fill(OPCODE_LENGTHS, Opcodes.IFEQ, Opcodes.JSR + 1, (byte) 3);
+        OPCODE_LENGTHS[Opcodes.RET] = 2;
+        OPCODE_LENGTHS[Opcodes.TABLESWITCH] = 0;
+        OPCODE_LENGTHS[Opcodes.LOOKUPSWITCH] = 0;
+        Arrays.fill(OPCODE_LENGTHS, Opcodes.IRETURN, Opcodes.RETURN + 1,
+                (byte) 1);
+        Arrays.fill(OPCODE_LENGTHS, Opcodes.GETSTATIC,
+                Opcodes.INVOKESTATIC + 1, (byte) 3);
+        OPCODE_LENGTHS[Opcodes.INVOKEINTERFACE] = 5;
+        OPCODE_LENGTHS[Opcodes.INVOKEDYNAMIC] = 5;
+        OPCODE_LENGTHS[Opcodes.NEW] = 3;
+        OPCODE_LENGTHS[Opcodes.NEWARRAY] = 2;
+        OPCODE_LENGTHS[Opcodes.ANEWARRAY] = 3;
+        OPCODE_LENGTHS[Opcodes.ARRAYLENGTH] = 1;
+        OPCODE_LENGTHS[Opcodes.ATHROW] = 1;
+        OPCODE_LENGTHS[Opcodes.CHECKCAST] = 3;
+        OPCODE_LENGTHS[Opcodes.INSTANCEOF] = 3;
+        OPCODE_LENGTHS[Opcodes.MONITORENTER] = 1;
+        OPCODE_LENGTHS[Opcodes.MONITOREXIT] = 1;
+        OPCODE_LENGTHS[0xc4] = 0;  // wide
+        OPCODE_LENGTHS[Opcodes.MULTIANEWARRAY] = 4;
+        OPCODE_LENGTHS[Opcodes.IFNULL] = 3;
+        OPCODE_LENGTHS[Opcodes.IFNONNULL] = 3;
+        OPCODE_LENGTHS[0xc8] = 5;  // goto_w
+        OPCODE_LENGTHS[0xc9] = 5;  // jsr_w
+    }
+
+    private char[] charBuffer = new char[0];
+    /** Line number of each code offset, per ASM's rules; 0 if none. */
+    private int[] firstLines = new int[0];
+    private int[] lastLines = new int[0];
+
+    /**
+     * Visits a class, returning false without visiting anything if its
+     * version is newer than this scanner understands.
+     */
+    boolean accept(ClassReader reader, ClassVisitor visitor) {
+        // The constant pool starts 10 bytes into the class file and its
+        // first item 1 byte later, after the tag.
+        int start = reader.getItem(1) - 11;
+        if (reader.readUnsignedShort(start + 6) > MAX_MAJOR_VERSION) {
+            return false;
+        }
+        if (charBuffer.length < reader.getMaxStringLength()) {
+            charBuffer = new char[reader.getMaxStringLength()];
+        }
+        int header = reader.header;
+        int interfaceCount = reader.readUnsignedShort(header + 6);
+        String[] interfaces = interfaceCount == 0 ? NO_INTERFACES :
+                new String[interfaceCount];
+        for (int i = 0; i < interfaceCount; ++i) {
+            interfaces[i] = reader.readClass(header + 8 + 2 * i, charBuffer);
+        }
+        visitor.visit(reader.readInt(start + 4),
+                reader.readUnsignedShort(header),
+                reader.readClass(header + 2, charBuffer), null,
+                reader.readClass(header + 4, charBuffer), interfaces);
+
+        int offset = header + 8 + 2 * interfaceCount;
+        int fieldCount = reader.readUnsignedShort(offset);
+        offset += 2;
+        for (int i = 0; i < fieldCount; ++i) {
+            offset = skipAttributes(reader, offset + 6);
+        }
+        int methodsOffset = offset;
+        int methodCount = reader.readUnsignedShort(offset);
+        offset += 2;
+        for (int i = 0; i < methodCount; ++i) {
+            offset = skipAttributes(reader, offset + 6);
+        }
+
+        visitAnnotations(reader, offset, visitor, null);
+
+        offset = methodsOffset + 2;
+        for (int i = 0; i < methodCount; ++i) {
+            offset = visitMethod(reader, offset, visitor);
+        }
+        visitor.visitEnd();
+        return true;
+    }
+
+    /** Visits a method_info and returns the offset after it. */
+    private int visitMethod(ClassReader reader, int offset,
+            ClassVisitor visitor) {
+        int attributesOffset = offset + 6;
+        int end = skipAttributes(reader, attributesOffset);
+        MethodVisitor methodVisitor = visitor.visitMethod(
+                reader.readUnsignedShort(offset),
+                reader.readUTF8(offset + 2, charBuffer),
+                reader.readUTF8(offset + 4, charBuffer), null, null);
+        if (methodVisitor == null) {
+            return end;
+        }
+        visitAnnotations(reader, attributesOffset, null, methodVisitor);
+        int attributeCount = reader.readUnsignedShort(attributesOffset);
+        int attribute = attributesOffset + 2;
+        for (int i = 0; i < attributeCount; ++i) {
+            int length = reader.readInt(attribute + 2);
+            if (reader.readUTF8(attribute, charBuffer).equals("Code")) {
+                visitCode(reader, attribute + 6, methodVisitor);
+            }
+            attribute += 6 + length;
+        }
+        methodVisitor.visitEnd();
+        return end;
+    }
+
+    /**
+     * Visits the RuntimeVisibleAnnotations and then the
+     * RuntimeInvisibleAnnotations in the attributes at offset, as ASM does,
+     * on whichever visitor is not null.
+     */
+    private void visitAnnotations(ClassReader reader, int offset,
+            ClassVisitor classVisitor, MethodVisitor methodVisitor) {
+        visitAnnotations(reader, offset, "RuntimeVisibleAnnotations",
+                /*visible=*/ true, classVisitor, methodVisitor);
+        visitAnnotations(reader, offset, "RuntimeInvisibleAnnotations",
+                /*visible=*/ false, classVisitor, methodVisitor);
+    }
+
+    private void visitAnnotations(ClassReader reader, int offset,
+            String attributeName, boolean visible, ClassVisitor classVisitor,
+            MethodVisitor methodVisitor) {
+        int attributeCount = reader.readUnsignedShort(offset);
+        int attribute = offset + 2;
+        for (int i = 0; i < attributeCount; ++i) {
+            if (reader.readUTF8(attribute, charBuffer).equals(attributeName)) {
+                int annotationCount = reader.readUnsignedShort(attribute + 6);
+                int annotation = attribute + 8;
+                for (int j = 0; j < annotationCount; ++j) {
+                    String desc = reader.readUTF8(annotation, charBuffer);
+                    if (classVisitor != null) {
+                        classVisitor.visitAnnotation(desc, visible);
+                    } else {
+                        methodVisitor.visitAnnotation(desc, visible);
+                    }
+                    annotation = skipAnnotation(reader, annotation);
+                }
+            }
+            attribute += 6 + reader.readInt(attribute + 2);
+        }
+    }
+
+    /** Visits the instructions and line numbers of a Code attribute. */
+    private void visitCode(ClassReader reader, int offset,
+            MethodVisitor methodVisitor) {
+        int codeLength = reader.readInt(offset + 4);
+        int code = offset + 8;
+        int codeEnd = code + codeLength;
+        readLineNumbers(reader, codeEnd, codeLength);
+        int pc = 0;
+        while (pc < codeLength) {
+            if (firstLines[pc] != 0) {
+                methodVisitor.visitLineNumber(lastLines[pc], null);
+            }
+            int opcode = reader.readByte(code + pc);
+            int length = OPCODE_LENGTHS[opcode];
+            if (opcode >= Opcodes.GETSTATIC &&
+                    opcode <= Opcodes.INVOKEINTERFACE) {
+                int item = reader.getItem(reader.readUnsignedShort(
+                        code + pc + 1));
+                int nameAndType = reader.getItem(reader.readUnsignedShort(
+                        item + 2));
+                String owner = reader.readClass(item, charBuffer);
+                String name = reader.readUTF8(nameAndType, charBuffer);
+                String desc = reader.readUTF8(nameAndType + 2, charBuffer);
+                if (opcode <= Opcodes.PUTFIELD) {
+                    methodVisitor.visitFieldInsn(opcode, owner, name, desc);
+                } else {
+                    methodVisitor.visitMethodInsn(opcode, owner, name, desc,
+                            reader.readByte(item - 1) ==
+                                    CONSTANT_INTERFACE_METHODREF);
+                }
+            } else if (length == 0) {
+                length = variableLength(reader, code, pc, opcode);
+            } else if (length < 0) {
+                throw new UnsupportedClassFileException(
+                        "Unknown opcode " + opcode);
+            }
+            pc += length;
+        }
+    }
+
+    /** Returns the length of a tableswitch, lookupswitch or wide. */
+    private static int variableLength(ClassReader reader, int code, int pc,
+            int opcode) {
+        if (opcode == Opcodes.TABLESWITCH) {
+            int operands = code + ((pc + 4) & ~3);
+            int low = reader.readInt(operands + 4);
+            int high = reader.readInt(operands + 8);
+            return operands + 12 + 4 * (high - low + 1) - (code + pc);
+        } else if (opcode == Opcodes.LOOKUPSWITCH) {
+            int operands = code + ((pc + 4) & ~3);
+            int pairs = reader.readInt(operands + 4);
+            return operands + 8 + 8 * pairs - (code + pc);
+        }
+        // wide
+        return reader.readByte(code + pc + 1) == Opcodes.IINC ? 6 : 4;
+    }
+
+    /**
+     * Records the line numbers of the Code attribute whose exception table
+     * starts at offset.  Like ASM, an offset with several entries ends up
+     * on the last one, but only if one of them is non-zero.
+     */
+    private void readLineNumbers(ClassReader reader, int offset,
+            int codeLength) {
+        if (firstLines.length <= codeLength) {
+            firstLines = new int[codeLength + 1];
+            lastLines = new int[codeLength + 1];
+        } else {
+            Arrays.fill(firstLines, 0, codeLength + 1, 0);
+        }
+        int attributes = offset + 2 + 8 * reader.readUnsignedShort(offset);
+        int attributeCount = reader.readUnsignedShort(attributes);
+        int attribute = attributes + 2;
+        for (int i = 0; i < attributeCount; ++i) {
+            if (reader.readUTF8(attribute, charBuffer)
+                    .equals("LineNumberTable")) {
+                int entries = reader.readUnsignedShort(attribute + 6);
+                for (int j = 0; j < entries; ++j) {
+                    int entry = attribute + 8 + 4 * j;
+                    int pc = reader.readUnsignedShort(entry);
+                    if (pc > codeLength) {
+                        throw new UnsupportedClassFileException(
+                                "Line number outside code: " + pc);
+                    }
+                    int line = reader.readUnsignedShort(entry + 2);
+                    if (firstLines[pc] == 0) {
+                        firstLines[pc] = line;
+                    }
+                    lastLines[pc] = line;
+                }
+            }
+            attribute += 6 + reader.readInt(attribute + 2);
+        }
+    }
+
+    /** Returns the offset after the attributes_count at offset. */
+    private static int skipAttributes(ClassReader reader, int offset) {
+        int attributeCount = reader.readUnsignedShort(offset);
+        offset += 2;
+        for (int i = 0; i < attributeCount; ++i) {
+            offset += 6 + reader.readInt(offset + 2);
+        }
+        return offset;
+    }
+
+    /** Returns the offset after the annotation at offset. */
+    private static int skipAnnotation(ClassReader reader, int offset) {
+        int pairs = reader.readUnsignedShort(offset + 2);
+        offset += 4;
+        for (int i = 0; i < pairs; ++i) {
+            offset = skipElementValue(reader, offset + 2);
+        }
+        return offset;
+    }
+
+    private static int skipElementValue(ClassReader reader, int offset) {
+        switch (reader.readByte(offset)) {
+        case 'e':
+            return offset + 5;
+        case '@':
+            return skipAnnotation(reader, offset + 1);
+        case '[':
+            int values = reader.readUnsignedShort(offset + 1);
+            offset += 3;
+            for (int i = 0; i < values; ++i) {
+                offset = skipElementValue(reader, offset);
+            }
+            return offset;
+        case 'B':
+        case 'C':
+        case 'D':
+        case 'F':
+        case 'I':
+        case 'J':
+        case 'S':
+        case 'Z':
+        case 's':
+        case 'c':
+            return offset + 3;
+        default:
+            throw new UnsupportedClassFileException(
+                    "Unknown element value tag " + reader.readByte(offset));
+        }
+    }
+
+    /** Thrown for class file contents which this scanner does not know. */
+    static final class UnsupportedClassFileException
+            extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedClassFileException(String message) {
+            super(message);
+        }
+    }
+}
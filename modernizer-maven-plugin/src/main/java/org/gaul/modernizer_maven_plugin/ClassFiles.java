@@ -0,0 +1,161 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/** Helpers for locating .class files on disk. */
+final class ClassFiles {
+    static final String CLASS_SUFFIX = ".class";
+
+    /** Returns every .class file below root, or none if it does not exist. */
+    static List<Path> walk(Path root) throws IOException {
+        List<Path> classFiles = new ArrayList<>();
+        if (!Files.exists(root)) {
+            return classFiles;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file,
+                    BasicFileAttributes attrs) {
+                if (isClassFile(file)) {
+                    classFiles.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return classFiles;
+    }
+
+    /**
+     * Returns the .class files below root, listing each directory only when
+     * iteration reaches it so that abandoning the iterator stops the walk.
+     * Entries are visited in name order ignoring the .class suffix, which
+     * places an enclosing class before its nested classes.
+     */
+    static Iterator<Path> walkLazily(Path root) {
+        return new Iterator<Path>() {
+            private final Deque<Path> pending = new ArrayDeque<>(
+                    Collections.singleton(root));
+            private Path next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && !pending.isEmpty()) {
+                    Path path = pending.pop();
+                    if (Files.isDirectory(path)) {
+                        List<Path> children = new ArrayList<>();
+                        try (DirectoryStream<Path> stream =
+                                Files.newDirectoryStream(path)) {
+                            for (Path child : stream) {
+                                children.add(child);
+                            }
+                        } catch (IOException ioe) {
+                            throw new UncheckedIOException(ioe);
+                        }
+                        children.sort(Comparator.comparing(
+                                ClassFiles::walkOrder).reversed());
+                        for (Path child : children) {
+                            pending.push(child);
+                        }
+                    } else if (isClassFile(path)) {
+                        next = path;
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public Path next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Path path = next;
+                next = null;
+                return path;
+            }
+        };
+    }
+
+    private static String walkOrder(Path path) {
+        String name = path.getFileName().toString();
+        return name.endsWith(CLASS_SUFFIX) ?
+                name.substring(0, name.length() - CLASS_SUFFIX.length()) :
+                name;
+    }
+
+    static boolean isClassFile(Path file) {
+        return file.toString().endsWith(CLASS_SUFFIX);
+    }
+
+    /**
+     * Returns the name of the top-level class which a class file or internal
+     * class name belongs to, e.g., Foo for Foo$1.class and Foo$Bar.
+     */
+    static String topLevelName(String name) {
+        if (name.endsWith(CLASS_SUFFIX)) {
+            name = name.substring(0, name.length() - CLASS_SUFFIX.length());
+        }
+        int dollar = name.indexOf('$', name.lastIndexOf('/') + 1);
+        return dollar == -1 ? name : name.substring(0, dollar);
+    }
+
+    /**
+     * Returns the class files which share a top-level class with the given
+     * one, including itself.  Nested classes always live in the same
+     * directory as their enclosing class, so this is everything needed to
+     * resolve {@code @SuppressModernizer} on an enclosing class.
+     */
+    static List<Path> family(Path classFile) throws IOException {
+        List<Path> family = new ArrayList<>();
+        Path parent = classFile.toAbsolutePath().getParent();
+        if (parent == null || !Files.isDirectory(parent)) {
+            family.add(classFile);
+            return family;
+        }
+        String topLevel = topLevelName(classFile.getFileName().toString());
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(parent,
+                topLevel + "*" + CLASS_SUFFIX)) {
+            for (Path sibling : stream) {
+                if (topLevelName(sibling.getFileName().toString())
+                        .equals(topLevel)) {
+                    family.add(sibling);
+                }
+            }
+        }
+        return family;
+    }
+
+    private ClassFiles() {
+        throw new AssertionError("Intentionally not implemented");
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Set of internal class names stored as a radix tree, so that names share
+ * the storage of their packages and enclosing classes.  Lookups walk the
+ * tree against the name as given and allocate nothing, which also makes
+ * finding an enclosing class as cheap as finding the class itself.
+ *
+ * <p>Adds are serialized while lookups take no lock: nodes replace rather
+ * than modify their children, so a lookup racing an add sees the tree from
+ * either before or after it.
+ */
+final class ClassNameTrie {
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node root;
+    private volatile int size;
+
+    ClassNameTrie() {
+        this(new Node("", /*member=*/ false, NO_CHILDREN), 0);
+    }
+
+    private ClassNameTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    static ClassNameTrie of(Collection<String> names) {
+        ClassNameTrie trie = new ClassNameTrie();
+        for (String name : names) {
+            trie.add(name);
+        }
+        return trie;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(CharSequence name) {
+        return find(name, /*enclosing=*/ false);
+    }
+
+    /**
+     * Returns whether this contains the class or one of its enclosing
+     * classes, e.g., a/Outer for a/Outer$Inner.
+     */
+    boolean containsSelfOrEnclosing(CharSequence className) {
+        return find(className, /*enclosing=*/ true);
+    }
+
+    private boolean find(CharSequence name, boolean enclosing) {
+        Node node = root;
+        int length = name.length();
+        int i = 0;
+        while (i < length) {
+            char c = name.charAt(i);
+            if (enclosing && c == '$' && node.member) {
+                return true;
+            }
+            Node[] children = node.children;
+            int index = indexOf(children, c);
+            if (index < 0) {
+                return false;
+            }
+            node = children[index];
+            String label = node.label;
+            int common = commonPrefix(label, name, i);
+            if (common != label.length()) {
+                return false;
+            }
+            i += common;
+        }
+        return node.member;
+    }
+
+    /** Returns whether the name was not already present. */
+    synchronized boolean add(CharSequence name) {
+        Node node = root;
+        int length = name.length();
+        int i = 0;
+        while (i < length) {
+            Node[] children = node.children;
+            int index = indexOf(children, name.charAt(i));
+            if (index < 0) {
+                node.children = insert(children, -index - 1, new Node(
+                        name.subSequence(i, length).toString(),
+                        /*member=*/ true, NO_CHILDREN));
+                ++size;
+                return true;
+            }
+            Node child = children[index];
+            String label = child.label;
+            int common = commonPrefix(label, name, i);
+            if (common != label.length()) {
+                // Split the edge, leaving the original node to lookups
+                // already past it.
+                Node tail = new Node(label.substring(common), child.member,
+                        child.children);
+                Node split;
+                if (i + common == length) {
+                    split = new Node(label.substring(0, common),
+                            /*member=*/ true, new Node[] {tail});
+                } else {
+                    Node leaf = new Node(
+                            name.subSequence(i + common, length).toString(),
+                            /*member=*/ true, NO_CHILDREN);
+                    split = new Node(label.substring(0, common),
+                            /*member=*/ false,
+                            tail.label.charAt(0) < leaf.label.charAt(0) ?
+                                    new Node[] {tail, leaf} :
+                                    new Node[] {leaf, tail});
+                }
+                Node[] replaced = children.clone();
+                replaced[index] = split;
+                node.children = replaced;
+                ++size;
+                return true;
+            }
+            node = child;
+            i += common;
+        }
+        if (node.member) {
+            return false;
+        }
+        node.member = true;
+        ++size;
+        return true;
+    }
+
+    /** Returns an independent copy which shares no mutable state. */
+    synchronized ClassNameTrie copy() {
+        return new ClassNameTrie(copy(root), size);
+    }
+
+    private static Node copy(Node node) {
+        Node[] children = node.children;
+        Node[] copies = children.length == 0 ? NO_CHILDREN :
+                new Node[children.length];
+        for (int i = 0; i < children.length; ++i) {
+            copies[i] = copy(children[i]);
+        }
+        return new Node(node.label, node.member, copies);
+    }
+
+    /**
+     * Passes each name in lexicographic order to the action.  The names
+     * share one buffer which is only valid during the call; the action may
+     * add to another trie but must not add to this one.
+     */
+    void forEach(Consumer<? super CharSequence> action) {
+        forEach(root, new StringBuilder(), action);
+    }
+
+    private static void forEach(Node node, StringBuilder name,
+            Consumer<? super CharSequence> action) {
+        int length = name.length();
+        name.append(node.label);
+        if (node.member) {
+            action.accept(name);
+        }
+        for (Node child : node.children) {
+            forEach(child, name, action);
+        }
+        name.setLength(length);
+    }
+
+    /** Binary search by first character, as Arrays.binarySearch. */
+    private static int indexOf(Node[] children, char c) {
+        int low = 0;
+        int high = children.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char midChar = children[mid].label.charAt(0);
+            if (midChar < c) {
+                low = mid + 1;
+            } else if (midChar > c) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static Node[] insert(Node[] children, int index, Node child) {
+        Node[] inserted = new Node[children.length + 1];
+        System.arraycopy(children, 0, inserted, 0, index);
+        inserted[index] = child;
+        System.arraycopy(children, index, inserted, index + 1,
+                children.length - index);
+        return inserted;
+    }
+
+    /** Returns how many leading characters of label match name at start. */
+    private static int commonPrefix(String label, CharSequence name,
+            int start) {
+        int limit = Math.min(label.length(), name.length() - start);
+        int i = 0;
+        while (i < limit && label.charAt(i) == name.charAt(start + i)) {
+            ++i;
+        }
+        return i;
+    }
+
+    private static final class Node {
+        /** Characters on the edge from the parent, empty only at the root. */
+        final String label;
+        volatile boolean member;
+        /** Sorted by the first character of their labels. */
+        volatile Node[] children;
+
+        Node(String label, boolean member, Node[] children) {
+            this.label = label;
+            this.member = member;
+            this.children = children;
+        }
+    }
+}
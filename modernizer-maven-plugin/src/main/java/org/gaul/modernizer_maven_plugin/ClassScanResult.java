@@ -0,0 +1,45 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import java.util.Collection;
+import java.util.Objects;
+
+/** The occurrences found in one class by {@link Modernizer#publish}. */
+public final class ClassScanResult {
+    private final ClassSource source;
+    private final Collection<ViolationOccurrence> occurrences;
+
+    ClassScanResult(ClassSource source,
+            Collection<ViolationOccurrence> occurrences) {
+        this.source = Objects.requireNonNull(source);
+        this.occurrences = Objects.requireNonNull(occurrences);
+    }
+
+    public ClassSource getSource() {
+        return source;
+    }
+
+    public Collection<ViolationOccurrence> getOccurrences() {
+        return occurrences;
+    }
+
+    @Override
+    public String toString() {
+        return source + " " + occurrences;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A class file to scan with {@link Modernizer#check(Iterable, int)} or
+ * {@link Modernizer#publish(Iterable, java.util.concurrent.Executor)}: a file
+ * on disk, an entry in a jar or bytes already in memory.  Sources are read
+ * lazily by the scanning threads.
+ */
+public final class ClassSource {
+    private interface Reader {
+        byte[] read() throws IOException;
+    }
+
+    private final String name;
+    private final Reader reader;
+
+    private ClassSource(String name, Reader reader) {
+        this.name = Objects.requireNonNull(name);
+        this.reader = reader;
+    }
+
+    /** Returns a source which reads a class file. */
+    public static ClassSource of(Path classFile) {
+        return new ClassSource(classFile.toString(),
+                () -> Files.readAllBytes(classFile));
+    }
+
+    /** Returns a source for class bytes, named e.g. after their origin. */
+    public static ClassSource of(String name, byte[] bytes) {
+        Objects.requireNonNull(bytes);
+        return new ClassSource(name, () -> bytes);
+    }
+
+    /**
+     * Returns a source which reads a jar entry.  The jar must remain open
+     * until the scan completes.
+     */
+    public static ClassSource of(ZipFile jar, ZipEntry entry) {
+        return new ClassSource(jar.getName() + "!/" + entry.getName(), () -> {
+            try (InputStream is = jar.getInputStream(entry)) {
+                return Utils.readAllBytes(is);
+            }
+        });
+    }
+
+    /** Returns a source for every class file in a jar. */
+    public static List<ClassSource> ofJar(ZipFile jar) {
+        List<ClassSource> sources = new ArrayList<>();
+        Enumeration<? extends ZipEntry> entries = jar.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (!entry.isDirectory() &&
+                    entry.getName().endsWith(ClassFiles.CLASS_SUFFIX)) {
+                sources.add(of(jar, entry));
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * Returns the class files below a directory, listing each directory only
+     * when iteration reaches it.  Enclosing classes precede their nested
+     * classes.
+     */
+    public static Iterable<ClassSource> walk(Path root) {
+        return () -> {
+            Iterator<Path> classFiles = ClassFiles.walkLazily(root);
+            return new Iterator<ClassSource>() {
+                @Override
+                public boolean hasNext() {
+                    return classFiles.hasNext();
+                }
+
+                @Override
+                public ClassSource next() {
+                    return of(classFiles.next());
+                }
+            };
+        };
+    }
+
+    /**
+     * Returns the file name, {@code jar!/entry} or the name given for
+     * in-memory bytes.
+     */
+    public String getName() {
+        return name;
+    }
+
+    byte[] read() throws IOException {
+        return reader.read();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
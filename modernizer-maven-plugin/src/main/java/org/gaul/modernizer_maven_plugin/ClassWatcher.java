@@ -0,0 +1,229 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.gaul.modernizer_maven_plugin.output.OutputEntry;
+
+/**
+ * Keeps a live set of violations for one or more class directories and
+ * rescans only the class files which change.  A change to a class also
+ * rescans the classes it encloses or is enclosed by, since adding or
+ * removing {@code @SuppressModernizer} affects their suppression.
+ */
+final class ClassWatcher {
+    /** Receives the difference between consecutive result sets. */
+    interface Listener {
+        void onChange(List<OutputEntry> added, List<OutputEntry> removed,
+                int total) throws IOException;
+    }
+
+    private final Modernizer modernizer;
+    private final List<Path> roots;
+    private final Function<Path, String> sourceName;
+    private final Listener listener;
+    private final long debounceMillis;
+    private final Map<Path, List<OutputEntry>> results = new HashMap<>();
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+    private int total;
+
+    ClassWatcher(Modernizer modernizer, List<Path> roots,
+            Function<Path, String> sourceName, Listener listener,
+            long debounceMillis) {
+        this.modernizer = modernizer;
+        this.roots = roots;
+        this.sourceName = sourceName;
+        this.listener = listener;
+        this.debounceMillis = debounceMillis;
+    }
+
+    /**
+     * Scans every root, then blocks rescanning changed classes until the
+     * thread is interrupted.
+     */
+    void run() throws IOException, InterruptedException {
+        try (WatchService watchService =
+                FileSystems.getDefault().newWatchService()) {
+            List<Path> initial = new ArrayList<>();
+            for (Path root : roots) {
+                if (Files.isDirectory(root)) {
+                    register(watchService, root);
+                    initial.addAll(ClassFiles.walk(root));
+                }
+            }
+            rescan(initial);
+
+            while (true) {
+                Set<Path> changed = new LinkedHashSet<>();
+                WatchKey key = watchService.take();
+                // Compilers write many classes in quick succession; wait
+                // until the burst is over before rescanning.
+                while (key != null) {
+                    drain(watchService, key, changed);
+                    key = watchService.poll(debounceMillis,
+                            TimeUnit.MILLISECONDS);
+                }
+                if (!changed.isEmpty()) {
+                    rescan(changed);
+                }
+            }
+        } catch (ClosedWatchServiceException cwse) {
+            throw new InterruptedException("watch service closed");
+        }
+    }
+
+    private void drain(WatchService watchService, WatchKey key,
+            Set<Path> changed) throws IOException {
+        Path directory = watchedDirectories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (directory == null || OVERFLOW.equals(event.kind())) {
+                // Events were lost; fall back to rescanning everything.
+                for (Path root : roots) {
+                    changed.addAll(ClassFiles.walk(root));
+                }
+                changed.addAll(results.keySet());
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            if (ENTRY_CREATE.equals(event.kind()) && Files.isDirectory(path)) {
+                register(watchService, path);
+                changed.addAll(ClassFiles.walk(path));
+            } else if (ClassFiles.isClassFile(path)) {
+                changed.add(path);
+            }
+        }
+        if (!key.reset()) {
+            watchedDirectories.remove(key);
+        }
+    }
+
+    private void register(WatchService watchService, Path root)
+            throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir,
+                    BasicFileAttributes attrs) throws IOException {
+                watchedDirectories.put(dir.register(watchService,
+                        ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Rescans the given class files and their nested and enclosing classes,
+     * then notifies the listener of any difference.
+     */
+    void rescan(Collection<Path> changed) throws IOException {
+        Set<Path> affected = new LinkedHashSet<>();
+        Set<Path> visitedFamilies = new HashSet<>();
+        for (Path path : changed) {
+            path = path.toAbsolutePath();
+            affected.add(path);
+            Path family = path.resolveSibling(ClassFiles.topLevelName(
+                    path.getFileName().toString()));
+            if (visitedFamilies.add(family)) {
+                affected.addAll(ClassFiles.family(path));
+            }
+        }
+
+        Map<Path, List<Path>> families = new HashMap<>();
+        for (Path path : affected) {
+            if (Files.exists(path)) {
+                families.computeIfAbsent(path.resolveSibling(
+                        ClassFiles.topLevelName(path.getFileName().toString())),
+                        k -> new ArrayList<>()).add(path);
+            }
+        }
+
+        List<OutputEntry> added = new ArrayList<>();
+        List<OutputEntry> removed = new ArrayList<>();
+        for (Path path : affected) {
+            List<OutputEntry> previous = results.remove(path);
+            if (previous != null) {
+                removed.addAll(previous);
+                total -= previous.size();
+            }
+        }
+        for (List<Path> family : families.values()) {
+            Set<String> ignoreClassNames = new HashSet<>(
+                    SuppressModernizerAnnotationDetector.detect(family));
+            if (modernizer.isIgnoreGeneratedClasses()) {
+                ignoreClassNames.addAll(
+                        SuppressGeneratedAnnotationDetector.detect(family));
+            }
+            Modernizer scoped =
+                    modernizer.withIgnoreClassNames(ignoreClassNames);
+            for (Path path : family) {
+                List<OutputEntry> entries = new ArrayList<>();
+                try (InputStream is = Files.newInputStream(path)) {
+                    for (ViolationOccurrence occurrence : scoped.check(is)) {
+                        entries.add(new OutputEntry(sourceName.apply(path),
+                                occurrence));
+                    }
+                } catch (IOException | RuntimeException e) {
+                    // The compiler may still be writing this class; the
+                    // completing write triggers another event.
+                    continue;
+                }
+                if (!entries.isEmpty()) {
+                    results.put(path, entries);
+                    total += entries.size();
+                    added.addAll(entries);
+                }
+            }
+        }
+
+        // Entries present both before and after are not a change.
+        List<OutputEntry> unchanged = new ArrayList<>(added);
+        unchanged.retainAll(removed);
+        added.removeAll(unchanged);
+        removed.removeAll(unchanged);
+        if (!added.isEmpty() || !removed.isEmpty()) {
+            listener.onChange(Collections.unmodifiableList(added),
+                    Collections.unmodifiableList(removed), total);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Measures where scan time goes: the slowest classes and the cost and
+ * violation density of each package, to decide which packages to ignore
+ * or suppress.  Install with {@link Modernizer#withListener}; one instance
+ * may observe concurrent scans.
+ */
+public final class CostReport implements ScanListener {
+    private final Queue<ClassCost> classes = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public void classFinished(String className, int byteSize,
+            long elapsedNanos, int tokensProbed, int occurrences) {
+        classes.add(new ClassCost(className, byteSize, elapsedNanos,
+                occurrences));
+    }
+
+    /** Returns the limit slowest classes, slowest first. */
+    public List<ClassCost> getSlowestClasses(int limit) {
+        List<ClassCost> slowest = new ArrayList<>(classes);
+        slowest.sort(Comparator.comparingLong(ClassCost::getElapsedNanos)
+                .thenComparingInt(ClassCost::getByteSize)
+                .reversed());
+        return new ArrayList<>(slowest.subList(0,
+                Math.min(limit, slowest.size())));
+    }
+
+    /** Returns the cost of each package, most expensive first. */
+    public List<PackageCost> getPackages() {
+        Map<String, PackageCost> packages = new HashMap<>();
+        for (ClassCost cost : classes) {
+            packages.computeIfAbsent(cost.getPackageName(), PackageCost::new)
+                    .add(cost);
+        }
+        List<PackageCost> sorted = new ArrayList<>(packages.values());
+        sorted.sort(Comparator.comparingLong(PackageCost::getElapsedNanos)
+                .reversed());
+        return sorted;
+    }
+
+    /**
+     * Returns a human-readable report of the limit slowest classes and of
+     * every package.
+     */
+    public List<String> format(int limit) {
+        long totalNanos = 0;
+        long totalBytes = 0;
+        int classCount = 0;
+        for (ClassCost cost : classes) {
+            totalNanos += cost.getElapsedNanos();
+            totalBytes += cost.getByteSize();
+            ++classCount;
+        }
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format(Locale.ROOT,
+                "Scan cost: %d classes, %d KB, %.1f ms", classCount,
+                totalBytes / 1024, totalNanos / 1e6));
+        lines.add("Slowest classes:");
+        for (ClassCost cost : getSlowestClasses(limit)) {
+            lines.add(String.format(Locale.ROOT,
+                    "  %10.2f ms %8d B %5d violations  %s",
+                    cost.getElapsedNanos() / 1e6, cost.getByteSize(),
+                    cost.getOccurrences(), cost.getClassName()));
+        }
+        lines.add("Packages by scan time:");
+        for (PackageCost cost : getPackages()) {
+            lines.add(String.format(Locale.ROOT,
+                    "  %10.2f ms %5.1f%% %5d classes %8d B %5d violations" +
+                    " %7.3f/KB  %s",
+                    cost.getElapsedNanos() / 1e6,
+                    totalNanos == 0 ? 0.0 :
+                            100.0 * cost.getElapsedNanos() / totalNanos,
+                    cost.getClassCount(), cost.getByteSize(),
+                    cost.getOccurrences(), cost.getViolationsPerKilobyte(),
+                    cost.getPackageName().isEmpty() ? "(default package)" :
+                            cost.getPackageName()));
+        }
+        return lines;
+    }
+
+    /** The cost of checking one class. */
+    public static final class ClassCost {
+        private final String className;
+        private final int byteSize;
+        private final long elapsedNanos;
+        private final int occurrences;
+
+        ClassCost(String className, int byteSize, long elapsedNanos,
+                int occurrences) {
+            this.className = className;
+            this.byteSize = byteSize;
+            this.elapsedNanos = elapsedNanos;
+            this.occurrences = occurrences;
+        }
+
+        /** Returns the binary name, e.g., com.example.Foo$Bar. */
+        public String getClassName() {
+            return className.replace('/', '.');
+        }
+
+        /** Returns the package name, or the empty string for none. */
+        public String getPackageName() {
+            int slash = className.lastIndexOf('/');
+            return slash == -1 ? "" :
+                    className.substring(0, slash).replace('/', '.');
+        }
+
+        public int getByteSize() {
+            return byteSize;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public int getOccurrences() {
+            return occurrences;
+        }
+    }
+
+    /** The total cost of checking the classes of one package. */
+    public static final class PackageCost {
+        private final String packageName;
+        private int classCount;
+        private long byteSize;
+        private long elapsedNanos;
+        private int occurrences;
+
+        PackageCost(String packageName) {
+            this.packageName = packageName;
+        }
+
+        private void add(ClassCost cost) {
+            ++classCount;
+            byteSize += cost.getByteSize();
+            elapsedNanos += cost.getElapsedNanos();
+            occurrences += cost.getOccurrences();
+        }
+
+        public String getPackageName() {
+            return packageName;
+        }
+
+        public int getClassCount() {
+            return classCount;
+        }
+
+        public long getByteSize() {
+            return byteSize;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public int getOccurrences() {
+            return occurrences;
+        }
+
+        /** Returns violations per kilobyte of class files. */
+        public double getViolationsPerKilobyte() {
+            return byteSize == 0 ? 0.0 : occurrences * 1024.0 / byteSize;
+        }
+    }
+}
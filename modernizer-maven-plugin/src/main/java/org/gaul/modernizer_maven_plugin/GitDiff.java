@@ -0,0 +1,104 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/** Lists files changed in a git work tree by invoking the git executable. */
+final class GitDiff {
+    private GitDiff() {
+        throw new AssertionError("Intentionally not implemented");
+    }
+
+    /**
+     * Returns the files below workTree, relative to it, which were added or
+     * modified on the current branch since it forked from baseRevision,
+     * including uncommitted changes and untracked files which are not
+     * ignored.  Changes made on baseRevision since the fork are not
+     * included, as for a pull request.
+     */
+    static List<Path> changedFiles(Path workTree, String baseRevision)
+            throws IOException {
+        List<String> mergeBase = git(workTree, /*nulSeparated=*/ false,
+                "merge-base", baseRevision, "HEAD");
+        if (mergeBase.size() != 1) {
+            throw new IOException("No merge base of " + baseRevision +
+                    " and HEAD");
+        }
+        Set<Path> changedFiles = new LinkedHashSet<>();
+        for (String name : git(workTree, /*nulSeparated=*/ true, "diff",
+                "--name-only", "--relative", "--diff-filter=d", "-z",
+                mergeBase.get(0), "--")) {
+            changedFiles.add(Paths.get(name));
+        }
+        for (String name : git(workTree, /*nulSeparated=*/ true, "ls-files",
+                "--others", "--exclude-standard", "-z")) {
+            changedFiles.add(Paths.get(name));
+        }
+        return new ArrayList<>(changedFiles);
+    }
+
+    /** Runs git in workTree and returns the lines or names it prints. */
+    private static List<String> git(Path workTree, boolean nulSeparated,
+            String... args) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(Arrays.asList(args));
+        Process process = new ProcessBuilder(command)
+                .directory(workTree.toFile())
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        char separator = nulSeparated ? '\0' : '\n';
+        List<String> output = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                process.getInputStream(), StandardCharsets.UTF_8))) {
+            StringBuilder name = new StringBuilder();
+            int ch;
+            while ((ch = reader.read()) != -1) {
+                if (ch == separator) {
+                    output.add(name.toString());
+                    name.setLength(0);
+                } else {
+                    name.append((char) ch);
+                }
+            }
+        }
+        int exitCode;
+        try {
+            exitCode = process.waitFor();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            process.destroy();
+            throw new IOException("Interrupted waiting for git", ie);
+        }
+        if (exitCode != 0) {
+            throw new IOException("git " + String.join(" ", args) +
+                    " failed with exit code " + exitCode);
+        }
+        return output;
+    }
+}
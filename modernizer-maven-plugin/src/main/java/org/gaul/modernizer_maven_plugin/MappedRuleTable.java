@@ -0,0 +1,523 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.xml.sax.SAXException;
+
+/**
+ * Rule table in a file which processes memory-map read-only, so that the
+ * build tool workers and daemons on one machine share a single copy in the
+ * page cache and start by mapping the file instead of parsing and
+ * validating XML.  Lookups compare names against the mapped chars and, as
+ * with {@link RuleTable}, misses allocate nothing.  Thread-safe.
+ *
+ * <p>The layout is a header; open-addressed indexes from token hash to
+ * token id plus one and from owner hash to the id plus one of a token of
+ * that owner; the end of each token's chars and of each token's rules; the
+ * version, until version and comment id of each rule; the end of each
+ * comment's chars; then the tokens and comments as chars.  Ints and chars
+ * are big-endian.
+ */
+final class MappedRuleTable {
+    private static final int MAGIC = 0x4d52544c;
+    private static final int FORMAT_VERSION = 1;
+    /**
+     * Magic, version, tokens, token slots, owner slots, rules, comments and
+     * chars.
+     */
+    private static final int HEADER_BYTES = 8 * Integer.BYTES;
+    private static final String FILE_PREFIX = "rules-";
+    private static final String FILE_SUFFIX = ".bin";
+    /** Stored for rules which never lapse, as in {@link RuleTable}. */
+    private static final int NO_UNTIL = Integer.MAX_VALUE;
+    private static final String WILDCARD = "*";
+
+    private final ByteBuffer table;
+    private final int tokenCount;
+    private final int tokenSlotCount;
+    private final int ownerSlotCount;
+    private final int ruleCount;
+    private final int ownerSlotsStart;
+    private final int tokenEndsStart;
+    private final int firstRulesStart;
+    private final int versionsStart;
+    private final int untilsStart;
+    private final int commentIdsStart;
+    private final int commentEndsStart;
+    private final int charsStart;
+
+    private MappedRuleTable(ByteBuffer table) {
+        this.table = table;
+        this.tokenCount = table.getInt(2 * Integer.BYTES);
+        this.tokenSlotCount = table.getInt(3 * Integer.BYTES);
+        this.ownerSlotCount = table.getInt(4 * Integer.BYTES);
+        this.ruleCount = table.getInt(5 * Integer.BYTES);
+        this.ownerSlotsStart = HEADER_BYTES + tokenSlotCount * Integer.BYTES;
+        this.tokenEndsStart = ownerSlotsStart + ownerSlotCount * Integer.BYTES;
+        this.firstRulesStart = tokenEndsStart + tokenCount * Integer.BYTES;
+        this.versionsStart = firstRulesStart +
+                (tokenCount + 1) * Integer.BYTES;
+        this.untilsStart = versionsStart + ruleCount * Integer.BYTES;
+        this.commentIdsStart = untilsStart + ruleCount * Integer.BYTES;
+        this.commentEndsStart = commentIdsStart + ruleCount * Integer.BYTES;
+        this.charsStart = commentEndsStart +
+                table.getInt(6 * Integer.BYTES) * Integer.BYTES;
+    }
+
+    /** Maps a table written by {@link #write}. */
+    static MappedRuleTable open(Path file) throws IOException {
+        ByteBuffer table = map(file);
+        if (table == null) {
+            throw new IOException("Not a rule table: " + file);
+        }
+        return new MappedRuleTable(table);
+    }
+
+    /** Writes a table of the given rules to file, replacing it atomically. */
+    static void write(Map<String, Collection<Violation>> violations,
+            Path file) throws IOException {
+        Utils.writeAtomically(file, serialize(violations));
+    }
+
+    /**
+     * Returns the table of the rules in the given XML sources, each
+     * overlaying the ones before it.  The table is mapped from
+     * cacheDirectory if a previous build stored one for the same sources and
+     * otherwise parsed and stored there.
+     */
+    static MappedRuleTable load(Path cacheDirectory, List<byte[]> sources)
+            throws IOException, ParserConfigurationException, SAXException {
+        MessageDigest digest = Utils.newSha256();
+        digest.update((byte) FORMAT_VERSION);
+        for (byte[] source : sources) {
+            digest.update(ByteBuffer.allocate(Integer.BYTES)
+                    .putInt(0, source.length));
+            digest.update(source);
+        }
+        Path file = cacheDirectory.resolve(FILE_PREFIX +
+                Utils.toHexPrefix(digest.digest()) + FILE_SUFFIX);
+        ByteBuffer table = Files.exists(file) ? map(file) : null;
+        if (table == null) {
+            Map<String, Collection<Violation>> violations = new HashMap<>();
+            for (byte[] source : sources) {
+                try (InputStream is = new ByteArrayInputStream(source)) {
+                    violations.putAll(Modernizer.parseFromXml(is));
+                }
+            }
+            table = serialize(violations);
+            try {
+                Utils.writeAtomically(file, table);
+                // Share the stored copy rather than keep a private one.
+                ByteBuffer mapped = map(file);
+                if (mapped != null) {
+                    table = mapped;
+                }
+            } catch (IOException ioe) {
+                // A read-only cache only costs the next build a parse.
+            }
+        }
+        return new MappedRuleTable(table);
+    }
+
+    /** Returns the number of rules, including those at other versions. */
+    int size() {
+        return ruleCount;
+    }
+
+    /** Returns a matcher for the rules which apply at javaVersion. */
+    RuleMatcher matcher(long javaVersion) {
+        return new Matcher(javaVersion);
+    }
+
+    /**
+     * Returns the rules for a reference to a type or member which apply at
+     * javaVersion, from its most precise matching token, or null, as
+     * {@link RuleTable#match}.
+     */
+    Collection<Violation> match(String token, long javaVersion) {
+        int dot = token.indexOf('.');
+        int colon = token.indexOf(':', dot + 1);
+        Collection<Violation> v = applicable(indexOf(token, null, null),
+                javaVersion);
+        if (v == null && dot != -1 && colon != -1) {
+            String owner = token.substring(0, dot);
+            String name = token.substring(dot + 1, colon);
+            v = applicable(indexOf(owner, name, WILDCARD), javaVersion);
+            if (v == null) {
+                v = applicable(indexOf(owner, WILDCARD, null), javaVersion);
+            }
+        }
+        return v;
+    }
+
+    private Collection<Violation> applicable(int id, long javaVersion) {
+        if (id == -1) {
+            return null;
+        }
+        List<Violation> v = applicableAt(id, javaVersion);
+        return v.isEmpty() ? null : v;
+    }
+
+    /** Decodes the rules of a token which apply at javaVersion. */
+    private List<Violation> applicableAt(int id, long javaVersion) {
+        String token = token(id);
+        Map<Integer, String> comments = new HashMap<>();
+        List<Violation> violations = new ArrayList<>();
+        for (int rule = intAt(firstRulesStart, id);
+                rule < intAt(firstRulesStart, id + 1); ++rule) {
+            if (javaVersion >= intAt(versionsStart, rule) &&
+                    javaVersion < intAt(untilsStart, rule)) {
+                violations.add(violation(token, rule, comments));
+            }
+        }
+        return Collections.unmodifiableList(violations);
+    }
+
+    /** Returns every token and its rules, e.g., to build a RuleTable. */
+    Map<String, Collection<Violation>> toMap() {
+        Map<String, Collection<Violation>> map = new HashMap<>();
+        Map<Integer, String> comments = new HashMap<>();
+        for (int id = 0; id < tokenCount; ++id) {
+            String token = token(id);
+            List<Violation> violations = new ArrayList<>();
+            for (int rule = intAt(firstRulesStart, id);
+                    rule < intAt(firstRulesStart, id + 1); ++rule) {
+                violations.add(violation(token, rule, comments));
+            }
+            map.put(token, violations);
+        }
+        return map;
+    }
+
+    private Violation violation(String token, int rule,
+            Map<Integer, String> comments) {
+        int until = intAt(untilsStart, rule);
+        String comment = comments.computeIfAbsent(
+                intAt(commentIdsStart, rule), this::comment);
+        return new Violation(token, intAt(versionsStart, rule),
+                until == NO_UNTIL ? OptionalInt.empty() :
+                        OptionalInt.of(until),
+                comment);
+    }
+
+    /**
+     * Returns the id of the token owner, owner.name or owner.name:desc,
+     * where name and desc may be null, or -1.  Hashes as String.hashCode
+     * would hash the token and allocates nothing.
+     */
+    private int indexOf(String owner, String name, String desc) {
+        int hash = owner.hashCode();
+        int length = owner.length();
+        if (name != null) {
+            hash = hash(31 * hash + '.', name);
+            length += 1 + name.length();
+            if (desc != null) {
+                hash = hash(31 * hash + ':', desc);
+                length += 1 + desc.length();
+            }
+        }
+        for (int slot = hash & (tokenSlotCount - 1);;
+                slot = (slot + 1) & (tokenSlotCount - 1)) {
+            int id = intAt(HEADER_BYTES, slot) - 1;
+            if (id == -1) {
+                return -1;
+            }
+            int start = tokenStart(id);
+            if (intAt(tokenEndsStart, id) - start != length ||
+                    !regionMatches(start, owner)) {
+                continue;
+            }
+            if (name == null) {
+                return id;
+            }
+            start += owner.length();
+            if (charAt(start) != '.' || !regionMatches(start + 1, name)) {
+                continue;
+            }
+            if (desc == null) {
+                return id;
+            }
+            start += 1 + name.length();
+            if (charAt(start) == ':' && regionMatches(start + 1, desc)) {
+                return id;
+            }
+        }
+    }
+
+    /** Returns whether any member token has the given owner. */
+    private boolean hasMembers(String owner) {
+        int length = owner.length();
+        for (int slot = owner.hashCode() & (ownerSlotCount - 1);;
+                slot = (slot + 1) & (ownerSlotCount - 1)) {
+            int id = intAt(ownerSlotsStart, slot) - 1;
+            if (id == -1) {
+                return false;
+            }
+            int start = tokenStart(id);
+            if (intAt(tokenEndsStart, id) - start > length &&
+                    charAt(start + length) == '.' &&
+                    regionMatches(start, owner)) {
+                return true;
+            }
+        }
+    }
+
+    private static int hash(int hash, String s) {
+        for (int i = 0; i < s.length(); ++i) {
+            hash = 31 * hash + s.charAt(i);
+        }
+        return hash;
+    }
+
+    private boolean regionMatches(int start, String s) {
+        for (int i = 0; i < s.length(); ++i) {
+            if (charAt(start + i) != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int tokenStart(int id) {
+        return id == 0 ? 0 : intAt(tokenEndsStart, id - 1);
+    }
+
+    private String token(int id) {
+        return string(tokenStart(id), intAt(tokenEndsStart, id));
+    }
+
+    private String comment(int id) {
+        int tokenChars = tokenCount == 0 ? 0 :
+                intAt(tokenEndsStart, tokenCount - 1);
+        return string(id == 0 ? tokenChars : intAt(commentEndsStart, id - 1),
+                intAt(commentEndsStart, id));
+    }
+
+    private String string(int start, int end) {
+        char[] chars = new char[end - start];
+        for (int i = 0; i < chars.length; ++i) {
+            chars[i] = charAt(start + i);
+        }
+        return new String(chars);
+    }
+
+    private char charAt(int index) {
+        return table.getChar(charsStart + index * Character.BYTES);
+    }
+
+    private int intAt(int sectionStart, int index) {
+        return table.getInt(sectionStart + index * Integer.BYTES);
+    }
+
+    private static ByteBuffer serialize(
+            Map<String, Collection<Violation>> violations) {
+        Map<String, Collection<Violation>> sorted = new TreeMap<>();
+        for (Map.Entry<String, Collection<Violation>> entry :
+                violations.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                sorted.put(entry.getKey(), entry.getValue());
+            }
+        }
+        List<String> tokens = new ArrayList<>(sorted.keySet());
+        Map<String, Integer> commentIds = new LinkedHashMap<>();
+        Map<String, Integer> owners = new LinkedHashMap<>();
+        int ruleCount = 0;
+        int tokenChars = 0;
+        int commentChars = 0;
+        for (int id = 0; id < tokens.size(); ++id) {
+            String token = tokens.get(id);
+            tokenChars += token.length();
+            int dot = token.indexOf('.');
+            if (dot != -1) {
+                owners.putIfAbsent(token.substring(0, dot), id);
+            }
+            for (Violation violation : sorted.get(token)) {
+                if (commentIds.putIfAbsent(violation.getComment(),
+                        commentIds.size()) == null) {
+                    commentChars += violation.getComment().length();
+                }
+                ++ruleCount;
+            }
+        }
+        int charCount = tokenChars + commentChars;
+        int tokenSlotCount =
+                Integer.highestOneBit(Math.max(1, tokens.size())) * 4;
+        int ownerSlotCount =
+                Integer.highestOneBit(Math.max(1, owners.size())) * 4;
+
+        ByteBuffer table = ByteBuffer.allocate(HEADER_BYTES +
+                (tokenSlotCount + ownerSlotCount + 2 * tokens.size() + 1 +
+                        3 * ruleCount + commentIds.size()) * Integer.BYTES +
+                charCount * Character.BYTES);
+        table.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(tokens.size())
+                .putInt(tokenSlotCount).putInt(ownerSlotCount)
+                .putInt(ruleCount).putInt(commentIds.size())
+                .putInt(charCount);
+        int[] slots = new int[tokenSlotCount];
+        for (int id = 0; id < tokens.size(); ++id) {
+            put(slots, tokens.get(id).hashCode(), id);
+        }
+        table.asIntBuffer().put(slots);
+        table.position(table.position() + slots.length * Integer.BYTES);
+        slots = new int[ownerSlotCount];
+        for (Map.Entry<String, Integer> entry : owners.entrySet()) {
+            put(slots, entry.getKey().hashCode(), entry.getValue());
+        }
+        table.asIntBuffer().put(slots);
+        table.position(table.position() + slots.length * Integer.BYTES);
+        int end = 0;
+        for (String token : tokens) {
+            end += token.length();
+            table.putInt(end);
+        }
+        end = 0;
+        for (String token : tokens) {
+            table.putInt(end);
+            end += sorted.get(token).size();
+        }
+        table.putInt(end);
+        for (String token : tokens) {
+            for (Violation violation : sorted.get(token)) {
+                table.putInt(violation.getVersion());
+            }
+        }
+        for (String token : tokens) {
+            for (Violation violation : sorted.get(token)) {
+                table.putInt(violation.getUntil().orElse(NO_UNTIL));
+            }
+        }
+        for (String token : tokens) {
+            for (Violation violation : sorted.get(token)) {
+                table.putInt(commentIds.get(violation.getComment()));
+            }
+        }
+        // Comments follow the tokens.
+        end = tokenChars;
+        for (String comment : commentIds.keySet()) {
+            end += comment.length();
+            table.putInt(end);
+        }
+        for (String token : tokens) {
+            putChars(table, token);
+        }
+        for (String comment : commentIds.keySet()) {
+            putChars(table, comment);
+        }
+        table.flip();
+        return table;
+    }
+
+    private static void put(int[] slots, int hash, int id) {
+        int slot = hash & (slots.length - 1);
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & (slots.length - 1);
+        }
+        slots[slot] = id + 1;
+    }
+
+    private static void putChars(ByteBuffer table, String s) {
+        for (int i = 0; i < s.length(); ++i) {
+            table.putChar(s.charAt(i));
+        }
+    }
+
+    /** Maps a stored table, or returns null if it is not a valid one. */
+    private static ByteBuffer map(Path file) throws IOException {
+        ByteBuffer table = Utils.mapReadOnly(file, HEADER_BYTES);
+        if (table == null || table.getInt(0) != MAGIC ||
+                table.getInt(Integer.BYTES) != FORMAT_VERSION) {
+            return null;
+        }
+        long tokens = table.getInt(2 * Integer.BYTES);
+        long size = HEADER_BYTES + (table.getInt(3 * Integer.BYTES) +
+                table.getInt(4 * Integer.BYTES) + 2 * tokens + 1 +
+                3L * table.getInt(5 * Integer.BYTES) +
+                table.getInt(6 * Integer.BYTES)) * Integer.BYTES +
+                (long) table.getInt(7 * Integer.BYTES) * Character.BYTES;
+        return size == table.capacity() ? table : null;
+    }
+
+    /**
+     * Rules applying at one version.  The first lookup of each token decodes
+     * its applicable rules, which later lookups share.
+     */
+    private final class Matcher implements RuleMatcher {
+        private final long javaVersion;
+        private final AtomicReferenceArray<Collection<Violation>> results =
+                new AtomicReferenceArray<>(tokenCount);
+
+        Matcher(long javaVersion) {
+            this.javaVersion = javaVersion;
+        }
+
+        @Override
+        public Collection<Violation> matchType(String internalName) {
+            return applicable(indexOf(internalName, null, null));
+        }
+
+        @Override
+        public Collection<Violation> matchMember(String owner, String name,
+                String descriptor) {
+            if (!hasMembers(owner)) {
+                return null;
+            }
+            Collection<Violation> v = applicable(indexOf(owner, name,
+                    descriptor));
+            if (v == null) {
+                v = applicable(indexOf(owner, name, WILDCARD));
+                if (v == null) {
+                    v = applicable(indexOf(owner, WILDCARD, null));
+                }
+            }
+            return v;
+        }
+
+        private Collection<Violation> applicable(int id) {
+            if (id == -1) {
+                return null;
+            }
+            Collection<Violation> result = results.get(id);
+            if (result == null) {
+                // Tokens without applicable rules cache an empty list.
+                results.compareAndSet(id, null, applicableAt(id,
+                        javaVersion));
+                result = results.get(id);
+            }
+            return result.isEmpty() ? null : result;
+        }
+    }
+}
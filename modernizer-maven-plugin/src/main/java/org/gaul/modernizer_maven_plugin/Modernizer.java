@@ -16,14 +16,27 @@
 
 package org.gaul.modernizer_maven_plugin;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.OptionalInt;
+import java.util.Properties;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.regex.Pattern;
 
 import javax.xml.XMLConstants;
@@ -43,14 +56,35 @@ import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 
 public final class Modernizer {
+    /**
+     * Version of the scan, part of the {@link #fingerprint}.  Increment it
+     * whenever a change to the scan changes the violations it reports for
+     * the same class file and rules, so that cached results are not reused.
+     */
+    private static final int SCAN_VERSION = 1;
+    /** Version of this plugin, or empty if not run from its jar. */
+    private static final String PLUGIN_VERSION = readPluginVersion();
+
     private final long javaVersion;
-    private final Map<String, Collection<Violation>> violations;
+    /**
+     * Canonical rule table, shared by instances built from equal rules, or
+     * null if the rules are mapped.
+     */
+    private final RuleTable rules;
+    private final MappedRuleTable mappedRules;
+    /** Rules applicable at javaVersion, shared by copies of this instance. */
+    private final RuleMatcher matcher;
     private final Collection<String> exclusions;
     private final Collection<Pattern> exclusionPatterns;
     private final Collection<String> ignorePackages;
-    private final Set<String> ignoreClassNames;
+    private final ClassNameTrie ignoreClassNames;
     private final Collection<Pattern> ignoreFullClassNamePatterns;
     private final boolean ignoreGeneratedClasses;
+    private final ScanListener listener;
+    private final boolean lightweightScanner;
+    /** One reusable visitor per worker thread. */
+    private final ThreadLocal<ModernizerClassVisitor> visitors =
+            ThreadLocal.withInitial(this::newClassVisitor);
 
     public Modernizer(String javaVersion, Map<String, Collection<Violation>> violations,
             Collection<String> exclusions,
@@ -59,6 +93,48 @@ public final class Modernizer {
             Set<String> ignoreClassNames,
             Collection<Pattern> ignoreClassNamePatterns,
             boolean ignoreGeneratedClasses) {
+        this(javaVersion, RuleTable.of(violations), null, exclusions,
+                exclusionPatterns, ignorePackages, ignoreClassNames,
+                ignoreClassNamePatterns, ignoreGeneratedClasses);
+    }
+
+    /**
+     * Creates an instance which maps the rule table written by
+     * {@link #writeRuleTable} instead of parsing rules, so that processes
+     * sharing a table share one copy of it in the page cache.
+     */
+    public Modernizer(String javaVersion, Path ruleTable,
+            Collection<String> exclusions,
+            Collection<Pattern> exclusionPatterns,
+            Collection<String> ignorePackages,
+            Set<String> ignoreClassNames,
+            Collection<Pattern> ignoreClassNamePatterns,
+            boolean ignoreGeneratedClasses) throws IOException {
+        this(javaVersion, MappedRuleTable.open(ruleTable), exclusions,
+                exclusionPatterns, ignorePackages, ignoreClassNames,
+                ignoreClassNamePatterns, ignoreGeneratedClasses);
+    }
+
+    Modernizer(String javaVersion, MappedRuleTable mappedRules,
+            Collection<String> exclusions,
+            Collection<Pattern> exclusionPatterns,
+            Collection<String> ignorePackages,
+            Set<String> ignoreClassNames,
+            Collection<Pattern> ignoreClassNamePatterns,
+            boolean ignoreGeneratedClasses) {
+        this(javaVersion, null, mappedRules, exclusions, exclusionPatterns,
+                ignorePackages, ignoreClassNames, ignoreClassNamePatterns,
+                ignoreGeneratedClasses);
+    }
+
+    private Modernizer(String javaVersion, RuleTable rules,
+            MappedRuleTable mappedRules,
+            Collection<String> exclusions,
+            Collection<Pattern> exclusionPatterns,
+            Collection<String> ignorePackages,
+            Set<String> ignoreClassNames,
+            Collection<Pattern> ignoreClassNamePatterns,
+            boolean ignoreGeneratedClasses) {
         long version;
         if (javaVersion.startsWith("1.")) {
             version = Long.parseLong(javaVersion.substring(2));
@@ -67,14 +143,52 @@ public final class Modernizer {
         }
         Utils.checkArgument(version >= 0);
         this.javaVersion = version;
-        this.violations = Utils.createImmutableMap(violations);
+        this.rules = rules;
+        this.mappedRules = mappedRules;
+        this.matcher = rules != null ? RuleMatchers.create(rules, version) :
+                mappedRules.matcher(version);
         this.exclusions = Utils.createImmutableSet(exclusions);
         this.exclusionPatterns = Utils.createImmutableSet(exclusionPatterns);
         this.ignorePackages = Utils.createImmutableSet(ignorePackages);
-        this.ignoreClassNames =  Utils.createImmutableSet(ignoreClassNames);
+        this.ignoreClassNames = ClassNameTrie.of(ignoreClassNames);
         this.ignoreFullClassNamePatterns
             = Utils.createImmutableSet(ignoreClassNamePatterns);
         this.ignoreGeneratedClasses = ignoreGeneratedClasses;
+        this.listener = null;
+        this.lightweightScanner = false;
+    }
+
+    private Modernizer(Modernizer other, RuleTable rules,
+            MappedRuleTable mappedRules, RuleMatcher matcher,
+            ClassNameTrie ignoreClassNames, ScanListener listener,
+            boolean lightweightScanner) {
+        this(other, rules, mappedRules, matcher, other.exclusions,
+                other.exclusionPatterns, other.ignorePackages, ignoreClassNames,
+                other.ignoreFullClassNamePatterns, listener,
+                lightweightScanner);
+    }
+
+    private Modernizer(Modernizer other, RuleTable rules,
+            MappedRuleTable mappedRules, RuleMatcher matcher,
+            Collection<String> exclusions,
+            Collection<Pattern> exclusionPatterns,
+            Collection<String> ignorePackages,
+            ClassNameTrie ignoreClassNames,
+            Collection<Pattern> ignoreFullClassNamePatterns,
+            ScanListener listener, boolean lightweightScanner) {
+        this.javaVersion = other.javaVersion;
+        this.rules = rules;
+        this.mappedRules = mappedRules;
+        this.matcher = matcher;
+        this.exclusions = Utils.createImmutableSet(exclusions);
+        this.exclusionPatterns = Utils.createImmutableSet(exclusionPatterns);
+        this.ignorePackages = Utils.createImmutableSet(ignorePackages);
+        this.ignoreClassNames = ignoreClassNames;
+        this.ignoreFullClassNamePatterns =
+                Utils.createImmutableSet(ignoreFullClassNamePatterns);
+        this.ignoreGeneratedClasses = other.ignoreGeneratedClasses;
+        this.listener = listener;
+        this.lightweightScanner = lightweightScanner;
     }
 
     /**
@@ -101,13 +215,271 @@ public final class Modernizer {
                 /*ignoreGeneratedClasses=*/ false);
     }
 
+    /**
+     * Returns a copy of this instance which ignores the given class names
+     * instead of the original ones.  The parsed rule table is shared rather
+     * than copied, so long-lived callers can cheaply rebind suppressions
+     * for each scan.
+     */
+    Modernizer withIgnoreClassNames(Set<String> ignoreClassNames) {
+        return withIgnoreClassNames(ClassNameTrie.of(ignoreClassNames));
+    }
+
+    /**
+     * As {@link #withIgnoreClassNames(Set)} but shares the given names
+     * instead of copying them, so the caller must not add to them later.
+     */
+    Modernizer withIgnoreClassNames(ClassNameTrie ignoreClassNames) {
+        return new Modernizer(this, rules, mappedRules, matcher,
+                ignoreClassNames, listener, lightweightScanner);
+    }
+
+    /**
+     * Returns a copy of this instance which reports its progress to the
+     * given listener, or to none if null.  Instances without a listener
+     * skip all instrumentation.
+     */
+    public Modernizer withListener(ScanListener listener) {
+        return new Modernizer(this, rules, mappedRules, matcher,
+                ignoreClassNames, listener, lightweightScanner);
+    }
+
+    /**
+     * Returns a copy of this instance which, if enabled, reads class files
+     * with a scanner which only decodes what Modernizer checks instead of
+     * with ASM's ClassReader.accept.  Both find the same violations; class
+     * files newer than the scanner understands are still read with ASM.
+     */
+    public Modernizer withLightweightScanner(boolean enabled) {
+        return new Modernizer(this, rules, mappedRules, matcher,
+                ignoreClassNames, listener, enabled);
+    }
+
+    /**
+     * Returns a copy of this instance which looks up rules with the given
+     * matcher, e.g., to compare matcher implementations.
+     */
+    Modernizer withMatcher(RuleMatcher matcher) {
+        return new Modernizer(this, rules, mappedRules, matcher,
+                ignoreClassNames, listener, lightweightScanner);
+    }
+
+    /**
+     * Returns a copy of this instance which, if supertypes is not null,
+     * also reports references to fields and methods through a subtype of
+     * the type with the rule, e.g., Stack.addElement for a rule on
+     * Vector.addElement.  Exclusions still match the reference as written.
+     */
+    Modernizer withSupertypes(SupertypeIndex supertypes) {
+        RuleTable table = rules();
+        RuleMatcher base = RuleMatchers.create(table, javaVersion);
+        return new Modernizer(this, table, null, supertypes == null ? base :
+                RuleMatchers.inheriting(base, table, javaVersion, supertypes),
+                ignoreClassNames, listener, lightweightScanner);
+    }
+
+    /**
+     * Returns a copy of this instance which applies the given exclusions and
+     * ignores the given packages and class name patterns instead of the
+     * original ones, sharing the rule table, e.g., for a daemon serving
+     * projects with different configurations.
+     */
+    Modernizer withFilters(Collection<String> exclusions,
+            Collection<Pattern> exclusionPatterns,
+            Collection<String> ignorePackages,
+            Collection<Pattern> ignoreClassNamePatterns) {
+        return new Modernizer(this, rules, mappedRules, matcher, exclusions,
+                exclusionPatterns, ignorePackages, ignoreClassNames,
+                ignoreClassNamePatterns, listener, lightweightScanner);
+    }
+
+    /**
+     * Returns a copy of this instance without the rules for types which are
+     * neither on the classpath nor in the JDK of the given index.  Classes
+     * compiled against that classpath cannot reference them, so dropping
+     * them shrinks the matcher without changing what a scan finds.  Call
+     * before {@link #withSupertypes}, whose matcher this replaces.
+     */
+    Modernizer withReachableRules(SupertypeIndex classpath) {
+        RuleTable reachable = rules().retainOwners(classpath::contains);
+        return new Modernizer(this, reachable, null,
+                RuleMatchers.create(reachable, javaVersion), ignoreClassNames,
+                listener, lightweightScanner);
+    }
+
+    /** Returns the rule table, decoding it if the rules are mapped. */
+    private RuleTable rules() {
+        return rules != null ? rules : RuleTable.of(mappedRules.toMap());
+    }
+
+    /** Returns the number of rules, including those at other versions. */
+    int getRuleCount() {
+        return rules != null ? rules.size() : mappedRules.size();
+    }
+
+    boolean isIgnoreGeneratedClasses() {
+        return ignoreGeneratedClasses;
+    }
+
+    /** Returns whether the class is ignored by name or name pattern. */
+    boolean isClassIgnored(String className) {
+        return ModernizerClassVisitor.isClassIgnored(className,
+                ignoreClassNames, ignoreFullClassNamePatterns);
+    }
+
+    /**
+     * Returns a hash of the plugin and scan versions, the rules which apply
+     * at the target version, the exclusions and the ignored packages.
+     * Together with its class file, these determine the violations of a
+     * class which is not ignored, or null if supertypes are resolved, since
+     * the violations then also depend on other classes.
+     */
+    byte[] fingerprint() {
+        if (matcher instanceof RuleMatchers.InheritingRuleMatcher) {
+            return null;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(SCAN_VERSION);
+            out.writeUTF(PLUGIN_VERSION);
+            Map<String, Collection<Violation>> applicable =
+                    rules().applicableAt(javaVersion);
+            out.writeInt(applicable.size());
+            for (String token : new TreeSet<>(applicable.keySet())) {
+                out.writeUTF(token);
+                Collection<Violation> violations = applicable.get(token);
+                out.writeInt(violations.size());
+                for (Violation violation : violations) {
+                    out.writeInt(violation.getVersion());
+                    out.writeInt(violation.getUntil().orElse(-1));
+                    out.writeUTF(violation.getComment());
+                }
+            }
+            writeSorted(out, exclusions);
+            List<String> patterns = new ArrayList<>();
+            for (Pattern pattern : exclusionPatterns) {
+                patterns.add(pattern.flags() + ":" + pattern.pattern());
+            }
+            writeSorted(out, patterns);
+            writeSorted(out, ignorePackages);
+            out.writeBoolean(ignoreGeneratedClasses);
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+        return Utils.newSha256().digest(bytes.toByteArray());
+    }
+
+    private static String readPluginVersion() {
+        try (InputStream is = Modernizer.class.getResourceAsStream(
+                "/META-INF/maven/org.gaul/modernizer-maven-plugin/" +
+                "pom.properties")) {
+            if (is == null) {
+                return "";
+            }
+            Properties properties = new Properties();
+            properties.load(is);
+            return properties.getProperty("version", "");
+        } catch (IOException ioe) {
+            return "";
+        }
+    }
+
+    private static void writeSorted(DataOutputStream out,
+            Collection<String> strings) throws IOException {
+        out.writeInt(strings.size());
+        for (String string : new TreeSet<>(strings)) {
+            out.writeUTF(string);
+        }
+    }
+
+    /**
+     * Returns the violations in a class.  Classes without violations, the
+     * common case, return a shared empty list; the scan allocates nothing
+     * beyond what ClassReader does.
+     */
     public Collection<ViolationOccurrence> check(ClassReader classReader) {
-        ModernizerClassVisitor classVisitor = new ModernizerClassVisitor(
-                javaVersion, violations, exclusions, exclusionPatterns,
-                ignorePackages, ignoreClassNames, ignoreFullClassNamePatterns,
-                ignoreGeneratedClasses);
-        classReader.accept(classVisitor, 0);
-        return classVisitor.getOccurrences();
+        if (listener != null) {
+            return checkObserved(classReader);
+        }
+        return copyOccurrences(scan(classReader));
+    }
+
+    private Collection<ViolationOccurrence> checkObserved(
+            ClassReader classReader) {
+        String className = classReader.getClassName();
+        int byteSize = classFileSize(classReader);
+        listener.classStarted(className, byteSize);
+        long start = System.nanoTime();
+        ModernizerClassVisitor classVisitor = scan(classReader);
+        Collection<ViolationOccurrence> occurrences =
+                copyOccurrences(classVisitor);
+        listener.classFinished(className, byteSize,
+                System.nanoTime() - start, classVisitor.getTokensProbed(),
+                occurrences.size());
+        return occurrences;
+    }
+
+    /**
+     * Reports a class whose violations were not scanned but found
+     * elsewhere, e.g., in the scan cache, to the listener as a class which
+     * took elapsedNanos and probed no references.
+     */
+    void reportCached(String className, int byteSize, long elapsedNanos,
+            int occurrences) {
+        if (listener != null) {
+            listener.classStarted(className, byteSize);
+            listener.classFinished(className, byteSize, elapsedNanos,
+                    /*tokensProbed=*/ 0, occurrences);
+        }
+    }
+
+    /**
+     * Visits a class with this thread's visitor, or with a new one if a
+     * listener called back into this instance mid-scan.
+     */
+    private ModernizerClassVisitor scan(ClassReader classReader) {
+        ModernizerClassVisitor classVisitor = visitors.get();
+        if (classVisitor.isBusy()) {
+            classVisitor = newClassVisitor();
+        }
+        classVisitor.scan(classReader, lightweightScanner);
+        return classVisitor;
+    }
+
+    /**
+     * Returns the violations in a class recorded in a reference index, as
+     * {@link #check(ClassReader)} returns for its class file.  Listeners
+     * observe the violations but not the class.
+     */
+    Collection<ViolationOccurrence> check(ReferenceIndex index, int classId) {
+        ModernizerClassVisitor classVisitor = visitors.get();
+        if (classVisitor.isBusy()) {
+            classVisitor = newClassVisitor();
+        }
+        classVisitor.scan(index, classId);
+        return copyOccurrences(classVisitor);
+    }
+
+    private static Collection<ViolationOccurrence> copyOccurrences(
+            ModernizerClassVisitor classVisitor) {
+        List<ViolationOccurrence> occurrences = classVisitor.getOccurrences();
+        return occurrences.isEmpty() ?
+                Collections.<ViolationOccurrence>emptyList() :
+                Collections.unmodifiableList(new ArrayList<>(occurrences));
+    }
+
+    private ModernizerClassVisitor newClassVisitor() {
+        return new ModernizerClassVisitor(javaVersion, matcher, exclusions,
+                exclusionPatterns, ignorePackages, ignoreClassNames,
+                ignoreFullClassNamePatterns, ignoreGeneratedClasses,
+                listener);
+    }
+
+    // ASM deprecates the public buffer but offers no other way to learn
+    // the size of the class file.
+    @SuppressWarnings("deprecation")
+    private static int classFileSize(ClassReader classReader) {
+        return classReader.b.length;
     }
 
     public Collection<ViolationOccurrence> check(InputStream is)
@@ -115,6 +487,197 @@ public final class Modernizer {
         return check(new ClassReader(is));
     }
 
+    /**
+     * Checks a batch of classes on up to parallelism threads.  Equivalent to
+     * {@link #check(Iterable, Executor)} with a pool which exists for the
+     * duration of the call.
+     */
+    public Map<ClassSource, Collection<ViolationOccurrence>> check(
+            Iterable<ClassSource> sources, int parallelism)
+            throws IOException {
+        Utils.checkArgument(parallelism > 0, "parallelism must be positive");
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return check(sources, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Checks a batch of classes on the given executor and returns the
+     * occurrences for each source in iteration order.  Besides the class
+     * names this instance ignores, classes in the batch annotated with
+     * {@code @SuppressModernizer}, or {@code @Generated} if enabled,
+     * suppress themselves and their nested classes wherever those appear in
+     * the batch.  Sources are held in memory until the scan completes.
+     */
+    public Map<ClassSource, Collection<ViolationOccurrence>> check(
+            Iterable<ClassSource> sources, Executor executor)
+            throws IOException {
+        List<ClassSource> sourceList = new ArrayList<>();
+        for (ClassSource source : sources) {
+            sourceList.add(source);
+        }
+
+        // First pass: read each class once and collect suppressions.
+        AnnotationDetector suppressModernizer =
+                SuppressModernizerAnnotationDetector.newDetector();
+        AnnotationDetector suppressGenerated = ignoreGeneratedClasses ?
+                SuppressGeneratedAnnotationDetector.newDetector() : null;
+        List<CompletableFuture<ClassReader>> reads =
+                new ArrayList<>(sourceList.size());
+        for (ClassSource source : sourceList) {
+            reads.add(CompletableFuture.supplyAsync(() -> {
+                ClassReader classReader;
+                try {
+                    classReader = new ClassReader(source.read());
+                } catch (IOException ioe) {
+                    throw new UncheckedIOException(ioe);
+                }
+                suppressModernizer.scan(classReader);
+                if (suppressGenerated != null) {
+                    suppressGenerated.scan(classReader);
+                }
+                return classReader;
+            }, executor));
+        }
+        List<ClassReader> classReaders = join(reads);
+
+        ClassNameTrie batchIgnoreClassNames = ignoreClassNames.copy();
+        suppressModernizer.addSuppressedClassNames(batchIgnoreClassNames);
+        if (suppressGenerated != null) {
+            suppressGenerated.addSuppressedClassNames(batchIgnoreClassNames);
+        }
+        Modernizer scoped = withIgnoreClassNames(batchIgnoreClassNames);
+
+        // Second pass: check each class against the complete suppressions.
+        List<CompletableFuture<Collection<ViolationOccurrence>>> checks =
+                new ArrayList<>(classReaders.size());
+        for (ClassReader classReader : classReaders) {
+            checks.add(CompletableFuture.supplyAsync(
+                    () -> scoped.check(classReader), executor));
+        }
+        List<Collection<ViolationOccurrence>> occurrences = join(checks);
+
+        Map<ClassSource, Collection<ViolationOccurrence>> result =
+                new LinkedHashMap<>();
+        for (int i = 0; i < sourceList.size(); ++i) {
+            result.put(sourceList.get(i), occurrences.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Equivalent to {@link #publish(Iterable, Executor, int)} with a window
+     * of twice the available processors.
+     */
+    public ScanFlow.Publisher<ClassScanResult> publish(
+            Iterable<ClassSource> sources, Executor executor) {
+        return publish(sources, executor,
+                2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Returns a publisher which checks classes on the given executor and
+     * delivers the result of each in iteration order as soon as it is
+     * available, for callers which render or upload results while the scan
+     * runs.  Each subscriber iterates the sources afresh.  At most
+     * {@code maxInFlight} classes, and no more than the subscriber has
+     * requested, are read ahead, so a slow subscriber throttles reading and
+     * cancelling stops the iteration, e.g., the walk of
+     * {@link ClassSource#walk}.
+     *
+     * <p>Classes are checked as they arrive, so an annotated class
+     * suppresses nested classes which follow it in the iteration, as they
+     * do in a directory walk.  Unlike {@link #check(Iterable, Executor)} it
+     * cannot suppress nested classes which precede it.
+     */
+    public ScanFlow.Publisher<ClassScanResult> publish(
+            Iterable<ClassSource> sources, Executor executor,
+            int maxInFlight) {
+        return new StreamingScan(this, sources, executor, maxInFlight);
+    }
+
+    /**
+     * Waits for every future, rethrowing the first failure as thrown by the
+     * task and abandoning tasks which have not started.
+     */
+    private static <T> List<T> join(List<CompletableFuture<T>> futures)
+            throws IOException {
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException ce) {
+            for (CompletableFuture<T> future : futures) {
+                future.cancel(/*mayInterruptIfRunning=*/ false);
+            }
+            Throwable cause = ce.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw ce;
+        }
+        return results;
+    }
+
+    /**
+     * Returns the rules violated by a reference from a class to a type,
+     * field or method, applying the same target version, wildcards,
+     * exclusions and ignored packages and classes as the bytecode scan.
+     * This lets other front ends, e.g., a javac plugin, share the rule
+     * table.
+     *
+     * @param className internal name of the referencing class
+     * @param token referenced type, field or method in javap format, e.g.,
+     *     {@code java/lang/String.getBytes:(Ljava/lang/String;)[B}
+     */
+    public Collection<Violation> check(String className, String token) {
+        Collection<Violation> v = rules != null ?
+                rules.match(token, javaVersion) :
+                mappedRules.match(token, javaVersion);
+        if (v == null || ModernizerClassVisitor.isClassIgnored(className,
+                ignoreClassNames, ignoreFullClassNamePatterns)) {
+            return Collections.emptyList();
+        }
+        int slash = className.lastIndexOf('/');
+        String packageName = slash == -1 ? "" :
+                className.substring(0, slash).replace('/', '.');
+        return ModernizerClassVisitor.applicable(javaVersion, token, v,
+                packageName, exclusions, exclusionPatterns, ignorePackages);
+    }
+
+    /**
+     * Returns whether an annotation, given its internal name, suppresses
+     * violations in the element it annotates: {@code @SuppressModernizer}
+     * and, if enabled, {@code @Generated}.
+     */
+    public boolean isSuppressionAnnotation(String internalName) {
+        String desc = "L" + internalName + ";";
+        return SuppressModernizerAnnotationDetector
+                .isSuppressModernizerAnnotation(desc) ||
+                (ignoreGeneratedClasses &&
+                        SuppressGeneratedAnnotationDetector
+                                .isGeneratedAnnotation(desc));
+    }
+
+    /**
+     * Writes the given rules to a file which {@link #Modernizer(String, Path,
+     * Collection, Collection, Collection, Set, Collection, boolean)} maps.
+     * The file is replaced atomically, so running scans keep their mapping.
+     */
+    public static void writeRuleTable(
+            Map<String, Collection<Violation>> violations, Path file)
+            throws IOException {
+        MappedRuleTable.write(violations, file);
+    }
+
     public static Map<String, Collection<Violation>> parseFromXml(InputStream is)
             throws IOException, ParserConfigurationException, SAXException {
         Map<String, Collection<Violation>> map = new HashMap<>();
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Scans the classes of every project in the reactor in a single pass, with
+ * one rule table on the shared scan threads, and emits a single report whose paths
+ * refer to each module's own source files.
+ */
+@Mojo(name = "aggregate", aggregator = true, threadSafe = true)
+public final class ModernizerAggregateMojo extends AbstractModernizerMojo {
+
+    /** The projects in the reactor. */
+    @Parameter(defaultValue = "${reactorProjects}", readonly = true)
+    private List<MavenProject> reactorProjects;
+
+    @Override
+    protected List<MavenProject> getClasspathProjects() {
+        return reactorProjects;
+    }
+
+    @Override
+    protected void executeScan() throws MojoExecutionException {
+        Map<Path, Path> roots = new LinkedHashMap<>();
+        for (MavenProject reactorProject : reactorProjects) {
+            addRoot(roots, reactorProject.getBuild().getOutputDirectory(),
+                    reactorProject.getBuild().getSourceDirectory());
+            if (isIncludeTestClasses()) {
+                addRoot(roots,
+                        reactorProject.getBuild().getTestOutputDirectory(),
+                        reactorProject.getBuild().getTestSourceDirectory());
+            }
+        }
+
+        List<Path> classFiles;
+        try {
+            classFiles = listClassFiles(roots.keySet());
+        } catch (IOException ioe) {
+            throw new MojoExecutionException("Error reading Java classes",
+                    ioe);
+        }
+
+        Modernizer modernizer =
+                createModernizer(detectIgnoredClassNames(classFiles));
+        List<Path> outputRoots = sortMostSpecificFirst(roots.keySet());
+        getLog().info("Scanning " + classFiles.size() + " classes in " +
+                roots.size() + " directories");
+        OccurrenceStore occurrences = scan(modernizer, classFiles,
+                path -> sourceName(path, outputRoots, roots));
+        report(occurrences);
+    }
+
+    /**
+     * Records an output directory and the source directory it is compiled
+     * from.  Modules which share an output directory, e.g., via a common
+     * build directory, are only scanned once.
+     */
+    private static void addRoot(Map<Path, Path> roots, String outputDirectory,
+            String sourceDirectory) {
+        if (outputDirectory == null) {
+            return;
+        }
+        Path outputRoot = Paths.get(outputDirectory).toAbsolutePath()
+                .normalize();
+        Path sourceRoot = sourceDirectory == null ? null :
+                Paths.get(sourceDirectory).toAbsolutePath().normalize();
+        roots.putIfAbsent(outputRoot, sourceRoot);
+    }
+
+    /**
+     * Lists the class files below each root exactly once, even when one root
+     * is nested inside another.
+     */
+    static List<Path> listClassFiles(Iterable<Path> roots)
+            throws IOException {
+        List<Path> sortedRoots = sortMostSpecificFirst(roots);
+        List<Path> classFiles = new ArrayList<>();
+        for (Path root : sortedRoots) {
+            if (!Files.isDirectory(root)) {
+                continue;
+            }
+            for (Path classFile : ClassFiles.walk(root)) {
+                if (root.equals(owningRoot(classFile, sortedRoots))) {
+                    classFiles.add(classFile);
+                }
+            }
+        }
+        return classFiles;
+    }
+
+    /**
+     * Returns the distinct roots ordered so that nested roots precede their
+     * parents.
+     */
+    static List<Path> sortMostSpecificFirst(Iterable<Path> roots) {
+        Set<Path> distinct = new LinkedHashSet<>();
+        for (Path root : roots) {
+            distinct.add(root);
+        }
+        List<Path> sorted = new ArrayList<>(distinct);
+        sorted.sort(Comparator.comparingInt(Path::getNameCount).reversed());
+        return sorted;
+    }
+
+    /**
+     * Returns the most specific root containing path, or null if none, given
+     * roots ordered by {@link #sortMostSpecificFirst}.
+     */
+    static Path owningRoot(Path path, List<Path> sortedRoots) {
+        for (Path root : sortedRoots) {
+            if (path.startsWith(root)) {
+                return root;
+            }
+        }
+        return null;
+    }
+
+    private static String sourceName(Path path, List<Path> outputRoots,
+            Map<Path, Path> roots) {
+        Path outputRoot = owningRoot(path, outputRoots);
+        Path sourceRoot = outputRoot == null ? null : roots.get(outputRoot);
+        if (sourceRoot == null) {
+            return path.toString();
+        }
+        return ModernizerMojo.mapToSource(path, outputRoot, sourceRoot);
+    }
+}
@@ -20,44 +20,64 @@ import static org.gaul.modernizer_maven_plugin.Utils.ASM_API;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
 import java.util.regex.Pattern;
 
 import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Type;
 
+/**
+ * Collects the violations in a class.  Each worker thread reuses one
+ * instance, which {@link #visit} resets, together with its method visitor
+ * and buffers, so that scanning a class without violations allocates
+ * nothing beyond what ClassReader itself does: misses probe the matcher
+ * with the strings ClassReader already decoded, and tokens, package names
+ * and occurrences are only built for references which have rules.
+ */
 final class ModernizerClassVisitor extends ClassVisitor {
+    /** Bounds the descriptor cache against unusual annotation churn. */
+    private static final int MAX_CACHED_DESCRIPTORS = 1024;
+
     private final long javaVersion;
-    private final Map<String, Collection<Violation>> violations;
+    private final RuleMatcher matcher;
     private final Collection<String> exclusions;
     private final Collection<Pattern> exclusionPatterns;
     private final Collection<String> ignorePackages;
-    private final Set<String> ignoreClassNames;
+    private final ClassNameTrie ignoreClassNames;
     private final Collection<Pattern> ignoreFullClassNamePatterns;
     private final boolean ignoreGeneratedClasses;
-    private final Collection<ViolationOccurrence> occurrences =
-            new ArrayList<ViolationOccurrence>();
+    /** Null unless the caller observes this scan. */
+    private final ScanListener listener;
+    private final List<ViolationOccurrence> occurrences = new ArrayList<>();
+    private final MethodScanner methodScanner = new MethodScanner();
+    /** Internal names of annotation descriptors seen by this worker. */
+    private final Map<String, String> internalNames = new HashMap<>();
     private String packageName;
     private String className;
     private boolean classIgnored;
+    private int tokensProbed;
+    private boolean busy;
+    private ClassFileScanner scanner;
 
     ModernizerClassVisitor(long javaVersion,
-            Map<String, Collection<Violation>> violations, Collection<String> exclusions,
+            RuleMatcher matcher, Collection<String> exclusions,
             Collection<Pattern> exclusionPatterns,
             Collection<String> ignorePackages,
-            Set<String> ignoreClassNames,
+            ClassNameTrie ignoreClassNames,
             Collection<Pattern> ignoreFullClassNamePatterns,
-            boolean ignoreGeneratedClasses) {
+            boolean ignoreGeneratedClasses,
+            ScanListener listener) {
         super(ASM_API);
         Utils.checkArgument(javaVersion >= 0);
         this.javaVersion = javaVersion;
-        this.violations = Objects.requireNonNull(violations);
+        this.matcher = Objects.requireNonNull(matcher);
         this.exclusions = Objects.requireNonNull(exclusions);
         this.exclusionPatterns = Objects.requireNonNull(exclusionPatterns);
         this.ignorePackages = Objects.requireNonNull(ignorePackages);
@@ -65,24 +85,73 @@ final class ModernizerClassVisitor extends ClassVisitor {
         this.ignoreFullClassNamePatterns =
                 Objects.requireNonNull(ignoreFullClassNamePatterns);
         this.ignoreGeneratedClasses = ignoreGeneratedClasses;
+        this.listener = listener;
+    }
+
+    /**
+     * Visits a class, marking this visitor busy meanwhile.  If lightweight,
+     * the class is walked by a {@link ClassFileScanner}, falling back to
+     * ASM for class files which it does not understand.
+     */
+    void scan(ClassReader classReader, boolean lightweight) {
+        busy = true;
+        try {
+            if (lightweight) {
+                if (scanner == null) {
+                    scanner = new ClassFileScanner();
+                }
+                try {
+                    if (scanner.accept(classReader, this)) {
+                        return;
+                    }
+                } catch (ClassFileScanner.UnsupportedClassFileException |
+                        IndexOutOfBoundsException e) {
+                    // ASM reports malformed classes in its own way
+                }
+            }
+            classReader.accept(this, 0);
+        } finally {
+            busy = false;
+        }
+    }
+
+    /**
+     * Replays a class recorded in a reference index, marking this visitor
+     * busy meanwhile.
+     */
+    void scan(ReferenceIndex index, int classId) {
+        busy = true;
+        try {
+            index.accept(classId, this);
+        } finally {
+            busy = false;
+        }
+    }
+
+    boolean isBusy() {
+        return busy;
     }
 
     @Override
     public void visit(int version, int access, String name, String signature,
             String superName, String[] interfaces) {
+        occurrences.clear();
+        tokensProbed = 0;
         className = name;
-        if (name.contains("/")) {
-            packageName = name.substring(0, name.lastIndexOf('/'))
-                    .replace('/', '.');
-        } else {
-            packageName = "";
-        }
+        packageName = null;
         classIgnored = computeClassIgnored();
         if (classIgnored) {
+            if (listener != null) {
+                listener.classSkipped(className,
+                        ignoreClassNames.contains(className) ?
+                        ScanListener.SkipReason.IGNORED_CLASS_NAME :
+                        ScanListener.SkipReason.IGNORED_CLASS_PATTERN);
+            }
             return;
         }
         for (String itr : interfaces) {
-            checkToken(itr, violations.get(itr), itr, /*lineNumber=*/ -1);
+            checkToken(itr, matcher.matchType(itr), itr, /*lineNumber=*/ -1,
+                    /*inMethod=*/ false);
         }
     }
 
@@ -91,8 +160,9 @@ final class ModernizerClassVisitor extends ClassVisitor {
         if (classIgnored) {
             return null;
         }
-        String name = Type.getType(desc).getInternalName();
-        checkToken(name, violations.get(name), name, /*lineNumber=*/ -1);
+        String name = internalName(desc);
+        checkToken(name, matcher.matchType(name), name, /*lineNumber=*/ -1,
+                /*inMethod=*/ false);
         return null;
     }
 
@@ -103,108 +173,219 @@ final class ModernizerClassVisitor extends ClassVisitor {
         if (classIgnored) {
             return null;
         }
-        return new MethodVisitor(ASM_API) {
-            private int lineNumber = -1;
-            private boolean methodSuppressed = false;
-            private final List<ViolationOccurrence> pending = new ArrayList<>();
+        methodScanner.reset();
+        return methodScanner;
+    }
 
-            @Override
-            public void visitFieldInsn(int opcode, String owner, String name,
-                    String desc) {
-                visitFieldOrMethod(owner, name, desc);
+    /** Visits each method of the current class in turn. */
+    private final class MethodScanner extends MethodVisitor {
+        private final List<ViolationOccurrence> pending = new ArrayList<>();
+        private int lineNumber;
+        private boolean methodSuppressed;
+
+        MethodScanner() {
+            super(ASM_API);
+        }
+
+        void reset() {
+            pending.clear();
+            lineNumber = -1;
+            methodSuppressed = false;
+        }
+
+        @Override
+        public void visitFieldInsn(int opcode, String owner, String name,
+                String desc) {
+            visitFieldOrMethod(owner, name, desc);
+        }
+
+        @Override
+        public void visitMethodInsn(int opcode, String owner, String name,
+                String desc, boolean isInterface) {
+            if (name.equals("<init>")) {
+                name = "\"<init>\"";
             }
+            visitFieldOrMethod(owner, name, desc);
+        }
 
-            @Override
-            public void visitMethodInsn(int opcode, String owner, String name,
-                    String desc, boolean isInterface) {
-                if (name.equals("<init>")) {
-                    name = "\"<init>\"";
-                }
-                visitFieldOrMethod(owner, name, desc);
+        @Override
+        public AnnotationVisitor visitAnnotation(String desc,
+                boolean visible) {
+            if (SuppressModernizerAnnotationDetector
+                    .isSuppressModernizerAnnotation(desc)) {
+                methodSuppressed = true;
+            } else if (ignoreGeneratedClasses &&
+                    SuppressGeneratedAnnotationDetector
+                            .isGeneratedAnnotation(desc)) {
+                methodSuppressed = true;
+            } else {
+                String name = internalName(desc);
+                checkToken(name, matcher.matchType(name), name, lineNumber,
+                        /*inMethod=*/ true);
             }
+            return null;
+        }
 
-            @Override
-            public AnnotationVisitor visitAnnotation(String desc,
-                    boolean visible) {
-                if (SuppressModernizerAnnotationDetector
-                        .isSuppressModernizerAnnotation(desc)) {
-                    methodSuppressed = true;
-                } else if (ignoreGeneratedClasses &&
-                        SuppressGeneratedAnnotationDetector
-                                .isGeneratedAnnotation(desc)) {
-                    methodSuppressed = true;
-                } else {
-                    String name = Type.getType(desc).getInternalName();
-                    queueCheck(name, violations.get(name), name, lineNumber);
-                }
-                return null;
+        private void visitFieldOrMethod(String owner, String name,
+                String desc) {
+            Collection<Violation> v = matcher.matchMember(owner, name, desc);
+            if (v == null) {
+                ++tokensProbed;
+                return;
             }
+            String token = owner + "." + name + ":" + desc;
+            checkToken(token, v, name, lineNumber, /*inMethod=*/ true);
+        }
+
+        @Override
+        public void visitLineNumber(int lineNumber, Label start) {
+            this.lineNumber = lineNumber;
+        }
 
-            private void visitFieldOrMethod(String owner, String name,
-                    String desc) {
-                String token = owner + "." + name + ":" + desc;
-                queueCheck(token, violations.get(token), name, lineNumber);
+        @Override
+        public void visitEnd() {
+            if (pending.isEmpty()) {
+                return;
             }
+            if (!methodSuppressed) {
+                report(pending);
+            } else if (listener != null) {
+                for (ViolationOccurrence occurrence : pending) {
+                    listener.suppressed(className, occurrence,
+                            ScanListener.SuppressionReason.ANNOTATION);
+                }
+            }
+        }
+    }
 
-            @Override
-            public void visitLineNumber(int lineNumber, Label start) {
-                this.lineNumber = lineNumber;
+    /** Returns the internal name for a descriptor, caching it. */
+    private String internalName(String desc) {
+        String name = internalNames.get(desc);
+        if (name == null) {
+            if (internalNames.size() >= MAX_CACHED_DESCRIPTORS) {
+                internalNames.clear();
             }
+            name = Type.getType(desc).getInternalName();
+            internalNames.put(desc, name);
+        }
+        return name;
+    }
 
-            @Override
-            public void visitEnd() {
-                if (!methodSuppressed) {
-                    occurrences.addAll(pending);
+    /**
+     * Records the occurrences of the rules v for a reference to token, in
+     * the current method if inMethod, since the method may yet turn out to
+     * be suppressed, or else in the class.
+     */
+    private void checkToken(String token, Collection<Violation> v,
+            String name, int lineNumber, boolean inMethod) {
+        // classIgnored is checked at visit()/visitMethod() so we never reach
+        // this path on an ignored class.
+        ++tokensProbed;
+        if (v == null) {
+            return;
+        }
+        if (packageName == null) {
+            int slash = className.lastIndexOf('/');
+            packageName = slash == -1 ? "" :
+                    className.substring(0, slash).replace('/', '.');
+        }
+        ScanListener.SuppressionReason reason = suppressionReason(token,
+                packageName, exclusions, exclusionPatterns, ignorePackages);
+        for (Violation violation : v) {
+            if (!appliesTo(javaVersion, violation)) {
+                continue;
+            }
+            ViolationOccurrence occurrence =
+                    new ViolationOccurrence(name, lineNumber, violation);
+            if (reason == null && inMethod) {
+                methodScanner.pending.add(occurrence);
+            } else if (reason == null) {
+                occurrences.add(occurrence);
+                if (listener != null) {
+                    listener.ruleHit(className, occurrence);
                 }
-                super.visitEnd();
+            } else if (listener != null) {
+                listener.suppressed(className, occurrence, reason);
             }
+        }
+    }
 
-            private void queueCheck(String token, Collection<Violation> v,
-                    String name, int lineNumber) {
-                pending.addAll(ModernizerClassVisitor.this.evaluate(
-                        token, v, name, lineNumber));
+    private void report(List<ViolationOccurrence> found) {
+        occurrences.addAll(found);
+        if (listener != null) {
+            for (ViolationOccurrence occurrence : found) {
+                listener.ruleHit(className, occurrence);
             }
-        };
+        }
     }
 
-    private void checkToken(String token, Collection<Violation> v, String name,
-            int lineNumber) {
-        occurrences.addAll(evaluate(token, v, name, lineNumber));
+    /**
+     * Returns the violations among v which apply to a reference to token
+     * from a class in packageName when targeting javaVersion.
+     */
+    static Collection<Violation> applicable(long javaVersion, String token,
+            Collection<Violation> v, String packageName,
+            Collection<String> exclusions,
+            Collection<Pattern> exclusionPatterns,
+            Collection<String> ignorePackages) {
+        Collection<Violation> result = new ArrayList<>();
+        if (v == null || suppressionReason(token, packageName, exclusions,
+                exclusionPatterns, ignorePackages) != null) {
+            return result;
+        }
+        for (Violation violation : v) {
+            if (appliesTo(javaVersion, violation)) {
+                result.add(violation);
+            }
+        }
+        return result;
     }
 
-    private Collection<ViolationOccurrence> evaluate(String token,
-            Collection<Violation> v, String name, int lineNumber) {
-        // classIgnored is checked at visit()/visitMethod() so we never reach
-        // this path on an ignored class.
-        Collection<ViolationOccurrence> result = new ArrayList<>();
-        if (v == null || exclusions.contains(token) ||
-                ignorePackages.contains(packageName)) {
-            return result;
+    /**
+     * Returns why a reference to token from a class in packageName is not
+     * reported, or null if it is.
+     */
+    static ScanListener.SuppressionReason suppressionReason(String token,
+            String packageName, Collection<String> exclusions,
+            Collection<Pattern> exclusionPatterns,
+            Collection<String> ignorePackages) {
+        if (exclusions.contains(token)) {
+            return ScanListener.SuppressionReason.EXCLUSION;
+        } else if (ignorePackages.contains(packageName)) {
+            return ScanListener.SuppressionReason.IGNORED_PACKAGE;
         }
         for (Pattern pattern : exclusionPatterns) {
             if (pattern.matcher(token).matches()) {
-                return result;
+                return ScanListener.SuppressionReason.EXCLUSION_PATTERN;
             }
         }
         for (String prefix : ignorePackages) {
             if (packageName.startsWith(prefix + ".")) {
-                return result;
-            }
-        }
-        for (Violation violation : v) {
-            if (javaVersion >= violation.getVersion() &&
-                    (!violation.getUntil().isPresent() ||
-                            javaVersion < violation.getUntil().getAsInt())) {
-                result.add(new ViolationOccurrence(
-                        name, lineNumber, violation));
+                return ScanListener.SuppressionReason.IGNORED_PACKAGE;
             }
         }
-        return result;
+        return null;
+    }
+
+    static boolean appliesTo(long javaVersion, Violation violation) {
+        return javaVersion >= violation.getVersion() &&
+                (!violation.getUntil().isPresent() ||
+                        javaVersion < violation.getUntil().getAsInt());
     }
 
     private boolean computeClassIgnored() {
+        return isClassIgnored(className, ignoreClassNames,
+                ignoreFullClassNamePatterns);
+    }
+
+    static boolean isClassIgnored(String className,
+            ClassNameTrie ignoreClassNames,
+            Collection<Pattern> ignoreFullClassNamePatterns) {
         if (ignoreClassNames.contains(className)) {
             return true;
+        } else if (ignoreFullClassNamePatterns.isEmpty()) {
+            // avoid allocating an iterator for every class
+            return false;
         }
         for (Pattern pattern : ignoreFullClassNamePatterns) {
             if (pattern.matcher(className).matches()) {
@@ -214,7 +395,15 @@ final class ModernizerClassVisitor extends ClassVisitor {
         return false;
     }
 
-    Collection<ViolationOccurrence> getOccurrences() {
+    /**
+     * Returns the violations in the class last visited, in a buffer which
+     * the next visit reuses.
+     */
+    List<ViolationOccurrence> getOccurrences() {
         return occurrences;
     }
+
+    int getTokensProbed() {
+        return tokensProbed;
+    }
 }
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.zip.ZipFile;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.gaul.modernizer_maven_plugin.output.CodeClimateOutputer;
+import org.gaul.modernizer_maven_plugin.output.OutputFormat;
+import org.gaul.modernizer_maven_plugin.output.Outputer;
+import org.gaul.modernizer_maven_plugin.output.PrintStreamOutputer;
+import org.xml.sax.SAXException;
+
+/**
+ * Standalone scanner for use outside Maven, e.g., container image checks
+ * and other build systems.  Accepts class directories, class files and
+ * jars.  Launched via the {@code cli} profile's script, which starts the JVM
+ * from an AppCDS archive so that small scans finish well under a second.
+ */
+public final class ModernizerCli {
+    private ModernizerCli() {
+        throw new AssertionError("Intentionally not implemented");
+    }
+
+    /**
+     * Usage:
+     *
+     * <pre>
+     * ModernizerCli --java-version 8 [--violations-file path]...
+     *         [--ignore-package name]... [--ignore-generated-classes]
+     *         [--cache-directory path]
+     *         [--output-format CONSOLE|CODE_CLIMATE] [--output-file path]
+     *         path...
+     * </pre>
+     *
+     * Exits with status 1 if it finds violations and 2 on errors.
+     */
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        String javaVersion = null;
+        List<String> violationsFiles = new ArrayList<>();
+        Set<String> ignorePackages = new HashSet<>();
+        boolean ignoreGeneratedClasses = false;
+        Path cacheDirectory = null;
+        OutputFormat outputFormat = OutputFormat.CONSOLE;
+        Path outputFile = Paths.get(CodeClimateOutputer.DEFAULT_FILENAME);
+        List<Path> paths = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; ++i) {
+                switch (args[i]) {
+                case "--java-version":
+                    javaVersion = args[++i];
+                    break;
+                case "--violations-file":
+                    violationsFiles.add(args[++i]);
+                    break;
+                case "--ignore-package":
+                    ignorePackages.add(args[++i]);
+                    break;
+                case "--ignore-generated-classes":
+                    ignoreGeneratedClasses = true;
+                    break;
+                case "--cache-directory":
+                    cacheDirectory = Paths.get(args[++i]);
+                    break;
+                case "--output-format":
+                    outputFormat = OutputFormat.valueOf(args[++i]);
+                    break;
+                case "--output-file":
+                    outputFile = Paths.get(args[++i]);
+                    break;
+                default:
+                    paths.add(Paths.get(args[i]));
+                    break;
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException |
+                IllegalArgumentException e) {
+            usage(err);
+            return 2;
+        }
+        if (javaVersion == null || paths.isEmpty()) {
+            usage(err);
+            return 2;
+        }
+
+        List<ZipFile> jars = new ArrayList<>();
+        try {
+            List<ClassSource> sources = new ArrayList<>();
+            for (Path path : paths) {
+                addSources(path, sources, jars);
+            }
+            Modernizer modernizer = newModernizer(javaVersion,
+                    violationsFiles, cacheDirectory, ignorePackages,
+                    ignoreGeneratedClasses);
+
+            OccurrenceStore occurrences = new OccurrenceStore();
+            for (Map.Entry<ClassSource, Collection<ViolationOccurrence>>
+                    entry : modernizer.check(sources,
+                            Runtime.getRuntime().availableProcessors())
+                            .entrySet()) {
+                occurrences.addAll(entry.getKey().getName(), entry.getValue());
+            }
+            Outputer outputer = outputFormat == OutputFormat.CODE_CLIMATE ?
+                    new CodeClimateOutputer(outputFile,
+                            CodeClimateOutputer.Severity.MINOR) :
+                    new PrintStreamOutputer(out);
+            outputer.output(occurrences);
+            return occurrences.isEmpty() ? 0 : 1;
+        } catch (IOException | RuntimeException | SAXException |
+                ParserConfigurationException e) {
+            err.println("modernizer: " + e);
+            return 2;
+        } finally {
+            for (ZipFile jar : jars) {
+                try {
+                    jar.close();
+                } catch (IOException ioe) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a class directory, class file or jar.  Jars are opened here and
+     * remain open until the scan completes.
+     */
+    private static void addSources(Path path, List<ClassSource> sources,
+            List<ZipFile> jars) throws IOException {
+        if (Files.isDirectory(path)) {
+            for (Path classFile : ClassFiles.walk(path)) {
+                sources.add(ClassSource.of(classFile));
+            }
+        } else if (ClassFiles.isClassFile(path)) {
+            sources.add(ClassSource.of(path));
+        } else {
+            ZipFile jar = new ZipFile(path.toFile());
+            jars.add(jar);
+            sources.addAll(ClassSource.ofJar(jar));
+        }
+    }
+
+    /**
+     * Returns a Modernizer for the default violations overlaid with those
+     * from each file.  If cacheDirectory is not null, the rules are mapped
+     * from a table there, which the first run with the same files writes.
+     */
+    static Modernizer newModernizer(String javaVersion,
+            List<String> violationsFiles, Path cacheDirectory,
+            Set<String> ignorePackages, boolean ignoreGeneratedClasses)
+            throws IOException, ParserConfigurationException, SAXException {
+        if (cacheDirectory == null) {
+            return new Modernizer(javaVersion,
+                    loadViolations(violationsFiles),
+                    Collections.<String>emptySet(),
+                    Collections.<Pattern>emptySet(),
+                    ignorePackages,
+                    Collections.<String>emptySet(),
+                    Collections.<Pattern>emptySet(),
+                    ignoreGeneratedClasses);
+        }
+        List<byte[]> sources = new ArrayList<>();
+        try (InputStream is = Modernizer.class.getResourceAsStream(
+                "/modernizer.xml")) {
+            sources.add(Utils.readAllBytes(is));
+        }
+        for (String violationsFile : violationsFiles) {
+            sources.add(Files.readAllBytes(Paths.get(violationsFile)));
+        }
+        return new Modernizer(javaVersion,
+                MappedRuleTable.load(cacheDirectory, sources),
+                Collections.<String>emptySet(),
+                Collections.<Pattern>emptySet(),
+                ignorePackages,
+                Collections.<String>emptySet(),
+                Collections.<Pattern>emptySet(),
+                ignoreGeneratedClasses);
+    }
+
+    /**
+     * Returns the default violations overlaid with those from each file.
+     */
+    static Map<String, Collection<Violation>> loadViolations(
+            List<String> violationsFiles)
+            throws IOException, ParserConfigurationException, SAXException {
+        Map<String, Collection<Violation>> violations;
+        try (InputStream is = Modernizer.class.getResourceAsStream(
+                "/modernizer.xml")) {
+            violations = Modernizer.parseFromXml(is);
+        }
+        for (String violationsFile : violationsFiles) {
+            try (InputStream is = Files.newInputStream(
+                    Paths.get(violationsFile))) {
+                violations.putAll(Modernizer.parseFromXml(is));
+            }
+        }
+        return violations;
+    }
+
+    private static void usage(PrintStream err) {
+        err.println("Usage: ModernizerCli --java-version VERSION" +
+                " [--violations-file FILE]... [--ignore-package NAME]..." +
+                " [--ignore-generated-classes] [--cache-directory DIR]" +
+                " [--output-format CONSOLE|CODE_CLIMATE]" +
+                " [--output-file FILE] PATH...");
+    }
+}
@@ -0,0 +1,583 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Long-lived scanner which keeps a {@link Modernizer} and its rule table warm
+ * and answers scan requests over a loopback socket.  This lets pre-commit
+ * hooks and IDE integrations avoid paying for JVM startup, Maven model
+ * building and rule parsing on every invocation.
+ *
+ * <p>Any local user can connect to a loopback port, so each daemon generates
+ * a random token which clients must present; {@link #writeToken} stores it
+ * in a file only its owner can read.  Requests run on a bounded pool and
+ * clients which stop sending are dropped, so that idle connections cannot
+ * exhaust the daemon's threads.
+ *
+ * <p>The protocol is line-oriented UTF-8.  A client sends a header of
+ * {@code name value} lines: {@code token} first, then any number of
+ * {@code exclusion}, {@code exclusionPattern}, {@code ignorePackage} and
+ * {@code ignoreClassNamePattern}, which apply to this request only.  After
+ * an empty line it sends one class file or class directory per line,
+ * followed by another empty line.  The daemon replies with one
+ * {@code path:line: comment} line per violation, followed by
+ * {@code OK <count>} or {@code ERROR <message>}.
+ */
+public final class ModernizerDaemon implements Closeable {
+    static final int DEFAULT_PORT = 7979;
+    private static final String OK = "OK ";
+    private static final String ERROR = "ERROR ";
+    private static final String TOKEN = "token";
+    /** How long a client may take to send its request. */
+    private static final int READ_TIMEOUT_MILLIS = 30_000;
+    private static final int MAX_QUEUED_REQUESTS = 64;
+
+    private final Modernizer modernizer;
+    private final String token;
+    private final int readTimeoutMillis;
+    private final ThreadPoolExecutor executor;
+    private ServerSocket serverSocket;
+    private Path tokenFile;
+
+    public ModernizerDaemon(Modernizer modernizer) {
+        this(modernizer, READ_TIMEOUT_MILLIS,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a daemon which serves at most maxRequests requests at once
+     * and queues a bounded number more, replying with an error to the
+     * rest, and which drops clients that send nothing for
+     * readTimeoutMillis.  Neither idle nor abandoned connections can
+     * therefore exhaust its threads.
+     */
+    ModernizerDaemon(Modernizer modernizer, int readTimeoutMillis,
+            int maxRequests) {
+        Utils.checkArgument(readTimeoutMillis > 0);
+        Utils.checkArgument(maxRequests > 0);
+        this.modernizer = modernizer;
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.executor = new ThreadPoolExecutor(maxRequests, maxRequests,
+                /*keepAliveTime=*/ 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED_REQUESTS), runnable -> {
+                    Thread thread = new Thread(runnable, "modernizer-daemon");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+        byte[] random = new byte[16];
+        new SecureRandom().nextBytes(random);
+        this.token = Utils.toHexPrefix(random);
+    }
+
+    /**
+     * Binds to the given loopback port, or an ephemeral port if zero, and
+     * starts accepting requests in the background.
+     *
+     * @return the bound port
+     */
+    public synchronized int start(int port) throws IOException {
+        Utils.checkArgument(serverSocket == null, "daemon already started");
+        serverSocket = new ServerSocket(port, /*backlog=*/ 50,
+                InetAddress.getLoopbackAddress());
+        ServerSocket socket = serverSocket;
+        Thread acceptor = new Thread(() -> acceptLoop(socket),
+                "modernizer-daemon-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return serverSocket.getLocalPort();
+    }
+
+    /** Returns the token which clients must send with each request. */
+    String getToken() {
+        return token;
+    }
+
+    /**
+     * Writes the token to a file which only the current user may read, for
+     * clients to pass to {@link #request}.  The file is deleted on close.
+     */
+    public synchronized void writeToken(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.deleteIfExists(file);
+        if (file.getFileSystem().supportedFileAttributeViews().contains(
+                "posix")) {
+            Files.createFile(file, PosixFilePermissions.asFileAttribute(
+                    PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createFile(file);
+            File f = file.toFile();
+            if (!(f.setReadable(false, /*ownerOnly=*/ false) &&
+                    f.setReadable(true, /*ownerOnly=*/ true) &&
+                    f.setWritable(false, /*ownerOnly=*/ false) &&
+                    f.setWritable(true, /*ownerOnly=*/ true))) {
+                Files.delete(file);
+                throw new IOException("Cannot restrict access to " + file);
+            }
+        }
+        Files.write(file, token.getBytes(StandardCharsets.UTF_8));
+        tokenFile = file;
+    }
+
+    /** Returns the token file of a daemon on the given port by default. */
+    static Path defaultTokenFile(int port) {
+        return Paths.get(System.getProperty("user.home"), ".m2",
+                "modernizer", "daemon-" + port + ".token");
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        executor.shutdownNow();
+        if (serverSocket != null) {
+            serverSocket.close();
+        }
+        if (tokenFile != null) {
+            Files.deleteIfExists(tokenFile);
+        }
+    }
+
+    private void acceptLoop(ServerSocket socket) {
+        while (!socket.isClosed()) {
+            Socket client;
+            try {
+                client = socket.accept();
+            } catch (SocketException se) {
+                // closed by close()
+                return;
+            } catch (IOException ioe) {
+                continue;
+            }
+            try {
+                client.setSoTimeout(readTimeoutMillis);
+                executor.execute(() -> serve(client));
+            } catch (IOException | RejectedExecutionException e) {
+                reject(client);
+            }
+        }
+    }
+
+    /** Tells a client which cannot be served so, without blocking. */
+    private static void reject(Socket client) {
+        try (Socket socket = client) {
+            socket.getOutputStream().write((ERROR + "Daemon is busy\n")
+                    .getBytes(StandardCharsets.UTF_8));
+        } catch (IOException ioe) {
+            // client went away; nothing to report to
+        }
+    }
+
+    private void serve(Socket client) {
+        try (Socket socket = client;
+             BufferedReader reader = new BufferedReader(new InputStreamReader(
+                     socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer writer = new BufferedWriter(new OutputStreamWriter(
+                     socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            String clientToken = null;
+            Filters filters = new Filters();
+            String error = null;
+            String line;
+            while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                int space = line.indexOf(' ');
+                String name = space == -1 ? line : line.substring(0, space);
+                String value = space == -1 ? "" : line.substring(space + 1);
+                if (clientToken == null) {
+                    if (!name.equals(TOKEN)) {
+                        break;
+                    }
+                    clientToken = value;
+                } else if (!filters.add(name, value) && error == null) {
+                    error = "Unknown request header: " + name;
+                }
+            }
+            // Compare in constant time so that replies do not leak a prefix.
+            if (clientToken == null || !MessageDigest.isEqual(
+                    clientToken.getBytes(StandardCharsets.UTF_8),
+                    token.getBytes(StandardCharsets.UTF_8))) {
+                writer.write(ERROR + "Invalid token\n");
+                return;
+            }
+            List<Path> paths = new ArrayList<>();
+            while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                paths.add(Paths.get(line));
+            }
+            List<String> violations = new ArrayList<>();
+            try {
+                if (error == null) {
+                    Modernizer filtered = filters.apply(modernizer);
+                    for (Path path : paths) {
+                        violations.addAll(scan(filtered, path));
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                error = e.toString();
+            }
+            for (String violation : violations) {
+                writer.write(violation);
+                writer.write('\n');
+            }
+            writer.write(error == null ? OK + violations.size() :
+                    ERROR + error.replace('\n', ' '));
+            writer.write('\n');
+        } catch (IOException ioe) {
+            // client went away or timed out; nothing to report to
+        }
+    }
+
+    /** As {@link #scan(Modernizer, Path)} with the daemon's filters. */
+    List<String> scan(Path path) throws IOException {
+        return scan(modernizer, path);
+    }
+
+    /**
+     * Scans a class directory or a single class file.  Suppressions are
+     * resolved against the directory, or against the class file and its
+     * enclosing and nested classes, on each request so that edits to
+     * {@code @SuppressModernizer} take effect immediately.
+     */
+    private static List<String> scan(Modernizer modernizer, Path path)
+            throws IOException {
+        List<Path> classFiles;
+        List<Path> suppressionScope;
+        if (Files.isDirectory(path)) {
+            classFiles = ClassFiles.walk(path);
+            suppressionScope = classFiles;
+        } else if (ClassFiles.isClassFile(path) && Files.exists(path)) {
+            classFiles = Collections.singletonList(path);
+            suppressionScope = ClassFiles.family(path);
+        } else {
+            throw new IOException("Not a class file or directory: " + path);
+        }
+
+        Set<String> ignoreClassNames = new HashSet<>(
+                SuppressModernizerAnnotationDetector.detect(suppressionScope));
+        if (modernizer.isIgnoreGeneratedClasses()) {
+            ignoreClassNames.addAll(SuppressGeneratedAnnotationDetector.detect(
+                    suppressionScope));
+        }
+        Modernizer scoped = modernizer.withIgnoreClassNames(ignoreClassNames);
+
+        List<String> violations = new ArrayList<>();
+        for (Path classFile : classFiles) {
+            try (InputStream is = Files.newInputStream(classFile)) {
+                for (ViolationOccurrence occurrence : scoped.check(is)) {
+                    violations.add(classFile + ":" +
+                            occurrence.getLineNumber() + ": " +
+                            occurrence.getViolation().getComment());
+                }
+            }
+        }
+        return violations;
+    }
+
+    /**
+     * Sends paths to a running daemon and copies its violations to out.
+     *
+     * @return the number of violations found
+     * @throws IOException if the daemon cannot be reached or reports an error
+     */
+    static int request(int port, String token, Filters filters,
+            List<String> paths, PrintStream out) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(),
+                     port);
+             Writer writer = new BufferedWriter(new OutputStreamWriter(
+                     socket.getOutputStream(), StandardCharsets.UTF_8));
+             BufferedReader reader = new BufferedReader(new InputStreamReader(
+                     socket.getInputStream(), StandardCharsets.UTF_8))) {
+            writer.write(TOKEN + " " + token + "\n");
+            filters.write(writer);
+            writer.write('\n');
+            for (String path : paths) {
+                writer.write(Paths.get(path).toAbsolutePath().toString());
+                writer.write('\n');
+            }
+            writer.write('\n');
+            writer.flush();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(OK)) {
+                    return Integer.parseInt(line.substring(OK.length()));
+                } else if (line.startsWith(ERROR)) {
+                    throw new IOException(line.substring(ERROR.length()));
+                }
+                out.println(line);
+            }
+            throw new IOException("Daemon closed connection unexpectedly");
+        }
+    }
+
+    /**
+     * Exclusions and ignored packages and classes which a client sends with
+     * a request, in place of those of the daemon, so that one daemon can
+     * serve projects with different configurations.
+     */
+    static final class Filters {
+        private static final String EXCLUSION = "exclusion";
+        private static final String EXCLUSION_PATTERN = "exclusionPattern";
+        private static final String IGNORE_PACKAGE = "ignorePackage";
+        private static final String IGNORE_CLASS_NAME_PATTERN =
+                "ignoreClassNamePattern";
+
+        private final List<String> exclusions = new ArrayList<>();
+        private final List<String> exclusionPatterns = new ArrayList<>();
+        private final List<String> ignorePackages = new ArrayList<>();
+        private final List<String> ignoreClassNamePatterns =
+                new ArrayList<>();
+
+        /**
+         * Adds a filter by its header name, e.g., {@code ignorePackage},
+         * returning false if the name is unknown.
+         */
+        boolean add(String name, String value) {
+            switch (name) {
+            case EXCLUSION:
+                exclusions.add(value);
+                return true;
+            case EXCLUSION_PATTERN:
+                exclusionPatterns.add(value);
+                return true;
+            case IGNORE_PACKAGE:
+                ignorePackages.add(value);
+                return true;
+            case IGNORE_CLASS_NAME_PATTERN:
+                ignoreClassNamePatterns.add(value);
+                return true;
+            default:
+                return false;
+            }
+        }
+
+        boolean isEmpty() {
+            return exclusions.isEmpty() && exclusionPatterns.isEmpty() &&
+                    ignorePackages.isEmpty() &&
+                    ignoreClassNamePatterns.isEmpty();
+        }
+
+        /**
+         * Returns modernizer with these filters.
+         *
+         * @throws java.util.regex.PatternSyntaxException for invalid patterns
+         */
+        Modernizer apply(Modernizer modernizer) {
+            return modernizer.withFilters(exclusions,
+                    compile(exclusionPatterns), ignorePackages,
+                    compile(ignoreClassNamePatterns));
+        }
+
+        private void write(Writer writer) throws IOException {
+            write(writer, EXCLUSION, exclusions);
+            write(writer, EXCLUSION_PATTERN, exclusionPatterns);
+            write(writer, IGNORE_PACKAGE, ignorePackages);
+            write(writer, IGNORE_CLASS_NAME_PATTERN, ignoreClassNamePatterns);
+        }
+
+        private static void write(Writer writer, String name,
+                List<String> values) throws IOException {
+            for (String value : values) {
+                writer.write(name + " " + value + "\n");
+            }
+        }
+
+        private static List<Pattern> compile(List<String> regexes) {
+            List<Pattern> patterns = new ArrayList<>();
+            for (String regex : regexes) {
+                patterns.add(Pattern.compile(regex));
+            }
+            return patterns;
+        }
+    }
+
+    /**
+     * Usage:
+     *
+     * <pre>
+     * ModernizerDaemon serve --java-version 8 [--port 7979]
+     *         [--violations-file path]... [--ignore-generated-classes]
+     *         [--cache-directory path] [--token-file path]
+     * ModernizerDaemon scan [--port 7979] [--token-file path]
+     *         [--exclusion token]... [--exclusion-pattern regex]...
+     *         [--ignore-package package]...
+     *         [--ignore-class-name-pattern regex]... path...
+     * </pre>
+     *
+     * The token file defaults to {@code ~/.m2/modernizer/daemon-PORT.token}.
+     * The scan client exits with status 1 if it finds violations and 2 if
+     * the daemon cannot complete the request or the arguments are invalid.
+     */
+    public static void main(String[] args) throws Exception {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    static int run(String[] args, PrintStream out, PrintStream err)
+            throws Exception {
+        if (args.length == 0) {
+            usage(err);
+            return 2;
+        }
+        int port = DEFAULT_PORT;
+        String javaVersion = null;
+        List<String> violationsFiles = new ArrayList<>();
+        boolean ignoreGeneratedClasses = false;
+        Path cacheDirectory = null;
+        Path tokenFile = null;
+        Filters filters = new Filters();
+        List<String> paths = new ArrayList<>();
+        try {
+            for (int i = 1; i < args.length; ++i) {
+                switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(value(args, ++i));
+                    break;
+                case "--java-version":
+                    javaVersion = value(args, ++i);
+                    break;
+                case "--violations-file":
+                    violationsFiles.add(value(args, ++i));
+                    break;
+                case "--ignore-generated-classes":
+                    ignoreGeneratedClasses = true;
+                    break;
+                case "--cache-directory":
+                    cacheDirectory = Paths.get(value(args, ++i));
+                    break;
+                case "--token-file":
+                    tokenFile = Paths.get(value(args, ++i));
+                    break;
+                case "--exclusion":
+                    filters.add(Filters.EXCLUSION, value(args, ++i));
+                    break;
+                case "--exclusion-pattern":
+                    filters.add(Filters.EXCLUSION_PATTERN, value(args, ++i));
+                    break;
+                case "--ignore-package":
+                    filters.add(Filters.IGNORE_PACKAGE, value(args, ++i));
+                    break;
+                case "--ignore-class-name-pattern":
+                    filters.add(Filters.IGNORE_CLASS_NAME_PATTERN,
+                            value(args, ++i));
+                    break;
+                default:
+                    paths.add(args[i]);
+                    break;
+                }
+            }
+        } catch (IllegalArgumentException iae) {
+            err.println("modernizer: " + iae.getMessage());
+            usage(err);
+            return 2;
+        }
+
+        if (args[0].equals("scan") && javaVersion == null &&
+                violationsFiles.isEmpty() && !ignoreGeneratedClasses &&
+                cacheDirectory == null) {
+            int count;
+            try {
+                String token = new String(Files.readAllBytes(
+                        tokenFile != null ? tokenFile :
+                                defaultTokenFile(port)),
+                        StandardCharsets.UTF_8).trim();
+                count = request(port, token, filters, paths, out);
+            } catch (IOException ioe) {
+                err.println("modernizer: " + ioe.getMessage());
+                return 2;
+            }
+            return count == 0 ? 0 : 1;
+        } else if (args[0].equals("serve") && javaVersion != null &&
+                filters.isEmpty() && paths.isEmpty()) {
+            Modernizer modernizer = ModernizerCli.newModernizer(javaVersion,
+                    violationsFiles, cacheDirectory,
+                    Collections.<String>emptySet(), ignoreGeneratedClasses);
+            ModernizerDaemon daemon = new ModernizerDaemon(modernizer);
+            int bound = daemon.start(port);
+            Path file = tokenFile != null ? tokenFile :
+                    defaultTokenFile(bound);
+            daemon.writeToken(file);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    daemon.close();
+                } catch (IOException ioe) {
+                    // exiting anyway
+                }
+            }));
+            err.println("modernizer daemon listening on " +
+                    InetAddress.getLoopbackAddress().getHostAddress() + ":" +
+                    bound + ", token in " + file);
+            Thread.currentThread().join();
+            return 0;
+        } else {
+            // Filters apply per request, so serve rejects them rather than
+            // silently ignoring them, and scan rejects the options of serve.
+            usage(err);
+            return 2;
+        }
+    }
+
+    /** Returns the value of the option before index i, if there is one. */
+    private static String value(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value for " +
+                    args[i - 1]);
+        }
+        return args[i];
+    }
+
+    private static void usage(PrintStream err) {
+        err.println("Usage: ModernizerDaemon serve --java-version" +
+                " VERSION [--port PORT] [--violations-file FILE]..." +
+                " [--ignore-generated-classes] [--cache-directory DIR]" +
+                " [--token-file FILE]");
+        err.println("       ModernizerDaemon scan [--port PORT]" +
+                " [--token-file FILE] [--exclusion TOKEN]..." +
+                " [--exclusion-pattern REGEX]..." +
+                " [--ignore-package PACKAGE]..." +
+                " [--ignore-class-name-pattern REGEX]... PATH...");
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.gaul.modernizer_maven_plugin.output.CodeClimateOutputer;
+import org.gaul.modernizer_maven_plugin.output.LogLevel;
+import org.gaul.modernizer_maven_plugin.output.OutputEntry;
+import org.gaul.modernizer_maven_plugin.output.OutputFormat;
+
+/**
+ * Combines the partial reports written by sharded executions of the
+ * modernizer goal into a single result and fails if any shard found
+ * violations.
+ */
+@Mojo(name = "merge", threadSafe = true)
+public final class ModernizerMergeMojo extends AbstractMojo {
+
+    /** The maven project (effective pom). */
+    @Parameter(defaultValue = "${project}", readonly = true)
+    private MavenProject project;
+
+    /**
+     * Partial reports to merge.  Defaults to every
+     * {@code modernizer-shard-*.json} file in the build directory.
+     */
+    @Parameter(property = "modernizer.partialReports")
+    private List<File> partialReports = new ArrayList<>();
+
+    /** Fail phase if any shard detected violations. */
+    @Parameter(defaultValue = "true", property = "modernizer.failOnViolations")
+    private boolean failOnViolations = true;
+
+    /**
+     * Format to output violations in.
+     */
+    @Parameter(defaultValue = "CONSOLE", property = "modernizer.outputFormat")
+    private OutputFormat outputFormat;
+
+    /**
+     * Path to the file to output violations to.
+     * Ignored if {@code modernizer.outputFormat} is {@code CONSOLE}.
+     */
+    @Parameter(property = "modernizer.outputFile")
+    private File outputFile;
+
+    /**
+     * Severity of modernizer violations for CodeClimate.
+     * Ignored if {@code modernizer.outputFormat} is not {@code CODECLIMATE}.
+     */
+    @Parameter(defaultValue = "MINOR",
+            property = "modernizer.codeclimateSeverity")
+    private CodeClimateOutputer.Severity codeClimateSeverity;
+
+    /**
+     * Log level to emit violations at, e.g., error, warn, info, debug.
+     * Ignored if {@code modernizer.outputFormat} is not {@code CONSOLE}.
+     */
+    @Parameter(defaultValue = "error",
+               property = "modernizer.violationLogLevel")
+    private String violationLogLevel;
+
+    /** Skips the plugin execution. */
+    @Parameter(defaultValue = "false", property = "modernizer.skip")
+    private boolean skip = false;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        if (skip) {
+            getLog().info("Skipping modernizer execution!");
+            return;
+        }
+
+        Path baseDir = Paths.get(project.getBuild().getDirectory());
+        List<Path> reportPaths = new ArrayList<>();
+        try {
+            if (partialReports.isEmpty()) {
+                reportPaths.addAll(findPartialReports(baseDir));
+            } else {
+                for (File partialReport : partialReports) {
+                    reportPaths.add(partialReport.toPath());
+                }
+            }
+        } catch (IOException ioe) {
+            throw new MojoExecutionException(
+                    "Error listing partial reports", ioe);
+        }
+
+        List<PartialReport> reports = new ArrayList<>();
+        for (Path reportPath : reportPaths) {
+            try {
+                reports.add(PartialReport.read(reportPath));
+            } catch (IOException ioe) {
+                throw new MojoExecutionException(
+                        "Error reading partial report: " + reportPath, ioe);
+            }
+        }
+        OccurrenceStore occurrences = OccurrenceStore.of(merge(reports));
+
+        try {
+            LogLevel logLevel =
+                    AbstractModernizerMojo.parseLogLevel(violationLogLevel);
+            AbstractModernizerMojo.buildOutputer(getLog(), outputFormat,
+                    logLevel, baseDir, outputFile, codeClimateSeverity)
+                    .output(occurrences);
+        } catch (IOException ioe) {
+            throw new MojoExecutionException(
+                    "Error outputting violations", ioe);
+        }
+
+        if (failOnViolations && !occurrences.isEmpty()) {
+            throw new MojoExecutionException("Found " + occurrences.size() +
+                    " violations");
+        }
+    }
+
+    /**
+     * Combines partial reports, which must come from exactly one execution
+     * of each shard, ordering violations by file and line.
+     */
+    static List<OutputEntry> merge(List<PartialReport> reports)
+            throws MojoExecutionException {
+        if (reports.isEmpty()) {
+            throw new MojoExecutionException("No partial reports to merge");
+        }
+        int shardCount = reports.get(0).getShardCount();
+        Set<Integer> missing = new TreeSet<>();
+        for (int i = 0; i < shardCount; ++i) {
+            missing.add(i);
+        }
+        List<OutputEntry> outputEntries = new ArrayList<>();
+        for (PartialReport report : reports) {
+            if (report.getShardCount() != shardCount) {
+                throw new MojoExecutionException("Partial reports disagree" +
+                        " on shard count: " + shardCount + " and " +
+                        report.getShardCount());
+            }
+            if (!missing.remove(report.getShardIndex())) {
+                throw new MojoExecutionException("Duplicate or invalid" +
+                        " partial report for shard " +
+                        report.getShardIndex() + " of " + shardCount);
+            }
+            outputEntries.addAll(report.getOutputEntries());
+        }
+        if (!missing.isEmpty()) {
+            throw new MojoExecutionException("Missing partial reports for" +
+                    " shards " + missing + " of " + shardCount);
+        }
+        outputEntries.sort(Comparator.comparing(OutputEntry::getFileName)
+                .thenComparingInt(entry ->
+                        entry.getOccurrence().getLineNumber()));
+        return outputEntries;
+    }
+
+    private static List<Path> findPartialReports(Path baseDir)
+            throws IOException {
+        List<Path> reportPaths = new ArrayList<>();
+        if (!Files.isDirectory(baseDir)) {
+            return reportPaths;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(baseDir,
+                ModernizerMojo.PARTIAL_REPORT_PREFIX + "*" +
+                ModernizerMojo.PARTIAL_REPORT_SUFFIX)) {
+            for (Path path : stream) {
+                reportPaths.add(path);
+            }
+        }
+        return reportPaths;
+    }
+}
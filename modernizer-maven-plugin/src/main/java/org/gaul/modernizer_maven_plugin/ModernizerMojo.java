@@ -16,59 +16,29 @@
 
 package org.gaul.modernizer_maven_plugin;
 
-import static java.lang.String.format;
-import static java.util.Collections.emptyList;
-import static org.gaul.modernizer_maven_plugin.Utils.checkArgument;
-
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.FileSystems;
-import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Objects;
-import java.util.Set;
-import java.util.regex.Pattern;
-import java.util.regex.PatternSyntaxException;
-
-import javax.xml.parsers.ParserConfigurationException;
 
-import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
-import org.apache.maven.project.MavenProject;
-import org.gaul.modernizer_maven_plugin.output.CodeClimateOutputer;
 import org.gaul.modernizer_maven_plugin.output.LogLevel;
 import org.gaul.modernizer_maven_plugin.output.LoggerOutputer;
 import org.gaul.modernizer_maven_plugin.output.OutputEntry;
-import org.gaul.modernizer_maven_plugin.output.OutputFormat;
 import org.gaul.modernizer_maven_plugin.output.Outputer;
-import org.xml.sax.SAXException;
 
 @Mojo(name = "modernizer", defaultPhase = LifecyclePhase.PROCESS_TEST_CLASSES,
         threadSafe = true)
-public final class ModernizerMojo extends AbstractMojo {
-
-    private static final String CLASSPATH_PREFIX = "classpath:";
+public final class ModernizerMojo extends AbstractModernizerMojo {
 
-    /** The maven project (effective pom). */
-    @Parameter(defaultValue = "${project}", readonly = true)
-    private MavenProject project;
+    static final String PARTIAL_REPORT_PREFIX = "modernizer-shard-";
+    static final String PARTIAL_REPORT_SUFFIX = ".json";
 
     /** The output directory into which to find the source code. */
     @Parameter(property = "project.build.sourceDirectory")
@@ -89,320 +59,212 @@ public final class ModernizerMojo extends AbstractMojo {
     private File testOutputDirectory;
 
     /**
-     * Enables violations based on target Java version, e.g., 1.8. For example,
-     * Modernizer will detect uses of Vector as violations when targeting Java
-     * 1.2 but not when targeting Java 1.1.
-     */
-    @Parameter(property = "modernizer.javaVersion")
-    private String javaVersion;
-
-    /** Fail phase if Modernizer detects any violations. */
-    @Parameter(defaultValue = "true", property = "modernizer.failOnViolations")
-    private boolean failOnViolations = true;
-
-    /** Run Modernizer on test classes. */
-    @Parameter(defaultValue = "true",
-               property = "modernizer.includeTestClasses")
-    private boolean includeTestClasses = true;
-
-    /**
-     * User-specified violation file. Also disables standard violation checks.
-     * Can point to files from classpath using an absolute path, e.g.:
-     *
-     * classpath:/modernizer.xml
-     *
-     * for the default violations file.
-     */
-    @Parameter(property = "modernizer.violationsFile")
-    private String violationsFile = "classpath:/modernizer.xml";
-
-    /**
-     * User-specified violation files. The violations loaded from
-     * violationsFiles override the ones specified in violationsFile (or the
-     * default violations file if no violationsFile is given). Violations from
-     * the latter files override violations from the former files.
-     *
-     * Can point to files from classpath using an absolute path, e.g.:
-     *
-     * classpath:/modernizer.xml
-     *
-     * for the default violations file.
-     */
-    @Parameter(property = "modernizer.violationsFiles")
-    private List<String> violationsFiles = emptyList();
-
-    /**
-     * Disables user-specified violations. This is a text file with one
-     * exclusion per line in the javap format:
-     *
-     * java/lang/String.getBytes:(Ljava/lang/String;)[B.
-     */
-    @Parameter(property = "modernizer.exclusionsFile")
-    private String exclusionsFile;
-
-    /**
-     * Format to output violations in.
-     */
-    @Parameter(defaultValue = "CONSOLE", property = "modernizer.outputFormat")
-    private OutputFormat outputFormat;
-
-    /**
-     * Path to the file to output violations to.
-     * Ignored if {@code modernizer.outputFormat} is {@code CONSOLE}.
+     * After the initial scan, keep watching the output directories and
+     * rescan classes as the compiler rewrites them, logging violations
+     * which appear or disappear.  Runs until interrupted and never fails the
+     * build.  Watches every class, so it cannot be combined with sharding.
      */
-    @Parameter(property = "modernizer.outputFile")
-    private File outputFile;
+    @Parameter(defaultValue = "false", property = "modernizer.watch")
+    private boolean watch = false;
 
     /**
-     * Severity of modernizer violations for CodeClimate.
-     * Ignored if {@code modernizer.outputFormat} is not {@code CODECLIMATE}.
+     * Milliseconds without further class file changes to wait before
+     * rescanning in watch mode.
      */
-    @Parameter(defaultValue = "MINOR",
-            property = "modernizer.codeclimateSeverity")
-    private CodeClimateOutputer.Severity codeClimateSeverity;
+    @Parameter(defaultValue = "250",
+               property = "modernizer.watchDebounceMillis")
+    private long watchDebounceMillis = 250;
 
     /**
-     * Log level to emit violations at, e.g., error, warn, info, debug.
-     * Ignored if {@code modernizer.outputFormat} is not {@code CONSOLE}.
+     * Only scan classes compiled from sources which the current branch
+     * added or modified since it forked from this git revision, e.g.,
+     * origin/main for pull-request builds, including uncommitted changes.
+     * Uses the git executable on the PATH; classes of deleted sources are
+     * not scanned.
      */
-    @Parameter(defaultValue = "error",
-               property = "modernizer.violationLogLevel")
-    private String violationLogLevel;
-
-    /**
-     * Classes annotated with {@code @Generated} will be excluded from
-     * scanning, as will individual methods and constructors annotated with
-     * {@code @Generated}, e.g., members generated by Lombok.
-     * */
-    @Parameter(defaultValue = "true",
-               property = "modernizer.ignoreGeneratedClasses")
-    private boolean ignoreGeneratedClasses;
+    @Parameter(property = "modernizer.gitBaseRevision")
+    private String gitBaseRevision;
 
     /**
-     * Violations to disable. Each exclusion should be in the javap format:
-     *
-     * java/lang/String.getBytes:(Ljava/lang/String;)[B.
+     * Zero-based index of the shard this execution scans when the scan is
+     * split across {@code shardCount} CI nodes.
      */
-    @Parameter
-    private Set<String> exclusions = new HashSet<>();
+    @Parameter(defaultValue = "0", property = "modernizer.shardIndex")
+    private int shardIndex = 0;
 
     /**
-     * Violation patterns to disable. Each exclusion should be a
-     * regular expression that matches the javap format:
-     *
-     * java/lang/.*
+     * Number of shards to split the scan into.  Classes are assigned to
+     * shards by a stable hash of their top-level class name, so nested
+     * classes are always scanned with their enclosing class.  When greater
+     * than one, each shard also writes a partial report which the merge
+     * goal combines.
      */
-    @Parameter
-    private Set<String> exclusionPatterns = new HashSet<>();
+    @Parameter(defaultValue = "1", property = "modernizer.shardCount")
+    private int shardCount = 1;
 
     /**
-     * Package prefixes to ignore, specified using &lt;ignorePackage&gt; child
-     * elements. Specifying foo.bar subsequently ignores foo.bar.*,
-     * foo.bar.baz.* and so on.
+     * Path to write this shard's partial report to.  Defaults to
+     * {@code modernizer-shard-<shardIndex>.json} in the build directory.
      */
-    @Parameter
-    private Set<String> ignorePackages = new HashSet<>();
-
-    /**
-     * Fully qualified class names (incl. package) to ignore by regular
-     * expression, specified using &lt;ignoreClassNamePattern&gt; child
-     * elements.  Specifying .*.bar.* ignores foo.bar.*, foo.bar.baz.* but
-     * also bar.* and so on; or .*Immutable ignores all class with names
-     * ending in Immutable in all packages.
-     */
-    @Parameter
-    private Set<String> ignoreClassNamePatterns = new HashSet<>();
+    @Parameter(property = "modernizer.partialReportFile")
+    private File partialReportFile;
 
     private Modernizer modernizer;
 
-    /**
-     * Skips the plugin execution.
-     *
-     * @since 1.4.0
-     */
-    @Parameter(defaultValue = "false", property = "modernizer.skip")
-    private boolean skip = false;
-
     @Override
-    public void execute() throws MojoExecutionException {
-        if (skip) {
-            getLog().info("Skipping modernizer execution!");
-            return;
+    protected void executeScan() throws MojoExecutionException {
+        if (shardCount < 1 || shardIndex < 0 || shardIndex >= shardCount) {
+            throw new MojoExecutionException("Invalid shard " + shardIndex +
+                    " of " + shardCount);
         }
-
-        if (javaVersion == null || javaVersion.isEmpty()) {
+        if (watch && shardCount > 1) {
             throw new MojoExecutionException(
-                    "javaVersion is not set but is required for execution.");
+                    "watch cannot be combined with shardCount " + shardCount);
         }
 
-        LogLevel logLevel = parseLogLevel(violationLogLevel);
+        LogLevel logLevel = getLogLevel();
 
-        Map<String, Collection<Violation>> allViolations =
-                parseViolations(violationsFile);
-        for (String violationsFilePath : violationsFiles) {
-            allViolations.putAll(parseViolations(violationsFilePath));
-        }
+        List<Path> classFiles = selectClassFiles();
+        modernizer = createModernizer(detectIgnoredClassNames(classFiles));
 
-        Set<String> allExclusions = new HashSet<>();
-        allExclusions.addAll(exclusions);
-        if (exclusionsFile != null) {
-            allExclusions.addAll(readExclusionsFile(exclusionsFile));
+        if (watch) {
+            watch(logLevel);
+            return;
         }
 
-        Set<Pattern> allExclusionPatterns =
-                compilePatterns(exclusionPatterns, "exclusion pattern");
-        Set<Pattern> allIgnoreFullClassNamePatterns =
-                compilePatterns(ignoreClassNamePatterns,
-                        "ignoreClassNamePattern");
+        OccurrenceStore occurrences = scan(modernizer, classFiles,
+                this::sourceName);
 
-        Set<String> ignoreClassNames = new HashSet<>();
-        try {
-            collectIgnoredClassNames(outputDirectory.toPath(),
-                    "generated classes", ignoreClassNames);
-            if (includeTestClasses) {
-                collectIgnoredClassNames(testOutputDirectory.toPath(),
-                        "generated test classes", ignoreClassNames);
+        if (shardCount > 1) {
+            Path destination = partialReportFile != null ?
+                    partialReportFile.toPath() :
+                    Paths.get(getProject().getBuild().getDirectory()).resolve(
+                            PARTIAL_REPORT_PREFIX + shardIndex +
+                            PARTIAL_REPORT_SUFFIX);
+            try {
+                new PartialReport(shardIndex, shardCount, occurrences)
+                        .write(destination);
+            } catch (IOException ioe) {
+                throw new MojoExecutionException(
+                        "Error writing partial report", ioe);
             }
-        } catch (IOException e) {
-            throw new MojoExecutionException("Error reading suppressions", e);
         }
 
-        modernizer = new Modernizer(javaVersion, allViolations, allExclusions,
-                allExclusionPatterns, ignorePackages,
-                ignoreClassNames, allIgnoreFullClassNamePatterns,
-                ignoreGeneratedClasses);
+        report(occurrences);
+    }
 
-        List<OutputEntry> outputEntries = new ArrayList<>();
-        try {
-            recurseFiles(outputDirectory.toPath(), outputEntries);
-            if (includeTestClasses) {
-                recurseFiles(testOutputDirectory.toPath(), outputEntries);
-            }
-        } catch (IOException ioe) {
-            throw new MojoExecutionException("Error reading Java classes", ioe);
+    private void watch(LogLevel logLevel) throws MojoExecutionException {
+        List<Path> roots = new ArrayList<>();
+        roots.add(outputDirectory.toPath());
+        if (isIncludeTestClasses()) {
+            roots.add(testOutputDirectory.toPath());
         }
-
+        Outputer outputer = new LoggerOutputer(getLog(), logLevel);
+        ClassWatcher watcher = new ClassWatcher(modernizer, roots,
+                this::sourceName, (added, removed, total) -> {
+                    for (OutputEntry entry : removed) {
+                        getLog().info("Resolved: " + entry.getFileName() +
+                                ":" + entry.getOccurrence().getLineNumber() +
+                                ": " + entry.getOccurrence().getViolation()
+                                        .getComment());
+                    }
+                    outputer.output(added);
+                    getLog().info("Modernizer watching " + roots + ": " +
+                            total + " violations");
+                }, watchDebounceMillis);
         try {
-            buildOutputer(logLevel).output(outputEntries);
+            watcher.run();
         } catch (IOException ioe) {
-            throw new MojoExecutionException(
-                    "Error outputting violations", ioe);
-        }
-
-        if (failOnViolations && !outputEntries.isEmpty()) {
-            throw new MojoExecutionException("Found " + outputEntries.size() +
-                    " violations");
+            throw new MojoExecutionException("Error watching Java classes",
+                    ioe);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
         }
     }
 
-    private static Map<String, Collection<Violation>> parseViolations(
-            String violationsFilePath) throws MojoExecutionException {
-        try (InputStream is = openViolations(violationsFilePath)) {
-            return Modernizer.parseFromXml(is);
-        } catch (IOException ioe) {
-            throw new MojoExecutionException(
-                    "Error reading violation data", ioe);
-        } catch (ParserConfigurationException pce) {
-            throw new MojoExecutionException(
-                    "Error parsing violation data", pce);
-        } catch (SAXException saxe) {
-            throw new MojoExecutionException(
-                    "Error parsing violation data", saxe);
+    /**
+     * Returns the class files to scan: every class below the output
+     * directories, or only those compiled from sources changed since
+     * {@code gitBaseRevision}.
+     */
+    private List<Path> selectClassFiles() throws MojoExecutionException {
+        List<Path> classFiles = selectUnshardedClassFiles();
+        if (shardCount == 1) {
+            return classFiles;
         }
-    }
-
-    private static InputStream openViolations(String violationsFilePath)
-            throws MojoExecutionException {
-        if (violationsFilePath.startsWith(CLASSPATH_PREFIX)) {
-            String classpath =
-                    violationsFilePath.substring(CLASSPATH_PREFIX.length());
-            checkArgument(classpath.startsWith("/"), format(
-                    "Only absolute classpath references are allowed, got [%s]",
-                    classpath));
-            InputStream is = Modernizer.class.getResourceAsStream(classpath);
-            if (is == null) {
-                throw new MojoExecutionException(
-                        "Error opening violation file: " + classpath);
+        List<Path> shardClassFiles = new ArrayList<>();
+        for (Path classFile : classFiles) {
+            Path outputRoot = outputRootOf(classFile);
+            String internalName = (outputRoot == null ? classFile :
+                    outputRoot.relativize(classFile)).toString()
+                    .replace(File.separatorChar, '/');
+            if (shardOf(internalName, shardCount) == shardIndex) {
+                shardClassFiles.add(classFile);
             }
-            return is;
-        }
-        Path path = FileSystems.getDefault().getPath(violationsFilePath);
-        try {
-            return Files.newInputStream(path);
-        } catch (IOException fnfe) {
-            throw new MojoExecutionException(
-                    "Error opening violation file: " + path, fnfe);
         }
+        getLog().info("Scanning shard " + shardIndex + " of " + shardCount +
+                ": " + shardClassFiles.size() + " of " + classFiles.size() +
+                " classes");
+        return shardClassFiles;
+    }
+
+    /**
+     * Returns the shard which scans a class, given its internal name or its
+     * class file path relative to the output directory.  String.hashCode is
+     * specified by the JLS, so assignments agree across JVMs and nodes.
+     */
+    static int shardOf(String internalName, int shardCount) {
+        return Math.floorMod(ClassFiles.topLevelName(internalName).hashCode(),
+                shardCount);
     }
 
-    private Collection<String> readExclusionsFile(String exclusionsFilePath)
+    private List<Path> selectUnshardedClassFiles()
             throws MojoExecutionException {
-        InputStream is;
-        Path path = FileSystems.getDefault().getPath(exclusionsFilePath);
+        List<Path> classFiles = new ArrayList<>();
         try {
-            if (Files.exists(path)) {
-                is = Files.newInputStream(path);
-            } else {
-                is = this.getClass().getClassLoader().getResourceAsStream(
-                        exclusionsFilePath);
-                if (is == null) {
-                    throw new MojoExecutionException(
-                            "Could not find exclusion file: " +
-                            exclusionsFilePath);
+            if (gitBaseRevision == null || gitBaseRevision.isEmpty()) {
+                classFiles.addAll(ClassFiles.walk(outputDirectory.toPath()));
+                if (isIncludeTestClasses()) {
+                    classFiles.addAll(ClassFiles.walk(
+                            testOutputDirectory.toPath()));
                 }
+                return classFiles;
             }
-        } catch (IOException ioe) {
-            throw new MojoExecutionException(
-                    "Error opening exclusion file: " +
-                    exclusionsFilePath, ioe);
-        }
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(is, StandardCharsets.UTF_8))) {
-            Collection<String> lines = new ArrayList<>();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String trimmed = line.trim();
-                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+
+            Path basedir = getProject().getBasedir().toPath();
+            List<Path> changedFiles =
+                    GitDiff.changedFiles(basedir, gitBaseRevision);
+            for (Path changedFile : changedFiles) {
+                Path sourceFile = basedir.resolve(changedFile);
+                if (!sourceFile.toString().endsWith(".java")) {
                     continue;
                 }
-                lines.add(line);
-            }
-            return lines;
-        } catch (IOException ioe) {
-            throw new MojoExecutionException(
-                    "Error reading exclusion file: " +
-                    exclusionsFilePath, ioe);
-        }
-    }
-
-    private static Set<Pattern> compilePatterns(Collection<String> patterns,
-            String label) throws MojoExecutionException {
-        Set<Pattern> compiled = new HashSet<>();
-        for (String pattern : patterns) {
-            try {
-                compiled.add(Pattern.compile(pattern));
-            } catch (PatternSyntaxException pse) {
-                throw new MojoExecutionException(
-                        "Invalid " + label + ": " + pattern, pse);
-            }
-        }
-        return compiled;
-    }
-
-    private void collectIgnoredClassNames(Path classRoot,
-            String generatedLabel, Set<String> sink) throws IOException {
-        sink.addAll(SuppressModernizerAnnotationDetector.detect(classRoot));
-        if (ignoreGeneratedClasses) {
-            Set<String> generated =
-                    SuppressGeneratedAnnotationDetector.detect(classRoot);
-            if (getLog().isDebugEnabled()) {
-                getLog().debug("The following " + generatedLabel +
-                        " will be ignored");
-                for (String s : generated) {
-                    getLog().debug(s);
+                // Test sources may be nested inside main sources; match the
+                // more specific root first.
+                Path sourcePath = sourceDirectory.toPath();
+                Path testSourcePath = testSourceDirectory.toPath();
+                boolean testFirst = testSourcePath.startsWith(sourcePath) &&
+                        !sourcePath.startsWith(testSourcePath);
+                if (isIncludeTestClasses() && testFirst &&
+                        sourceFile.startsWith(testSourcePath)) {
+                    classFiles.addAll(mapToClassFiles(sourceFile,
+                            testSourcePath, testOutputDirectory.toPath()));
+                } else if (sourceFile.startsWith(sourcePath)) {
+                    classFiles.addAll(mapToClassFiles(sourceFile,
+                            sourcePath, outputDirectory.toPath()));
+                } else if (isIncludeTestClasses() &&
+                        sourceFile.startsWith(testSourcePath)) {
+                    classFiles.addAll(mapToClassFiles(sourceFile,
+                            testSourcePath, testOutputDirectory.toPath()));
                 }
             }
-            sink.addAll(generated);
+            getLog().info("Scanning " + classFiles.size() +
+                    " classes compiled from " + changedFiles.size() +
+                    " files changed since " + gitBaseRevision);
+            return classFiles;
+        } catch (IOException ioe) {
+            throw new MojoExecutionException("Error listing Java classes",
+                    ioe);
         }
     }
 
@@ -422,85 +284,53 @@ public final class ModernizerMojo extends AbstractMojo {
         return sourceFile.resolveSibling(fileName + ".java").toString();
     }
 
-    private void recurseFiles(Path path, List<OutputEntry> outputEntries)
-            throws IOException {
-        if (!Files.exists(path)) {
-            return;
-        }
-        Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
-            @Override
-            public FileVisitResult visitFile(Path file,
-                    BasicFileAttributes attrs) throws IOException {
-                if (file.toString().endsWith(".class")) {
-                    visitClassFile(file, outputEntries);
-                }
-                return FileVisitResult.CONTINUE;
-            }
-        });
-    }
-
-    private void visitClassFile(Path path, List<OutputEntry> outputEntries)
-            throws IOException {
-        try (InputStream is = Files.newInputStream(path)) {
-            Collection<ViolationOccurrence> occurrences =
-                    modernizer.check(is);
-            Path outputPath = outputDirectory.toPath();
-            Path testOutputPath = testOutputDirectory.toPath();
-            Path sourcePath = sourceDirectory.toPath();
-            Path testSourcePath = testSourceDirectory.toPath();
-            // When one output directory is nested inside the other,
-            // match the more specific (longer) one first.
-            boolean testFirst = testOutputPath.startsWith(outputPath) &&
-                    !outputPath.startsWith(testOutputPath);
-            for (ViolationOccurrence occurrence : occurrences) {
-                String name = path.toString();
-                if (testFirst && path.startsWith(testOutputPath)) {
-                    name = mapToSource(path, testOutputPath, testSourcePath);
-                } else if (path.startsWith(outputPath)) {
-                    name = mapToSource(path, outputPath, sourcePath);
-                } else if (path.startsWith(testOutputPath)) {
-                    name = mapToSource(path, testOutputPath, testSourcePath);
-                }
-                outputEntries.add(new OutputEntry(name, occurrence));
+    /**
+     * Returns the class files compiled from a source file: the class of the
+     * same name and its nested and anonymous classes.  This is the reverse
+     * of {@link #mapToSource}.  Additional top-level classes declared in the
+     * same source file cannot be recovered from the file name.
+     */
+    static List<Path> mapToClassFiles(Path sourceFile, Path sourceRoot,
+            Path outputRoot) throws IOException {
+        Path relative = sourceRoot.relativize(sourceFile);
+        String fileName = relative.getFileName().toString();
+        Path classFile = outputRoot.resolve(relative).resolveSibling(
+                fileName.substring(0, fileName.length() - ".java".length()) +
+                ClassFiles.CLASS_SUFFIX);
+        List<Path> classFiles = new ArrayList<>();
+        for (Path path : ClassFiles.family(classFile)) {
+            if (Files.exists(path)) {
+                classFiles.add(path);
             }
         }
+        return classFiles;
     }
 
-    private static LogLevel parseLogLevel(String value)
-            throws MojoExecutionException {
-        for (LogLevel l : LogLevel.values()) {
-            if (l.name().equalsIgnoreCase(value)) {
-                return l;
-            }
+    private String sourceName(Path path) {
+        Path outputRoot = outputRootOf(path);
+        if (outputRoot == null) {
+            return path.toString();
         }
-        throw new MojoExecutionException("Unknown violationLogLevel: '" +
-                value + "', must be one of " +
-                Arrays.asList(LogLevel.values()));
+        Path sourceRoot = outputRoot.equals(outputDirectory.toPath()) ?
+                sourceDirectory.toPath() : testSourceDirectory.toPath();
+        return mapToSource(path, outputRoot, sourceRoot);
     }
 
-    private Outputer buildOutputer(LogLevel logLevel)
-            throws MojoExecutionException {
-        Path baseDir = Paths.get(project.getBuild().getDirectory());
-        if (Objects.requireNonNull(outputFormat) == OutputFormat.CONSOLE) {
-            return new LoggerOutputer(getLog(), logLevel);
-        } else if (outputFormat == OutputFormat.CODE_CLIMATE) {
-            // make sure the output directory exists
-            if (!Files.exists(baseDir)) {
-                getLog().debug("Create the missing target directory: " + baseDir);
-                try {
-                    Files.createDirectories(baseDir);
-                } catch (IOException ioe) {
-                    throw new MojoExecutionException(
-                            "Create missing output directory failed: " + ioe.getMessage());
-                }
-            }
-
-            Path destination = outputFile != null ?
-                    outputFile.toPath() :
-                    baseDir.resolve(CodeClimateOutputer.DEFAULT_FILENAME);
-            return new CodeClimateOutputer(destination, codeClimateSeverity);
+    /** Returns the output directory containing path, or null if none. */
+    private Path outputRootOf(Path path) {
+        Path outputPath = outputDirectory.toPath();
+        Path testOutputPath = testOutputDirectory.toPath();
+        // When one output directory is nested inside the other,
+        // match the more specific (longer) one first.
+        boolean testFirst = testOutputPath.startsWith(outputPath) &&
+                !outputPath.startsWith(testOutputPath);
+        if (testFirst && path.startsWith(testOutputPath)) {
+            return testOutputPath;
+        } else if (path.startsWith(outputPath)) {
+            return outputPath;
+        } else if (path.startsWith(testOutputPath)) {
+            return testOutputPath;
         }
-        throw new MojoExecutionException(
-                "Invalid output format: " + outputFormat);
+        return null;
     }
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+
+/**
+ * Evaluates the configured rules, exclusions and target version against the
+ * references which an earlier scan with {@code recordReferences} recorded,
+ * reporting the violations that scan would have reported without reading
+ * any class files, e.g., to preview a newer javaVersion.
+ */
+@Mojo(name = "query", threadSafe = true)
+public final class ModernizerQueryMojo extends AbstractModernizerMojo {
+    @Override
+    protected void executeScan() throws MojoExecutionException {
+        Path file = getReferenceIndex();
+        ReferenceIndex index;
+        try {
+            index = ReferenceIndex.read(file);
+        } catch (IOException ioe) {
+            throw new MojoExecutionException(
+                    "Error reading reference index: " + file, ioe);
+        }
+
+        Modernizer modernizer = createModernizer(
+                index.suppressedClassNames(isIgnoreGeneratedClasses()));
+        long start = System.nanoTime();
+        OccurrenceStore occurrences = new OccurrenceStore();
+        for (int i = 0; i < index.size(); ++i) {
+            Collection<ViolationOccurrence> found = modernizer.check(index, i);
+            if (!found.isEmpty()) {
+                occurrences.addAll(index.sourceName(i), found);
+            }
+        }
+        getLog().info("Evaluated " + index.size() + " recorded classes in " +
+                (System.nanoTime() - start) / 1_000_000 + " ms");
+        report(occurrences);
+    }
+}
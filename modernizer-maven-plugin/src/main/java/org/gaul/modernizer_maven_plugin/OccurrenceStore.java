@@ -0,0 +1,188 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.gaul.modernizer_maven_plugin.output.OutputEntry;
+
+/**
+ * Append-only list of violations for output, stored as four ints per
+ * occurrence: a rule id, a line number, a file id and an owner id.  Source
+ * file names, the names violations are reported under, e.g., the referenced
+ * method, and equal {@link Violation}s are each stored once, so legacy
+ * modules with 100,000s of violations retain 16 bytes per occurrence
+ * rather than an {@link OutputEntry} and {@link ViolationOccurrence} each.
+ * Outputers read occurrences through a {@link Cursor}.  Not thread-safe.
+ */
+public final class OccurrenceStore {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] ruleIds = new int[INITIAL_CAPACITY];
+    private int[] lineNumbers = new int[INITIAL_CAPACITY];
+    private int[] fileIds = new int[INITIAL_CAPACITY];
+    private int[] ownerIds = new int[INITIAL_CAPACITY];
+    private int size;
+
+    private final List<String> fileNames = new ArrayList<>();
+    private final Map<String, Integer> fileIdsByName = new HashMap<>();
+    private final List<String> owners = new ArrayList<>();
+    private final Map<String, Integer> ownerIdsByName = new HashMap<>();
+    // Keyed by equality since, e.g., cached scan results hold a copy of
+    // the rule for every occurrence.
+    private final List<Violation> rules = new ArrayList<>();
+    private final Map<Violation, Integer> ruleIdsByViolation =
+            new HashMap<>();
+
+    /** Returns a store holding entries in order. */
+    public static OccurrenceStore of(Collection<OutputEntry> entries) {
+        OccurrenceStore store = new OccurrenceStore();
+        for (OutputEntry entry : entries) {
+            store.add(entry.getFileName(), entry.getOccurrence());
+        }
+        return store;
+    }
+
+    /**
+     * Appends the occurrences found in one class, which is compiled from
+     * the source file fileName.  Stores nothing if there are none.
+     */
+    public void addAll(String fileName,
+            Collection<ViolationOccurrence> occurrences) {
+        for (ViolationOccurrence occurrence : occurrences) {
+            add(fileName, occurrence);
+        }
+    }
+
+    /**
+     * Appends an occurrence in a class compiled from the source file
+     * fileName.
+     */
+    public void add(String fileName, ViolationOccurrence occurrence) {
+        if (size == ruleIds.length) {
+            ruleIds = Arrays.copyOf(ruleIds, size * 2);
+            lineNumbers = Arrays.copyOf(lineNumbers, size * 2);
+            fileIds = Arrays.copyOf(fileIds, size * 2);
+            ownerIds = Arrays.copyOf(ownerIds, size * 2);
+        }
+        ruleIds[size] = id(rules, ruleIdsByViolation,
+                occurrence.getViolation());
+        lineNumbers[size] = occurrence.getLineNumber();
+        fileIds[size] = id(fileNames, fileIdsByName,
+                Objects.requireNonNull(fileName));
+        ownerIds[size] = id(owners, ownerIdsByName, occurrence.getOwner());
+        ++size;
+    }
+
+    /** Returns the number of distinct source file names. */
+    int getFileCount() {
+        return fileNames.size();
+    }
+
+    /** Returns the number of distinct names violations are reported under. */
+    int getOwnerCount() {
+        return owners.size();
+    }
+
+    private static <T> int id(List<T> values, Map<T, Integer> ids, T value) {
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = values.size();
+            values.add(value);
+            ids.put(value, id);
+        }
+        return id;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Returns a cursor positioned before the first occurrence. */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /** Returns the occurrences as objects, e.g., for comparison. */
+    public List<OutputEntry> toOutputEntries() {
+        List<OutputEntry> entries = new ArrayList<>(size);
+        for (Cursor cursor = cursor(); cursor.next();) {
+            entries.add(new OutputEntry(cursor.getFileName(),
+                    new ViolationOccurrence(cursor.getOwner(),
+                            cursor.getLineNumber(), cursor.getViolation())));
+        }
+        return entries;
+    }
+
+    /**
+     * Iterates over the occurrences in insertion order without allocating.
+     * Only reflects occurrences added before it was created.
+     */
+    public final class Cursor {
+        private final int end = size;
+        private int index = -1;
+
+        private Cursor() {
+        }
+
+        /** Advances to the next occurrence and returns whether there is one. */
+        public boolean next() {
+            if (index < end) {
+                ++index;
+            }
+            return index < end;
+        }
+
+        public String getFileName() {
+            return fileNames.get(fileIds[current()]);
+        }
+
+        /**
+         * Returns the name the violation is reported under: the referenced
+         * field or method name, or the internal name of the referenced
+         * interface or annotation, as {@link ViolationOccurrence#getOwner}.
+         */
+        public String getOwner() {
+            return owners.get(ownerIds[current()]);
+        }
+
+        public int getLineNumber() {
+            return lineNumbers[current()];
+        }
+
+        public Violation getViolation() {
+            return rules.get(ruleIds[current()]);
+        }
+
+        private int current() {
+            if (index < 0 || index >= end) {
+                throw new IllegalStateException("No current occurrence");
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import org.gaul.modernizer_maven_plugin.output.OutputEntry;
+
+/**
+ * Violations found by one shard of a sharded scan.  Unlike the CodeClimate
+ * report this retains every field of the violation so that the merge goal
+ * can render any output format from the combined reports.
+ */
+final class PartialReport {
+    private final int shardIndex;
+    private final int shardCount;
+    private final List<Entry> entries;
+
+    PartialReport(int shardIndex, int shardCount,
+            OccurrenceStore occurrences) {
+        this.shardIndex = shardIndex;
+        this.shardCount = shardCount;
+        this.entries = new ArrayList<>(occurrences.size());
+        for (OccurrenceStore.Cursor cursor = occurrences.cursor();
+                cursor.next();) {
+            entries.add(new Entry(cursor));
+        }
+    }
+
+    int getShardIndex() {
+        return shardIndex;
+    }
+
+    int getShardCount() {
+        return shardCount;
+    }
+
+    List<OutputEntry> getOutputEntries() {
+        List<OutputEntry> outputEntries = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            outputEntries.add(entry.toOutputEntry());
+        }
+        return outputEntries;
+    }
+
+    void write(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (Writer writer = new OutputStreamWriter(
+                Files.newOutputStream(path), StandardCharsets.UTF_8)) {
+            new Gson().toJson(this, writer);
+        }
+    }
+
+    static PartialReport read(Path path) throws IOException {
+        try (Reader reader = new InputStreamReader(
+                Files.newInputStream(path), StandardCharsets.UTF_8)) {
+            PartialReport report = new Gson().fromJson(reader,
+                    PartialReport.class);
+            if (report == null || report.entries == null) {
+                throw new IOException("Not a partial report: " + path);
+            }
+            return report;
+        } catch (JsonParseException jpe) {
+            throw new IOException("Not a partial report: " + path, jpe);
+        }
+    }
+
+    private static final class Entry {
+        private final String fileName;
+        private final String owner;
+        private final int lineNumber;
+        private final String name;
+        private final int version;
+        private final Integer until;
+        private final String comment;
+
+        Entry(OccurrenceStore.Cursor cursor) {
+            Violation violation = cursor.getViolation();
+            this.fileName = cursor.getFileName();
+            this.owner = cursor.getOwner();
+            this.lineNumber = cursor.getLineNumber();
+            this.name = violation.getName();
+            this.version = violation.getVersion();
+            this.until = violation.getUntil().isPresent() ?
+                    violation.getUntil().getAsInt() : null;
+            this.comment = violation.getComment();
+        }
+
+        OutputEntry toOutputEntry() {
+            Violation violation = new Violation(name, version,
+                    until == null ? OptionalInt.empty() : OptionalInt.of(until),
+                    comment);
+            return new OutputEntry(fileName,
+                    new ViolationOccurrence(owner, lineNumber, violation));
+        }
+    }
+}
@@ -0,0 +1,471 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import static org.gaul.modernizer_maven_plugin.Utils.ASM_API;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * The references which {@link ModernizerClassVisitor} checks, recorded from
+ * a set of classes independently of any rules: interfaces, class and method
+ * annotations and the fields and methods each method uses, with their line
+ * numbers and whether {@code @SuppressModernizer} or {@code @Generated}
+ * suppresses the class.  Replaying a class into a visitor reports the same
+ * violations as scanning its class file, so that other rules, exclusions
+ * or target versions can be evaluated without reading class files.
+ *
+ * <p>The file interns every name once and stores each class as a run of
+ * ints, located through a table of offsets and ordered by class name.
+ * Immutable and thread-safe.
+ */
+final class ReferenceIndex {
+    private static final int MAGIC = 0x4d524958;
+    private static final int FORMAT_VERSION = 1;
+
+    /** Class flags. */
+    private static final int SUPPRESSED = 1;
+    private static final int GENERATED = 2;
+
+    /** Method operations, in the low bits of their first int. */
+    private static final int OP_LINE = 0;
+    private static final int OP_MEMBER = 1;
+    private static final int OP_ANNOTATION = 2;
+    private static final int OP_BITS = 2;
+    private static final int OP_MASK = (1 << OP_BITS) - 1;
+
+    private final String[] strings;
+    /**
+     * Start of each class in records, plus the end of the last.  A class is
+     * its name, source name, flags, interface count and ids, annotation
+     * count and descriptor ids, method count, and for each method the
+     * number of ints in its operations followed by the operations.
+     */
+    private final int[] classStarts;
+    private final int[] records;
+
+    private ReferenceIndex(String[] strings, int[] classStarts,
+            int[] records) {
+        this.strings = strings;
+        this.classStarts = classStarts;
+        this.records = records;
+    }
+
+    /**
+     * Records the references of each class file, reporting them under the
+     * file name which sourceName returns.
+     */
+    static ReferenceIndex record(Collection<Path> classFiles,
+            Function<Path, String> sourceName) throws IOException {
+        Builder builder = new Builder();
+        for (Path classFile : classFiles) {
+            try (InputStream is = Files.newInputStream(classFile)) {
+                builder.record(new ClassReader(is),
+                        sourceName.apply(classFile));
+            }
+        }
+        return builder.build();
+    }
+
+    static ReferenceIndex read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(Files.readAllBytes(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Not a reference index: " + file);
+            }
+            String[] strings = new String[in.readInt()];
+            for (int i = 0; i < strings.length; ++i) {
+                strings[i] = in.readUTF();
+            }
+            int[] classStarts = new int[in.readInt() + 1];
+            for (int i = 0; i < classStarts.length; ++i) {
+                classStarts[i] = in.readInt();
+            }
+            int[] records = new int[classStarts[classStarts.length - 1]];
+            for (int i = 0; i < records.length; ++i) {
+                records[i] = in.readInt();
+            }
+            return new ReferenceIndex(strings, classStarts, records);
+        } catch (EOFException eofe) {
+            throw new IOException("Truncated reference index: " + file, eofe);
+        }
+    }
+
+    /** Writes the index, replacing any previous index atomically. */
+    void write(Path file) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(strings.length);
+            for (String string : strings) {
+                out.writeUTF(string);
+            }
+            out.writeInt(size());
+            for (int start : classStarts) {
+                out.writeInt(start);
+            }
+            for (int value : records) {
+                out.writeInt(value);
+            }
+        }
+        Utils.writeAtomically(file, ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    /** Returns the number of classes. */
+    int size() {
+        return classStarts.length - 1;
+    }
+
+    String className(int classId) {
+        return strings[records[classStarts[classId]]];
+    }
+
+    String sourceName(int classId) {
+        return strings[records[classStarts[classId] + 1]];
+    }
+
+    /**
+     * Returns the classes suppressed by {@code @SuppressModernizer} or, if
+     * enabled, {@code @Generated} on themselves or an enclosing class.
+     */
+    ClassNameTrie suppressedClassNames(boolean ignoreGeneratedClasses) {
+        int mask = ignoreGeneratedClasses ? SUPPRESSED | GENERATED :
+                SUPPRESSED;
+        ClassNameTrie suppressed = new ClassNameTrie();
+        for (int i = 0; i < size(); ++i) {
+            if ((records[classStarts[i] + 2] & mask) != 0) {
+                suppressed.add(className(i));
+            }
+        }
+        return suppressed;
+    }
+
+    /**
+     * Visits a class as ClassReader would, with only the names, descriptors
+     * and line numbers which were recorded.  Method references arrive as
+     * field instructions whose names are in token form, e.g.,
+     * {@code "<init>"} in quotes.
+     */
+    void accept(int classId, ClassVisitor visitor) {
+        int offset = classStarts[classId];
+        String className = strings[records[offset]];
+        offset += 3;
+        String[] interfaces = new String[records[offset++]];
+        for (int i = 0; i < interfaces.length; ++i) {
+            interfaces[i] = strings[records[offset++]];
+        }
+        visitor.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, className,
+                /*signature=*/ null, /*superName=*/ null, interfaces);
+        int annotationCount = records[offset++];
+        for (int i = 0; i < annotationCount; ++i) {
+            visitor.visitAnnotation(strings[records[offset++]],
+                    /*visible=*/ true);
+        }
+        int methodCount = records[offset++];
+        for (int i = 0; i < methodCount; ++i) {
+            int end = offset + 1 + records[offset];
+            ++offset;
+            MethodVisitor methodVisitor = visitor.visitMethod(
+                    Opcodes.ACC_PUBLIC, /*name=*/ null, /*descriptor=*/ null,
+                    /*signature=*/ null, /*exceptions=*/ null);
+            if (methodVisitor == null) {
+                offset = end;
+                continue;
+            }
+            while (offset < end) {
+                int op = records[offset++];
+                int value = op >>> OP_BITS;
+                switch (op & OP_MASK) {
+                case OP_LINE:
+                    methodVisitor.visitLineNumber(value - 1,
+                            /*start=*/ null);
+                    break;
+                case OP_MEMBER:
+                    methodVisitor.visitFieldInsn(Opcodes.GETSTATIC,
+                            strings[value], strings[records[offset]],
+                            strings[records[offset + 1]]);
+                    offset += 2;
+                    break;
+                case OP_ANNOTATION:
+                    methodVisitor.visitAnnotation(strings[value],
+                            /*visible=*/ true);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown operation: " +
+                            op);
+                }
+            }
+            methodVisitor.visitEnd();
+        }
+        visitor.visitEnd();
+    }
+
+    /**
+     * Collects the references of classes from any number of threads, e.g.,
+     * the workers of a scan, which pass it the readers they have just
+     * checked so that recording reads no class file a second time.
+     */
+    static final class Builder {
+        private final AnnotationDetector suppressModernizer =
+                SuppressModernizerAnnotationDetector.newDetector();
+        private final AnnotationDetector generated =
+                SuppressGeneratedAnnotationDetector.newDetector();
+        private final AtomicInteger nextId = new AtomicInteger();
+        private final Map<String, Integer> stringIds =
+                new ConcurrentHashMap<>();
+        private final Queue<int[]> classes = new ConcurrentLinkedQueue<>();
+        private final ThreadLocal<Recorder> recorders =
+                ThreadLocal.withInitial(Recorder::new);
+
+        /** Records a class, reporting it under sourceName.  Thread-safe. */
+        void record(ClassReader classReader, String sourceName) {
+            suppressModernizer.scan(classReader);
+            generated.scan(classReader);
+            Recorder recorder = recorders.get();
+            classReader.accept(recorder, ClassReader.SKIP_FRAMES);
+            classes.add(recorder.finish(sourceName));
+        }
+
+        /** Returns the index of the classes recorded so far. */
+        ReferenceIndex build() {
+            String[] names = new String[stringIds.size()];
+            for (Map.Entry<String, Integer> entry : stringIds.entrySet()) {
+                names[entry.getValue()] = entry.getKey();
+            }
+            List<int[]> sorted = new ArrayList<>(classes);
+            sorted.sort(Comparator.comparing(record -> names[record[0]]));
+            int[] classStarts = new int[sorted.size() + 1];
+            Ints records = new Ints();
+            for (int i = 0; i < sorted.size(); ++i) {
+                int[] record = sorted.get(i);
+                String name = names[record[0]];
+                record[2] = (suppressModernizer.isSuppressed(name) ?
+                        SUPPRESSED : 0) |
+                        (generated.isSuppressed(name) ? GENERATED : 0);
+                classStarts[i] = records.size;
+                records.addAll(record, record.length);
+            }
+            classStarts[sorted.size()] = records.size;
+            return new ReferenceIndex(names, classStarts, records.toArray());
+        }
+
+        private int id(String string) {
+            Integer id = stringIds.get(string);
+            if (id == null) {
+                id = stringIds.computeIfAbsent(string, this::newId);
+            }
+            return id;
+        }
+
+        private Integer newId(String string) {
+            return nextId.getAndIncrement();
+        }
+
+        /**
+         * Collects the references of one class at a time on one thread; methods
+         * without references are dropped and line numbers are only kept ahead
+         * of the references on them.
+         */
+        private final class Recorder extends ClassVisitor {
+            private final Ints annotations = new Ints();
+            private final Ints methods = new Ints();
+            private final MethodRecorder methodRecorder = new MethodRecorder();
+            private String className;
+            private int[] interfaceIds;
+            private int methodCount;
+
+            Recorder() {
+                super(ASM_API);
+            }
+
+            @Override
+            public void visit(int version, int access, String name,
+                    String signature, String superName, String[] interfaces) {
+                className = name;
+                interfaceIds = new int[interfaces.length];
+                for (int i = 0; i < interfaces.length; ++i) {
+                    interfaceIds[i] = id(interfaces[i]);
+                }
+                annotations.clear();
+                methods.clear();
+                methodCount = 0;
+            }
+
+            @Override
+            public AnnotationVisitor visitAnnotation(String desc,
+                    boolean visible) {
+                annotations.add(id(desc));
+                return null;
+            }
+
+            @Override
+            public MethodVisitor visitMethod(int access, String name,
+                    String descriptor, String signature, String[] exceptions) {
+                methodRecorder.reset();
+                return methodRecorder;
+            }
+
+            /** Returns the record of the class which was last visited. */
+            int[] finish(String sourceName) {
+                Ints record = new Ints();
+                record.add(id(className));
+                record.add(id(sourceName));
+                record.add(0);
+                record.add(interfaceIds.length);
+                for (int interfaceId : interfaceIds) {
+                    record.add(interfaceId);
+                }
+                record.add(annotations.size);
+                record.addAll(annotations);
+                record.add(methodCount);
+                record.addAll(methods);
+                return record.toArray();
+            }
+
+            private final class MethodRecorder extends MethodVisitor {
+                private final Ints ops = new Ints();
+                private int lineNumber;
+                private int recordedLineNumber;
+
+                MethodRecorder() {
+                    super(ASM_API);
+                }
+
+                void reset() {
+                    ops.clear();
+                    lineNumber = -1;
+                    recordedLineNumber = -1;
+                }
+
+                @Override
+                public void visitFieldInsn(int opcode, String owner,
+                        String name, String desc) {
+                    recordMember(owner, name, desc);
+                }
+
+                @Override
+                public void visitMethodInsn(int opcode, String owner,
+                        String name, String desc, boolean isInterface) {
+                    if (name.equals("<init>")) {
+                        name = "\"<init>\"";
+                    }
+                    recordMember(owner, name, desc);
+                }
+
+                @Override
+                public AnnotationVisitor visitAnnotation(String desc,
+                        boolean visible) {
+                    recordLineNumber();
+                    ops.add(id(desc) << OP_BITS | OP_ANNOTATION);
+                    return null;
+                }
+
+                @Override
+                public void visitLineNumber(int lineNumber, Label start) {
+                    this.lineNumber = lineNumber;
+                }
+
+                @Override
+                public void visitEnd() {
+                    if (ops.size == 0) {
+                        return;
+                    }
+                    methods.add(ops.size);
+                    methods.addAll(ops);
+                    ++methodCount;
+                }
+
+                private void recordMember(String owner, String name,
+                        String desc) {
+                    recordLineNumber();
+                    ops.add(id(owner) << OP_BITS | OP_MEMBER);
+                    ops.add(id(name));
+                    ops.add(id(desc));
+                }
+
+                private void recordLineNumber() {
+                    if (lineNumber != recordedLineNumber) {
+                        ops.add((lineNumber + 1) << OP_BITS | OP_LINE);
+                        recordedLineNumber = lineNumber;
+                    }
+                }
+            }
+        }
+    }
+
+    /** Growable array of ints. */
+    private static final class Ints {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, 2 * size);
+            }
+            values[size++] = value;
+        }
+
+        void addAll(Ints other) {
+            addAll(other.values, other.size);
+        }
+
+        void addAll(int[] other, int length) {
+            if (size + length > values.length) {
+                values = Arrays.copyOf(values,
+                        Math.max(2 * values.length, size + length));
+            }
+            System.arraycopy(other, 0, values, size, length);
+            size += length;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import java.util.Collection;
+
+/**
+ * Looks up the rules which apply to a reference at the target Java version.
+ * Implementations come from {@link RuleMatchers}.  Lookups return null
+ * rather than an empty collection so that misses, by far the common case,
+ * allocate nothing.
+ */
+interface RuleMatcher {
+    /** Returns the rules for a type, e.g., java/util/Vector, or null. */
+    Collection<Violation> matchType(String internalName);
+
+    /**
+     * Returns the rules for a field or method, or null.  Constructors are
+     * named {@code "<init>"} including the quotes, as in the rules.
+     */
+    Collection<Violation> matchMember(String owner, String name,
+            String descriptor);
+}
@@ -0,0 +1,513 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.GeneratorAdapter;
+import org.objectweb.asm.commons.Method;
+
+/**
+ * Creates {@link RuleMatcher}s.  The preferred matcher is a class generated
+ * for the rule set and target version: it switches on the cached hash of
+ * the owner, which ASM shares across the references of a class, then on the
+ * member name, and compares against constants, so probes neither build a
+ * token string nor hash one.  Name and owner wildcards are the fallbacks of
+ * those same switches, so they cost no further probe.  Rules which do not
+ * apply to the target version are dropped up front.  Generated classes are
+ * hidden classes, which the JVM unloads with their last matcher rather than
+ * with the plugin class loader, so that long-lived processes such as the
+ * daemon do not accumulate them.  Generation needs
+ * {@code Lookup.defineHiddenClass} from Java 15; on earlier versions, or if
+ * the class cannot be defined, e.g., because the rule set exceeds the size
+ * of a method, a map-based matcher is used instead.
+ */
+final class RuleMatchers {
+    private static final String PACKAGE = Type.getInternalName(
+            RuleMatchers.class).substring(0, Type.getInternalName(
+                    RuleMatchers.class).lastIndexOf('/') + 1);
+    private static final Type STRING = Type.getType(String.class);
+    private static final Type COLLECTION_ARRAY =
+            Type.getType(Collection[].class);
+    private static final Method EQUALS =
+            Method.getMethod("boolean equals(Object)");
+    private static final Method HASH_CODE = Method.getMethod("int hashCode()");
+    private static final String MEMBER_DESCRIPTOR =
+            "(Ljava/lang/String;Ljava/lang/String;)Ljava/util/Collection;";
+    private static final int MAX_CACHED = 16;
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+
+    /**
+     * Matchers by folded rule set, so that the executions of a reactor
+     * share one generated class rather than each defining its own.
+     */
+    private static final Map<Map<String, Collection<Violation>>, RuleMatcher>
+            CACHE = new LinkedHashMap<>(MAX_CACHED, 0.75f,
+                    /*accessOrder=*/ true);
+
+    private RuleMatchers() {
+        throw new AssertionError("Intentionally not implemented");
+    }
+
+    /**
+     * Returns a matcher for the rules which apply at javaVersion, generated
+     * if possible.
+     */
+    static RuleMatcher create(RuleTable table, long javaVersion) {
+        return create(fold(table, javaVersion));
+    }
+
+    /** Returns a matcher for rules, generated if possible. */
+    private static RuleMatcher create(
+            Map<String, Collection<Violation>> rules) {
+        synchronized (CACHE) {
+            RuleMatcher matcher = CACHE.get(rules);
+            if (matcher == null) {
+                try {
+                    matcher = generate(rules);
+                } catch (ReflectiveOperationException | RuntimeException |
+                        LinkageError e) {
+                    matcher = new MapRuleMatcher(rules);
+                }
+                CACHE.put(rules, matcher);
+                if (CACHE.size() > MAX_CACHED) {
+                    Iterator<?> eldest = CACHE.keySet().iterator();
+                    eldest.next();
+                    eldest.remove();
+                }
+            }
+            return matcher;
+        }
+    }
+
+    /** Returns the rules which apply at javaVersion, omitting the rest. */
+    static Map<String, Collection<Violation>> fold(RuleTable table,
+            long javaVersion) {
+        return table.applicableAt(javaVersion);
+    }
+
+    /**
+     * Looks up rules in maps: by owner, so that references to owners without
+     * rules probe once without building a token, then by name and by
+     * descriptor, falling back to the name and owner wildcards.  Like the
+     * generated matcher, probes never concatenate the reference.
+     */
+    static final class MapRuleMatcher implements RuleMatcher {
+        private final Map<String, Collection<Violation>> types =
+                new HashMap<>();
+        private final Map<String, OwnerRules> owners = new HashMap<>();
+
+        MapRuleMatcher(Map<String, Collection<Violation>> rules) {
+            for (Map.Entry<String, Collection<Violation>> entry :
+                    rules.entrySet()) {
+                String token = entry.getKey();
+                int dot = token.indexOf('.');
+                int colon = token.indexOf(':', dot + 1);
+                if (dot == -1) {
+                    if (colon == -1) {
+                        types.put(token, entry.getValue());
+                    }
+                    continue;
+                } else if (colon == -1 && !RuleTable.isOwnerWildcard(token)) {
+                    // Never matches a reference; generate skips it too.
+                    continue;
+                }
+                OwnerRules owner = owners.computeIfAbsent(
+                        token.substring(0, dot), o -> new OwnerRules());
+                if (colon == -1) {
+                    owner.wildcard = entry.getValue();
+                    continue;
+                }
+                NameRules name = owner.names.computeIfAbsent(
+                        token.substring(dot + 1, colon),
+                        n -> new NameRules());
+                if (RuleTable.isNameWildcard(token)) {
+                    name.wildcard = entry.getValue();
+                } else {
+                    name.descriptors.put(token.substring(colon + 1),
+                            entry.getValue());
+                }
+            }
+        }
+
+        @Override
+        public Collection<Violation> matchType(String internalName) {
+            return types.get(internalName);
+        }
+
+        @Override
+        public Collection<Violation> matchMember(String owner, String name,
+                String descriptor) {
+            OwnerRules rules = owners.get(owner);
+            if (rules == null) {
+                return null;
+            }
+            NameRules nameRules = rules.names.get(name);
+            if (nameRules != null) {
+                Collection<Violation> v =
+                        nameRules.descriptors.get(descriptor);
+                if (v == null) {
+                    v = nameRules.wildcard;
+                }
+                if (v != null) {
+                    return v;
+                }
+            }
+            return rules.wildcard;
+        }
+
+        private static final class OwnerRules {
+            private final Map<String, NameRules> names = new HashMap<>();
+            private Collection<Violation> wildcard;
+        }
+
+        private static final class NameRules {
+            private final Map<String, Collection<Violation>> descriptors =
+                    new HashMap<>();
+            private Collection<Violation> wildcard;
+        }
+    }
+
+    /**
+     * Returns a matcher which, when matcher finds no rule for a field or
+     * method, looks for one on each supertype of the owner in turn, nearest
+     * first.  Only rules naming one member by its descriptor are inherited:
+     * a wildcard on a supertype cannot tell its own members from those
+     * which the subtype declares.
+     */
+    static RuleMatcher inheriting(RuleMatcher matcher, RuleTable table,
+            long javaVersion, SupertypeIndex supertypes) {
+        Map<String, Collection<Violation>> declared = new HashMap<>();
+        Set<String> owners = new HashSet<>();
+        for (Map.Entry<String, Collection<Violation>> entry :
+                fold(table, javaVersion).entrySet()) {
+            String token = entry.getKey();
+            if (token.indexOf('.') != -1 && token.indexOf(':') != -1 &&
+                    !RuleTable.isNameWildcard(token)) {
+                declared.put(token, entry.getValue());
+                owners.add(RuleTable.owner(token));
+            }
+        }
+        return new InheritingRuleMatcher(matcher, create(declared), owners,
+                supertypes);
+    }
+
+    /**
+     * Resolves fields and methods referenced through a subtype, e.g.,
+     * Stack.addElement, to rules on a supertype, e.g., Vector.addElement,
+     * which declared matches.  The supertypes with such rules are computed
+     * once per owner, so references to owners without any, the common
+     * case, cost one map lookup beyond the underlying matcher.
+     * Constructors are not inherited.
+     */
+    static final class InheritingRuleMatcher implements RuleMatcher {
+        private static final String[] NO_OWNERS = new String[0];
+
+        private final RuleMatcher matcher;
+        private final RuleMatcher declared;
+        private final Set<String> owners;
+        private final SupertypeIndex supertypes;
+        private final Map<String, String[]> ruledSupertypes =
+                new ConcurrentHashMap<>();
+        private final Function<String, String[]> resolver =
+                this::resolve;
+
+        InheritingRuleMatcher(RuleMatcher matcher, RuleMatcher declared,
+                Set<String> owners, SupertypeIndex supertypes) {
+            this.matcher = matcher;
+            this.declared = declared;
+            this.owners = owners;
+            this.supertypes = supertypes;
+        }
+
+        @Override
+        public Collection<Violation> matchType(String internalName) {
+            return matcher.matchType(internalName);
+        }
+
+        @Override
+        public Collection<Violation> matchMember(String owner, String name,
+                String descriptor) {
+            Collection<Violation> v = matcher.matchMember(owner, name,
+                    descriptor);
+            if (v != null || name.equals("\"<init>\"")) {
+                return v;
+            }
+            String[] ruled = ruledSupertypes.get(owner);
+            if (ruled == null) {
+                ruled = ruledSupertypes.computeIfAbsent(owner, resolver);
+            }
+            for (String supertype : ruled) {
+                v = declared.matchMember(supertype, name, descriptor);
+                if (v != null) {
+                    return v;
+                }
+            }
+            return null;
+        }
+
+        private String[] resolve(String owner) {
+            List<String> ruled = new ArrayList<>();
+            for (String supertype : supertypes.supertypes(owner)) {
+                if (owners.contains(supertype)) {
+                    ruled.add(supertype);
+                }
+            }
+            return ruled.isEmpty() ? NO_OWNERS : ruled.toArray(NO_OWNERS);
+        }
+    }
+
+    /** Generates, defines and instantiates a matcher class for rules. */
+    static RuleMatcher generate(Map<String, Collection<Violation>> rules)
+            throws ReflectiveOperationException {
+        // Rule names are internal type names, owner.name:desc or wildcards;
+        // anything else can never match a reference.
+        List<Collection<Violation>> results = new ArrayList<>();
+        Map<String, Integer> types = new TreeMap<>();
+        Map<String, OwnerCases> members = new TreeMap<>();
+        for (Map.Entry<String, Collection<Violation>> entry :
+                rules.entrySet()) {
+            String token = entry.getKey();
+            int dot = token.indexOf('.');
+            int colon = token.indexOf(':', dot + 1);
+            int index = results.size();
+            if (dot == -1 && colon == -1) {
+                types.put(token, index);
+            } else if (dot != -1 && (colon != -1 ||
+                    RuleTable.isOwnerWildcard(token))) {
+                OwnerCases owner = members.computeIfAbsent(
+                        token.substring(0, dot), o -> new OwnerCases());
+                if (colon == -1) {
+                    owner.wildcard = index;
+                } else {
+                    NameCases name = owner.names.computeIfAbsent(
+                            token.substring(dot + 1, colon),
+                            n -> new NameCases());
+                    if (RuleTable.isNameWildcard(token)) {
+                        name.wildcard = index;
+                    } else {
+                        name.descriptors.put(token.substring(colon + 1),
+                                index);
+                    }
+                }
+            } else {
+                continue;
+            }
+            results.add(entry.getValue());
+        }
+
+        String className = PACKAGE + "GeneratedRuleMatcher" +
+                COUNTER.incrementAndGet();
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_FINAL | Opcodes.ACC_SUPER |
+                Opcodes.ACC_SYNTHETIC, className, null, "java/lang/Object",
+                new String[] {Type.getInternalName(RuleMatcher.class)});
+        cw.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, "results",
+                COLLECTION_ARRAY.getDescriptor(), null, null).visitEnd();
+        Type self = Type.getObjectType(className);
+
+        GeneratorAdapter mg = new GeneratorAdapter(Opcodes.ACC_PUBLIC,
+                new Method("<init>", Type.VOID_TYPE,
+                        new Type[] {COLLECTION_ARRAY}), null, null, cw);
+        mg.loadThis();
+        mg.invokeConstructor(Type.getType(Object.class),
+                Method.getMethod("void <init>()"));
+        mg.loadThis();
+        mg.loadArg(0);
+        mg.putField(self, "results", COLLECTION_ARRAY);
+        mg.returnValue();
+        mg.endMethod();
+
+        GeneratorAdapter matchType = new GeneratorAdapter(Opcodes.ACC_PUBLIC,
+                Method.getMethod("java.util.Collection matchType(String)"),
+                null, null, cw);
+        Map<String, Consumer<GeneratorAdapter>> typeCases = new TreeMap<>();
+        for (Map.Entry<String, Integer> entry : types.entrySet()) {
+            int index = entry.getValue();
+            typeCases.put(entry.getKey(), g -> returnResult(g, self, index));
+        }
+        dispatch(matchType, 0, typeCases, RuleMatchers::returnNull);
+        matchType.endMethod();
+
+        // One private method per owner keeps each method far below the
+        // 64 KB limit for large rule sets.
+        GeneratorAdapter matchMember = new GeneratorAdapter(Opcodes.ACC_PUBLIC,
+                Method.getMethod("java.util.Collection matchMember(" +
+                        "String, String, String)"), null, null, cw);
+        Map<String, Consumer<GeneratorAdapter>> ownerCases = new TreeMap<>();
+        int ownerIndex = 0;
+        for (Map.Entry<String, OwnerCases> owner : members.entrySet()) {
+            String methodName = "owner" + ownerIndex++;
+            generateOwner(cw, self, methodName, owner.getValue());
+            ownerCases.put(owner.getKey(), g -> {
+                g.loadThis();
+                g.loadArg(1);
+                g.loadArg(2);
+                g.visitMethodInsn(Opcodes.INVOKESPECIAL, className,
+                        methodName, MEMBER_DESCRIPTOR, false);
+                g.returnValue();
+            });
+        }
+        dispatch(matchMember, 0, ownerCases, RuleMatchers::returnNull);
+        matchMember.endMethod();
+        cw.visitEnd();
+
+        // Lookup.defineHiddenClass is Java 15; it places the class beside
+        // this one so that it may implement the package-private interface,
+        // without strongly linking it to the class loader.
+        Class<?> options = Class.forName(
+                "java.lang.invoke.MethodHandles$Lookup$ClassOption");
+        Object noOptions = Array.newInstance(options, 0);
+        MethodHandles.Lookup lookup = (MethodHandles.Lookup)
+                MethodHandles.Lookup.class.getMethod("defineHiddenClass",
+                        byte[].class, boolean.class, noOptions.getClass())
+                .invoke(MethodHandles.lookup(), cw.toByteArray(),
+                        /*initialize=*/ true, noOptions);
+        Class<?> clazz = lookup.lookupClass();
+        return (RuleMatcher) clazz.getConstructor(Collection[].class)
+                .newInstance((Object) results.toArray(new Collection<?>[0]));
+    }
+
+    /**
+     * Generates a method which returns the rules for a member of one owner:
+     * those for the exact descriptor, else those for the name wildcard, else
+     * those for the owner wildcard.
+     */
+    private static void generateOwner(ClassWriter cw, Type self,
+            String methodName, OwnerCases owner) {
+        GeneratorAdapter mg = new GeneratorAdapter(Opcodes.ACC_PRIVATE,
+                new Method(methodName, MEMBER_DESCRIPTOR), null, null, cw);
+        Map<String, Consumer<GeneratorAdapter>> nameCases = new TreeMap<>();
+        for (Map.Entry<String, NameCases> name : owner.names.entrySet()) {
+            NameCases cases = name.getValue();
+            nameCases.put(name.getKey(), g -> {
+                for (Map.Entry<String, Integer> descriptor :
+                        cases.descriptors.entrySet()) {
+                    Label next = g.newLabel();
+                    g.loadArg(1);
+                    g.push(descriptor.getKey());
+                    g.invokeVirtual(STRING, EQUALS);
+                    g.ifZCmp(GeneratorAdapter.EQ, next);
+                    returnResult(g, self, descriptor.getValue());
+                    g.mark(next);
+                }
+                returnResultOrNull(g, self, cases.wildcard != null ?
+                        cases.wildcard : owner.wildcard);
+            });
+        }
+        dispatch(mg, 0, nameCases,
+                g -> returnResultOrNull(g, self, owner.wildcard));
+        mg.endMethod();
+    }
+
+    /**
+     * Emits a switch on the hash of the String argument followed by
+     * comparisons against each key with that hash.  Each case, and miss,
+     * which handles unmatched arguments, must return.
+     */
+    private static void dispatch(GeneratorAdapter mg, int arg,
+            Map<String, Consumer<GeneratorAdapter>> cases,
+            Consumer<GeneratorAdapter> miss) {
+        Map<Integer, List<String>> byHash = new TreeMap<>();
+        for (String key : cases.keySet()) {
+            byHash.computeIfAbsent(key.hashCode(), hash -> new ArrayList<>())
+                    .add(key);
+        }
+        Label missed = mg.newLabel();
+        int[] hashes = new int[byHash.size()];
+        Label[] labels = new Label[byHash.size()];
+        int i = 0;
+        for (Integer hash : byHash.keySet()) {
+            hashes[i] = hash;
+            labels[i] = mg.newLabel();
+            ++i;
+        }
+        mg.loadArg(arg);
+        mg.invokeVirtual(STRING, HASH_CODE);
+        mg.visitLookupSwitchInsn(missed, hashes, labels);
+        i = 0;
+        for (List<String> keys : byHash.values()) {
+            mg.mark(labels[i++]);
+            for (String key : keys) {
+                Label next = mg.newLabel();
+                mg.loadArg(arg);
+                mg.push(key);
+                mg.invokeVirtual(STRING, EQUALS);
+                mg.ifZCmp(GeneratorAdapter.EQ, next);
+                cases.get(key).accept(mg);
+                mg.mark(next);
+            }
+            mg.goTo(missed);
+        }
+        mg.mark(missed);
+        miss.accept(mg);
+    }
+
+    private static void returnNull(GeneratorAdapter mg) {
+        mg.visitInsn(Opcodes.ACONST_NULL);
+        mg.returnValue();
+    }
+
+    private static void returnResultOrNull(GeneratorAdapter mg, Type self,
+            Integer index) {
+        if (index == null) {
+            returnNull(mg);
+        } else {
+            returnResult(mg, self, index);
+        }
+    }
+
+    private static void returnResult(GeneratorAdapter mg, Type self,
+            int index) {
+        mg.loadThis();
+        mg.getField(self, "results", COLLECTION_ARRAY);
+        mg.push(index);
+        mg.arrayLoad(Type.getType(Collection.class));
+        mg.returnValue();
+    }
+
+    /** Member rules of one owner, as indexes into the results. */
+    private static final class OwnerCases {
+        private final Map<String, NameCases> names = new TreeMap<>();
+        private Integer wildcard;
+    }
+
+    /** Member rules of one name, as indexes into the results. */
+    private static final class NameCases {
+        private final Map<String, Integer> descriptors = new TreeMap<>();
+        private Integer wildcard;
+    }
+}
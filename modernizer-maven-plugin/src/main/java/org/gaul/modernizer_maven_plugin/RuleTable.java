@@ -0,0 +1,314 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalInt;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+
+/**
+ * Immutable rule set in parallel arrays indexed by dense rule ids.  Rules
+ * are grouped by token, which are sorted, so that tables built from equal
+ * maps are equal; {@link #of} returns one canonical table per distinct rule
+ * set, so Modernizer instances in a long-lived process, e.g., a Gradle
+ * daemon with one per project, share it rather than each retaining a copy
+ * of the parsed map.  Within a table, equal comments and until versions are
+ * stored once and each rule's {@link Violation} shares the token string.
+ *
+ * <p>Besides types and members, tokens may name wildcards: {@code owner.*}
+ * matches every field and method of owner and {@code owner.name:*} every
+ * overload of name.  The most precise token with a rule applying at the
+ * target version wins, so a member rule overrides its name wildcard, which
+ * overrides its owner wildcard.
+ */
+final class RuleTable {
+    /** Stored in {@link #untils} for rules which never lapse. */
+    private static final int NO_UNTIL = Integer.MAX_VALUE;
+    private static final int MAX_CACHED = 16;
+    private static final String WILDCARD = "*";
+
+    private static final Map<RuleTable, RuleTable> CACHE =
+            new LinkedHashMap<>(MAX_CACHED, 0.75f, /*accessOrder=*/ true);
+
+    /** Distinct tokens in sorted order. */
+    private final String[] tokens;
+    /** Rules of tokens[i] have ids firstRule[i] until firstRule[i + 1]. */
+    private final int[] firstRule;
+    /** Open-addressed index from token hash to token index plus one. */
+    private final int[] slots;
+    private final int[] versions;
+    private final int[] untils;
+    private final Violation[] violations;
+    private final int hashCode;
+
+    private RuleTable(Map<String, Collection<Violation>> map) {
+        List<String> sorted = new ArrayList<>();
+        int size = 0;
+        for (Map.Entry<String, Collection<Violation>> entry : map.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                sorted.add(Objects.requireNonNull(entry.getKey()));
+                size += entry.getValue().size();
+            }
+        }
+        sorted.sort(null);
+        tokens = sorted.toArray(new String[0]);
+        firstRule = new int[tokens.length + 1];
+        versions = new int[size];
+        untils = new int[size];
+        violations = new Violation[size];
+        Map<String, String> comments = new HashMap<>();
+        Map<Integer, OptionalInt> untilValues = new HashMap<>();
+        int id = 0;
+        for (int i = 0; i < tokens.length; ++i) {
+            firstRule[i] = id;
+            for (Violation violation : map.get(tokens[i])) {
+                OptionalInt until = violation.getUntil();
+                versions[id] = violation.getVersion();
+                untils[id] = until.orElse(NO_UNTIL);
+                if (until.isPresent()) {
+                    until = untilValues.computeIfAbsent(until.getAsInt(),
+                            OptionalInt::of);
+                }
+                String comment = comments.computeIfAbsent(
+                        violation.getComment(), c -> c);
+                violations[id] = new Violation(tokens[i], versions[id],
+                        until, comment);
+                ++id;
+            }
+        }
+        firstRule[tokens.length] = id;
+
+        slots = new int[Integer.highestOneBit(Math.max(1, tokens.length)) * 4];
+        for (int i = 0; i < tokens.length; ++i) {
+            int slot = tokens[i].hashCode() & (slots.length - 1);
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & (slots.length - 1);
+            }
+            slots[slot] = i + 1;
+        }
+        hashCode = Arrays.hashCode(violations);
+    }
+
+    /** Returns the canonical table for a token to rules map. */
+    static RuleTable of(Map<String, Collection<Violation>> violations) {
+        RuleTable table = new RuleTable(Objects.requireNonNull(violations));
+        synchronized (CACHE) {
+            RuleTable canonical = CACHE.get(table);
+            if (canonical != null) {
+                return canonical;
+            }
+            CACHE.put(table, table);
+            if (CACHE.size() > MAX_CACHED) {
+                Iterator<?> eldest = CACHE.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+            return table;
+        }
+    }
+
+    /**
+     * Returns the canonical table of the rules whose owner, the type named
+     * by the token or declaring the member, satisfies keep.
+     */
+    RuleTable retainOwners(Predicate<String> keep) {
+        Map<String, Collection<Violation>> retained = new HashMap<>();
+        for (int i = 0; i < tokens.length; ++i) {
+            if (keep.test(owner(tokens[i]))) {
+                retained.put(tokens[i],
+                        new Rules(firstRule[i], firstRule[i + 1]));
+            }
+        }
+        return retained.size() == tokens.length ? this : of(retained);
+    }
+
+    /** Returns the type a token names or whose member it names. */
+    static String owner(String token) {
+        int dot = token.indexOf('.');
+        return dot == -1 ? token : token.substring(0, dot);
+    }
+
+    /** Returns the number of rules, i.e., one more than the largest id. */
+    int size() {
+        return violations.length;
+    }
+
+    Violation violation(int id) {
+        return violations[id];
+    }
+
+    /** Returns whether rule id applies at javaVersion. */
+    boolean appliesTo(int id, long javaVersion) {
+        return javaVersion >= versions[id] && javaVersion < untils[id];
+    }
+
+    /** Returns the rules for a token, or null; misses allocate nothing. */
+    Collection<Violation> get(String token) {
+        int index = indexOf(token);
+        return index == -1 ? null :
+                new Rules(firstRule[index], firstRule[index + 1]);
+    }
+
+    /**
+     * Returns the rules for a reference to a type or member which apply at
+     * javaVersion, from its most precise matching token, or null.
+     */
+    Collection<Violation> match(String token, long javaVersion) {
+        int dot = token.indexOf('.');
+        int colon = token.indexOf(':', dot + 1);
+        Collection<Violation> v = applicable(indexOf(token), javaVersion);
+        if (v == null && dot != -1 && colon != -1) {
+            // Probe owner.name:* and owner.* in place of building them.
+            v = applicable(indexOfWildcard(token, colon + 1), javaVersion);
+            if (v == null) {
+                v = applicable(indexOfWildcard(token, dot + 1), javaVersion);
+            }
+        }
+        return v;
+    }
+
+    private Collection<Violation> applicable(int index, long javaVersion) {
+        if (index == -1) {
+            return null;
+        }
+        for (int id = firstRule[index]; id < firstRule[index + 1]; ++id) {
+            if (appliesTo(id, javaVersion)) {
+                return new Rules(firstRule[index], firstRule[index + 1]);
+            }
+        }
+        return null;
+    }
+
+    /** Returns whether token is a name wildcard, e.g., a/B.m:*. */
+    static boolean isNameWildcard(String token) {
+        return token.endsWith(":" + WILDCARD);
+    }
+
+    /** Returns whether token is an owner wildcard, e.g., a/B.*. */
+    static boolean isOwnerWildcard(String token) {
+        return token.endsWith("." + WILDCARD);
+    }
+
+    /**
+     * Returns the tokens and rules which apply at javaVersion, omitting
+     * tokens with no applicable rule.
+     */
+    Map<String, Collection<Violation>> applicableAt(long javaVersion) {
+        Map<String, Collection<Violation>> map = new HashMap<>();
+        for (int i = 0; i < tokens.length; ++i) {
+            List<Violation> applicable = new ArrayList<>();
+            for (int id = firstRule[i]; id < firstRule[i + 1]; ++id) {
+                if (appliesTo(id, javaVersion)) {
+                    applicable.add(violations[id]);
+                }
+            }
+            if (!applicable.isEmpty()) {
+                map.put(tokens[i], Collections.unmodifiableList(applicable));
+            }
+        }
+        return map;
+    }
+
+    private int indexOf(String token) {
+        int slot = token.hashCode() & (slots.length - 1);
+        for (int index; (index = slots[slot]) != 0;
+                slot = (slot + 1) & (slots.length - 1)) {
+            if (tokens[index - 1].equals(token)) {
+                return index - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the wildcard token made of the first end chars of
+     * token and {@code *}, e.g., a/B.m:* for a/B.m:()V and 6, or -1.
+     * Hashes as String.hashCode would hash that token and allocates nothing.
+     */
+    private int indexOfWildcard(String token, int end) {
+        int hash = 0;
+        for (int i = 0; i < end; ++i) {
+            hash = 31 * hash + token.charAt(i);
+        }
+        hash = 31 * hash + WILDCARD.charAt(0);
+        int slot = hash & (slots.length - 1);
+        for (int index; (index = slots[slot]) != 0;
+                slot = (slot + 1) & (slots.length - 1)) {
+            String candidate = tokens[index - 1];
+            if (candidate.length() == end + 1 &&
+                    candidate.endsWith(WILDCARD) &&
+                    candidate.regionMatches(0, token, 0, end)) {
+                return index - 1;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RuleTable)) {
+            return false;
+        }
+        RuleTable that = (RuleTable) o;
+        return Arrays.equals(firstRule, that.firstRule) &&
+                Arrays.equals(violations, that.violations);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    /** Unmodifiable view of the rules with ids from start until end. */
+    private final class Rules extends AbstractList<Violation>
+            implements RandomAccess {
+        private final int start;
+        private final int end;
+
+        Rules(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public Violation get(int index) {
+            if (index < 0 || index >= end - start) {
+                throw new IndexOutOfBoundsException(String.valueOf(index));
+            }
+            return violations[start + index];
+        }
+
+        @Override
+        public int size() {
+            return end - start;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.objectweb.asm.ClassReader;
+
+/**
+ * Violations of class files, stored in a directory which builds of any
+ * checkout on a machine share, so that a class file which another build
+ * already scanned with the same effective rules is not scanned again.
+ * Each entry is named by a hash of the {@link Modernizer#fingerprint} and
+ * the class file bytes, in a subdirectory named by the first two hex digits
+ * of the hash so that no directory grows huge, and is written to a
+ * temporary file and renamed into place, so concurrent builds never read a
+ * partial entry.  Classes without violations, most of them, are recorded by
+ * an empty entry, which takes an inode but no data block.
+ *
+ * <p>Hits refresh the modification time of their entry at most once per
+ * {@link #TOUCH_INTERVAL_MILLIS}, and {@link #evict} deletes the entries
+ * least recently written or hit until the directory fits in its size
+ * bound.  Hits are reported to the modernizer's listener as classes which
+ * took the time to read their entry and probed no references.
+ * Thread-safe.
+ */
+final class ScanCache {
+    private static final int MAGIC = 0x4d534341;
+    private static final int FORMAT_VERSION = 1;
+    private static final String FILE_SUFFIX = ".bin";
+    /**
+     * Size which eviction charges per entry at least, and to which it rounds
+     * larger entries up, since file systems allocate whole blocks.
+     */
+    static final long BLOCK_BYTES = 4096;
+    private static final long TOUCH_INTERVAL_MILLIS =
+            TimeUnit.HOURS.toMillis(1);
+
+    private final Path directory;
+    private final byte[] fingerprint;
+    private final long maxBytes;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    private final AtomicInteger writeFailures = new AtomicInteger();
+    private final AtomicReference<IOException> writeFailure =
+            new AtomicReference<>();
+
+    /**
+     * Creates a cache of the violations which modernizers with the given
+     * fingerprint find, bounded to maxBytes after each eviction.
+     */
+    ScanCache(Path directory, byte[] fingerprint, long maxBytes) {
+        Utils.checkArgument(maxBytes >= 0, "maxBytes must not be negative");
+        this.directory = directory;
+        this.fingerprint = fingerprint.clone();
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the violations in a class file, reading them from the cache
+     * if present and otherwise checking the class with modernizer, whose
+     * fingerprint must be that of this cache, and storing them.  Ignored
+     * classes are checked directly since they depend on the other classes
+     * of the build.  Failures to store are counted rather than thrown,
+     * since they only cost a later build a scan.
+     */
+    Collection<ViolationOccurrence> check(Modernizer modernizer,
+            byte[] classFile) {
+        ClassReader classReader = new ClassReader(classFile);
+        if (modernizer.isClassIgnored(classReader.getClassName())) {
+            return modernizer.check(classReader);
+        }
+        MessageDigest digest = Utils.newSha256();
+        digest.update(fingerprint);
+        String hash = Utils.toHexPrefix(digest.digest(classFile));
+        Path entry = directory.resolve(hash.substring(0, 2))
+                .resolve(hash.substring(2) + FILE_SUFFIX);
+        long start = System.nanoTime();
+        Collection<ViolationOccurrence> occurrences = read(entry);
+        if (occurrences != null) {
+            hits.incrementAndGet();
+            modernizer.reportCached(classReader.getClassName(),
+                    classFile.length, System.nanoTime() - start,
+                    occurrences.size());
+            return occurrences;
+        }
+        misses.incrementAndGet();
+        occurrences = modernizer.check(classReader);
+        try {
+            Utils.writeAtomically(entry, occurrences.isEmpty() ?
+                    ByteBuffer.allocate(0) :
+                    ByteBuffer.wrap(encode(occurrences)));
+        } catch (IOException ioe) {
+            // e.g., a read-only or full cache directory
+            writeFailures.incrementAndGet();
+            writeFailure.compareAndSet(null, ioe);
+        }
+        return occurrences;
+    }
+
+    int getHits() {
+        return hits.get();
+    }
+
+    int getMisses() {
+        return misses.get();
+    }
+
+    /** Returns the number of misses which could not be stored. */
+    int getWriteFailures() {
+        return writeFailures.get();
+    }
+
+    /** Returns the first failure to store a miss, or null if none. */
+    IOException getWriteFailure() {
+        return writeFailure.get();
+    }
+
+    /**
+     * Deletes the least recently used entries until the cache holds at most
+     * maxBytes, or three quarters of it if it held more, so that builds do
+     * not evict on every run.  Each entry is charged its size in whole
+     * blocks, and empty entries one block.  Returns the number of entries
+     * deleted.
+     */
+    int evict() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        List<Entry> entries = new ArrayList<>();
+        try (DirectoryStream<Path> shards = Files.newDirectoryStream(
+                directory)) {
+            for (Path shard : shards) {
+                if (Files.isDirectory(shard)) {
+                    addEntries(shard, entries);
+                }
+            }
+        }
+        // entries of the unsharded layout which earlier versions wrote
+        addEntries(directory, entries);
+        long totalBytes = 0;
+        for (Entry entry : entries) {
+            totalBytes += entry.size;
+        }
+        if (totalBytes <= maxBytes) {
+            return 0;
+        }
+        entries.sort(Comparator.comparingLong(entry -> entry.lastUsed));
+        long targetBytes = maxBytes - maxBytes / 4;
+        int evicted = 0;
+        for (Entry entry : entries) {
+            if (totalBytes <= targetBytes) {
+                break;
+            }
+            if (Files.deleteIfExists(entry.path)) {
+                ++evicted;
+            }
+            totalBytes -= entry.size;
+        }
+        return evicted;
+    }
+
+    private static void addEntries(Path directory, List<Entry> entries)
+            throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(
+                directory, "*" + FILE_SUFFIX)) {
+            for (Path path : stream) {
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(path,
+                            BasicFileAttributes.class);
+                } catch (NoSuchFileException nsfe) {
+                    // evicted by a concurrent build
+                    continue;
+                }
+                long blocks = Math.max(1,
+                        (attributes.size() + BLOCK_BYTES - 1) / BLOCK_BYTES);
+                entries.add(new Entry(path, blocks * BLOCK_BYTES,
+                        attributes.lastModifiedTime().toMillis()));
+            }
+        } catch (NoSuchFileException nsfe) {
+            // shard evicted by a concurrent build
+        }
+    }
+
+    /** Returns the cached violations, or null if absent or unreadable. */
+    private static Collection<ViolationOccurrence> read(Path entry) {
+        byte[] bytes;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(entry,
+                    BasicFileAttributes.class);
+            bytes = Files.readAllBytes(entry);
+            long now = System.currentTimeMillis();
+            if (now - attributes.lastModifiedTime().toMillis() >
+                    TOUCH_INTERVAL_MILLIS) {
+                Files.setLastModifiedTime(entry, FileTime.fromMillis(now));
+            }
+        } catch (IOException ioe) {
+            // absent, or evicted by a concurrent build
+            return null;
+        }
+        if (bytes.length == 0) {
+            return Collections.<ViolationOccurrence>emptyList();
+        }
+        try (DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(bytes))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            int count = in.readInt();
+            if (count == 0) {
+                return Collections.<ViolationOccurrence>emptyList();
+            }
+            List<ViolationOccurrence> occurrences = new ArrayList<>(count);
+            for (int i = 0; i < count; ++i) {
+                String owner = in.readUTF();
+                int lineNumber = in.readInt();
+                String name = in.readUTF();
+                int version = in.readInt();
+                int until = in.readInt();
+                String comment = in.readUTF();
+                occurrences.add(new ViolationOccurrence(owner, lineNumber,
+                        new Violation(name, version, until == -1 ?
+                                OptionalInt.empty() : OptionalInt.of(until),
+                                comment)));
+            }
+            return Collections.unmodifiableList(occurrences);
+        } catch (IOException ioe) {
+            // written by an incompatible version; rewritten on the miss
+            return null;
+        }
+    }
+
+    private static byte[] encode(Collection<ViolationOccurrence> occurrences)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(occurrences.size());
+            for (ViolationOccurrence occurrence : occurrences) {
+                Violation violation = occurrence.getViolation();
+                out.writeUTF(occurrence.getOwner());
+                out.writeInt(occurrence.getLineNumber());
+                out.writeUTF(violation.getName());
+                out.writeInt(violation.getVersion());
+                out.writeInt(violation.getUntil().orElse(-1));
+                out.writeUTF(violation.getComment());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static final class Entry {
+        final Path path;
+        final long size;
+        final long lastUsed;
+
+        Entry(Path path, long size, long lastUsed) {
+            this.path = path;
+            this.size = size;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
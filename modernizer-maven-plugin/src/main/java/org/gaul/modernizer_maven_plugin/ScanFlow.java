@@ -0,0 +1,59 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+/**
+ * Reactive streams interfaces for {@link Modernizer#publish}.  These mirror
+ * {@code java.util.concurrent.Flow} method for method, which the plugin
+ * cannot reference while it targets Java 8, so callers on newer JDKs can
+ * adapt either way with method references.
+ */
+public final class ScanFlow {
+    private ScanFlow() {
+        throw new AssertionError("Intentionally not implemented");
+    }
+
+    /** Produces items for each subscriber as it requests them. */
+    @FunctionalInterface
+    public interface Publisher<T> {
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * Receives items.  Calls are never concurrent and arrive after
+     * {@link #onSubscribe} and before at most one of {@link #onError} and
+     * {@link #onComplete}.
+     */
+    public interface Subscriber<T> {
+        void onSubscribe(Subscription subscription);
+
+        void onNext(T item);
+
+        void onError(Throwable throwable);
+
+        void onComplete();
+    }
+
+    /** Links one publisher and subscriber. */
+    public interface Subscription {
+        /** Adds n, which must be positive, to the outstanding demand. */
+        void request(long n);
+
+        /** Stops the publisher, which may still deliver a few items. */
+        void cancel();
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+/**
+ * Observes the engine while it checks classes, e.g., to feed a build tool's
+ * metrics.  Install with {@link Modernizer#withListener}; instances without
+ * a listener pay nothing for this interface.  Callbacks for one class arrive
+ * on the thread checking it, but batch and streaming scans check classes
+ * concurrently, so implementations must be thread-safe.
+ */
+public interface ScanListener {
+    /** Why a whole class was not checked. */
+    enum SkipReason {
+        /**
+         * Listed in the ignored class names, which includes classes
+         * annotated with {@code @SuppressModernizer} when the caller, batch
+         * scan or streaming scan detected them.
+         */
+        IGNORED_CLASS_NAME,
+        /** Matched an ignored class name pattern. */
+        IGNORED_CLASS_PATTERN
+    }
+
+    /** Why a reference which violates a rule was not reported. */
+    enum SuppressionReason {
+        /** The rule is listed in the exclusions. */
+        EXCLUSION,
+        /** The rule matched an exclusion pattern. */
+        EXCLUSION_PATTERN,
+        /** The referencing class is in an ignored package. */
+        IGNORED_PACKAGE,
+        /**
+         * The referencing method is annotated with
+         * {@code @SuppressModernizer} or, if enabled, {@code @Generated}.
+         */
+        ANNOTATION
+    }
+
+    /** Called before a class is read. */
+    default void classStarted(String className, int byteSize) {
+    }
+
+    /**
+     * Called after a class has been checked or skipped.
+     *
+     * @param tokensProbed the number of references looked up in the rules
+     */
+    default void classFinished(String className, int byteSize,
+            long elapsedNanos, int tokensProbed, int occurrences) {
+    }
+
+    /** Called between start and finish when a class is not checked. */
+    default void classSkipped(String className, SkipReason reason) {
+    }
+
+    /** Called for each occurrence reported for a class. */
+    default void ruleHit(String className, ViolationOccurrence occurrence) {
+    }
+
+    /**
+     * Called for each occurrence which applies to the target version but
+     * was not reported.
+     */
+    default void suppressed(String className, ViolationOccurrence occurrence,
+            SuppressionReason reason) {
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Runs class scans from every concurrent execution in this JVM, e.g., the
+ * modules of a {@code mvn -T 1C} build, on one bounded set of threads.  The
+ * shared instance lives in a static field of the plugin class loader, which
+ * Maven reuses across the executions of a build.
+ *
+ * <p>Jobs are served round-robin one task at a time, so a large module cannot
+ * starve the smaller modules scanned alongside it.  A job runs on the
+ * calling thread when its estimated time, its size times the measured mean
+ * time per task, is below what handing it to the pool costs.  That cost
+ * grows with the number of queued jobs, since a handed-off job waits for
+ * each of them to take a turn.  Calling threads which run a job count
+ * against the parallelism like workers do, so inline jobs cannot
+ * oversubscribe the machine; while every slot is taken, jobs queue.
+ */
+final class ScanScheduler {
+    /**
+     * Estimated time below which a job runs on the calling thread: waking
+     * workers and joining them costs about as much as scanning this long.
+     */
+    static final long HANDOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    /**
+     * Tasks assumed per handoff until a task is measured, i.e., jobs below
+     * 64 classes run inline at first.
+     */
+    private static final int INITIAL_TASKS_PER_HANDOFF = 64;
+    private static final long KEEP_ALIVE_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private static ScanScheduler shared;
+
+    private final int parallelism;
+    private final long handoffNanos;
+    /** Jobs with unclaimed tasks, in the order they are next served. */
+    private final Deque<Job<?, ?>> jobs = new ArrayDeque<>();
+    private int workers;
+    private int idleWorkers;
+    /** Threads running tasks, i.e., busy workers and inline callers. */
+    private int busy;
+    /** Moving average of the time per task. */
+    private long taskNanos;
+
+    ScanScheduler(int parallelism, long handoffNanos) {
+        Utils.checkArgument(parallelism > 0, "parallelism must be positive");
+        this.parallelism = parallelism;
+        this.handoffNanos = handoffNanos;
+        this.taskNanos = handoffNanos / INITIAL_TASKS_PER_HANDOFF;
+    }
+
+    /**
+     * Returns the scheduler shared by all executions.  The first caller
+     * determines its parallelism.
+     */
+    static synchronized ScanScheduler shared(int parallelism) {
+        if (shared == null) {
+            shared = new ScanScheduler(parallelism, HANDOFF_NANOS);
+        }
+        return shared;
+    }
+
+    /** Returns the number of jobs waiting for a worker. */
+    synchronized int getQueuedJobs() {
+        return jobs.size();
+    }
+
+    /**
+     * Applies fn to every input and returns the results in input order.
+     *
+     * @throws ExecutionException wrapping the first exception thrown by fn,
+     *     after which the remaining inputs are abandoned
+     */
+    <T, R> List<R> map(List<T> inputs, Function<? super T, ? extends R> fn)
+            throws ExecutionException, InterruptedException {
+        List<R> results = new ArrayList<>(inputs.size());
+        forEachOrdered(inputs, fn, (input, result) -> results.add(result));
+        return results;
+    }
+
+    /**
+     * Applies fn to every input and passes each input and its result to sink
+     * in input order, on the calling thread, as soon as the results of it
+     * and every input before it are done.  Results are dropped once passed,
+     * so a job holds only those which complete ahead of a slower one.
+     *
+     * @throws ExecutionException wrapping the first exception thrown by fn
+     *     or sink, after which the remaining inputs are abandoned
+     */
+    <T, R> void forEachOrdered(List<T> inputs,
+            Function<? super T, ? extends R> fn,
+            BiConsumer<? super T, ? super R> sink)
+            throws ExecutionException, InterruptedException {
+        boolean inline;
+        synchronized (this) {
+            inline = busy < parallelism && inputs.size() * taskNanos <
+                    handoffNanos * (1 + jobs.size());
+            if (inline) {
+                ++busy;
+            }
+        }
+        if (inline) {
+            runInline(inputs, fn, sink);
+            return;
+        }
+
+        Job<T, R> job = new Job<>(inputs, fn);
+        synchronized (this) {
+            jobs.addLast(job);
+            if (idleWorkers > 0) {
+                notifyAll();
+            }
+            // Workers exit after idling, so start them on demand.
+            while (workers < parallelism) {
+                startWorker();
+            }
+        }
+        job.drain(sink, this);
+    }
+
+    /** Runs a job on the calling thread, which holds one of the slots. */
+    private <T, R> void runInline(List<T> inputs,
+            Function<? super T, ? extends R> fn,
+            BiConsumer<? super T, ? super R> sink) throws ExecutionException {
+        int done = 0;
+        long start = System.nanoTime();
+        try {
+            for (T input : inputs) {
+                sink.accept(input, fn.apply(input));
+                ++done;
+            }
+        } catch (RuntimeException re) {
+            throw new ExecutionException(re);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            synchronized (this) {
+                --busy;
+                if (done > 0) {
+                    observe(elapsed / done);
+                }
+                if (idleWorkers > 0 && !jobs.isEmpty()) {
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /** Folds the time of a task into the moving average; holds the lock. */
+    private void observe(long nanos) {
+        taskNanos += (nanos - taskNanos) / 8;
+    }
+
+    private void startWorker() {
+        ++workers;
+        Thread thread = new Thread(this::work, "modernizer-scan-" + workers);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void work() {
+        long elapsed = -1;
+        while (true) {
+            Job<?, ?> job;
+            int index;
+            synchronized (this) {
+                if (elapsed >= 0) {
+                    --busy;
+                    observe(elapsed);
+                }
+                long deadline = System.currentTimeMillis() + KEEP_ALIVE_MILLIS;
+                // Inline callers may hold every slot; wait for one to free.
+                while (jobs.isEmpty() || busy >= parallelism) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0 && jobs.isEmpty()) {
+                        --workers;
+                        return;
+                    }
+                    ++idleWorkers;
+                    try {
+                        wait(remaining > 0 ? remaining : KEEP_ALIVE_MILLIS);
+                    } catch (InterruptedException ie) {
+                        --workers;
+                        return;
+                    } finally {
+                        --idleWorkers;
+                    }
+                }
+                job = jobs.pollFirst();
+                index = job.claim();
+                if (job.hasUnclaimed()) {
+                    // Back of the queue: every other job gets a turn first.
+                    jobs.addLast(job);
+                }
+                ++busy;
+            }
+            long start = System.nanoTime();
+            job.run(index, this);
+            elapsed = System.nanoTime() - start;
+        }
+    }
+
+    /** Removes a failed or abandoned job so workers stop claiming its tasks. */
+    private synchronized void cancel(Job<?, ?> job) {
+        jobs.remove(job);
+    }
+
+    private static final class Job<T, R> {
+        private final List<T> inputs;
+        private final Function<? super T, ? extends R> fn;
+        /** Results not yet passed to the sink, by input index. */
+        private final Object[] results;
+        private final boolean[] completed;
+        private int next;
+        /** Index of the result the sink awaits. */
+        private int delivered;
+        private Throwable failure;
+
+        Job(List<T> inputs, Function<? super T, ? extends R> fn) {
+            this.inputs = inputs;
+            this.fn = fn;
+            this.results = new Object[inputs.size()];
+            this.completed = new boolean[inputs.size()];
+        }
+
+        /** Claims the next task; callers hold the scheduler monitor. */
+        int claim() {
+            return next++;
+        }
+
+        boolean hasUnclaimed() {
+            return next < inputs.size();
+        }
+
+        void run(int index, ScanScheduler scheduler) {
+            synchronized (this) {
+                if (failure != null) {
+                    return;
+                }
+            }
+            R result;
+            try {
+                result = fn.apply(inputs.get(index));
+            } catch (RuntimeException | Error e) {
+                fail(e, scheduler);
+                return;
+            }
+            synchronized (this) {
+                results[index] = result;
+                completed[index] = true;
+                if (index == delivered) {
+                    notifyAll();
+                }
+            }
+        }
+
+        private void fail(Throwable t, ScanScheduler scheduler) {
+            synchronized (this) {
+                if (failure == null) {
+                    failure = t;
+                }
+                notifyAll();
+            }
+            scheduler.cancel(this);
+        }
+
+        /** Passes results to sink in input order as they complete. */
+        @SuppressWarnings("unchecked")
+        void drain(BiConsumer<? super T, ? super R> sink,
+                ScanScheduler scheduler)
+                throws ExecutionException, InterruptedException {
+            for (int i = 0; i < inputs.size(); ++i) {
+                R result;
+                synchronized (this) {
+                    try {
+                        while (!completed[i] && failure == null) {
+                            wait();
+                        }
+                    } catch (InterruptedException ie) {
+                        failure = ie;
+                        scheduler.cancel(this);
+                        throw ie;
+                    }
+                    if (failure != null) {
+                        throw new ExecutionException(failure);
+                    }
+                    result = (R) results[i];
+                    results[i] = null;
+                    delivered = i + 1;
+                }
+                try {
+                    sink.accept(inputs.get(i), result);
+                } catch (RuntimeException re) {
+                    fail(re, scheduler);
+                    throw new ExecutionException(re);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import org.objectweb.asm.ClassReader;
+
+/**
+ * Publishes the result of each class as soon as it and every class before it
+ * have been checked.  Sources are pulled from the iterator only to satisfy
+ * outstanding demand, bounded by a window of classes in flight, so a slow
+ * subscriber throttles reading and cancelling stops the iteration.
+ */
+final class StreamingScan implements ScanFlow.Publisher<ClassScanResult> {
+    private final Modernizer modernizer;
+    private final Iterable<ClassSource> sources;
+    private final Executor executor;
+    private final int maxInFlight;
+
+    StreamingScan(Modernizer modernizer, Iterable<ClassSource> sources,
+            Executor executor, int maxInFlight) {
+        Utils.checkArgument(maxInFlight > 0, "maxInFlight must be positive");
+        this.modernizer = modernizer;
+        this.sources = sources;
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+    }
+
+    @Override
+    public void subscribe(
+            ScanFlow.Subscriber<? super ClassScanResult> subscriber) {
+        ScanSubscription subscription = new ScanSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    private final class ScanSubscription implements ScanFlow.Subscription {
+        private final ScanFlow.Subscriber<? super ClassScanResult> subscriber;
+        private final AnnotationDetector suppressModernizer =
+                SuppressModernizerAnnotationDetector.newDetector();
+        private final AnnotationDetector suppressGenerated =
+                modernizer.isIgnoreGeneratedClasses() ?
+                SuppressGeneratedAnnotationDetector.newDetector() : null;
+        /** Checks in source order; only the head may be delivered. */
+        private final Deque<CompletableFuture<ClassScanResult>> inFlight =
+                new ArrayDeque<>();
+        /** Reads backing inFlight, kept so that cancel can abandon them. */
+        private final Deque<CompletableFuture<ClassReader>> reads =
+                new ArrayDeque<>();
+        private Iterator<ClassSource> iterator;
+        /**
+         * Completes once every class pulled so far has been scanned for
+         * suppression annotations, so that a check sees the annotations of
+         * all classes before it, e.g., the enclosing class.
+         */
+        private CompletableFuture<Void> annotationsScanned =
+                CompletableFuture.completedFuture(null);
+        private long demand;
+        /** Protocol violation, reported immediately. */
+        private Throwable failure;
+        /** Iteration failure, reported after the classes before it. */
+        private Throwable sourcesFailure;
+        private boolean exhausted;
+        private boolean terminated;
+        private boolean draining;
+
+        ScanSubscription(
+                ScanFlow.Subscriber<? super ClassScanResult> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (terminated) {
+                    return;
+                }
+                if (n <= 0) {
+                    failure = new IllegalArgumentException(
+                            "request must be positive, was: " + n);
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                terminated = true;
+                stop();
+            }
+        }
+
+        /** Abandons queued checks and releases the source iterator. */
+        private void stop() {
+            for (CompletableFuture<ClassReader> future : reads) {
+                future.cancel(/*mayInterruptIfRunning=*/ false);
+            }
+            for (CompletableFuture<ClassScanResult> future : inFlight) {
+                future.cancel(/*mayInterruptIfRunning=*/ false);
+            }
+            reads.clear();
+            inFlight.clear();
+            iterator = null;
+        }
+
+        /**
+         * Delivers completed results and pulls more sources.  Only one
+         * thread drains at a time and it re-examines the state after each
+         * delivery, so calls from other threads, including request() from
+         * within onNext, return immediately.
+         */
+        private void drain() {
+            synchronized (this) {
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            while (true) {
+                ClassScanResult next = null;
+                Throwable error = null;
+                boolean complete = false;
+                synchronized (this) {
+                    if (terminated) {
+                        draining = false;
+                        return;
+                    }
+                    pull();
+                    CompletableFuture<ClassScanResult> head = inFlight.peek();
+                    if (failure != null) {
+                        error = failure;
+                    } else if (head != null && head.isDone() && demand > 0) {
+                        inFlight.poll();
+                        reads.poll();
+                        try {
+                            next = head.join();
+                            --demand;
+                        } catch (CompletionException ce) {
+                            error = ce.getCause();
+                        }
+                    } else if (head == null && exhausted) {
+                        error = sourcesFailure;
+                        complete = error == null;
+                    } else {
+                        draining = false;
+                        return;
+                    }
+                    if (error != null || complete) {
+                        terminated = true;
+                        stop();
+                    }
+                }
+                if (error != null) {
+                    subscriber.onError(unwrap(error));
+                    return;
+                } else if (complete) {
+                    subscriber.onComplete();
+                    return;
+                } else if (next != null) {
+                    try {
+                        subscriber.onNext(next);
+                    } catch (RuntimeException re) {
+                        cancel();
+                        throw re;
+                    }
+                }
+            }
+        }
+
+        /** Starts checks for as many sources as demand and window allow. */
+        private void pull() {
+            while (!exhausted && failure == null &&
+                    inFlight.size() < maxInFlight &&
+                    inFlight.size() < demand) {
+                ClassSource source;
+                try {
+                    if (iterator == null) {
+                        iterator = sources.iterator();
+                    }
+                    if (!iterator.hasNext()) {
+                        exhausted = true;
+                        iterator = null;
+                        return;
+                    }
+                    source = iterator.next();
+                } catch (RuntimeException re) {
+                    sourcesFailure = re;
+                    exhausted = true;
+                    iterator = null;
+                    return;
+                }
+                inFlight.add(submit(source));
+            }
+        }
+
+        private CompletableFuture<ClassScanResult> submit(ClassSource source) {
+            CompletableFuture<ClassReader> read =
+                    CompletableFuture.supplyAsync(() -> {
+                ClassReader classReader;
+                try {
+                    classReader = new ClassReader(source.read());
+                } catch (IOException ioe) {
+                    throw new UncheckedIOException(ioe);
+                }
+                suppressModernizer.scan(classReader);
+                if (suppressGenerated != null) {
+                    suppressGenerated.scan(classReader);
+                }
+                return classReader;
+            }, executor);
+            reads.add(read);
+            annotationsScanned = CompletableFuture.allOf(
+                    annotationsScanned, read);
+            CompletableFuture<ClassScanResult> result = annotationsScanned
+                    .thenApplyAsync(scanned -> check(source, read.join()),
+                            executor);
+            CompletableFuture<?> unused =
+                    result.whenComplete((r, t) -> drain());
+            return result;
+        }
+
+        private ClassScanResult check(ClassSource source,
+                ClassReader classReader) {
+            String className = classReader.getClassName();
+            Modernizer scoped = modernizer;
+            if (suppressModernizer.isSuppressed(className) ||
+                    (suppressGenerated != null &&
+                            suppressGenerated.isSuppressed(className))) {
+                // still run the check so that listeners see the skip
+                scoped = modernizer.withIgnoreClassNames(
+                        Collections.singleton(className));
+            }
+            return new ClassScanResult(source, scoped.check(classReader));
+        }
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        while (throwable instanceof CompletionException &&
+                throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+        if (throwable instanceof UncheckedIOException) {
+            return throwable.getCause();
+        }
+        return throwable;
+    }
+}
@@ -0,0 +1,416 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.ProviderNotFoundException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.objectweb.asm.ClassReader;
+
+/**
+ * Direct supertypes of the classes on a classpath and in the running JDK,
+ * for resolving a reference through a subclass, e.g., Stack.addElement, to
+ * the class which declares the member, e.g., Vector, and for dropping rules
+ * for types which the classpath cannot reference.
+ *
+ * <p>Jars and the JDK rarely change between builds but hold 10,000s of
+ * classes, so {@link #load} stores their supertypes in a compact table in
+ * a cache directory, named by a hash of the JDK and the path, size and
+ * modification time of each jar, and memory-maps it on later builds.  Only
+ * the entries a build looks up are paged in.  Class directories, which
+ * change with every compile, are read afresh.  Thread-safe.
+ */
+final class SupertypeIndex {
+    private static final int MAGIC = 0x4d535449;
+    private static final int FORMAT_VERSION = 1;
+    /** Magic, version, classes, slots, supertypes and name chars. */
+    private static final int HEADER_BYTES = 6 * Integer.BYTES;
+    private static final String FILE_PREFIX = "supertypes-";
+    private static final String FILE_SUFFIX = ".bin";
+    private static final String[] NO_SUPERTYPES = new String[0];
+
+    /**
+     * Table of jar and JDK classes: the header, then an open-addressed
+     * index from name hash to class id plus one, the end of each class's
+     * name and supertypes, the supertype ids and the names as chars.
+     */
+    private final ByteBuffer table;
+    private final int slotCount;
+    private final int nameEndsStart;
+    private final int supertypeEndsStart;
+    private final int supertypesStart;
+    private final int namesStart;
+    /** Direct supertypes of classes in directories, by internal name. */
+    private final Map<String, String[]> local;
+
+    private SupertypeIndex(ByteBuffer table, Map<String, String[]> local) {
+        this.table = table;
+        int count = table.getInt(2 * Integer.BYTES);
+        this.slotCount = table.getInt(3 * Integer.BYTES);
+        this.nameEndsStart = HEADER_BYTES + slotCount * Integer.BYTES;
+        this.supertypeEndsStart = nameEndsStart + count * Integer.BYTES;
+        this.supertypesStart = supertypeEndsStart + count * Integer.BYTES;
+        this.namesStart = supertypesStart +
+                table.getInt(4 * Integer.BYTES) * Integer.BYTES;
+        this.local = local;
+    }
+
+    /**
+     * Returns the index of the given classpath, whose entries are class
+     * directories and jars, and of the running JDK.  The table of jars and
+     * JDK classes is mapped from cacheDirectory if present and otherwise
+     * built and stored there.
+     */
+    static SupertypeIndex load(Path cacheDirectory, Collection<Path> classpath)
+            throws IOException {
+        List<Path> directories = new ArrayList<>();
+        List<Path> archives = new ArrayList<>();
+        for (Path entry : classpath) {
+            if (Files.isDirectory(entry)) {
+                directories.add(entry);
+            } else if (Files.isRegularFile(entry)) {
+                archives.add(entry);
+            }
+        }
+        archives.addAll(bootClassPath());
+
+        Path file = cacheDirectory.resolve(FILE_PREFIX + key(archives) +
+                FILE_SUFFIX);
+        ByteBuffer table = Files.exists(file) ? map(file) : null;
+        if (table == null) {
+            Map<String, String[]> supertypes = new HashMap<>();
+            readJrt(supertypes);
+            for (Path archive : archives) {
+                readArchive(archive, supertypes);
+            }
+            table = write(supertypes);
+            try {
+                Utils.writeAtomically(file, table);
+            } catch (IOException ioe) {
+                // A read-only cache only costs the next build a rebuild.
+            }
+        }
+
+        Map<String, String[]> local = new HashMap<>();
+        for (Path directory : directories) {
+            for (Path classFile : ClassFiles.walk(directory)) {
+                put(local, Files.readAllBytes(classFile));
+            }
+        }
+        return new SupertypeIndex(table, local);
+    }
+
+    /** Returns an index of the given classes alone, e.g., for tests. */
+    static SupertypeIndex of(Map<String, String[]> supertypes) {
+        return new SupertypeIndex(write(supertypes),
+                Collections.<String, String[]>emptyMap());
+    }
+
+    /**
+     * Returns whether a class is on the classpath or in the JDK, or is the
+     * supertype of one which is.
+     */
+    boolean contains(String internalName) {
+        return local.containsKey(internalName) || indexOf(internalName) != -1;
+    }
+
+    /**
+     * Returns the superclass and interfaces of a class, or none if it is
+     * unknown.
+     */
+    String[] directSupertypes(String internalName) {
+        String[] supertypes = local.get(internalName);
+        if (supertypes != null) {
+            return supertypes;
+        }
+        int id = indexOf(internalName);
+        if (id == -1) {
+            return NO_SUPERTYPES;
+        }
+        int start = id == 0 ? 0 : intAt(supertypeEndsStart, id - 1);
+        int end = intAt(supertypeEndsStart, id);
+        supertypes = new String[end - start];
+        for (int i = start; i < end; ++i) {
+            supertypes[i - start] = name(intAt(supertypesStart, i));
+        }
+        return supertypes;
+    }
+
+    /**
+     * Returns every superclass and superinterface of a class, nearest
+     * first, each once.
+     */
+    List<String> supertypes(String internalName) {
+        List<String> supertypes = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>();
+        pending.add(internalName);
+        while (!pending.isEmpty()) {
+            for (String supertype : directSupertypes(pending.remove())) {
+                if (seen.add(supertype)) {
+                    supertypes.add(supertype);
+                    pending.add(supertype);
+                }
+            }
+        }
+        return supertypes;
+    }
+
+    /** Returns the id of a jar or JDK class, or -1, without allocating. */
+    private int indexOf(String internalName) {
+        int length = internalName.length();
+        for (int slot = internalName.hashCode() & (slotCount - 1);;
+                slot = (slot + 1) & (slotCount - 1)) {
+            int id = intAt(HEADER_BYTES, slot) - 1;
+            if (id == -1) {
+                return -1;
+            }
+            int start = id == 0 ? 0 : intAt(nameEndsStart, id - 1);
+            if (intAt(nameEndsStart, id) - start != length) {
+                continue;
+            }
+            int i = 0;
+            while (i < length && table.getChar(namesStart +
+                    (start + i) * Character.BYTES) == internalName.charAt(i)) {
+                ++i;
+            }
+            if (i == length) {
+                return id;
+            }
+        }
+    }
+
+    private String name(int id) {
+        int start = id == 0 ? 0 : intAt(nameEndsStart, id - 1);
+        char[] chars = new char[intAt(nameEndsStart, id) - start];
+        for (int i = 0; i < chars.length; ++i) {
+            chars[i] = table.getChar(namesStart +
+                    (start + i) * Character.BYTES);
+        }
+        return new String(chars);
+    }
+
+    private int intAt(int sectionStart, int index) {
+        return table.getInt(sectionStart + index * Integer.BYTES);
+    }
+
+    /**
+     * Serializes supertypes into a table.  Supertypes without entries of
+     * their own, e.g., from jars missing from the classpath, get empty
+     * ones, so that every name has an id.
+     */
+    private static ByteBuffer write(Map<String, String[]> supertypes) {
+        Set<String> sorted = new TreeSet<>(supertypes.keySet());
+        int supertypeCount = 0;
+        for (String[] direct : supertypes.values()) {
+            Collections.addAll(sorted, direct);
+            supertypeCount += direct.length;
+        }
+        List<String> names = new ArrayList<>(sorted);
+        Map<String, Integer> ids = new HashMap<>();
+        int nameChars = 0;
+        for (String name : names) {
+            ids.put(name, ids.size());
+            nameChars += name.length();
+        }
+        int count = names.size();
+        int slotCount = Integer.highestOneBit(Math.max(1, count)) * 4;
+
+        ByteBuffer table = ByteBuffer.allocate(HEADER_BYTES +
+                (slotCount + 2 * count + supertypeCount) * Integer.BYTES +
+                nameChars * Character.BYTES);
+        table.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(count)
+                .putInt(slotCount).putInt(supertypeCount).putInt(nameChars);
+        int[] slots = new int[slotCount];
+        for (int id = 0; id < count; ++id) {
+            int slot = names.get(id).hashCode() & (slotCount - 1);
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & (slotCount - 1);
+            }
+            slots[slot] = id + 1;
+        }
+        table.asIntBuffer().put(slots);
+        table.position(table.position() + slotCount * Integer.BYTES);
+        int end = 0;
+        for (String name : names) {
+            end += name.length();
+            table.putInt(end);
+        }
+        end = 0;
+        for (String name : names) {
+            end += supertypes.getOrDefault(name, NO_SUPERTYPES).length;
+            table.putInt(end);
+        }
+        for (String name : names) {
+            for (String supertype :
+                    supertypes.getOrDefault(name, NO_SUPERTYPES)) {
+                table.putInt(ids.get(supertype));
+            }
+        }
+        for (String name : names) {
+            for (int i = 0; i < name.length(); ++i) {
+                table.putChar(name.charAt(i));
+            }
+        }
+        table.flip();
+        return table;
+    }
+
+    /** Maps a stored table, or returns null if it is not a valid one. */
+    private static ByteBuffer map(Path file) throws IOException {
+        ByteBuffer table = Utils.mapReadOnly(file, HEADER_BYTES);
+        if (table == null) {
+            return null;
+        }
+        if (table.getInt(0) != MAGIC ||
+                table.getInt(Integer.BYTES) != FORMAT_VERSION) {
+            return null;
+        }
+        long size = HEADER_BYTES + ((long) table.getInt(3 * Integer.BYTES) +
+                2L * table.getInt(2 * Integer.BYTES) +
+                table.getInt(4 * Integer.BYTES)) * Integer.BYTES +
+                (long) table.getInt(5 * Integer.BYTES) * Character.BYTES;
+        return size == table.capacity() ? table : null;
+    }
+
+    /** Returns a hash of the JDK and of each archive's path, size and time. */
+    private static String key(List<Path> archives) throws IOException {
+        StringBuilder key = new StringBuilder();
+        key.append(FORMAT_VERSION).append('\n')
+                .append(System.getProperty("java.home")).append('\n')
+                .append(System.getProperty("java.runtime.version"))
+                .append('\n');
+        for (Path archive : archives) {
+            key.append(archive.toAbsolutePath()).append('\t')
+                    .append(Files.size(archive)).append('\t')
+                    .append(Files.getLastModifiedTime(archive).toMillis())
+                    .append('\n');
+        }
+        return Utils.toHexPrefix(Utils.newSha256().digest(
+                key.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /** Returns the JDK's archives on Java 8, or none on later versions. */
+    private static List<Path> bootClassPath() {
+        List<Path> archives = new ArrayList<>();
+        String bootClassPath = System.getProperty("sun.boot.class.path");
+        if (bootClassPath != null) {
+            for (String entry : bootClassPath.split(File.pathSeparator, -1)) {
+                Path path = Paths.get(entry);
+                if (Files.isRegularFile(path)) {
+                    archives.add(path);
+                }
+            }
+        }
+        return archives;
+    }
+
+    /** Reads the JDK's modules on Java 9 and later. */
+    private static void readJrt(Map<String, String[]> supertypes)
+            throws IOException {
+        FileSystem jrt;
+        try {
+            jrt = FileSystems.getFileSystem(URI.create("jrt:/"));
+        } catch (FileSystemNotFoundException | ProviderNotFoundException e) {
+            return;
+        }
+        try (DirectoryStream<Path> modules = Files.newDirectoryStream(
+                jrt.getPath("/modules"))) {
+            for (Path module : modules) {
+                for (Path classFile : ClassFiles.walk(module)) {
+                    if (!classFile.endsWith("module-info.class")) {
+                        put(supertypes, Files.readAllBytes(classFile));
+                    }
+                }
+            }
+        } catch (UncheckedIOException uioe) {
+            throw uioe.getCause();
+        }
+    }
+
+    /** Reads a jar, in which earlier classpath entries take precedence. */
+    private static void readArchive(Path archive,
+            Map<String, String[]> supertypes) throws IOException {
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (!name.endsWith(ClassFiles.CLASS_SUFFIX) ||
+                        name.startsWith("META-INF/") ||
+                        name.endsWith("module-info.class")) {
+                    continue;
+                }
+                try (InputStream is = zip.getInputStream(entry)) {
+                    put(supertypes, Utils.readAllBytes(is));
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the direct supertypes of a class unless an earlier classpath
+     * entry defined it.  Skips class files too new for ASM, whose
+     * references Modernizer cannot scan either.
+     */
+    private static void put(Map<String, String[]> supertypes, byte[] bytes) {
+        ClassReader reader;
+        try {
+            reader = new ClassReader(bytes);
+        } catch (IllegalArgumentException iae) {
+            return;
+        }
+        String superName = reader.getSuperName();
+        String[] interfaces = reader.getInterfaces();
+        String[] direct;
+        if (superName == null) {
+            direct = interfaces;
+        } else {
+            direct = new String[interfaces.length + 1];
+            direct[0] = superName;
+            System.arraycopy(interfaces, 0, direct, 1, interfaces.length);
+        }
+        supertypes.putIfAbsent(reader.getClassName(), direct);
+    }
+}
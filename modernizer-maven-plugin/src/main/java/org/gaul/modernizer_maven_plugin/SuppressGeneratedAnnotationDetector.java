@@ -18,6 +18,7 @@ package org.gaul.modernizer_maven_plugin;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.Set;
 
 public final class SuppressGeneratedAnnotationDetector {
@@ -27,20 +28,22 @@ public final class SuppressGeneratedAnnotationDetector {
         return newDetector().detect(path);
     }
 
+    static Set<String> detect(Collection<Path> classFiles)
+            throws IOException {
+        return newDetector().detect(classFiles);
+    }
+
     // For testing
     static Set<String> detect(Class<?>... classes) throws IOException {
         return newDetector().detect(classes);
     }
 
-    private static AnnotationDetector newDetector() {
-        return new AnnotationDetector(
-                SuppressGeneratedAnnotationDetector::isGeneratedAnnotation,
+    static AnnotationDetector newDetector() {
+        return new AnnotationDetector("Generated",
                 /*scanMethodBodies=*/ false);
     }
 
     static boolean isGeneratedAnnotation(String desc) {
-        String simpleName = desc.substring(Math.max(desc.lastIndexOf('/'),
-                desc.lastIndexOf('$')) + 1);
-        return simpleName.equals("Generated;");
+        return AnnotationDetector.hasSimpleName(desc, "Generated");
     }
 }
@@ -18,6 +18,7 @@ package org.gaul.modernizer_maven_plugin;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.Set;
 
 public final class SuppressModernizerAnnotationDetector {
@@ -27,20 +28,22 @@ public final class SuppressModernizerAnnotationDetector {
         return newDetector().detect(path);
     }
 
+    static Set<String> detect(Collection<Path> classFiles)
+            throws IOException {
+        return newDetector().detect(classFiles);
+    }
+
     // For testing
     static Set<String> detect(Class<?>... classes) throws IOException {
         return newDetector().detect(classes);
     }
 
-    private static AnnotationDetector newDetector() {
-        return new AnnotationDetector(
-                SuppressModernizerAnnotationDetector::isSuppressModernizerAnnotation,
+    static AnnotationDetector newDetector() {
+        return new AnnotationDetector("SuppressModernizer",
                 /*scanMethodBodies=*/ true);
     }
 
     static boolean isSuppressModernizerAnnotation(String desc) {
-        String simpleName = desc.substring(Math.max(desc.lastIndexOf('/'),
-                desc.lastIndexOf('$')) + 1);
-        return simpleName.equals("SuppressModernizer;");
+        return AnnotationDetector.hasSimpleName(desc, "SuppressModernizer");
     }
 }
@@ -16,11 +16,21 @@
 
 package org.gaul.modernizer_maven_plugin;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
@@ -44,9 +54,77 @@ final class Utils {
                 Objects.requireNonNull(collection)));
     }
 
-    static <T, U> Map<T, U> createImmutableMap(Map<T, U> map) {
-        return Collections.unmodifiableMap(new HashMap<>(
-                Objects.requireNonNull(map)));
+    /** Reads the remainder of a stream; InputStream.readAllBytes is Java 9. */
+    static byte[] readAllBytes(InputStream is) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int count;
+        while ((count = is.read(buffer)) != -1) {
+            os.write(buffer, 0, count);
+        }
+        return os.toByteArray();
+    }
+
+    /**
+     * Maps a file read-only, or returns null if it has fewer than minSize
+     * bytes or too many for one buffer.
+     */
+    static ByteBuffer mapReadOnly(Path file, int minSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            if (channel.size() < minSize ||
+                    channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+        }
+    }
+
+    /**
+     * Writes contents to a temporary file and renames it into place, so that
+     * concurrent builds never map a partial file.
+     */
+    static void writeAtomically(Path file, ByteBuffer contents)
+            throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory,
+                String.valueOf(file.getFileName()), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary,
+                    StandardOpenOption.WRITE)) {
+                ByteBuffer source = contents.duplicate();
+                while (source.hasRemaining()) {
+                    channel.write(source);
+                }
+            }
+            try {
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file,
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new IllegalStateException(nsae);
+        }
+    }
+
+    /** Returns the first 16 bytes of a hash in hex, for file names. */
+    static String toHexPrefix(byte[] hash) {
+        StringBuilder hex = new StringBuilder();
+        for (int i = 0; i < 16; ++i) {
+            hex.append(String.format("%02x", hash[i]));
+        }
+        return hex.toString();
     }
 
     private Utils() {
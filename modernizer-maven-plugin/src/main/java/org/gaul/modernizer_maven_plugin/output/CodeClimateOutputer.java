@@ -21,14 +21,14 @@ import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
 import com.google.gson.Gson;
 import com.google.gson.annotations.SerializedName;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
 
+import org.gaul.modernizer_maven_plugin.OccurrenceStore;
 import org.gaul.modernizer_maven_plugin.Violation;
 
 public final class CodeClimateOutputer implements Outputer {
@@ -44,27 +44,33 @@ public final class CodeClimateOutputer implements Outputer {
 
     @Override
     public void output(List<OutputEntry> entries) throws IOException {
-        List<Entry> toOutput = new ArrayList<>(entries.size());
-        for (OutputEntry entry : entries) {
-            int lineNumber = entry.getOccurrence().getLineNumber();
-            Location location = new Location(entry.getFileName(),
-                    new Location.Lines(lineNumber));
-            Violation violation = entry.getOccurrence().getViolation();
-            String fingerprint = entry.getFileName() + ":" + lineNumber +
-                    ":" + violation.getName();
-            toOutput.add(new Entry(
-                    violation.getComment(),
-                    violation.getName(),
-                    fingerprint,
-                    severity,
-                    location));
-        }
-        TypeToken<List<Entry>> type = new TypeToken<List<Entry>>() {
-        };
+        output(OccurrenceStore.of(entries));
+    }
+
+    @Override
+    public void output(OccurrenceStore occurrences) throws IOException {
+        Gson gson = new Gson();
         try (OutputStreamWriter writer = new OutputStreamWriter(
                 Files.newOutputStream(outputFile),
-                StandardCharsets.UTF_8)) {
-            new Gson().toJson(toOutput, type.getType(), writer);
+                StandardCharsets.UTF_8);
+                JsonWriter json = gson.newJsonWriter(writer)) {
+            json.beginArray();
+            for (OccurrenceStore.Cursor cursor = occurrences.cursor();
+                    cursor.next();) {
+                int lineNumber = cursor.getLineNumber();
+                Location location = new Location(cursor.getFileName(),
+                        new Location.Lines(lineNumber));
+                Violation violation = cursor.getViolation();
+                String fingerprint = cursor.getFileName() + ":" + lineNumber +
+                        ":" + violation.getName();
+                gson.toJson(new Entry(
+                        violation.getComment(),
+                        violation.getName(),
+                        fingerprint,
+                        severity,
+                        location), Entry.class, json);
+            }
+            json.endArray();
         }
     }
 
@@ -19,6 +19,7 @@ package org.gaul.modernizer_maven_plugin.output;
 import java.util.List;
 
 import org.apache.maven.plugin.logging.Log;
+import org.gaul.modernizer_maven_plugin.OccurrenceStore;
 
 public final class LoggerOutputer implements Outputer {
     private final Log log;
@@ -31,10 +32,16 @@ public final class LoggerOutputer implements Outputer {
 
     @Override
     public void output(List<OutputEntry> entries) {
-        for (OutputEntry entry : entries) {
-            String message = entry.getFileName() + ":" +
-                    entry.getOccurrence().getLineNumber() + ": " +
-                    entry.getOccurrence().getViolation().getComment();
+        output(OccurrenceStore.of(entries));
+    }
+
+    @Override
+    public void output(OccurrenceStore occurrences) {
+        for (OccurrenceStore.Cursor cursor = occurrences.cursor();
+                cursor.next();) {
+            String message = cursor.getFileName() + ":" +
+                    cursor.getLineNumber() + ": " +
+                    cursor.getViolation().getComment();
             switch (level) {
             case ERROR:
                 log.error(message);
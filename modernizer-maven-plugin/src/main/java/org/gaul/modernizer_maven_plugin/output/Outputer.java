@@ -19,6 +19,16 @@ package org.gaul.modernizer_maven_plugin.output;
 import java.io.IOException;
 import java.util.List;
 
+import org.gaul.modernizer_maven_plugin.OccurrenceStore;
+
 public interface Outputer {
     void output(List<OutputEntry> entries) throws IOException;
+
+    /**
+     * Outputs the occurrences in a store.  Defaults to converting them to
+     * entries; implementations may read the store directly instead.
+     */
+    default void output(OccurrenceStore occurrences) throws IOException {
+        output(occurrences.toOutputEntries());
+    }
 }
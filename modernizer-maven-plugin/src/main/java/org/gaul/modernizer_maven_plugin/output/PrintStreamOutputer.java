@@ -0,0 +1,46 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin.output;
+
+import java.io.PrintStream;
+import java.util.List;
+
+import org.gaul.modernizer_maven_plugin.OccurrenceStore;
+
+/** Prints one {@code file:line: comment} line per violation. */
+public final class PrintStreamOutputer implements Outputer {
+    private final PrintStream out;
+
+    public PrintStreamOutputer(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void output(List<OutputEntry> entries) {
+        output(OccurrenceStore.of(entries));
+    }
+
+    @Override
+    public void output(OccurrenceStore occurrences) {
+        for (OccurrenceStore.Cursor cursor = occurrences.cursor();
+                cursor.next();) {
+            out.println(cursor.getFileName() + ":" +
+                    cursor.getLineNumber() + ": " +
+                    cursor.getViolation().getComment());
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Opcodes;
+
+public final class ClassFileScannerTest {
+    /** JDK classes with switches, wide instructions and interfaces. */
+    private static final String[] JDK_CLASSES = {
+        "java/lang/Character", "java/lang/String", "java/util/Formatter",
+        "java/util/HashMap", "java/util/Vector", "java/util/regex/Pattern",
+    };
+
+    private Map<String, Collection<Violation>> violations;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        try (InputStream is = Modernizer.class.getResourceAsStream(
+                "/modernizer.xml")) {
+            violations = Modernizer.parseFromXml(is);
+        }
+    }
+
+    private Modernizer newModernizer(String javaVersion) {
+        return new Modernizer(javaVersion, violations,
+                Collections.<String>emptySet(),
+                Collections.singleton(Pattern.compile("java/util/Vector\\..*")),
+                Collections.singleton("org.gaul.modernizer_maven_plugin.output"),
+                Collections.<String>emptySet(),
+                Collections.<Pattern>emptySet(),
+                /*ignoreGeneratedClasses=*/ true);
+    }
+
+    private static List<byte[]> corpus() throws Exception {
+        List<byte[]> classes = new ArrayList<>();
+        for (String root : new String[] {"classes", "test-classes"}) {
+            for (Path path : ClassFiles.walk(Paths.get("target", root))) {
+                classes.add(Files.readAllBytes(path));
+            }
+        }
+        for (String name : JDK_CLASSES) {
+            try (InputStream is = ClassLoader.getSystemResourceAsStream(
+                    name + ".class")) {
+                classes.add(Utils.readAllBytes(is));
+            }
+        }
+        return classes;
+    }
+
+    @Test
+    public void findsSameViolationsAsAsm() throws Exception {
+        List<byte[]> corpus = corpus();
+        assertThat(corpus).hasSizeGreaterThan(100);
+        int violating = 0;
+        for (String javaVersion : new String[] {"1.4", "8", "11", "17"}) {
+            Modernizer modernizer = newModernizer(javaVersion);
+            for (byte[] bytes : corpus) {
+                List<String> asmEvents = new ArrayList<>();
+                Collection<ViolationOccurrence> asm = modernizer
+                        .withListener(new RecordingListener(asmEvents))
+                        .check(new ClassReader(bytes));
+                List<String> scannerEvents = new ArrayList<>();
+                Collection<ViolationOccurrence> scanner = modernizer
+                        .withListener(new RecordingListener(scannerEvents))
+                        .withLightweightScanner(true)
+                        .check(new ClassReader(bytes));
+                assertThat(scanner).containsExactlyElementsOf(asm);
+                assertThat(scannerEvents).isEqualTo(asmEvents);
+                if (!asm.isEmpty()) {
+                    ++violating;
+                }
+            }
+        }
+        assertThat(violating).isGreaterThan(50);
+    }
+
+    @Test
+    public void declinesNewerClassFiles() throws Exception {
+        byte[] bytes = TestClassFiles.legacyClass("com/example/Legacy",
+                /*suppressed=*/ false);
+        bytes[6] = (byte) (Opcodes.V26 >> 8);
+        bytes[7] = (byte) Opcodes.V26;
+        ClassReader reader = new ClassReader(bytes);
+        assertThat(new ClassFileScanner().accept(reader,
+                new ClassVisitor(Utils.ASM_API) { })).isFalse();
+
+        Modernizer modernizer = new Modernizer("8", violations,
+                Collections.<String>emptySet(),
+                Collections.<Pattern>emptySet(),
+                Collections.<String>emptySet(),
+                Collections.<String>emptySet(),
+                Collections.<Pattern>emptySet(),
+                /*ignoreGeneratedClasses=*/ true);
+        assertThat(modernizer.withLightweightScanner(true).check(reader))
+                .hasSize(1)
+                .isEqualTo(modernizer.check(reader));
+    }
+
+    /** Records every event except timings. */
+    private static final class RecordingListener implements ScanListener {
+        private final List<String> events;
+
+        RecordingListener(List<String> events) {
+            this.events = events;
+        }
+
+        @Override
+        public void classFinished(String className, int byteSize,
+                long elapsedNanos, int tokensProbed, int occurrences) {
+            events.add("finished " + className + " " + tokensProbed + " " +
+                    occurrences);
+        }
+
+        @Override
+        public void classSkipped(String className, SkipReason reason) {
+            events.add("skipped " + className + " " + reason);
+        }
+
+        @Override
+        public void ruleHit(String className,
+                ViolationOccurrence occurrence) {
+            events.add("hit " + className + " " + occurrence);
+        }
+
+        @Override
+        public void suppressed(String className,
+                ViolationOccurrence occurrence, SuppressionReason reason) {
+            events.add("suppressed " + className + " " + occurrence + " " +
+                    reason);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+public final class ClassNameTrieTest {
+    @Test
+    public void splitsSharedPrefixes() {
+        ClassNameTrie trie = new ClassNameTrie();
+        assertThat(trie.add("a/b/Outer$Inner")).isTrue();
+        assertThat(trie.add("a/b/Other")).isTrue();
+        assertThat(trie.add("a/b/Outer")).isTrue();
+        assertThat(trie.add("a/b/Outer")).isFalse();
+        assertThat(trie.add("a/c")).isTrue();
+
+        assertThat(trie.size()).isEqualTo(4);
+        assertThat(trie.contains("a/b/Outer")).isTrue();
+        assertThat(trie.contains("a/b/Outer$Inner")).isTrue();
+        assertThat(trie.contains("a/b/O")).isFalse();
+        assertThat(trie.contains("a/b/Outer$")).isFalse();
+        assertThat(trie.contains("a/b/Others")).isFalse();
+        assertThat(trie.contains("")).isFalse();
+        assertThat(names(trie)).containsExactly("a/b/Other", "a/b/Outer",
+                "a/b/Outer$Inner", "a/c");
+    }
+
+    @Test
+    public void findsEnclosingClasses() {
+        ClassNameTrie trie = ClassNameTrie.of(Arrays.asList("a/Outer",
+                "a/Other$Inner"));
+        assertThat(trie.containsSelfOrEnclosing("a/Outer")).isTrue();
+        assertThat(trie.containsSelfOrEnclosing("a/Outer$Inner$1")).isTrue();
+        assertThat(trie.containsSelfOrEnclosing("a/Other$Inner$1")).isTrue();
+        assertThat(trie.containsSelfOrEnclosing("a/Other")).isFalse();
+        assertThat(trie.containsSelfOrEnclosing("a/Other$Inner2")).isFalse();
+        assertThat(trie.containsSelfOrEnclosing("a/Outer2$Inner")).isFalse();
+        assertThat(trie.containsSelfOrEnclosing(
+                new StringBuilder("a/Outer$1"))).isTrue();
+    }
+
+    @Test
+    public void copiesAreIndependent() {
+        ClassNameTrie trie = ClassNameTrie.of(Arrays.asList("a/B", "a/C"));
+        ClassNameTrie copy = trie.copy();
+        copy.add("a/D");
+        trie.add("a/BB");
+        assertThat(names(trie)).containsExactly("a/B", "a/BB", "a/C");
+        assertThat(names(copy)).containsExactly("a/B", "a/C", "a/D");
+    }
+
+    @Test
+    public void agreesWithHashSet() {
+        Random random = new Random(0);
+        Set<String> expected = new HashSet<>();
+        ClassNameTrie trie = new ClassNameTrie();
+        for (int i = 0; i < 10_000; ++i) {
+            String name = randomName(random);
+            assertThat(trie.add(name)).isEqualTo(expected.add(name));
+        }
+        for (int i = 0; i < 10_000; ++i) {
+            String name = randomName(random);
+            assertThat(trie.contains(name)).isEqualTo(expected.contains(name));
+        }
+        assertThat(trie.size()).isEqualTo(expected.size());
+        assertThat(names(trie)).isEqualTo(new ArrayList<>(
+                new TreeSet<>(expected)));
+    }
+
+    /** Short names over few characters, so that prefixes often collide. */
+    private static String randomName(Random random) {
+        StringBuilder name = new StringBuilder();
+        int length = 1 + random.nextInt(8);
+        for (int i = 0; i < length; ++i) {
+            name.append("ab/$".charAt(random.nextInt(4)));
+        }
+        return name.toString();
+    }
+
+    private static List<String> names(ClassNameTrie trie) {
+        List<String> names = new ArrayList<>();
+        trie.forEach(name -> names.add(name.toString()));
+        return names;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.gaul.modernizer_maven_plugin.output.OutputEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public final class ClassWatcherTest {
+    @TempDir
+    private Path root;
+
+    private final List<OutputEntry> added = new ArrayList<>();
+    private final List<OutputEntry> removed = new ArrayList<>();
+    private int total;
+    private ClassWatcher watcher;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Modernizer modernizer;
+        try (InputStream is = Modernizer.class.getResourceAsStream(
+                "/modernizer.xml")) {
+            modernizer = new Modernizer("8", Modernizer.parseFromXml(is),
+                    Collections.<String>emptySet(),
+                    Collections.<Pattern>emptySet(),
+                    Collections.<String>emptySet(),
+                    Collections.<String>emptySet(),
+                    Collections.<Pattern>emptySet(), true);
+        }
+        watcher = new ClassWatcher(modernizer,
+                Collections.singletonList(root), Path::toString,
+                (a, r, t) -> {
+                    added.addAll(a);
+                    removed.addAll(r);
+                    total = t;
+                }, /*debounceMillis=*/ 0);
+    }
+
+    @Test
+    public void reportsOnlyChangedViolations() throws Exception {
+        Path foo = TestClassFiles.writeLegacyClass(root, "p/Foo", false);
+        Path bar = TestClassFiles.writeLegacyClass(root, "p/Bar", false);
+        watcher.rescan(Arrays.asList(foo, bar));
+        assertThat(added).hasSize(2);
+        assertThat(total).isEqualTo(2);
+
+        added.clear();
+        watcher.rescan(Collections.singletonList(foo));
+        assertThat(added).isEmpty();
+        assertThat(removed).isEmpty();
+
+        Files.delete(bar);
+        watcher.rescan(Collections.singletonList(bar));
+        assertThat(removed).hasSize(1);
+        assertThat(removed.get(0).getFileName()).isEqualTo(
+                bar.toAbsolutePath().toString());
+        assertThat(total).isEqualTo(1);
+    }
+
+    @Test
+    public void rescansNestedClassesWhenEnclosingClassIsSuppressed()
+            throws Exception {
+        Path outer = TestClassFiles.writeLegacyClass(root, "p/Outer", false);
+        Path inner = TestClassFiles.writeLegacyClass(root, "p/Outer$Inner",
+                false);
+        watcher.rescan(Arrays.asList(outer, inner));
+        assertThat(total).isEqualTo(2);
+
+        // Only the enclosing class changes on disk.
+        TestClassFiles.writeLegacyClass(root, "p/Outer", true);
+        watcher.rescan(Collections.singletonList(outer));
+        assertThat(removed).hasSize(2);
+        assertThat(total).isEqualTo(0);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+
+public final class CostReportTest {
+    private static CostReport sampleReport() {
+        CostReport report = new CostReport();
+        report.classFinished("a/Parser", 65536, 9_000_000, 100, 0);
+        report.classFinished("a/Lexer", 2048, 1_000_000, 10, 2);
+        report.classFinished("b/Small", 1024, 2_000_000, 5, 1);
+        report.classFinished("Default", 512, 500_000, 1, 0);
+        return report;
+    }
+
+    @Test
+    public void ranksSlowestClasses() {
+        List<CostReport.ClassCost> slowest =
+                sampleReport().getSlowestClasses(2);
+        assertThat(slowest).extracting(CostReport.ClassCost::getClassName)
+                .containsExactly("a.Parser", "b.Small");
+        assertThat(sampleReport().getSlowestClasses(10)).hasSize(4);
+    }
+
+    @Test
+    public void rollsUpPackages() {
+        List<CostReport.PackageCost> packages = sampleReport().getPackages();
+        assertThat(packages).extracting(CostReport.PackageCost::getPackageName)
+                .containsExactly("a", "b", "");
+        CostReport.PackageCost a = packages.get(0);
+        assertThat(a.getClassCount()).isEqualTo(2);
+        assertThat(a.getByteSize()).isEqualTo(65536 + 2048);
+        assertThat(a.getElapsedNanos()).isEqualTo(10_000_000);
+        assertThat(a.getOccurrences()).isEqualTo(2);
+        assertThat(packages.get(1).getViolationsPerKilobyte())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    public void formatsReport() {
+        List<String> lines = sampleReport().format(1);
+        assertThat(lines.get(0))
+                .isEqualTo("Scan cost: 4 classes, 67 KB, 12.5 ms");
+        assertThat(lines.get(1)).isEqualTo("Slowest classes:");
+        assertThat(lines.get(2)).endsWith(" a.Parser").contains("9.00 ms");
+        assertThat(lines.get(3)).isEqualTo("Packages by scan time:");
+        assertThat(lines.subList(4, lines.size())).hasSize(3);
+        assertThat(lines.get(4)).contains("80.0%").endsWith(" a");
+        assertThat(lines.get(6)).endsWith("(default package)");
+    }
+
+    @Test
+    public void observesScans() throws Exception {
+        CostReport report = new CostReport();
+        Modernizer modernizer;
+        try (InputStream is = Modernizer.class.getResourceAsStream(
+                "/modernizer.xml")) {
+            modernizer = new Modernizer("1.8", Modernizer.parseFromXml(is),
+                    Collections.<String>emptySet(),
+                    Collections.<Pattern>emptySet(),
+                    Collections.<String>emptySet(),
+                    Collections.<String>emptySet(),
+                    Collections.<Pattern>emptySet(),
+                    /*ignoreGeneratedClasses=*/ false).withListener(report);
+        }
+        byte[] bytes = TestClassFiles.legacyClass("a/Legacy", false);
+        modernizer.check(new ClassReader(bytes));
+
+        CostReport.ClassCost cost = report.getSlowestClasses(1).get(0);
+        assertThat(cost.getClassName()).isEqualTo("a.Legacy");
+        assertThat(cost.getByteSize()).isEqualTo(bytes.length);
+        assertThat(cost.getOccurrences()).isEqualTo(1);
+    }
+}
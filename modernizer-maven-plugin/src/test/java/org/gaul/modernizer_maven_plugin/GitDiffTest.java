@@ -0,0 +1,127 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public final class GitDiffTest {
+    @TempDir
+    Path workTree;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        assumeTrue(isGitAvailable(), "git is not on the PATH");
+        git("init", "-q");
+        git("checkout", "-q", "-b", "main");
+        write("src/Unchanged.java");
+        write("src/Deleted.java");
+        commit("initial");
+    }
+
+    @Test
+    public void listsChangesSinceForkIncludingUncommitted() throws Exception {
+        git("checkout", "-q", "-b", "feature");
+        write("src/Committed.java");
+        Files.delete(workTree.resolve("src/Deleted.java"));
+        commit("feature");
+        // Changed on the base after the fork, so not part of the branch.
+        git("checkout", "-q", "main");
+        write("src/OnMain.java");
+        commit("main");
+        git("checkout", "-q", "feature");
+        write("src/Unchanged.java", "modified");
+        write("src/Untracked.java");
+        write(".gitignore", "*.log\n");
+        write("src/Ignored.log");
+
+        assertThat(GitDiff.changedFiles(workTree, "main"))
+                .containsExactlyInAnyOrder(Paths.get("src/Committed.java"),
+                        Paths.get("src/Unchanged.java"),
+                        Paths.get("src/Untracked.java"),
+                        Paths.get(".gitignore"));
+        assertThat(GitDiff.changedFiles(workTree.resolve("src"), "main"))
+                .containsExactlyInAnyOrder(Paths.get("Committed.java"),
+                        Paths.get("Unchanged.java"),
+                        Paths.get("Untracked.java"));
+    }
+
+    @Test
+    public void rejectsUnknownRevision() {
+        assertThatThrownBy(() -> GitDiff.changedFiles(workTree, "unknown"))
+                .isInstanceOf(IOException.class);
+    }
+
+    private void write(String name) throws IOException {
+        write(name, name);
+    }
+
+    private void write(String name, String content) throws IOException {
+        Path path = workTree.resolve(name);
+        Files.createDirectories(path.getParent());
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void commit(String message) throws Exception {
+        git("add", "-A");
+        git("-c", "user.name=test", "-c", "user.email=test@example.com",
+                "-c", "commit.gpgsign=false", "commit", "-q", "-m", message);
+    }
+
+    private void git(String... args) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(Arrays.asList(args));
+        Process process = new ProcessBuilder(command)
+                .directory(workTree.toFile())
+                .redirectErrorStream(true)
+                .start();
+        byte[] output = process.getInputStream().readAllBytes();
+        assertThat(process.waitFor())
+                .as(new String(output, StandardCharsets.UTF_8))
+                .isZero();
+    }
+
+    private static boolean isGitAvailable() {
+        try {
+            Process process = new ProcessBuilder("git", "--version")
+                    .redirectErrorStream(true)
+                    .start();
+            process.getInputStream().readAllBytes();
+            return process.waitFor() == 0;
+        } catch (IOException ioe) {
+            return false;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.ClassReader;
+
+public final class MappedRuleTableTest {
+    private byte[] source;
+    private Map<String, Collection<Violation>> violations;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        try (InputStream is = Modernizer.class.getResourceAsStream(
+                "/modernizer.xml")) {
+            source = Utils.readAllBytes(is);
+        }
+        violations = Modernizer.parseFromXml(
+                new ByteArrayInputStream(source));
+    }
+
+    @Test
+    public void matchesLikeRuleTable(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("rules.bin");
+        MappedRuleTable.write(violations, file);
+        MappedRuleTable mapped = MappedRuleTable.open(file);
+        RuleTable table = RuleTable.of(violations);
+        assertThat(mapped.size()).isEqualTo(table.size());
+        assertThat(mapped.toMap()).isEqualTo(violations);
+
+        for (long javaVersion : new long[] {4, 8, 11, 17}) {
+            RuleMatcher expected = RuleMatchers.create(table, javaVersion);
+            RuleMatcher matcher = mapped.matcher(javaVersion);
+            for (String token : violations.keySet()) {
+                for (String probe : probes(token)) {
+                    assertThat(mapped.match(probe, javaVersion))
+                            .as(probe)
+                            .isEqualTo(applicable(table.match(probe,
+                                    javaVersion), javaVersion));
+                }
+                int dot = token.indexOf('.');
+                if (dot == -1) {
+                    assertThat(matcher.matchType(token))
+                            .isEqualTo(expected.matchType(token));
+                    continue;
+                }
+                String owner = token.substring(0, dot);
+                String name = RuleTable.isOwnerWildcard(token) ? "any" :
+                        token.substring(dot + 1, token.indexOf(':', dot));
+                String desc = token.substring(token.indexOf(':', dot) + 1);
+                for (String probeDesc : new String[] {desc, "()V"}) {
+                    assertThat(matcher.matchMember(owner, name, probeDesc))
+                            .isEqualTo(expected.matchMember(owner, name,
+                                    probeDesc));
+                }
+                assertThat(matcher.matchMember(owner + "X", name, desc))
+                        .isNull();
+                assertThat(matcher.matchType(owner))
+                        .isEqualTo(expected.matchType(owner));
+            }
+        }
+    }
+
+    @Test
+    public void preferMostPreciseRule(@TempDir Path dir) throws Exception {
+        Map<String, Collection<Violation>> rules = new HashMap<>();
+        for (String token : new String[] {"a/B.*", "a/B.m:*", "a/B.m:()V",
+                "Aa", "BB", "Aa.BB:()V", "BB.Aa:()V"}) {
+            rules.put(token, Collections.singletonList(new Violation(token,
+                    /*version=*/ 2, OptionalInt.empty(), "comment " + token)));
+        }
+        rules.put("a/C.m:()V", Collections.singletonList(new Violation(
+                "a/C.m:()V", /*version=*/ 11, OptionalInt.empty(), "new")));
+        Path file = dir.resolve("rules.bin");
+        MappedRuleTable.write(rules, file);
+        RuleMatcher matcher = MappedRuleTable.open(file).matcher(8);
+
+        assertThat(matcher.matchMember("a/B", "m", "()V"))
+                .isEqualTo(rules.get("a/B.m:()V"));
+        assertThat(matcher.matchMember("a/B", "m", "(I)V"))
+                .isEqualTo(rules.get("a/B.m:*"));
+        assertThat(matcher.matchMember("a/B", "n", "()V"))
+                .isEqualTo(rules.get("a/B.*"));
+        assertThat(matcher.matchMember("a/C", "m", "()V")).isNull();
+        assertThat(matcher.matchType("a/B")).isNull();
+        // "Aa" and "BB" share a hash code.
+        assertThat(matcher.matchType("BB")).isEqualTo(rules.get("BB"));
+        assertThat(matcher.matchMember("BB", "Aa", "()V"))
+                .isEqualTo(rules.get("BB.Aa:()V"));
+        assertThat(matcher.matchMember("BB", "BB", "()V")).isNull();
+    }
+
+    @Test
+    public void reusesTableUntilSourcesChange(@TempDir Path dir)
+            throws Exception {
+        Path cache = dir.resolve("cache");
+        MappedRuleTable.load(cache, Collections.singletonList(source));
+        List<Path> files = files(cache);
+        assertThat(files).hasSize(1);
+        FileTime written = Files.getLastModifiedTime(files.get(0));
+
+        MappedRuleTable mapped = MappedRuleTable.load(cache,
+                Collections.singletonList(source));
+        assertThat(files(cache)).isEqualTo(files);
+        assertThat(Files.getLastModifiedTime(files.get(0)))
+                .isEqualTo(written);
+        assertThat(mapped.size()).isEqualTo(RuleTable.of(violations).size());
+
+        byte[] overlay = ("<modernizer>" +
+                "<violation><name>a/B.m:()V</name><version>2</version>" +
+                "<comment>Prefer a/B.n</comment></violation>" +
+                "</modernizer>").getBytes(StandardCharsets.UTF_8);
+        mapped = MappedRuleTable.load(cache, Arrays.asList(source, overlay));
+        assertThat(files(cache)).hasSize(2);
+        assertThat(mapped.match("a/B.m:()V", 8)).hasSize(1);
+    }
+
+    @Test
+    public void rejectsOtherFiles(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("rules.bin");
+        Files.write(file, source);
+        assertThatThrownBy(() -> MappedRuleTable.open(file))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void modernizerFindsSameViolations(@TempDir Path dir)
+            throws Exception {
+        Path file = dir.resolve("rules.bin");
+        Modernizer.writeRuleTable(violations, file);
+        Modernizer parsed = newModernizer(null);
+        Modernizer mapped = newModernizer(file);
+        ClassReader reader = new ClassReader(TestClassFiles.legacyClass(
+                "com/example/Legacy", /*suppressed=*/ false));
+
+        assertThat(mapped.getRuleCount()).isEqualTo(parsed.getRuleCount());
+        assertThat(mapped.check(reader)).hasSize(1)
+                .isEqualTo(parsed.check(reader));
+        String token = "java/util/Vector.\"<init>\":()V";
+        assertThat(mapped.check("a/B", token)).hasSize(1)
+                .isEqualTo(parsed.check("a/B", token));
+        assertThat(mapped.withSupertypes(null).check(reader))
+                .isEqualTo(parsed.check(reader));
+    }
+
+    private Modernizer newModernizer(Path ruleTable) throws IOException {
+        if (ruleTable != null) {
+            return new Modernizer("8", ruleTable,
+                    Collections.<String>emptySet(),
+                    Collections.<Pattern>emptySet(),
+                    Collections.<String>emptySet(),
+                    Collections.<String>emptySet(),
+                    Collections.<Pattern>emptySet(),
+                    /*ignoreGeneratedClasses=*/ true);
+        }
+        return new Modernizer("8", violations,
+                Collections.<String>emptySet(),
+                Collections.<Pattern>emptySet(),
+                Collections.<String>emptySet(),
+                Collections.<String>emptySet(),
+                Collections.<Pattern>emptySet(),
+                /*ignoreGeneratedClasses=*/ true);
+    }
+
+    /** Returns references which a token's rules or wildcards may match. */
+    private static List<String> probes(String token) {
+        int dot = token.indexOf('.');
+        if (dot == -1) {
+            return Arrays.asList(token, token + "X");
+        }
+        String owner = token.substring(0, dot);
+        if (RuleTable.isOwnerWildcard(token)) {
+            return Arrays.asList(token, owner + ".any:()V");
+        }
+        int colon = token.indexOf(':', dot);
+        String member = token.substring(0, colon);
+        return Arrays.asList(token, member + ":()V", member + "X:()V",
+                owner + "X" + token.substring(dot));
+    }
+
+    private static Collection<Violation> applicable(Collection<Violation> v,
+            long javaVersion) {
+        if (v == null) {
+            return null;
+        }
+        List<Violation> applicable = new ArrayList<>();
+        for (Violation violation : v) {
+            if (ModernizerClassVisitor.appliesTo(javaVersion, violation)) {
+                applicable.add(violation);
+            }
+        }
+        return applicable.isEmpty() ? null : applicable;
+    }
+
+    private static List<Path> files(Path cache) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(cache)) {
+            for (Path path : stream) {
+                files.add(path);
+            }
+        }
+        return files;
+    }
+}
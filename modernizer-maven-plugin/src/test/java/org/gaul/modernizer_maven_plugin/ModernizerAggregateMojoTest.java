@@ -0,0 +1,49 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public final class ModernizerAggregateMojoTest {
+    @Test
+    public void listsNestedRootsOnce(@TempDir Path dir) throws Exception {
+        Path outer = dir.resolve("classes");
+        Path inner = outer.resolve("test-classes");
+        TestClassFiles.writeLegacyClass(outer, "a/Main", false);
+        TestClassFiles.writeLegacyClass(inner, "a/MainTest", false);
+
+        List<Path> classFiles = ModernizerAggregateMojo.listClassFiles(
+                Arrays.asList(outer, inner, outer));
+
+        assertThat(classFiles).containsExactlyInAnyOrder(
+                inner.resolve("a/MainTest.class"),
+                outer.resolve("a/Main.class"));
+        List<Path> sorted = ModernizerAggregateMojo.sortMostSpecificFirst(
+                Arrays.asList(outer, inner));
+        assertThat(ModernizerAggregateMojo.owningRoot(
+                inner.resolve("a/MainTest.class"), sorted)).isEqualTo(inner);
+        assertThat(ModernizerAggregateMojo.owningRoot(
+                dir.resolve("Other.class"), sorted)).isNull();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.gaul.modernizer_maven_plugin.Utils.ASM_API;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+
+/**
+ * Counts the bytes a scan allocates beyond what ClassReader itself does,
+ * by comparing with a visitor which does nothing.
+ */
+public final class ModernizerAllocationTest {
+    private static final int WARMUP = 5000;
+    private static final int ITERATIONS = 2000;
+
+    @Test
+    public void scanOfCleanClassAllocatesNothing() throws Exception {
+        assertScanAllocatesNothing(newModernizer());
+    }
+
+    @Test
+    public void scanWithMapMatcherAllocatesNothing() throws Exception {
+        // The matcher used on Java versions without hidden classes.
+        Modernizer modernizer = newModernizer();
+        assertScanAllocatesNothing(modernizer.withMatcher(
+                new RuleMatchers.MapRuleMatcher(RuleMatchers.fold(
+                        RuleTable.of(loadViolations()), 8))));
+    }
+
+    private static void assertScanAllocatesNothing(Modernizer modernizer)
+            throws Exception {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof
+                com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean)
+                        ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        byte[] bytes;
+        try (InputStream is = Modernizer.class.getResourceAsStream(
+                "Modernizer.class")) {
+            bytes = Utils.readAllBytes(is);
+        }
+        assertThat(modernizer.check(new ClassReader(bytes))).isEmpty();
+
+        ClassVisitor baseline = new ClassVisitor(ASM_API) {
+            private final MethodVisitor methodVisitor =
+                    new MethodVisitor(ASM_API) { };
+
+            @Override
+            public MethodVisitor visitMethod(int access, String name,
+                    String descriptor, String signature,
+                    String[] exceptions) {
+                return methodVisitor;
+            }
+        };
+        for (int i = 0; i < WARMUP; ++i) {
+            new ClassReader(bytes).accept(baseline, 0);
+            modernizer.check(new ClassReader(bytes));
+        }
+
+        long id = Thread.currentThread().getId();
+        long start = threads.getThreadAllocatedBytes(id);
+        for (int i = 0; i < ITERATIONS; ++i) {
+            new ClassReader(bytes).accept(baseline, 0);
+        }
+        long readerBytes = threads.getThreadAllocatedBytes(id) - start;
+
+        start = threads.getThreadAllocatedBytes(id);
+        for (int i = 0; i < ITERATIONS; ++i) {
+            modernizer.check(new ClassReader(bytes));
+        }
+        long scanBytes = threads.getThreadAllocatedBytes(id) - start;
+
+        // Allow for the odd allocation by the measurement itself.
+        assertThat((scanBytes - readerBytes) / ITERATIONS)
+                .isLessThan(16);
+    }
+
+    private static Map<String, Collection<Violation>> loadViolations()
+            throws Exception {
+        try (InputStream is = Modernizer.class.getResourceAsStream(
+                "/modernizer.xml")) {
+            return Modernizer.parseFromXml(is);
+        }
+    }
+
+    private static Modernizer newModernizer() throws Exception {
+        return new Modernizer("8", loadViolations(),
+                Collections.<String>emptySet(),
+                Collections.<Pattern>emptySet(),
+                Collections.<String>emptySet(),
+                Collections.<String>emptySet(),
+                Collections.<Pattern>emptySet(),
+                /*ignoreGeneratedClasses=*/ true);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public final class ModernizerCliTest {
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    private int run(String... args) throws Exception {
+        return ModernizerCli.run(args, new PrintStream(out, true, "UTF-8"),
+                new PrintStream(err, true, "UTF-8"));
+    }
+
+    @Test
+    public void reportsViolationsInDirectory(@TempDir Path dir)
+            throws Exception {
+        Path legacy = TestClassFiles.writeLegacyClass(dir, "a/Legacy", false);
+        TestClassFiles.writeLegacyClass(dir, "a/Suppressed", true);
+        assertThat(run("--java-version", "8", dir.toString())).isEqualTo(1);
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8))
+                .isEqualTo(legacy + ":1: Prefer java.util.ArrayList<>()" +
+                        System.lineSeparator());
+    }
+
+    @Test
+    public void reportsViolationsInJar(@TempDir Path dir) throws Exception {
+        Path jar = dir.resolve("app.jar");
+        try (OutputStream os = Files.newOutputStream(jar);
+             ZipOutputStream zos = new ZipOutputStream(os)) {
+            zos.putNextEntry(new ZipEntry("a/Legacy.class"));
+            zos.write(TestClassFiles.legacyClass("a/Legacy", false));
+            zos.closeEntry();
+        }
+        assertThat(run("--java-version", "8", jar.toString())).isEqualTo(1);
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8))
+                .startsWith(jar + "!/a/Legacy.class:1: ");
+    }
+
+    @Test
+    public void honorsTargetVersion(@TempDir Path dir) throws Exception {
+        TestClassFiles.writeLegacyClass(dir, "a/Legacy", false);
+        assertThat(run("--java-version", "1", dir.toString())).isEqualTo(0);
+    }
+
+    @Test
+    public void rejectsMissingJavaVersion(@TempDir Path dir) throws Exception {
+        assertThat(run(dir.toString())).isEqualTo(2);
+        assertThat(new String(err.toByteArray(), StandardCharsets.UTF_8))
+                .startsWith("Usage:");
+    }
+}
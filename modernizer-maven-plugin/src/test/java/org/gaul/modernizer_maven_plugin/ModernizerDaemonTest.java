@@ -0,0 +1,201 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public final class ModernizerDaemonTest {
+    private static final Path TEST_CLASSES = Paths.get("target",
+            "test-classes", "org", "gaul", "modernizer_maven_plugin");
+
+    private ModernizerDaemon daemon;
+    private int port;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        daemon = new ModernizerDaemon(newModernizer());
+        port = daemon.start(0);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        daemon.close();
+    }
+
+    @Test
+    public void reportsViolationsInClassDirectory(@TempDir Path dir)
+            throws Exception {
+        Path classFile = dir.resolve("Legacy.class");
+        Files.write(classFile, TestClassFiles.legacyClass("Legacy", false));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int count = ModernizerDaemon.request(port, daemon.getToken(),
+                new ModernizerDaemon.Filters(),
+                Collections.singletonList(dir.toString()),
+                new PrintStream(out, true, "UTF-8"));
+        assertThat(count).isEqualTo(1);
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8))
+                .contains(classFile + ":");
+    }
+
+    @Test
+    public void rejectsRequestWithoutToken(@TempDir Path dir)
+            throws Exception {
+        Files.write(dir.resolve("Legacy.class"),
+                TestClassFiles.legacyClass("Legacy", false));
+        assertThatThrownBy(() -> ModernizerDaemon.request(port,
+                daemon.getToken() + "0", new ModernizerDaemon.Filters(),
+                Collections.singletonList(dir.toString()),
+                new PrintStream(new ByteArrayOutputStream(), true, "UTF-8")))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Invalid token");
+    }
+
+    @Test
+    public void appliesFiltersOfRequest(@TempDir Path dir) throws Exception {
+        Files.write(dir.resolve("Legacy.class"),
+                TestClassFiles.legacyClass("com/example/Legacy", false));
+        for (String[] filter : new String[][] {
+                {"exclusion", "java/util/Vector.\"<init>\":()V"},
+                {"exclusionPattern", "java/util/Vector\\..*"},
+                {"ignorePackage", "com.example"},
+                {"ignoreClassNamePattern", "com/example/.*"}}) {
+            ModernizerDaemon.Filters filters = new ModernizerDaemon.Filters();
+            assertThat(filters.add(filter[0], filter[1])).isTrue();
+            assertThat(ModernizerDaemon.request(port, daemon.getToken(),
+                    filters, Collections.singletonList(dir.toString()),
+                    new PrintStream(new ByteArrayOutputStream(), true,
+                            "UTF-8")))
+                    .as(filter[0]).isZero();
+        }
+        // Filters apply to their own request only.
+        assertThat(ModernizerDaemon.request(port, daemon.getToken(),
+                new ModernizerDaemon.Filters(),
+                Collections.singletonList(dir.toString()),
+                new PrintStream(new ByteArrayOutputStream(), true, "UTF-8")))
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void writesTokenReadableOnlyByOwner(@TempDir Path dir)
+            throws Exception {
+        Path file = dir.resolve("daemon").resolve("daemon.token");
+        daemon.writeToken(file);
+        assertThat(new String(Files.readAllBytes(file),
+                StandardCharsets.UTF_8)).isEqualTo(daemon.getToken());
+        if (file.getFileSystem().supportedFileAttributeViews().contains(
+                "posix")) {
+            assertThat(Files.getPosixFilePermissions(file))
+                    .containsExactlyInAnyOrder(PosixFilePermission.OWNER_READ,
+                            PosixFilePermission.OWNER_WRITE);
+        }
+        daemon.close();
+        assertThat(file).doesNotExist();
+    }
+
+    @Test
+    public void resolvesSuppressionFromEnclosingClass() throws Exception {
+        List<String> violations = daemon.scan(TEST_CLASSES.resolve(
+                "SuppressModernizerTestClasses$SuppressedOnClass$InnerClass" +
+                ".class"));
+        assertThat(violations).isEmpty();
+    }
+
+    @Test
+    public void reportsErrorForMissingPath() {
+        assertThatThrownBy(() -> ModernizerDaemon.request(port,
+                daemon.getToken(), new ModernizerDaemon.Filters(),
+                Collections.singletonList("does-not-exist.class"),
+                new PrintStream(new ByteArrayOutputStream(), true, "UTF-8")))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("does-not-exist.class");
+    }
+
+    @Test
+    public void dropsClientWhichSendsNothing(@TempDir Path dir)
+            throws Exception {
+        Files.write(dir.resolve("Legacy.class"),
+                TestClassFiles.legacyClass("Legacy", false));
+        try (ModernizerDaemon single = new ModernizerDaemon(newModernizer(),
+                    /*readTimeoutMillis=*/ 200, /*maxRequests=*/ 1);
+             Socket idle = new Socket(InetAddress.getLoopbackAddress(),
+                    single.start(0))) {
+            idle.setSoTimeout(10_000);
+            // The daemon closes the idle connection, freeing its only
+            // thread for the next request.
+            assertThat(idle.getInputStream().read()).isEqualTo(-1);
+            assertThat(ModernizerDaemon.request(idle.getPort(),
+                    single.getToken(), new ModernizerDaemon.Filters(),
+                    Collections.singletonList(dir.toString()),
+                    new PrintStream(new ByteArrayOutputStream(), true,
+                            "UTF-8"))).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void rejectsFiltersWithServe() throws Exception {
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        assertThat(ModernizerDaemon.run(new String[] {"serve",
+                "--java-version", "8", "--exclusion", "java/util/Vector"},
+                System.out, new PrintStream(err, true, "UTF-8")))
+                .isEqualTo(2);
+        assertThat(new String(err.toByteArray(), StandardCharsets.UTF_8))
+                .contains("Usage:");
+    }
+
+    @Test
+    public void rejectsOptionWithoutValue() throws Exception {
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        assertThat(ModernizerDaemon.run(new String[] {"scan", "--port"},
+                System.out, new PrintStream(err, true, "UTF-8")))
+                .isEqualTo(2);
+        assertThat(new String(err.toByteArray(), StandardCharsets.UTF_8))
+                .contains("Missing value for --port", "Usage:");
+    }
+
+    private static Modernizer newModernizer() throws Exception {
+        try (InputStream is = Modernizer.class.getResourceAsStream(
+                "/modernizer.xml")) {
+            return new Modernizer("8", Modernizer.parseFromXml(is),
+                    Collections.<String>emptySet(),
+                    Collections.<Pattern>emptySet(),
+                    Collections.<String>emptySet(),
+                    Collections.<String>emptySet(),
+                    Collections.<Pattern>emptySet(), true);
+        }
+    }
+}
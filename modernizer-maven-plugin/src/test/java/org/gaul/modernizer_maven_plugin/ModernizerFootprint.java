@@ -0,0 +1,78 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Measures the heap retained per Modernizer instance when, as in a
+ * long-lived build daemon, every project parses the rules afresh and keeps
+ * its own instance.  Not run by the build; after {@code mvn test-compile}
+ * run:
+ *
+ * <pre>
+ * java -cp target/classes:target/test-classes:$ASM_JARS \
+ *     org.gaul.modernizer_maven_plugin.ModernizerFootprint
+ * </pre>
+ */
+public final class ModernizerFootprint {
+    private static final int INSTANCES = 200;
+
+    private ModernizerFootprint() {
+        throw new AssertionError("Intentionally not implemented");
+    }
+
+    public static void main(String[] args) throws Exception {
+        // warm up class loading and caches
+        newModernizer();
+        long before = usedHeap();
+        List<Modernizer> instances = new ArrayList<>();
+        for (int i = 0; i < INSTANCES; ++i) {
+            instances.add(newModernizer());
+        }
+        long after = usedHeap();
+        System.out.printf(Locale.ROOT, "%d instances, %d bytes each%n",
+                instances.size(), (after - before) / instances.size());
+    }
+
+    private static Modernizer newModernizer() throws Exception {
+        try (InputStream is = Modernizer.class.getResourceAsStream(
+                "/modernizer.xml")) {
+            return new Modernizer("11", Modernizer.parseFromXml(is),
+                    Collections.<String>emptySet(),
+                    Collections.<Pattern>emptySet(),
+                    Collections.<String>emptySet(),
+                    Collections.<String>emptySet(),
+                    Collections.<Pattern>emptySet(),
+                    /*ignoreGeneratedClasses=*/ true);
+        }
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; ++i) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
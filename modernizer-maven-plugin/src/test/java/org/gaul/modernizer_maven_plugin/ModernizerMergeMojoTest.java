@@ -0,0 +1,82 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalInt;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.gaul.modernizer_maven_plugin.output.OutputEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public final class ModernizerMergeMojoTest {
+    private static final Violation VIOLATION = new Violation(
+            "java/util/Vector", 2, OptionalInt.of(99), "Prefer ArrayList");
+
+    @Test
+    public void partialReportRoundTrips(@TempDir Path dir) throws Exception {
+        OutputEntry entry = new OutputEntry("Foo.java",
+                new ViolationOccurrence("java/util/Vector", 7, VIOLATION));
+        Path path = dir.resolve("shard.json");
+        new PartialReport(1, 3,
+                OccurrenceStore.of(Collections.singletonList(entry))).write(path);
+
+        PartialReport report = PartialReport.read(path);
+        assertThat(report.getShardIndex()).isEqualTo(1);
+        assertThat(report.getShardCount()).isEqualTo(3);
+        assertThat(report.getOutputEntries()).containsExactly(entry);
+    }
+
+    @Test
+    public void mergesEveryShardInOrder() throws Exception {
+        OutputEntry foo = new OutputEntry("Foo.java",
+                new ViolationOccurrence("java/util/Vector", 7, VIOLATION));
+        OutputEntry bar = new OutputEntry("Bar.java",
+                new ViolationOccurrence("java/util/Vector", 3, VIOLATION));
+        List<OutputEntry> merged = ModernizerMergeMojo.merge(Arrays.asList(
+                new PartialReport(1, 2,
+                        OccurrenceStore.of(Collections.singletonList(foo))),
+                new PartialReport(0, 2,
+                        OccurrenceStore.of(Collections.singletonList(bar)))));
+        assertThat(merged).containsExactly(bar, foo);
+    }
+
+    @Test
+    public void rejectsMissingShard() {
+        assertThatThrownBy(() -> ModernizerMergeMojo.merge(
+                Collections.singletonList(new PartialReport(0, 2,
+                        new OccurrenceStore()))))
+                .isInstanceOf(MojoExecutionException.class)
+                .hasMessageContaining("[1]");
+    }
+
+    @Test
+    public void shardKeepsNestedClassesWithEnclosingClass() {
+        int shard = ModernizerMojo.shardOf("com/example/Foo", 16);
+        assertThat(ModernizerMojo.shardOf("com/example/Foo$1.class", 16))
+                .isEqualTo(shard);
+        assertThat(ModernizerMojo.shardOf("com/example/Foo$Bar$Baz", 16))
+                .isEqualTo(shard);
+    }
+}
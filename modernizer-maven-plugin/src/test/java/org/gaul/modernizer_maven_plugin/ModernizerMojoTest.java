@@ -20,8 +20,10 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 public final class ModernizerMojoTest {
 
@@ -67,4 +69,29 @@ public final class ModernizerMojoTest {
                 .isEqualTo(SOURCE.resolve(
                         "com/example/package-info.java").toString());
     }
+
+    @Test
+    public void mapToClassFilesIncludesNestedClasses(@TempDir Path root)
+            throws Exception {
+        Path output = root.resolve("classes");
+        Path source = root.resolve("java");
+        for (String name : new String[] {"Foo", "Foo$1", "Foo$Bar",
+                "FooBar", "Bar"}) {
+            TestClassFiles.writeLegacyClass(output, "com/example/" + name,
+                    false);
+        }
+        List<Path> classFiles = ModernizerMojo.mapToClassFiles(
+                source.resolve("com/example/Foo.java"), source, output);
+        assertThat(classFiles).extracting(p -> p.getFileName().toString())
+                .containsExactlyInAnyOrder("Foo.class", "Foo$1.class",
+                        "Foo$Bar.class");
+    }
+
+    @Test
+    public void mapToClassFilesForUncompiledSource(@TempDir Path root)
+            throws Exception {
+        assertThat(ModernizerMojo.mapToClassFiles(
+                root.resolve("java/com/example/Foo.java"),
+                root.resolve("java"), root.resolve("classes"))).isEmpty();
+    }
 }
@@ -17,7 +17,9 @@
 package org.gaul.modernizer_maven_plugin;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
@@ -46,6 +48,7 @@ import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.CopyOption;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -162,6 +165,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.objectweb.asm.ClassReader;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.xml.sax.SAXException;
 
 @SuppressWarnings("deprecation")
 public final class ModernizerTest {
@@ -192,6 +196,42 @@ public final class ModernizerTest {
         }
     }
 
+    @Test
+    public void readsWildcards() throws Exception {
+        Map<String, Collection<Violation>> rules = Modernizer.parseFromXml(
+                violationsXml("a/B.*", "a/B.m:*"));
+        assertThat(rules).containsOnlyKeys("a/B.*", "a/B.m:*");
+        Modernizer modernizer = new Modernizer("8", rules, NO_EXCLUSIONS,
+                NO_EXCLUSION_PATTERNS, NO_IGNORED_PACKAGES,
+                NO_IGNORED_CLASS_NAMES, NO_EXCLUSION_PATTERNS, true);
+        assertThat(modernizer.check("c/D", "a/B.m:(I)V"))
+                .containsExactlyElementsOf(rules.get("a/B.m:*"));
+        assertThat(modernizer.check("c/D", "a/B.n:()V"))
+                .containsExactlyElementsOf(rules.get("a/B.*"));
+        assertThat(modernizer.check("c/D", "a/B")).isEmpty();
+    }
+
+    @Test
+    public void rejectsPartialWildcards() {
+        for (String name : new String[] {"a/B.m*", "a/*.m:()V", "*"}) {
+            assertThatThrownBy(() -> Modernizer.parseFromXml(
+                    violationsXml(name)))
+                    .isInstanceOf(SAXException.class);
+        }
+    }
+
+    private static InputStream violationsXml(String... names) {
+        StringBuilder xml = new StringBuilder("<modernizer>");
+        for (String name : names) {
+            xml.append("<violation><name>").append(name)
+                    .append("</name><version>8</version>")
+                    .append("<comment>comment</comment></violation>");
+        }
+        xml.append("</modernizer>");
+        return new ByteArrayInputStream(
+                xml.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
     @Test
     public void testConstructorCurrentApi() throws Exception {
         ClassReader cr = new ClassReader(ArrayListTestClass.class.getName());
@@ -638,6 +678,36 @@ public final class ModernizerTest {
         assertThat(occurrences).isEmpty();
     }
 
+    @Test
+    public void testBatchCheckSuppressesAcrossSources() throws Exception {
+        List<ClassSource> sources = new ArrayList<>();
+        sources.add(ClassSource.of("Outer$Inner.class",
+                TestClassFiles.legacyClass("Outer$Inner", false)));
+        sources.add(ClassSource.of("Other.class",
+                TestClassFiles.legacyClass("Other", false)));
+        sources.add(ClassSource.of("Outer.class",
+                TestClassFiles.legacyClass("Outer", true)));
+
+        Map<ClassSource, Collection<ViolationOccurrence>> occurrences =
+                createModernizer("1.2").check(sources, 4);
+
+        assertThat(occurrences.keySet()).containsExactlyElementsOf(sources);
+        assertThat(occurrences.get(sources.get(0))).isEmpty();
+        assertThat(occurrences.get(sources.get(1))).hasSize(1);
+        assertThat(occurrences.get(sources.get(2))).isEmpty();
+    }
+
+    @Test
+    public void testBatchCheckPropagatesReadFailure() throws Exception {
+        List<ClassSource> sources = new ArrayList<>();
+        sources.add(ClassSource.of("Other.class",
+                TestClassFiles.legacyClass("Other", false)));
+        sources.add(ClassSource.of(Paths.get("does-not-exist.class")));
+
+        assertThatThrownBy(() -> createModernizer("1.2").check(sources, 2))
+                .isInstanceOf(NoSuchFileException.class);
+    }
+
     /** Helper to create Modernizer object with default parameters. */
     private Modernizer createModernizer(String javaVersion) {
         return new Modernizer(javaVersion, violations, NO_EXCLUSIONS,
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.regex.Pattern;
+
+import org.gaul.modernizer_maven_plugin.output.OutputEntry;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+
+public final class OccurrenceStoreTest {
+    private static final Violation VECTOR = new Violation(
+            "java/util/Vector", 2, OptionalInt.empty(), "Prefer ArrayList");
+    private static final Violation HASHTABLE = new Violation(
+            "java/util/Hashtable", 2, OptionalInt.empty(), "Prefer HashMap");
+
+    @Test
+    public void roundTripsEntriesInOrder() {
+        List<OutputEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 100; ++i) {
+            entries.add(new OutputEntry("Foo" + (i / 10) + ".java",
+                    new ViolationOccurrence("method" + (i / 5), i,
+                            i % 3 == 0 ? VECTOR : HASHTABLE)));
+        }
+        OccurrenceStore store = OccurrenceStore.of(entries);
+        assertThat(store.size()).isEqualTo(100);
+        assertThat(store.toOutputEntries()).isEqualTo(entries);
+    }
+
+    @Test
+    public void internsFileNamesAcrossClasses() {
+        OccurrenceStore store = new OccurrenceStore();
+        store.addAll(new String("Foo.java"), Arrays.asList(
+                new ViolationOccurrence("\"<init>\"", 1, VECTOR),
+                new ViolationOccurrence("java/util/Hashtable", 2, HASHTABLE)));
+        store.addAll(new String("Foo.java"), Arrays.asList(
+                new ViolationOccurrence("\"<init>\"", 3, VECTOR)));
+
+        OccurrenceStore.Cursor cursor = store.cursor();
+        assertThat(cursor.next()).isTrue();
+        String fileName = cursor.getFileName();
+        while (cursor.next()) {
+            assertThat(cursor.getFileName()).isSameAs(fileName);
+        }
+        assertThat(store.toOutputEntries()).extracting(
+                entry -> entry.getOccurrence().getOwner())
+                .containsExactly("\"<init>\"", "java/util/Hashtable",
+                        "\"<init>\"");
+        assertThat(store.getFileCount()).isEqualTo(1);
+        assertThat(store.getOwnerCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void storesScanResultsOncePerFileAndOwner() throws Exception {
+        Map<String, Collection<Violation>> violations;
+        try (InputStream is = Modernizer.class.getResourceAsStream(
+                "/modernizer.xml")) {
+            violations = Modernizer.parseFromXml(is);
+        }
+        Modernizer modernizer = new Modernizer("8", violations,
+                Collections.<String>emptySet(),
+                Collections.<Pattern>emptySet(),
+                Collections.<String>emptySet(),
+                Collections.<String>emptySet(),
+                Collections.<Pattern>emptySet(),
+                /*ignoreGeneratedClasses=*/ true);
+        OccurrenceStore store = new OccurrenceStore();
+        List<OutputEntry> expected = new ArrayList<>();
+        for (int i = 0; i < 10; ++i) {
+            String fileName = "com/example/Legacy" + i + ".java";
+            Collection<ViolationOccurrence> occurrences = modernizer.check(
+                    new ClassReader(TestClassFiles.legacyClass(
+                            "com/example/Legacy" + i, /*suppressed=*/ false)));
+            assertThat(occurrences).hasSize(1);
+            // The visitor reports the referenced member, not the class.
+            assertThat(occurrences.iterator().next().getOwner())
+                    .isEqualTo("\"<init>\"");
+            for (ViolationOccurrence occurrence : occurrences) {
+                expected.add(new OutputEntry(fileName, occurrence));
+                // As read back from the scan cache: equal, not identical.
+                store.add(fileName, new ViolationOccurrence(
+                        occurrence.getOwner(), occurrence.getLineNumber(),
+                        copy(occurrence.getViolation())));
+            }
+        }
+
+        assertThat(store.toOutputEntries()).isEqualTo(expected);
+        assertThat(store.getFileCount()).isEqualTo(10);
+        assertThat(store.getOwnerCount()).isEqualTo(1);
+        OccurrenceStore.Cursor cursor = store.cursor();
+        assertThat(cursor.next()).isTrue();
+        Violation violation = cursor.getViolation();
+        while (cursor.next()) {
+            assertThat(cursor.getViolation()).isSameAs(violation);
+        }
+    }
+
+    @Test
+    public void cursorSeesOccurrencesAddedBeforeIt() {
+        OccurrenceStore store = new OccurrenceStore();
+        store.add("Foo.java",
+                new ViolationOccurrence("com/example/Foo", 1, VECTOR));
+        OccurrenceStore.Cursor cursor = store.cursor();
+        assertThatThrownBy(cursor::getLineNumber)
+                .isInstanceOf(IllegalStateException.class);
+        store.add("Foo.java",
+                new ViolationOccurrence("com/example/Foo", 2, VECTOR));
+
+        assertThat(cursor.next()).isTrue();
+        assertThat(cursor.getLineNumber()).isEqualTo(1);
+        assertThat(cursor.getViolation()).isSameAs(VECTOR);
+        assertThat(cursor.next()).isFalse();
+        assertThat(cursor.next()).isFalse();
+    }
+
+    private static Violation copy(Violation violation) {
+        return new Violation(violation.getName(), violation.getVersion(),
+                violation.getUntil(), violation.getComment());
+    }
+}
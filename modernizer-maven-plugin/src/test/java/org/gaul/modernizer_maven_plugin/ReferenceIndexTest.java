@@ -0,0 +1,180 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.ClassReader;
+
+public final class ReferenceIndexTest {
+    private Map<String, Collection<Violation>> violations;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        try (InputStream is = Modernizer.class.getResourceAsStream(
+                "/modernizer.xml")) {
+            violations = Modernizer.parseFromXml(is);
+        }
+    }
+
+    @Test
+    public void findsSameViolationsAsScan(@TempDir Path dir) throws Exception {
+        List<Path> classFiles = new ArrayList<>();
+        for (String root : new String[] {"classes", "test-classes"}) {
+            classFiles.addAll(ClassFiles.walk(Paths.get("target", root)));
+        }
+        classFiles.add(TestClassFiles.writeLegacyClass(dir.resolve("legacy"),
+                "com/example/Legacy", /*suppressed=*/ false));
+        Path file = dir.resolve("references.bin");
+        ReferenceIndex.record(classFiles, Path::toString).write(file);
+        ReferenceIndex index = ReferenceIndex.read(file);
+        assertThat(index.size()).isEqualTo(classFiles.size());
+
+        List<ClassSource> sources = new ArrayList<>();
+        for (Path classFile : classFiles) {
+            sources.add(ClassSource.of(classFile));
+        }
+        int violating = 0;
+        for (String javaVersion : new String[] {"1.4", "8", "11", "17"}) {
+            for (boolean ignoreGenerated : new boolean[] {true, false}) {
+                Modernizer modernizer = newModernizer(javaVersion,
+                        ignoreGenerated);
+                List<Collection<ViolationOccurrence>> scanned =
+                        new ArrayList<>(modernizer.check(sources,
+                                /*parallelism=*/ 1).values());
+                Map<String, Collection<ViolationOccurrence>> expected =
+                        new HashMap<>();
+                for (int i = 0; i < classFiles.size(); ++i) {
+                    if (!scanned.get(i).isEmpty()) {
+                        expected.put(classFiles.get(i).toString(),
+                                scanned.get(i));
+                    }
+                }
+
+                Modernizer queried = modernizer.withIgnoreClassNames(
+                        index.suppressedClassNames(ignoreGenerated));
+                Map<String, Collection<ViolationOccurrence>> actual =
+                        new HashMap<>();
+                for (int i = 0; i < index.size(); ++i) {
+                    Collection<ViolationOccurrence> found =
+                            queried.check(index, i);
+                    if (!found.isEmpty()) {
+                        actual.put(index.sourceName(i), found);
+                    }
+                }
+                assertThat(actual).isEqualTo(expected);
+                violating += actual.size();
+            }
+        }
+        assertThat(violating).isGreaterThan(50);
+    }
+
+    @Test
+    public void recordsFromManyThreads() throws Exception {
+        List<Path> classFiles = ClassFiles.walk(Paths.get("target",
+                "test-classes"));
+        ReferenceIndex serial = ReferenceIndex.record(classFiles,
+                Path::toString);
+        ReferenceIndex.Builder builder = new ReferenceIndex.Builder();
+        new ScanScheduler(/*parallelism=*/ 4, /*handoffNanos=*/ 0).map(
+                classFiles, path -> {
+                    try {
+                        builder.record(new ClassReader(
+                                Files.readAllBytes(path)), path.toString());
+                    } catch (IOException ioe) {
+                        throw new UncheckedIOException(ioe);
+                    }
+                    return path;
+                });
+        ReferenceIndex parallel = builder.build();
+
+        assertThat(parallel.size()).isEqualTo(serial.size());
+        Modernizer modernizer = newModernizer("8", true);
+        for (int i = 0; i < serial.size(); ++i) {
+            assertThat(parallel.className(i)).isEqualTo(serial.className(i));
+            assertThat(parallel.sourceName(i))
+                    .isEqualTo(serial.sourceName(i));
+            assertThat(modernizer.check(parallel, i))
+                    .isEqualTo(modernizer.check(serial, i));
+        }
+        assertThat(parallel.suppressedClassNames(true).size())
+                .isEqualTo(serial.suppressedClassNames(true).size())
+                .isPositive();
+    }
+
+    @Test
+    public void recordsSuppressedClasses(@TempDir Path dir) throws Exception {
+        List<Path> classFiles = new ArrayList<>();
+        classFiles.add(TestClassFiles.writeLegacyClass(dir, "a/Suppressed",
+                /*suppressed=*/ true));
+        classFiles.add(TestClassFiles.writeLegacyClass(dir, "a/Legacy",
+                /*suppressed=*/ false));
+        ReferenceIndex index = ReferenceIndex.record(classFiles,
+                Path::toString);
+
+        assertThat(index.className(0)).isEqualTo("a/Legacy");
+        assertThat(index.className(1)).isEqualTo("a/Suppressed");
+        ClassNameTrie suppressed = index.suppressedClassNames(
+                /*ignoreGeneratedClasses=*/ true);
+        assertThat(suppressed.size()).isEqualTo(1);
+        assertThat(suppressed.contains("a/Suppressed")).isTrue();
+        Modernizer modernizer = newModernizer("8", true)
+                .withIgnoreClassNames(suppressed);
+        assertThat(modernizer.check(index, 0)).hasSize(1);
+        assertThat(modernizer.check(index, 1)).isEmpty();
+    }
+
+    @Test
+    public void rejectsOtherFiles(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("references.bin");
+        Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+        assertThatThrownBy(() -> ReferenceIndex.read(file))
+                .isInstanceOf(IOException.class);
+        Files.write(file, new byte[] {0x4d, 0x52});
+        assertThatThrownBy(() -> ReferenceIndex.read(file))
+                .isInstanceOf(IOException.class);
+    }
+
+    private Modernizer newModernizer(String javaVersion,
+            boolean ignoreGeneratedClasses) {
+        return new Modernizer(javaVersion, violations,
+                Collections.<String>emptySet(),
+                Collections.singleton(Pattern.compile("java/util/Hashtable\\..*")),
+                Collections.singleton("org.gaul.modernizer_maven_plugin.output"),
+                Collections.<String>emptySet(),
+                Collections.<Pattern>emptySet(),
+                ignoreGeneratedClasses);
+    }
+}
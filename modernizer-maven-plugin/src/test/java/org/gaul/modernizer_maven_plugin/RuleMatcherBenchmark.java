@@ -0,0 +1,126 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import static org.gaul.modernizer_maven_plugin.Utils.ASM_API;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+
+/**
+ * Compares the generated rule matcher with the map-based one on the member
+ * references of real classes.  Not run by the build; after
+ * {@code mvn test-compile} run:
+ *
+ * <pre>
+ * java -cp target/classes:target/test-classes:$ASM_JARS \
+ *     org.gaul.modernizer_maven_plugin.RuleMatcherBenchmark [classesDir]
+ * </pre>
+ */
+public final class RuleMatcherBenchmark {
+    private static final int ROUNDS = 20;
+
+    private RuleMatcherBenchmark() {
+        throw new AssertionError("Intentionally not implemented");
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path root = Paths.get(args.length > 0 ? args[0] : "target/classes");
+        List<String[]> references = new ArrayList<>();
+        for (Path classFile : ClassFiles.walk(root)) {
+            collectReferences(Files.readAllBytes(classFile), references);
+        }
+        Map<String, Collection<Violation>> violations;
+        try (InputStream is = Modernizer.class.getResourceAsStream(
+                "/modernizer.xml")) {
+            violations = Modernizer.parseFromXml(is);
+        }
+        Map<String, Collection<Violation>> rules =
+                RuleMatchers.fold(RuleTable.of(violations), 8);
+        RuleMatcher map = new RuleMatchers.MapRuleMatcher(rules);
+        RuleMatcher generated = RuleMatchers.generate(rules);
+        System.out.printf(Locale.ROOT, "%d references, %d rules%n",
+                references.size(), rules.size());
+        for (int round = 0; round < ROUNDS; ++round) {
+            long mapNanos = time(map, references);
+            long generatedNanos = time(generated, references);
+            System.out.printf(Locale.ROOT,
+                    "round %2d: map %6.1f ns/probe, generated %6.1f ns/probe%n",
+                    round, (double) mapNanos / references.size(),
+                    (double) generatedNanos / references.size());
+        }
+    }
+
+    private static long time(RuleMatcher matcher, List<String[]> references) {
+        int hits = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < 100; ++i) {
+            for (String[] reference : references) {
+                if (matcher.matchMember(reference[0], reference[1],
+                        reference[2]) != null) {
+                    ++hits;
+                }
+            }
+        }
+        long elapsed = (System.nanoTime() - start) / 100;
+        if (hits == -1) {
+            System.out.println("unreachable");
+        }
+        return elapsed;
+    }
+
+    /**
+     * Adds the member references of a class, sharing strings the way
+     * ClassReader does within one class.
+     */
+    private static void collectReferences(byte[] bytes,
+            List<String[]> references) {
+        new ClassReader(bytes).accept(new ClassVisitor(ASM_API) {
+            @Override
+            public MethodVisitor visitMethod(int access, String name,
+                    String descriptor, String signature,
+                    String[] exceptions) {
+                return new MethodVisitor(ASM_API) {
+                    @Override
+                    public void visitFieldInsn(int opcode, String owner,
+                            String name, String desc) {
+                        references.add(new String[] {owner, name, desc});
+                    }
+
+                    @Override
+                    public void visitMethodInsn(int opcode, String owner,
+                            String name, String desc, boolean isInterface) {
+                        references.add(new String[] {owner,
+                                name.equals("<init>") ? "\"<init>\"" : name,
+                                desc});
+                    }
+                };
+            }
+        }, 0);
+    }
+}
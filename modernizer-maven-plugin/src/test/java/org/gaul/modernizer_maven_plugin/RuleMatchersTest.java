@@ -0,0 +1,198 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalInt;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public final class RuleMatchersTest {
+    private Map<String, Collection<Violation>> violations;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        try (InputStream is = Modernizer.class.getResourceAsStream(
+                "/modernizer.xml")) {
+            violations = Modernizer.parseFromXml(is);
+        }
+    }
+
+    private static Collection<Violation> rule(String name, int version,
+            OptionalInt until) {
+        return Collections.singletonList(new Violation(name, version, until,
+                "comment"));
+    }
+
+    /** Asserts that both matchers agree on every rule and on misses. */
+    private static void assertEquivalent(
+            Map<String, Collection<Violation>> rules, RuleMatcher matcher) {
+        RuleMatcher expected = new RuleMatchers.MapRuleMatcher(rules);
+        for (String token : rules.keySet()) {
+            int dot = token.indexOf('.');
+            if (dot == -1) {
+                assertThat(matcher.matchType(token))
+                        .isSameAs(expected.matchType(token));
+                assertThat(matcher.matchType(token + "X")).isNull();
+                continue;
+            }
+            String owner = token.substring(0, dot);
+            if (RuleTable.isOwnerWildcard(token)) {
+                assertThat(matcher.matchMember(owner, "any", "()V"))
+                        .isNotNull()
+                        .isSameAs(expected.matchMember(owner, "any", "()V"));
+                continue;
+            }
+            int colon = token.indexOf(':', dot);
+            String name = token.substring(dot + 1, colon);
+            if (RuleTable.isNameWildcard(token)) {
+                assertThat(matcher.matchMember(owner, name, "()V"))
+                        .isNotNull()
+                        .isSameAs(expected.matchMember(owner, name, "()V"));
+                continue;
+            }
+            String desc = token.substring(colon + 1);
+            assertThat(matcher.matchMember(owner, name, desc))
+                    .isNotNull()
+                    .isSameAs(expected.matchMember(owner, name, desc));
+            assertThat(matcher.matchMember(owner, name, desc + "X")).isNull();
+            assertThat(matcher.matchMember(owner, name + "X", desc)).isNull();
+            assertThat(matcher.matchMember(owner + "X", name, desc)).isNull();
+            assertThat(matcher.matchType(owner))
+                    .isEqualTo(expected.matchType(owner));
+        }
+    }
+
+    @Test
+    public void generatedMatcherAgreesWithMap() throws Exception {
+        Map<String, Collection<Violation>> rules =
+                RuleMatchers.fold(RuleTable.of(violations), 8);
+        RuleMatcher matcher = RuleMatchers.generate(rules);
+        assertThat(matcher).isNotInstanceOf(RuleMatchers.MapRuleMatcher.class);
+        assertEquivalent(rules, matcher);
+    }
+
+    @Test
+    public void generatedMatcherIsNotDefinedInPluginClassLoader()
+            throws Exception {
+        Map<String, Collection<Violation>> rules = new HashMap<>();
+        rules.put("a/B", rule("a/B", 2, OptionalInt.empty()));
+        Class<?> clazz = RuleMatchers.generate(rules).getClass();
+        // Hidden classes cannot be found by name, so the loader keeps no
+        // reference to them.
+        assertThatThrownBy(() -> Class.forName(clazz.getName(), false,
+                RuleMatchers.class.getClassLoader()))
+                .isInstanceOf(ClassNotFoundException.class);
+        assertThat(RuleMatchers.generate(rules).getClass())
+                .isNotSameAs(clazz);
+    }
+
+    @Test
+    public void distinguishesHashCollisions() throws Exception {
+        // "Aa" and "BB" share a hash code, as do "AaAa" and "BBBB".
+        Map<String, Collection<Violation>> rules = new HashMap<>();
+        for (String token : new String[] {"Aa", "BB", "Aa.Aa:()V",
+                "Aa.BB:()V", "BB.Aa:()V", "BB.AaAa:(I)V", "BB.BBBB:(I)V",
+                "BB.BBBB:(J)V"}) {
+            rules.put(token, rule(token, 2, OptionalInt.empty()));
+        }
+        RuleMatcher matcher = RuleMatchers.generate(rules);
+        assertEquivalent(rules, matcher);
+        assertThat(matcher.matchMember("BB", "BB", "()V")).isNull();
+    }
+
+    @Test
+    public void preferMostPreciseRule() throws Exception {
+        Map<String, Collection<Violation>> rules = new HashMap<>();
+        for (String token : new String[] {"a/B.*", "a/B.m:*", "a/B.m:()V",
+                "a/C.m:*"}) {
+            rules.put(token, rule(token, 2, OptionalInt.empty()));
+        }
+        for (RuleMatcher matcher : new RuleMatcher[] {
+                RuleMatchers.generate(rules),
+                new RuleMatchers.MapRuleMatcher(rules)}) {
+            assertThat(matcher.matchMember("a/B", "m", "()V"))
+                    .isSameAs(rules.get("a/B.m:()V"));
+            assertThat(matcher.matchMember("a/B", "m", "(I)V"))
+                    .isSameAs(rules.get("a/B.m:*"));
+            assertThat(matcher.matchMember("a/B", "n", "()V"))
+                    .isSameAs(rules.get("a/B.*"));
+            assertThat(matcher.matchMember("a/C", "m", "(J)I"))
+                    .isSameAs(rules.get("a/C.m:*"));
+            assertThat(matcher.matchMember("a/C", "n", "()V")).isNull();
+            assertThat(matcher.matchType("a/B")).isNull();
+        }
+    }
+
+    @Test
+    public void wildcardAppliesWhenPreciseRuleDoesNot() {
+        Map<String, Collection<Violation>> rules = new HashMap<>();
+        rules.put("a/B.m:*", rule("a/B.m:*", 8, OptionalInt.empty()));
+        rules.put("a/B.m:()V", rule("a/B.m:()V", 11, OptionalInt.empty()));
+
+        RuleMatcher java8 = RuleMatchers.create(RuleTable.of(rules), 8);
+        assertThat(java8.matchMember("a/B", "m", "()V"))
+                .containsExactlyElementsOf(rules.get("a/B.m:*"));
+        RuleMatcher java11 = RuleMatchers.create(RuleTable.of(rules), 11);
+        assertThat(java11.matchMember("a/B", "m", "()V"))
+                .containsExactlyElementsOf(rules.get("a/B.m:()V"));
+    }
+
+    @Test
+    public void foldsTargetVersion() {
+        Map<String, Collection<Violation>> rules = new HashMap<>();
+        rules.put("a/Old.m:()V", rule("a/Old.m:()V", 2, OptionalInt.of(5)));
+        rules.put("a/New.m:()V", rule("a/New.m:()V", 9, OptionalInt.empty()));
+
+        RuleMatcher java8 = RuleMatchers.create(RuleTable.of(rules), 8);
+        assertThat(java8.matchMember("a/Old", "m", "()V")).isNull();
+        assertThat(java8.matchMember("a/New", "m", "()V")).isNull();
+        RuleMatcher java11 = RuleMatchers.create(RuleTable.of(rules), 11);
+        assertThat(java11.matchMember("a/New", "m", "()V")).hasSize(1);
+        RuleMatcher java4 = RuleMatchers.create(RuleTable.of(rules), 4);
+        assertThat(java4.matchMember("a/Old", "m", "()V")).hasSize(1);
+    }
+
+    @Test
+    public void sharesMatcherForEqualRules() {
+        assertThat(RuleMatchers.create(RuleTable.of(violations), 11))
+                .isSameAs(RuleMatchers.create(
+                        RuleTable.of(new HashMap<>(violations)), 11));
+    }
+
+    @Test
+    public void fallsBackWhenGenerationFails() {
+        // A single owner with this many members exceeds the 64 KB limit.
+        Map<String, Collection<Violation>> rules = new HashMap<>();
+        for (int i = 0; i < 5000; ++i) {
+            String token = "a/Huge.method" + i + ":()V";
+            rules.put(token, rule(token, 2, OptionalInt.empty()));
+        }
+        RuleMatcher matcher = RuleMatchers.create(RuleTable.of(rules), 8);
+        assertThat(matcher).isInstanceOf(RuleMatchers.MapRuleMatcher.class);
+        assertThat(matcher.matchMember("a/Huge", "method42", "()V"))
+                .hasSize(1);
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalInt;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public final class RuleTableTest {
+    private Map<String, Collection<Violation>> violations;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        violations = parse();
+    }
+
+    private static Map<String, Collection<Violation>> parse()
+            throws Exception {
+        try (InputStream is = Modernizer.class.getResourceAsStream(
+                "/modernizer.xml")) {
+            return Modernizer.parseFromXml(is);
+        }
+    }
+
+    @Test
+    public void looksUpEveryToken() {
+        RuleTable table = RuleTable.of(violations);
+        int size = 0;
+        for (Map.Entry<String, Collection<Violation>> entry :
+                violations.entrySet()) {
+            assertThat(table.get(entry.getKey()))
+                    .containsExactlyElementsOf(entry.getValue());
+            size += entry.getValue().size();
+        }
+        assertThat(table.size()).isEqualTo(size);
+        assertThat(table.get("java/util/Vector.missing:()V")).isNull();
+    }
+
+    @Test
+    public void bundledRulesNameEachOverload() {
+        for (String token : violations.keySet()) {
+            assertThat(RuleTable.isNameWildcard(token) ||
+                    RuleTable.isOwnerWildcard(token)).as(token).isFalse();
+        }
+    }
+
+    @Test
+    public void matchesWildcards() {
+        Map<String, Collection<Violation>> rules = new HashMap<>();
+        for (String token : new String[] {"a/B.*", "a/B.m:*", "a/B.m:()V"}) {
+            rules.put(token, Collections.singletonList(new Violation(token,
+                    /*version=*/ 8, OptionalInt.empty(), "comment")));
+        }
+        rules.put("a/B.n:()V", Collections.singletonList(new Violation(
+                "a/B.n:()V", /*version=*/ 11, OptionalInt.empty(),
+                "comment")));
+        RuleTable table = RuleTable.of(rules);
+        assertThat(table.match("a/B.m:()V", 8))
+                .containsExactlyElementsOf(rules.get("a/B.m:()V"));
+        assertThat(table.match("a/B.m:(I)V", 8))
+                .containsExactlyElementsOf(rules.get("a/B.m:*"));
+        assertThat(table.match("a/B.n:()V", 8))
+                .containsExactlyElementsOf(rules.get("a/B.*"));
+        assertThat(table.match("a/B.n:()V", 11))
+                .containsExactlyElementsOf(rules.get("a/B.n:()V"));
+        assertThat(table.match("a/B", 8)).isNull();
+        assertThat(table.match("a/B.m:()V", 7)).isNull();
+    }
+
+    @Test
+    public void retainsRulesOfKeptOwners() {
+        RuleTable table = RuleTable.of(violations);
+        RuleTable jdk = table.retainOwners(owner -> owner.startsWith("java/"));
+        assertThat(jdk.size()).isPositive().isLessThan(table.size());
+        assertThat(jdk.get("java/util/Vector.\"<init>\":()V")).isNotNull();
+        assertThat(jdk.get("java/lang/String.getBytes:" +
+                "(Ljava/lang/String;)[B")).isNotNull();
+        assertThat(jdk.get("com/google/common/base/Objects.equal:" +
+                "(Ljava/lang/Object;Ljava/lang/Object;)Z")).isNull();
+        assertThat(table.retainOwners(owner -> true)).isSameAs(table);
+    }
+
+    @Test
+    public void sharesTableAcrossParses() throws Exception {
+        RuleTable table = RuleTable.of(violations);
+        assertThat(RuleTable.of(parse())).isSameAs(table);
+        Map<String, Collection<Violation>> fewer = new HashMap<>(violations);
+        fewer.remove(fewer.keySet().iterator().next());
+        assertThat(RuleTable.of(fewer)).isNotEqualTo(table);
+    }
+
+    @Test
+    public void internsStrings() {
+        RuleTable table = RuleTable.of(violations);
+        Map<String, String> comments = new HashMap<>();
+        for (int id = 0; id < table.size(); ++id) {
+            Violation violation = table.violation(id);
+            String comment = comments.computeIfAbsent(violation.getComment(),
+                    c -> c);
+            assertThat(violation.getComment()).isSameAs(comment);
+        }
+        assertThat(comments).hasSizeLessThan(table.size());
+    }
+
+    @Test
+    public void appliesToMatchesViolation() {
+        RuleTable table = RuleTable.of(violations);
+        for (int id = 0; id < table.size(); ++id) {
+            for (long version = 1; version <= 25; ++version) {
+                assertThat(table.appliesTo(id, version)).isEqualTo(
+                        ModernizerClassVisitor.appliesTo(version,
+                                table.violation(id)));
+            }
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.ClassReader;
+
+public final class ScanCacheTest {
+    private Map<String, Collection<Violation>> violations;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        try (InputStream is = Modernizer.class.getResourceAsStream(
+                "/modernizer.xml")) {
+            violations = Modernizer.parseFromXml(is);
+        }
+    }
+
+    @Test
+    public void reusesViolationsOfIdenticalClasses(@TempDir Path dir)
+            throws Exception {
+        Path cacheDirectory = dir.resolve("scans");
+        Modernizer modernizer = newModernizer("8",
+                Collections.<String>emptySet());
+        byte[] legacy = TestClassFiles.legacyClass("com/example/Legacy",
+                /*suppressed=*/ false);
+        Collection<ViolationOccurrence> expected = modernizer.check(
+                new ClassReader(legacy));
+        assertThat(expected).hasSize(1);
+
+        ScanCache cache = new ScanCache(cacheDirectory,
+                modernizer.fingerprint(), Long.MAX_VALUE);
+        assertThat(cache.check(modernizer, legacy)).isEqualTo(expected);
+        // Another build with equal rules, e.g., of another branch.
+        Modernizer other = newModernizer("8", Collections.<String>emptySet());
+        ScanCache otherCache = new ScanCache(cacheDirectory,
+                other.fingerprint(), Long.MAX_VALUE);
+        assertThat(otherCache.check(other, legacy)).isEqualTo(expected);
+
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(otherCache.getHits()).isEqualTo(1);
+        assertThat(otherCache.getMisses()).isZero();
+        assertThat(entries(cacheDirectory)).hasSize(1);
+    }
+
+    @Test
+    public void storesCleanClassesAsEmptyShardedEntries(@TempDir Path dir)
+            throws Exception {
+        Modernizer modernizer = newModernizer("8",
+                Collections.<String>emptySet());
+        ScanCache cache = new ScanCache(dir, modernizer.fingerprint(),
+                Long.MAX_VALUE);
+        byte[] clean;
+        try (InputStream is = Modernizer.class.getResourceAsStream(
+                "Modernizer.class")) {
+            clean = Utils.readAllBytes(is);
+        }
+        assertThat(cache.check(modernizer, clean)).isEmpty();
+        assertThat(cache.check(modernizer, clean)).isEmpty();
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.getHits()).isEqualTo(1);
+
+        List<Path> entries = entries(dir);
+        assertThat(entries).hasSize(1);
+        assertThat(Files.size(entries.get(0))).isZero();
+        assertThat(dir.relativize(entries.get(0)).getNameCount())
+                .isEqualTo(2);
+        assertThat(entries.get(0).getParent().getFileName().toString())
+                .hasSize(2);
+    }
+
+    @Test
+    public void reportsHitsToListener(@TempDir Path dir) throws Exception {
+        CostReport costs = new CostReport();
+        Modernizer modernizer = newModernizer("8",
+                Collections.<String>emptySet()).withListener(costs);
+        ScanCache cache = new ScanCache(dir, modernizer.fingerprint(),
+                Long.MAX_VALUE);
+        byte[] legacy = TestClassFiles.legacyClass("com/example/Legacy",
+                /*suppressed=*/ false);
+        cache.check(modernizer, legacy);
+        cache.check(modernizer, legacy);
+        assertThat(cache.getHits()).isEqualTo(1);
+        List<CostReport.ClassCost> classes = costs.getSlowestClasses(10);
+        assertThat(classes).hasSize(2);
+        for (CostReport.ClassCost cost : classes) {
+            assertThat(cost.getClassName()).isEqualTo("com.example.Legacy");
+            assertThat(cost.getOccurrences()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void keysOnEffectiveRules(@TempDir Path dir) throws Exception {
+        byte[] fingerprint = newModernizer("8",
+                Collections.<String>emptySet()).fingerprint();
+        assertThat(newModernizer("1.8", Collections.<String>emptySet())
+                .fingerprint()).isEqualTo(fingerprint);
+        assertThat(newModernizer("11", Collections.<String>emptySet())
+                .fingerprint()).isNotEqualTo(fingerprint);
+
+        String token = "java/util/Vector.\"<init>\":()V";
+        Modernizer excluding = newModernizer("8",
+                Collections.singleton(token));
+        assertThat(excluding.fingerprint()).isNotEqualTo(fingerprint);
+        byte[] legacy = TestClassFiles.legacyClass("com/example/Legacy",
+                /*suppressed=*/ false);
+        Path cacheDirectory = dir.resolve("scans");
+        new ScanCache(cacheDirectory, fingerprint, Long.MAX_VALUE).check(
+                newModernizer("8", Collections.<String>emptySet()), legacy);
+        ScanCache cache = new ScanCache(cacheDirectory,
+                excluding.fingerprint(), Long.MAX_VALUE);
+        assertThat(cache.check(excluding, legacy)).isEmpty();
+        assertThat(cache.getMisses()).isEqualTo(1);
+
+        assertThat(newModernizer("8", Collections.<String>emptySet())
+                .withSupertypes(SupertypeIndex.of(
+                        new HashMap<String, String[]>()))
+                .fingerprint()).isNull();
+    }
+
+    @Test
+    public void checksIgnoredClassesDirectly(@TempDir Path dir)
+            throws Exception {
+        Modernizer modernizer = newModernizer("8",
+                Collections.<String>emptySet())
+                .withIgnoreClassNames(Collections.singleton(
+                        "com/example/Legacy"));
+        ScanCache cache = new ScanCache(dir, modernizer.fingerprint(),
+                Long.MAX_VALUE);
+        assertThat(cache.check(modernizer, TestClassFiles.legacyClass(
+                "com/example/Legacy", /*suppressed=*/ false))).isEmpty();
+        assertThat(cache.getHits() + cache.getMisses()).isZero();
+        assertThat(entries(dir)).isEmpty();
+    }
+
+    @Test
+    public void scansWhenCacheIsNotWritable(@TempDir Path dir)
+            throws Exception {
+        // A file in place of the directory fails every write.
+        Path cacheDirectory = dir.resolve("scans");
+        Files.write(cacheDirectory, new byte[0]);
+        Modernizer modernizer = newModernizer("8",
+                Collections.<String>emptySet());
+        ScanCache cache = new ScanCache(cacheDirectory,
+                modernizer.fingerprint(), Long.MAX_VALUE);
+        byte[] legacy = TestClassFiles.legacyClass("com/example/Legacy",
+                /*suppressed=*/ false);
+        assertThat(cache.check(modernizer, legacy)).hasSize(1);
+        assertThat(cache.check(modernizer, legacy)).hasSize(1);
+
+        assertThat(cache.getMisses()).isEqualTo(2);
+        assertThat(cache.getWriteFailures()).isEqualTo(2);
+        assertThat(cache.getWriteFailure()).isNotNull();
+        assertThat(cache.evict()).isZero();
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed(@TempDir Path dir) throws Exception {
+        Modernizer modernizer = newModernizer("8",
+                Collections.<String>emptySet());
+        ScanCache filling = new ScanCache(dir, modernizer.fingerprint(),
+                Long.MAX_VALUE);
+        for (int i = 0; i < 8; ++i) {
+            filling.check(modernizer, TestClassFiles.legacyClass(
+                    "com/example/Legacy" + i, /*suppressed=*/ false));
+        }
+        List<Path> entries = entries(dir);
+        assertThat(entries).hasSize(8);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < entries.size(); ++i) {
+            Files.setLastModifiedTime(entries.get(i),
+                    FileTime.fromMillis(now - 60_000L * (i + 1)));
+        }
+
+        // Entries are far smaller than a block but charged one each.
+        ScanCache cache = new ScanCache(dir, modernizer.fingerprint(),
+                4 * ScanCache.BLOCK_BYTES);
+        assertThat(cache.evict()).isEqualTo(5);
+        assertThat(entries(dir)).containsExactlyInAnyOrderElementsOf(
+                entries.subList(0, 3));
+        assertThat(cache.evict()).isZero();
+    }
+
+    private Modernizer newModernizer(String javaVersion,
+            Collection<String> exclusions) {
+        return new Modernizer(javaVersion, violations, exclusions,
+                Collections.<Pattern>emptySet(),
+                Collections.<String>emptySet(),
+                Collections.<String>emptySet(),
+                Collections.<Pattern>emptySet(),
+                /*ignoreGeneratedClasses=*/ true);
+    }
+
+    private static List<Path> entries(Path dir) throws Exception {
+        List<Path> entries = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return entries;
+        }
+        try (Stream<Path> stream = Files.walk(dir)) {
+            stream.filter(Files::isRegularFile).forEach(entries::add);
+        }
+        return entries;
+    }
+}
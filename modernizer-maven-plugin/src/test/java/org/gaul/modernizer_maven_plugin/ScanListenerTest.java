@@ -0,0 +1,177 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.gaul.modernizer_maven_plugin.SuppressModernizerTestClasses.SuppressedOnMembers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+
+public final class ScanListenerTest {
+    private static final String VECTOR_INIT = "java/util/Vector.\"<init>\":()V";
+
+    private Map<String, Collection<Violation>> violations;
+    private final RecordingListener listener = new RecordingListener();
+
+    /** Records each callback as a string. */
+    private static final class RecordingListener implements ScanListener {
+        private final List<String> events = new ArrayList<>();
+        private long elapsedNanos = -1;
+        private int tokensProbed = -1;
+
+        @Override
+        public synchronized void classStarted(String className,
+                int byteSize) {
+            events.add("start " + className + " " + byteSize);
+        }
+
+        @Override
+        public synchronized void classFinished(String className,
+                int byteSize, long elapsedNanos, int tokensProbed,
+                int occurrences) {
+            this.elapsedNanos = elapsedNanos;
+            this.tokensProbed = tokensProbed;
+            events.add("finish " + className + " " + byteSize + " " +
+                    occurrences);
+        }
+
+        @Override
+        public synchronized void classSkipped(String className,
+                SkipReason reason) {
+            events.add("skip " + className + " " + reason);
+        }
+
+        @Override
+        public synchronized void ruleHit(String className,
+                ViolationOccurrence occurrence) {
+            events.add("hit " + className + " " +
+                    occurrence.getViolation().getName());
+        }
+
+        @Override
+        public synchronized void suppressed(String className,
+                ViolationOccurrence occurrence, SuppressionReason reason) {
+            events.add("suppress " + className + " " + reason);
+        }
+    }
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        try (InputStream is = Modernizer.class.getResourceAsStream(
+                "/modernizer.xml")) {
+            violations = Modernizer.parseFromXml(is);
+        }
+    }
+
+    private Modernizer createModernizer(Collection<String> exclusions,
+            Collection<String> ignorePackages, Set<String> ignoreClassNames,
+            Collection<Pattern> ignoreClassNamePatterns) {
+        return new Modernizer("1.8", violations, exclusions,
+                Collections.<Pattern>emptySet(), ignorePackages,
+                ignoreClassNames, ignoreClassNamePatterns,
+                /*ignoreGeneratedClasses=*/ false).withListener(listener);
+    }
+
+    private Modernizer createModernizer() {
+        return createModernizer(Collections.<String>emptySet(),
+                Collections.<String>emptySet(),
+                Collections.<String>emptySet(),
+                Collections.<Pattern>emptySet());
+    }
+
+    @Test
+    public void reportsClassTimingAndRuleHits() {
+        byte[] bytes = TestClassFiles.legacyClass("a/Legacy", false);
+        Collection<ViolationOccurrence> occurrences =
+                createModernizer().check(new ClassReader(bytes));
+
+        assertThat(occurrences).hasSize(1);
+        assertThat(listener.events).containsExactly(
+                "start a/Legacy " + bytes.length,
+                "hit a/Legacy " + VECTOR_INIT,
+                "finish a/Legacy " + bytes.length + " 1");
+        assertThat(listener.elapsedNanos).isNotNegative();
+        assertThat(listener.tokensProbed).isEqualTo(2);
+    }
+
+    @Test
+    public void reportsSkipReasons() {
+        Modernizer modernizer = createModernizer(
+                Collections.<String>emptySet(),
+                Collections.<String>emptySet(),
+                Collections.singleton("a/ByName"),
+                Collections.singleton(Pattern.compile("a/ByPattern")));
+        modernizer.check(new ClassReader(
+                TestClassFiles.legacyClass("a/ByName", false)));
+        modernizer.check(new ClassReader(
+                TestClassFiles.legacyClass("a/ByPattern", false)));
+
+        assertThat(listener.events)
+                .contains("skip a/ByName IGNORED_CLASS_NAME",
+                        "skip a/ByPattern IGNORED_CLASS_PATTERN")
+                .noneMatch(event -> event.startsWith("hit "));
+    }
+
+    @Test
+    public void reportsSuppressionReasons() throws Exception {
+        createModernizer(Collections.singleton(VECTOR_INIT),
+                Collections.<String>emptySet(),
+                Collections.<String>emptySet(),
+                Collections.<Pattern>emptySet())
+                .check(new ClassReader(
+                        TestClassFiles.legacyClass("a/Excluded", false)));
+        createModernizer(Collections.<String>emptySet(),
+                Collections.singleton("b"),
+                Collections.<String>emptySet(),
+                Collections.<Pattern>emptySet())
+                .check(new ClassReader(
+                        TestClassFiles.legacyClass("b/c/Ignored", false)));
+        String annotated = SuppressedOnMembers.class.getName()
+                .replace('.', '/');
+        createModernizer().check(new ClassReader(
+                SuppressedOnMembers.class.getName()));
+
+        assertThat(listener.events)
+                .contains("suppress a/Excluded EXCLUSION",
+                        "suppress b/c/Ignored IGNORED_PACKAGE",
+                        "suppress " + annotated + " ANNOTATION")
+                .noneMatch(event -> event.startsWith("hit "));
+    }
+
+    @Test
+    public void listenerDoesNotChangeResults() throws Exception {
+        Modernizer modernizer = createModernizer();
+        Modernizer unobserved = modernizer.withListener(null);
+        ClassReader classReader = new ClassReader(
+                TestClassFiles.legacyClass("a/Legacy", false));
+
+        assertThat(unobserved.check(classReader))
+                .isEqualTo(modernizer.check(classReader));
+        assertThat(listener.events).hasSize(3);
+    }
+}
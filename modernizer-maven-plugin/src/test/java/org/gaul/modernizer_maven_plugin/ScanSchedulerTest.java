@@ -0,0 +1,212 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public final class ScanSchedulerTest {
+    private static List<Integer> range(int count) {
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            list.add(i);
+        }
+        return list;
+    }
+
+    @Test
+    public void preservesInputOrder() throws Exception {
+        ScanScheduler scheduler = new ScanScheduler(/*parallelism=*/ 4,
+                /*handoffNanos=*/ 0);
+        assertThat(scheduler.map(range(1000), i -> i * 2))
+                .isEqualTo(scheduler.map(range(1000), i -> i * 2))
+                .startsWith(0, 2, 4)
+                .hasSize(1000);
+    }
+
+    @Test
+    public void runsSmallJobsOnCallingThread() throws Exception {
+        ScanScheduler scheduler = new ScanScheduler(/*parallelism=*/ 4,
+                /*handoffNanos=*/ TimeUnit.SECONDS.toNanos(10));
+        Thread caller = Thread.currentThread();
+        assertThat(scheduler.map(range(9),
+                i -> Thread.currentThread() == caller))
+                .containsOnly(true);
+    }
+
+    @Test
+    public void handsOffJobsOnceTasksAreMeasuredSlow() throws Exception {
+        ScanScheduler scheduler = new ScanScheduler(/*parallelism=*/ 2,
+                /*handoffNanos=*/ TimeUnit.MILLISECONDS.toNanos(1));
+        Thread caller = Thread.currentThread();
+        // 10 tasks are well below the initial estimate of 64 per handoff.
+        assertThat(scheduler.map(range(10), i -> {
+            sleep(2);
+            return Thread.currentThread() == caller;
+        })).containsOnly(true);
+        // Tasks measured at 2 ms make the same job worth handing off.
+        assertThat(scheduler.map(range(10),
+                i -> Thread.currentThread() == caller))
+                .containsOnly(false);
+    }
+
+    @Test
+    public void countsInlineJobsAgainstParallelism() throws Exception {
+        ScanScheduler scheduler = new ScanScheduler(/*parallelism=*/ 1,
+                /*handoffNanos=*/ TimeUnit.SECONDS.toNanos(10));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<Integer>> first = executor.submit(() ->
+                    scheduler.map(range(1), i -> {
+                        started.countDown();
+                        await(release);
+                        return i;
+                    }));
+            started.await();
+            // The first job holds the only slot, so the second queues
+            // instead of running inline beside it.
+            Future<List<Integer>> second = executor.submit(() ->
+                    scheduler.map(range(1), i -> i));
+            while (scheduler.getQueuedJobs() < 1) {
+                Thread.sleep(1);
+            }
+            assertThat(second.isDone()).isFalse();
+            release.countDown();
+            assertThat(first.get(10, TimeUnit.SECONDS)).containsExactly(0);
+            assertThat(second.get(10, TimeUnit.SECONDS)).containsExactly(0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void passesResultsBeforeLaterTasksComplete() throws Exception {
+        ScanScheduler scheduler = new ScanScheduler(/*parallelism=*/ 2,
+                /*handoffNanos=*/ 0);
+        CountDownLatch firstPassed = new CountDownLatch(1);
+        List<Integer> passed = new ArrayList<>();
+        // The last task waits for the sink to see the first result.
+        scheduler.forEachOrdered(range(3), i -> {
+            if (i == 2) {
+                try {
+                    return firstPassed.await(10, TimeUnit.SECONDS) ? i : -1;
+                } catch (InterruptedException ie) {
+                    throw new AssertionError(ie);
+                }
+            }
+            return i;
+        }, (input, result) -> {
+            passed.add(result);
+            firstPassed.countDown();
+        });
+        assertThat(passed).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    public void propagatesSinkFailure() {
+        ScanScheduler scheduler = new ScanScheduler(/*parallelism=*/ 2,
+                /*handoffNanos=*/ 0);
+        assertThatThrownBy(() -> scheduler.forEachOrdered(range(100),
+                i -> i, (input, result) -> {
+                    throw new IllegalStateException("bad sink");
+                }))
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseMessage("bad sink");
+    }
+
+    @Test
+    public void propagatesFailure() {
+        ScanScheduler scheduler = new ScanScheduler(/*parallelism=*/ 2,
+                /*handoffNanos=*/ 0);
+        assertThatThrownBy(() -> scheduler.map(range(100), i -> {
+            if (i == 50) {
+                throw new IllegalStateException("bad class");
+            }
+            return i;
+        }))
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseMessage("bad class");
+    }
+
+    @Test
+    public void interleavesConcurrentJobs() throws Exception {
+        ScanScheduler scheduler = new ScanScheduler(/*parallelism=*/ 1,
+                /*handoffNanos=*/ 0);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<Integer>> large = executor.submit(() ->
+                    scheduler.map(range(200), i -> {
+                        if (i == 0) {
+                            started.countDown();
+                            await(release);
+                        }
+                        order.add("large");
+                        return i;
+                    }));
+            started.await();
+            Future<List<Integer>> small = executor.submit(() ->
+                    scheduler.map(range(5), i -> {
+                        order.add("small");
+                        return i;
+                    }));
+            while (scheduler.getQueuedJobs() < 2) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+            assertThat(small.get(10, TimeUnit.SECONDS)).hasSize(5);
+            assertThat(large.get(10, TimeUnit.SECONDS)).hasSize(200);
+        } finally {
+            executor.shutdownNow();
+        }
+        // the single worker alternates between the jobs, so the small job
+        // finishes long before the large job drains
+        assertThat(order.lastIndexOf("small")).isLessThan(12);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
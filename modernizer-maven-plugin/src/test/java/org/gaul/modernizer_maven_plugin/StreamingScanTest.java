@@ -0,0 +1,262 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public final class StreamingScanTest {
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private Modernizer modernizer;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        try (InputStream is = Modernizer.class.getResourceAsStream(
+                "/modernizer.xml")) {
+            modernizer = new Modernizer("1.8", Modernizer.parseFromXml(is),
+                    Collections.<String>emptySet(),
+                    Collections.<Pattern>emptySet(),
+                    Collections.<String>emptySet(),
+                    Collections.<String>emptySet(),
+                    Collections.<Pattern>emptySet(),
+                    /*ignoreGeneratedClasses=*/ false);
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /** Records the signals it receives, requesting a fixed batch at once. */
+    private static class RecordingSubscriber
+            implements ScanFlow.Subscriber<ClassScanResult> {
+        private final long initialRequest;
+        private final List<ClassScanResult> items = new ArrayList<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        volatile ScanFlow.Subscription subscription;
+        private volatile Throwable error;
+        private volatile boolean completed;
+
+        RecordingSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(ScanFlow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(initialRequest);
+        }
+
+        @Override
+        public void onNext(ClassScanResult item) {
+            synchronized (items) {
+                items.add(item);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            done.countDown();
+        }
+
+        List<String> names() {
+            List<String> names = new ArrayList<>();
+            synchronized (items) {
+                for (ClassScanResult item : items) {
+                    names.add(item.getSource().getName());
+                }
+            }
+            return names;
+        }
+
+        void await() throws InterruptedException {
+            assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        }
+    }
+
+    /** Counts the sources handed out by each iteration. */
+    private static final class CountingSources
+            implements Iterable<ClassSource> {
+        private final AtomicInteger pulled = new AtomicInteger();
+        private final int count;
+
+        CountingSources(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public Iterator<ClassSource> iterator() {
+            return new Iterator<ClassSource>() {
+                private int index;
+
+                @Override
+                public boolean hasNext() {
+                    return index < count;
+                }
+
+                @Override
+                public ClassSource next() {
+                    pulled.incrementAndGet();
+                    String name = "Legacy" + index++;
+                    return ClassSource.of(name,
+                            TestClassFiles.legacyClass(name, false));
+                }
+            };
+        }
+    }
+
+    @Test
+    public void deliversWalkInOrderAndSuppressesNestedClasses(
+            @TempDir Path dir) throws Exception {
+        TestClassFiles.writeLegacyClass(dir, "a/Outer$Inner", false);
+        TestClassFiles.writeLegacyClass(dir, "a/Outer", true);
+        TestClassFiles.writeLegacyClass(dir, "a/Other", false);
+        TestClassFiles.writeLegacyClass(dir, "b/Legacy", false);
+
+        RecordingSubscriber subscriber = new RecordingSubscriber(
+                Long.MAX_VALUE);
+        modernizer.publish(ClassSource.walk(dir), executor)
+                .subscribe(subscriber);
+        subscriber.await();
+
+        assertThat(subscriber.completed).isTrue();
+        assertThat(subscriber.names()).containsExactly(
+                dir.resolve("a/Other.class").toString(),
+                dir.resolve("a/Outer.class").toString(),
+                dir.resolve("a/Outer$Inner.class").toString(),
+                dir.resolve("b/Legacy.class").toString());
+        assertThat(subscriber.items.get(0).getOccurrences()).hasSize(1);
+        assertThat(subscriber.items.get(1).getOccurrences()).isEmpty();
+        assertThat(subscriber.items.get(2).getOccurrences()).isEmpty();
+        assertThat(subscriber.items.get(3).getOccurrences()).hasSize(1);
+    }
+
+    @Test
+    public void readsOnlyWhatSubscriberRequests() throws Exception {
+        CountingSources sources = new CountingSources(100);
+        RecordingSubscriber subscriber = new RecordingSubscriber(3);
+        // run inline so that the scan is idle when subscribe returns
+        modernizer.publish(sources, Runnable::run, /*maxInFlight=*/ 8)
+                .subscribe(subscriber);
+        assertThat(subscriber.names()).hasSize(3);
+        assertThat(sources.pulled.get()).isEqualTo(3);
+
+        subscriber.subscription.request(2);
+        assertThat(subscriber.names()).hasSize(5);
+        assertThat(sources.pulled.get()).isEqualTo(5);
+    }
+
+    @Test
+    public void boundsReadAheadByWindow() throws Exception {
+        CountingSources sources = new CountingSources(100);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService blocked = Executors.newSingleThreadExecutor();
+        try {
+            blocked.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            RecordingSubscriber subscriber = new RecordingSubscriber(
+                    Long.MAX_VALUE);
+            modernizer.publish(sources, blocked, /*maxInFlight=*/ 4)
+                    .subscribe(subscriber);
+            assertThat(sources.pulled.get()).isEqualTo(4);
+
+            release.countDown();
+            subscriber.await();
+            assertThat(subscriber.names()).hasSize(100);
+        } finally {
+            blocked.shutdownNow();
+        }
+    }
+
+    @Test
+    public void cancelStopsIteration() throws Exception {
+        CountingSources sources = new CountingSources(100);
+        RecordingSubscriber subscriber = new RecordingSubscriber(1) {
+            @Override
+            public void onNext(ClassScanResult item) {
+                super.onNext(item);
+                subscription.cancel();
+                subscription.request(10);
+            }
+        };
+        modernizer.publish(sources, Runnable::run).subscribe(subscriber);
+        assertThat(subscriber.names()).hasSize(1);
+        assertThat(sources.pulled.get()).isEqualTo(1);
+        assertThat(subscriber.completed).isFalse();
+        assertThat(subscriber.error).isNull();
+    }
+
+    @Test
+    public void reportsReadFailureAfterEarlierClasses(@TempDir Path dir)
+            throws Exception {
+        List<ClassSource> sources = new ArrayList<>();
+        sources.add(ClassSource.of("Legacy",
+                TestClassFiles.legacyClass("Legacy", false)));
+        sources.add(ClassSource.of(dir.resolve("Missing.class")));
+        sources.add(ClassSource.of("Later",
+                TestClassFiles.legacyClass("Later", false)));
+
+        RecordingSubscriber subscriber = new RecordingSubscriber(
+                Long.MAX_VALUE);
+        modernizer.publish(sources, executor).subscribe(subscriber);
+        subscriber.await();
+
+        assertThat(subscriber.names()).containsExactly("Legacy");
+        assertThat(subscriber.error).isInstanceOf(NoSuchFileException.class);
+    }
+
+    @Test
+    public void rejectsNonPositiveRequest() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        modernizer.publish(new CountingSources(1), executor)
+                .subscribe(subscriber);
+        subscriber.await();
+        assertThat(subscriber.error)
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Stack;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.gaul.modernizer_maven_annotations.SuppressModernizer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+public final class SupertypeIndexTest {
+    @Test
+    public void resolvesClasspathAndJdk(@TempDir Path dir) throws Exception {
+        Path cache = dir.resolve("cache");
+        Path classes = dir.resolve("classes");
+        Path jar = dir.resolve("base.jar");
+        writeJar(jar, "b/Base", "java/util/Vector");
+        Path child = classes.resolve("c/Child.class");
+        Files.createDirectories(child.getParent());
+        Files.write(child, classFile("c/Child", "b/Base",
+                "java/lang/Runnable"));
+
+        SupertypeIndex index = SupertypeIndex.load(cache,
+                Arrays.asList(classes, jar, dir.resolve("missing.jar")));
+        assertThat(index.supertypes("c/Child")).containsSubsequence(
+                "b/Base", "java/lang/Runnable", "java/util/Vector",
+                "java/util/AbstractList", "java/util/Collection");
+        assertThat(index.directSupertypes("java/util/Stack"))
+                .containsExactly("java/util/Vector");
+        assertThat(index.supertypes("d/Unknown")).isEmpty();
+        assertThat(tables(cache)).hasSize(1);
+    }
+
+    @Test
+    public void reusesTableUntilJarChanges(@TempDir Path dir)
+            throws Exception {
+        Path cache = dir.resolve("cache");
+        Path jar = dir.resolve("base.jar");
+        writeJar(jar, "b/Base", "java/util/Vector");
+        SupertypeIndex.load(cache, Collections.singletonList(jar));
+        Path table = tables(cache).get(0);
+        FileTime written = Files.getLastModifiedTime(table);
+
+        SupertypeIndex index = SupertypeIndex.load(cache,
+                Collections.singletonList(jar));
+        assertThat(tables(cache)).containsExactly(table);
+        assertThat(Files.getLastModifiedTime(table)).isEqualTo(written);
+        assertThat(index.directSupertypes("b/Base"))
+                .containsExactly("java/util/Vector");
+
+        writeJar(jar, "b/Base", "java/util/Hashtable");
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(
+                written.toMillis() + 60_000));
+        index = SupertypeIndex.load(cache, Collections.singletonList(jar));
+        assertThat(tables(cache)).hasSize(2);
+        assertThat(index.directSupertypes("b/Base"))
+                .containsExactly("java/util/Hashtable");
+    }
+
+    @Test
+    public void distinguishesHashCollisions() {
+        // "Aa" and "BB" share a hash code.
+        Map<String, String[]> supertypes = new HashMap<>();
+        supertypes.put("Aa", new String[] {"BB"});
+        supertypes.put("BB", new String[] {"Aaé", "C"});
+        SupertypeIndex index = SupertypeIndex.of(supertypes);
+        assertThat(index.directSupertypes("Aa")).containsExactly("BB");
+        assertThat(index.supertypes("Aa")).containsExactly("BB", "Aaé",
+                "C");
+        assertThat(index.directSupertypes("C")).isEmpty();
+        assertThat(index.directSupertypes("Ab")).isEmpty();
+    }
+
+    @Test
+    public void reportsMembersInheritedFromRuledTypes() throws Exception {
+        String token = "java/util/Vector.addElement:(Ljava/lang/Object;)V";
+        String constructor = "java/util/Vector.\"<init>\":()V";
+        Map<String, Collection<Violation>> rules = new HashMap<>();
+        for (String name : new String[] {token, constructor}) {
+            rules.put(name, Collections.singletonList(new Violation(name,
+                    /*version=*/ 2, OptionalInt.empty(), "comment")));
+        }
+        Modernizer modernizer = new Modernizer("8", rules,
+                Collections.<String>emptySet(),
+                Collections.<Pattern>emptySet(),
+                Collections.<String>emptySet(),
+                Collections.<String>emptySet(),
+                Collections.<Pattern>emptySet(),
+                /*ignoreGeneratedClasses=*/ true);
+        Map<String, String[]> supertypes = new HashMap<>();
+        supertypes.put("java/util/Stack", new String[] {"java/util/Vector"});
+        ClassReader reader = new ClassReader(StackUser.class.getName());
+
+        assertThat(modernizer.check(reader)).isEmpty();
+        Collection<ViolationOccurrence> occurrences = modernizer
+                .withSupertypes(SupertypeIndex.of(supertypes))
+                .check(reader);
+        assertThat(occurrences).hasSize(1);
+        assertThat(occurrences.iterator().next().getViolation().getName())
+                .isEqualTo(token);
+    }
+
+    @Test
+    public void inheritsOnlyRulesForDeclaredMembers() throws Exception {
+        // Stack declares push, so wildcards on Vector must not match it.
+        String token = "java/util/Vector.addElement:(Ljava/lang/Object;)V";
+        Map<String, Collection<Violation>> rules = new HashMap<>();
+        for (String name : new String[] {token, "java/util/Vector.*",
+                "java/util/Vector.push:*"}) {
+            rules.put(name, Collections.singletonList(new Violation(name,
+                    /*version=*/ 2, OptionalInt.empty(), "comment")));
+        }
+        Modernizer modernizer = new Modernizer("8", rules,
+                Collections.<String>emptySet(),
+                Collections.<Pattern>emptySet(),
+                Collections.<String>emptySet(),
+                Collections.<String>emptySet(),
+                Collections.<Pattern>emptySet(),
+                /*ignoreGeneratedClasses=*/ true);
+        Map<String, String[]> supertypes = new HashMap<>();
+        supertypes.put("java/util/Stack", new String[] {"java/util/Vector"});
+        ClassReader reader = new ClassReader(StackUser.class.getName());
+
+        Collection<ViolationOccurrence> occurrences = modernizer
+                .withSupertypes(SupertypeIndex.of(supertypes))
+                .check(reader);
+        assertThat(occurrences).hasSize(1);
+        assertThat(occurrences.iterator().next().getViolation().getName())
+                .isEqualTo(token);
+    }
+
+    @Test
+    public void prunesRulesForMissingOwners() throws Exception {
+        Map<String, Collection<Violation>> rules;
+        try (InputStream is = Modernizer.class.getResourceAsStream(
+                "/modernizer.xml")) {
+            rules = Modernizer.parseFromXml(is);
+        }
+        Modernizer modernizer = new Modernizer("8", rules,
+                Collections.<String>emptySet(),
+                Collections.<Pattern>emptySet(),
+                Collections.<String>emptySet(),
+                Collections.<String>emptySet(),
+                Collections.<Pattern>emptySet(),
+                /*ignoreGeneratedClasses=*/ true);
+        Map<String, String[]> supertypes = new HashMap<>();
+        supertypes.put("java/util/Stack", new String[] {"java/util/Vector"});
+        Modernizer pruned = modernizer.withReachableRules(
+                SupertypeIndex.of(supertypes));
+
+        assertThat(pruned.getRuleCount()).isPositive()
+                .isLessThan(modernizer.getRuleCount() / 10);
+        ClassReader reader = new ClassReader(StackUser.class.getName());
+        assertThat(pruned.check(reader))
+                .isEqualTo(modernizer.check(reader))
+                .isNotEmpty();
+        assertThat(pruned.check("a/B", "java/util/Vector.\"<init>\":()V"))
+                .isNotEmpty();
+        assertThat(pruned.check("a/B", "com/google/common/base/Objects." +
+                "equal:(Ljava/lang/Object;Ljava/lang/Object;)Z")).isEmpty();
+    }
+
+    @SuppressModernizer
+    private static final class StackUser {
+        @SuppressWarnings({"JdkObsolete", "unused"})
+        void use(Stack<Object> stack) {
+            stack.addElement(new Object());
+            new Stack<Object>().push(stack);
+        }
+    }
+
+    private static byte[] classFile(String name, String superName,
+            String... interfaces) {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, name, null, superName,
+                interfaces);
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static void writeJar(Path jar, String name, String superName)
+            throws Exception {
+        try (OutputStream os = Files.newOutputStream(jar);
+                ZipOutputStream zip = new ZipOutputStream(os)) {
+            zip.putNextEntry(new ZipEntry(name + ".class"));
+            zip.write(classFile(name, superName));
+            zip.closeEntry();
+        }
+    }
+
+    private static List<Path> tables(Path cache) throws Exception {
+        List<Path> tables = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(cache)) {
+            for (Path path : stream) {
+                tables.add(path);
+            }
+        }
+        return tables;
+    }
+}
@@ -27,6 +27,9 @@ import org.gaul.modernizer_maven_plugin.SuppressModernizerTestClasses.Suppressed
 import org.gaul.modernizer_maven_plugin.SuppressModernizerTestClasses.SuppressedOnLocalAnonymousInnerClass;
 import org.gaul.modernizer_maven_plugin.SuppressModernizerTestClasses.SuppressedOnMembers;
 import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
 
 public final class SuppressModernizerAnnotationDetectorTest {
 
@@ -62,4 +65,36 @@ public final class SuppressModernizerAnnotationDetectorTest {
                 .getName().replace('.', '/')
         );
     }
+
+    @Test
+    public void itScreensConstantPoolForMarker() {
+        AnnotationDetector detector =
+                SuppressModernizerAnnotationDetector.newDetector();
+        // Mentions the marker only in a string constant.
+        detector.scan(new ClassReader(markerClass("a/Mentions",
+                /*annotated=*/ false)));
+        detector.scan(new ClassReader(markerClass("a/Annotated",
+                /*annotated=*/ true)));
+        detector.scan(new ClassReader(markerClass("a/Annotated$Inner",
+                /*annotated=*/ false)));
+
+        assertThat(new TreeSet<>(detector.computeSuppressedClassNames()))
+                .containsExactly("a/Annotated", "a/Annotated$Inner");
+    }
+
+    private static byte[] markerClass(String name, boolean annotated) {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, name, null,
+                "java/lang/Object", null);
+        // Long constants occupy two constant pool slots.
+        cw.newConst(Long.MAX_VALUE);
+        if (annotated) {
+            cw.visitAnnotation("Lb/SuppressModernizer;", /*visible=*/ false)
+                    .visitEnd();
+        } else {
+            cw.newConst("Lb/SuppressModernizer;");
+        }
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
 }
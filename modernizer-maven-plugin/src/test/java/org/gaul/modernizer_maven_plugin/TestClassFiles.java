@@ -0,0 +1,78 @@
+/*
+ * Copyright 2014-2026 Andrew Gaul <andrew@gaul.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gaul.modernizer_maven_plugin;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Generates class files on the fly for tests which need classes on disk that
+ * the build's own Modernizer execution would otherwise reject.
+ */
+final class TestClassFiles {
+    private TestClassFiles() {
+        throw new AssertionError("Intentionally not implemented");
+    }
+
+    /**
+     * Generates a class whose constructor instantiates java.util.Vector on
+     * line 1, optionally annotated with {@code @SuppressModernizer}.
+     */
+    static byte[] legacyClass(String internalName, boolean suppressed) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, internalName, null,
+                "java/lang/Object", null);
+        if (suppressed) {
+            cw.visitAnnotation("Lorg/gaul/modernizer_maven_annotations/" +
+                    "SuppressModernizer;", false).visitEnd();
+        }
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V",
+                null, null);
+        mv.visitCode();
+        Label label = new Label();
+        mv.visitLabel(label);
+        mv.visitLineNumber(1, label);
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object",
+                "<init>", "()V", false);
+        mv.visitTypeInsn(Opcodes.NEW, "java/util/Vector");
+        mv.visitInsn(Opcodes.DUP);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/util/Vector",
+                "<init>", "()V", false);
+        mv.visitInsn(Opcodes.POP);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    /** Writes {@link #legacyClass} below root and returns its path. */
+    static Path writeLegacyClass(Path root, String internalName,
+            boolean suppressed) throws IOException {
+        Path path = root.resolve(internalName + ".class");
+        Files.createDirectories(path.getParent());
+        Files.write(path, legacyClass(internalName, suppressed));
+        return path;
+    }
+}